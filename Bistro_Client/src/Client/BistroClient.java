@@ -1,5 +1,16 @@
 package Client;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import common.Envelope;
+import common.KryoMessage;
+import common.KryoUtil;
 import javafx.application.Platform;
 import ocsf.client.AbstractClient;
 /**
@@ -9,10 +20,32 @@ import ocsf.client.AbstractClient;
  * managing the connection to the server and forwarding connection
  * events and messages to the client UI.
  * </p>
+ * <p>
+ * Requests sent with {@link #request(Envelope)} are matched to their reply by request id
+ * (the server echoes it), so any number of them can be in flight at once and replies may
+ * arrive in any order. Replies nobody waits for (pushes, fire-and-forget requests) go to
+ * the UI as before.
+ * </p>
+ * <p>
+ * Incoming messages are decoded and delivered on one background receive thread (in
+ * arrival order), not on the JavaFX thread: receivers prepare their data there and post
+ * only the final UI change with {@code Platform.runLater} (or {@link FxUpdates}).
+ * </p>
  */
 public class BistroClient extends AbstractClient {
 
-    private ClientUI ui;
+    /** Time a {@link #request(Envelope)} waits for its reply by default (ms). */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000L;
+
+    private volatile ClientUI ui;
+    /** Decodes and delivers incoming messages, one at a time in arrival order */
+    private final ExecutorService receiver = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "client-receive");
+        t.setDaemon(true);
+        return t;
+    });
+    /** Requests waiting for their reply: request id -> future */
+    private final Map<String, CompletableFuture<Envelope>> pending = new ConcurrentHashMap<>();
     /**
      * Creates a new BistroClient and initializes the connection parameters.
      *
@@ -34,6 +67,54 @@ public class BistroClient extends AbstractClient {
     public void setUI(ClientUI ui) {
         this.ui = ui;
     }
+    /**
+     * Sends a request and returns a future completed with its reply
+     * (waits {@link #DEFAULT_TIMEOUT_MILLIS}).
+     *
+     * @param req request envelope
+     * @return reply future (see {@link #request(Envelope, long)})
+     */
+    public CompletableFuture<Envelope> request(Envelope req) {
+        return request(req, DEFAULT_TIMEOUT_MILLIS);
+    }
+    /**
+     * Sends a request and returns a future completed with its reply.
+     * <p>
+     * The future completes on the network thread; UI code should continue with
+     * {@code whenCompleteAsync(..., Platform::runLater)}. It fails with a
+     * {@link java.util.concurrent.TimeoutException} if no reply arrives in time, and with
+     * an {@link IOException} if the request cannot be sent or the connection closes.
+     * Error replies ({@code !isOk()}) complete it normally.
+     * </p>
+     *
+     * @param req           request envelope (its request id is the correlation key)
+     * @param timeoutMillis time to wait for the reply
+     * @return reply future
+     */
+    public CompletableFuture<Envelope> request(Envelope req, long timeoutMillis) {
+        CompletableFuture<Envelope> future = new CompletableFuture<>();
+        String id = req.getRequestId();
+        pending.put(id, future);
+        future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+              .whenComplete((r, e) -> pending.remove(id, future));
+        try {
+            sendToServer(new KryoMessage("ENVELOPE", KryoUtil.toBytes(req)));
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    /**
+     * Fails every request still waiting for a reply (the connection is gone).
+     *
+     * @param reason cause given to the futures
+     */
+    private void failPending(String reason) {
+        IOException e = new IOException(reason);
+        for (CompletableFuture<Envelope> f : pending.values()) {
+            f.completeExceptionally(e);
+        }
+    }
     /**
      * Called automatically when a connection to the server is established.
      * Notifies the UI on the JavaFX Application Thread.
@@ -48,6 +129,7 @@ public class BistroClient extends AbstractClient {
      */
     @Override
     protected void connectionClosed() {
+        receiver.execute(() -> failPending("Connection closed."));
         Platform.runLater(() -> { if (ui != null) ui.onDisconnected(); });
     }
     /**
@@ -58,22 +140,56 @@ public class BistroClient extends AbstractClient {
      */
     @Override
     protected void connectionException(Exception exception) {
+        receiver.execute(() -> failPending("Connection error: " + exception.getMessage()));
         Platform.runLater(() -> { if (ui != null) ui.onConnectionError(exception); });
     }
 
     /**
-     * Handles messages received from the server and forwards them to the UI.
+     * Hands a message received from the server to the receive thread, so the socket
+     * reader goes straight back to reading.
      *
      * @param msg the message received from the server
      */
-@Override
-protected void handleMessageFromServer(Object msg) {
-    Platform.runLater(() -> {
-        if (ui != null) {
-            ui.handleServerMessage(msg);
+    @Override
+    protected void handleMessageFromServer(Object msg) {
+        receiver.execute(() -> deliver(msg));
+    }
+    /**
+     * Receive thread: a reply to a pending {@link #request(Envelope)} completes its future,
+     * anything else is passed (decoded) to the UI receiver.
+     *
+     * @param msg the message received from the server
+     */
+    private void deliver(Object msg) {
+        Object forward = msg;
+        Envelope env = decode(msg);
+        if (env != null) {
+            CompletableFuture<Envelope> waiting = (env.getRequestId() != null) ? pending.remove(env.getRequestId()) : null;
+            if (waiting != null) {
+                waiting.complete(env);
+                return;
+            }
+            forward = env;   // the UI receivers accept a decoded Envelope as well
         }
-    });
-}
+        ClientUI target = ui;
+        if (target != null) {
+            target.handleServerMessage(forward);
+        }
+    }
+    /**
+     * @param msg message from the server
+     * @return the envelope it carries, or null if it is not an envelope
+     */
+    private static Envelope decode(Object msg) {
+        try {
+            if (msg instanceof Envelope e) return e;
+            if (msg instanceof KryoMessage km && "ENVELOPE".equals(km.getType())
+                    && KryoUtil.fromBytes(km.getPayload()) instanceof Envelope e) {
+                return e;
+            }
+        } catch (Exception ignored) {}
+        return null;
+    }
 
     
 }
@@ -1,4 +1,12 @@
 package Client;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import common.Envelope;
+
 /**
  * Manages the client-side session state for the Bistro application.
  * <p>
@@ -107,6 +115,30 @@ public class ClientSession {
     public static BistroClient getClient() {
         return client;
     }
+    /**
+     * Sends a request on the shared connection and returns a future completed with its
+     * reply (see {@link BistroClient#request(Envelope, long)}).
+     *
+     * @param req request envelope
+     * @return reply future; already failed if there is no open connection
+     */
+    public static CompletableFuture<Envelope> request(Envelope req) {
+        if (client == null || !client.isConnected()) {
+            return CompletableFuture.failedFuture(new IOException("Not connected to server."));
+        }
+        return client.request(req);
+    }
+    /**
+     * Turns a failed {@link #request(Envelope)} into a message for the user.
+     *
+     * @param error failure of the reply future
+     * @return short description
+     */
+    public static String describeFailure(Throwable error) {
+        Throwable e = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+        if (e instanceof TimeoutException) return "Server did not reply in time.";
+        return (e.getMessage() != null) ? e.getMessage() : e.toString();
+    }
     /**
      * Sets the current user role.
      *
@@ -23,8 +23,13 @@ public interface ClientUI {
     void onConnectionError(Exception e);
     /**
      * Handles a message received from the server.
+     * <p>
+     * Called on the client's background receive thread, not on the JavaFX thread:
+     * heavy work (mapping lists to row models) can be done here, and UI changes must be
+     * posted with {@code Platform.runLater} or {@link FxUpdates}.
+     * </p>
      *
-     * @param msg the raw message object sent by the server
+     * @param msg the message sent by the server (already decoded to an Envelope when possible)
      */
     void handleServerMessage(Object msg);
 }
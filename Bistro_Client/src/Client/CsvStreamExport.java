@@ -0,0 +1,127 @@
+package Client;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+import common.dto.StreamChunkDTO;
+
+/**
+ * Writes a streamed server export ({@link StreamChunkDTO} frames) to a CSV file.
+ * <p>
+ * Each chunk is appended to the file as soon as it arrives, so the client never holds
+ * more than one chunk in memory. Chunks are matched by the request id of the export
+ * request and must arrive in sequence; a gap or an error chunk aborts the export.
+ * Chunks are written on the client receive thread; {@link #cancel()} may come from the
+ * FX thread, so the methods are synchronized.
+ * </p>
+ */
+public class CsvStreamExport {
+
+    private final String requestId;
+    private final Path file;
+    private final Function<Object, List<String>> toColumns;
+    private final BufferedWriter out;
+    private int nextSeq;
+    private long rows;
+    private String error;
+    private boolean done;
+
+    /**
+     * Creates (or truncates) the file and writes the header line.
+     *
+     * @param file      target file
+     * @param requestId request id of the export request
+     * @param header    column names
+     * @param toColumns converts one row DTO to its column values (same order as the header)
+     * @throws IOException if the file cannot be written
+     */
+    public CsvStreamExport(Path file, String requestId, List<String> header,
+                           Function<Object, List<String>> toColumns) throws IOException {
+        this.file = file;
+        this.requestId = requestId;
+        this.toColumns = toColumns;
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writeLine(header);
+    }
+
+    /**
+     * @param chunk received chunk
+     * @return true if the chunk belongs to this export
+     */
+    public boolean matches(StreamChunkDTO chunk) {
+        return chunk != null && requestId != null && requestId.equals(chunk.getRequestId());
+    }
+
+    /**
+     * Appends the rows of a chunk. Closes the file on the last chunk or on an error.
+     *
+     * @param chunk next chunk of this export
+     * @return true when the export is finished (see {@link #getError()})
+     */
+    public synchronized boolean accept(StreamChunkDTO chunk) {
+        if (done) return true;
+        try {
+            if (chunk.getSeq() != nextSeq) {
+                return finish("Export interrupted (chunk " + nextSeq + " missing).");
+            }
+            nextSeq++;
+            for (Object row : chunk.getRows()) {
+                writeLine(toColumns.apply(row));
+                rows++;
+            }
+            if (chunk.isLast()) return finish(chunk.getError());
+            return false;
+        } catch (IOException e) {
+            return finish("Could not write " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /** Stops the export (e.g. the screen is closed); the partial file is kept. */
+    public synchronized void cancel() {
+        finish("Export cancelled.");
+    }
+
+    /** @return request id of the export request */
+    public String getRequestId() { return requestId; }
+
+    /** @return rows written so far */
+    public synchronized long getRows() { return rows; }
+
+    /** @return target file */
+    public Path getFile() { return file; }
+
+    /** @return error message, or null if the export completed */
+    public synchronized String getError() { return error; }
+
+    private boolean finish(String errorMessage) {
+        if (done) return true;
+        done = true;
+        error = errorMessage;
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (error == null) error = "Could not write " + file.getFileName() + ": " + e.getMessage();
+        }
+        return true;
+    }
+
+    private void writeLine(List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) out.write(',');
+            out.write(quote(values.get(i)));
+        }
+        out.write("\r\n");
+    }
+
+    /** RFC 4180 quoting: only values with a comma, quote or line break are quoted. */
+    private static String quote(String v) {
+        if (v == null) return "";
+        if (v.indexOf(',') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0 && v.indexOf('\r') < 0) return v;
+        return '"' + v.replace("\"", "\"\"") + '"';
+    }
+}
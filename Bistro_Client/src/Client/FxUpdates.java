@@ -0,0 +1,50 @@
+package Client;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.application.Platform;
+
+/**
+ * Posts UI updates to the JavaFX thread, keeping only the latest update per view.
+ * <p>
+ * Background threads prepare the data (e.g. the row models of a table) and post a
+ * cheap update that only swaps it in. If several updates for the same key (usually the
+ * target control) arrive before the FX thread runs them, only the last one runs, so a
+ * burst of pushes costs one table refresh per pulse instead of one per message.
+ * Updates for different keys run in the order they were first posted.
+ * </p>
+ */
+public final class FxUpdates {
+
+    private final Map<Object, Runnable> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+    /**
+     * Schedules an update; replaces a not yet executed update for the same key.
+     * Can be called from any thread.
+     *
+     * @param key    view the update targets
+     * @param update runs on the FX thread
+     */
+    public void post(Object key, Runnable update) {
+        synchronized (this) {
+            pending.put(key, update);
+            if (scheduled) return;
+            scheduled = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    private void flush() {
+        List<Runnable> updates;
+        synchronized (this) {
+            updates = new ArrayList<>(pending.values());
+            pending.clear();
+            scheduled = false;
+        }
+        for (Runnable r : updates) r.run();
+    }
+}
@@ -1,8 +1,6 @@
 package Client;
 
 import common.Envelope;
-import common.KryoMessage;
-import common.KryoUtil;
 import common.OpCode;
 import common.dto.BillDTO;
 import javafx.application.Platform;
@@ -122,7 +120,8 @@ public class PayBillController implements ClientUI {
         billLoaded = false;
         alreadyPaid = false;
 
-        sendToServer(OpCode.REQUEST_BILL_GET_BY_CODE, code);
+        ClientSession.request(Envelope.request(OpCode.REQUEST_BILL_GET_BY_CODE, code))
+                .whenCompleteAsync(this::onBillLookupReply, Platform::runLater);
     }
     /**
      * UI action: submits a payment request for the currently loaded bill.
@@ -179,7 +178,8 @@ public class PayBillController implements ClientUI {
         // We send only what server needs now (code + method)
         Object[] payload = new Object[] { code, method };
 
-        sendToServer(OpCode.REQUEST_PAY_BILL, payload);
+        ClientSession.request(Envelope.request(OpCode.REQUEST_PAY_BILL, payload))
+                .whenCompleteAsync(this::onPayReply, Platform::runLater);
     }
     /**
      * UI action: clears the bill code, resets status flags, clears the summary,
@@ -269,126 +269,101 @@ public class PayBillController implements ClientUI {
         });
     }
     /**
-     * Handles server responses related to bill lookup and bill payment
-     * and updates the UI accordingly.
+     * Replies to this screen's requests arrive through their futures
+     * ({@link #onBillLookupReply}, {@link #onPayReply}); other messages are ignored.
      *
      * @param message raw message object received from the server
      */
     @Override
-    public void handleServerMessage(Object message) {
-        Platform.runLater(() -> {
-            Envelope env = unwrapEnvelope(message);
-            if (env == null) return;
-
-            switch (env.getOp()) {
-
-                case RESPONSE_BILL_GET_BY_CODE -> {
-                    lookupInFlight = false;
-
-                    Object payload = env.getPayload();
-                    // server sends Object[] { ok, alreadyPaid, message, BillDTO }
-                    if (payload instanceof Object[] arr && arr.length >= 4) {
-                        boolean ok = (arr[0] instanceof Boolean b) && b;
-                        boolean paid = (arr[1] instanceof Boolean b) && b;
-                        String msg = (arr[2] == null) ? "" : arr[2].toString();
-                        BillDTO bill = (arr[3] instanceof BillDTO dto) ? dto : null;
-
-                        lblBillLookupStatus.setText(msg.isBlank() ? (ok ? "Bill found ✅" : "Not found ❌") : msg);
-
-                        if (ok && bill != null) {
-                            billLoaded = true;
-                            alreadyPaid = paid;
-                            applyBillToUI(bill);
-
-                            if (paid) {
-                                btnPayNow.setDisable(true);
-                                lblPaymentResult.setText("Already paid ✅");
-                            } else {
-                                btnPayNow.setDisable(false);
-                                lblPaymentResult.setText("");
-                            }
-                        } else {
-                            billLoaded = false;
-                            alreadyPaid = false;
-                            clearSummary();
-                            btnPayNow.setDisable(true);
-                        }
-                    } else {
-                        lblBillLookupStatus.setText("Bad response from server.");
-                        billLoaded = false;
-                        alreadyPaid = false;
-                        btnPayNow.setDisable(true);
-                        clearSummary();
-                    }
-                }
-
-                case RESPONSE_PAY_BILL -> {
-                    payInFlight = false;
-
-                    Object payload = env.getPayload();
-                    // server sends Object[] { ok, message, tableId }
-                    if (payload instanceof Object[] arr && arr.length >= 2) {
-                        boolean ok = (arr[0] instanceof Boolean b) && b;
-                        String msg = (arr[1] == null) ? "" : arr[1].toString();
-
-                        lblPaymentResult.setText(msg.isBlank() ? (ok ? "Payment successful ✅" : "Payment failed ❌") : msg);
-
-                        if (ok) {
-                            alreadyPaid = true;
-                            btnPayNow.setDisable(true);
-
-                            Alert a = new Alert(Alert.AlertType.INFORMATION);
-                            a.setTitle("Payment");
-                            a.setHeaderText(null);
-                            a.setContentText(msg.isBlank() ? "Payment completed successfully." : msg);
-                            a.showAndWait();
-                        }
-                    } else {
-                        lblPaymentResult.setText("Bad response from server.");
-                    }
-                }
-
-                default -> {}
-            }
-        });
-    }
-
-    // =========================
-    // Envelope helpers (simple)
-    // =========================
+    public void handleServerMessage(Object message) {}
     /**
-     * Sends a request envelope to the server using the shared client connection.
+     * Applies the bill lookup reply (FX thread).
+     * Server payload: Object[] { ok, alreadyPaid, message, BillDTO }.
      *
-     * @param op operation code indicating the request type
-     * @param payload request payload (may be a string or an object array depending on request)
+     * @param env   reply, or null on failure
+     * @param error send/timeout failure, or null
      */
-    private void sendToServer(OpCode op, Object payload) {
-        try {
-            var client = ClientSession.getClient();
-            Envelope env = Envelope.request(op, payload);
-            client.sendToServer(new KryoMessage("ENVELOPE", KryoUtil.toBytes(env)));
-        } catch (Exception e) {
-            lookupInFlight = false;
-            payInFlight = false;
-            lblPaymentResult.setText("Send failed: " + e.getMessage());
+    private void onBillLookupReply(Envelope env, Throwable error) {
+        lookupInFlight = false;
+        if (error != null || !env.isOk()) {
+            lblBillLookupStatus.setText(error != null ? ClientSession.describeFailure(error) : env.getMessage());
+            return;
+        }
+
+        Object payload = env.getPayload();
+        if (payload instanceof Object[] arr && arr.length >= 4) {
+            boolean ok = (arr[0] instanceof Boolean b) && b;
+            boolean paid = (arr[1] instanceof Boolean b) && b;
+            String msg = (arr[2] == null) ? "" : arr[2].toString();
+            BillDTO bill = (arr[3] instanceof BillDTO dto) ? dto : null;
+
+            lblBillLookupStatus.setText(msg.isBlank() ? (ok ? "Bill found ✅" : "Not found ❌") : msg);
+
+            if (ok && bill != null) {
+                billLoaded = true;
+                alreadyPaid = paid;
+                applyBillToUI(bill);
+
+                if (paid) {
+                    btnPayNow.setDisable(true);
+                    lblPaymentResult.setText("Already paid ✅");
+                } else {
+                    btnPayNow.setDisable(false);
+                    lblPaymentResult.setText("");
+                }
+            } else {
+                billLoaded = false;
+                alreadyPaid = false;
+                clearSummary();
+                btnPayNow.setDisable(true);
+            }
+        } else {
+            lblBillLookupStatus.setText("Bad response from server.");
+            billLoaded = false;
+            alreadyPaid = false;
+            btnPayNow.setDisable(true);
+            clearSummary();
         }
     }
     /**
-     * Attempts to decode a raw server message into an {@link Envelope}.
+     * Applies the payment reply (FX thread).
+     * Server payload: Object[] { ok, message, tableId }.
      *
-     * @param msg raw message received from the server
-     * @return decoded envelope or null if the message is not supported/decoding fails
+     * @param env   reply, or null on failure
+     * @param error send/timeout failure, or null
      */
-    private Envelope unwrapEnvelope(Object msg) {
-        try {
-            if (msg instanceof Envelope e) return e;
-            if (msg instanceof KryoMessage km) {
-                if (!"ENVELOPE".equals(km.getType())) return null;
-                return KryoUtil.fromBytes(km.getPayload());
+    private void onPayReply(Envelope env, Throwable error) {
+        payInFlight = false;
+        if (error != null || !env.isOk()) {
+            lblPaymentResult.setText(error != null ? ClientSession.describeFailure(error) : env.getMessage());
+            return;
+        }
+
+        Object payload = env.getPayload();
+        if (payload instanceof Object[] arr && arr.length >= 2) {
+            boolean ok = (arr[0] instanceof Boolean b) && b;
+            String msg = (arr[1] == null) ? "" : arr[1].toString();
+
+            lblPaymentResult.setText(msg.isBlank() ? (ok ? "Payment successful ✅" : "Payment failed ❌") : msg);
+
+            if (ok) {
+                alreadyPaid = true;
+                btnPayNow.setDisable(true);
+
+                Alert a = new Alert(Alert.AlertType.INFORMATION);
+                a.setTitle("Payment");
+                a.setHeaderText(null);
+                a.setContentText(msg.isBlank() ? "Payment completed successfully." : msg);
+                a.showAndWait();
             }
-        } catch (Exception ignored) {}
-        return null;
+        } else {
+            lblPaymentResult.setText("Bad response from server.");
+        }
     }
+
+    // =========================
+    // Helpers
+    // =========================
     /**
      * Checks whether the shared client connection is currently active.
      *
@@ -11,26 +11,37 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import common.Envelope;
 import common.KryoMessage;
 import common.KryoUtil;
 import common.OpCode;
+import common.Topic;
 import common.dto.MakeReservationRequestDTO;
 import common.dto.MakeReservationResponseDTO;
 import common.dto.OpeningHoursDTO;
+import common.dto.PageDTO;
+import common.dto.PageRequestDTO;
 import common.dto.RegistrationDTO;
 import common.dto.ReservationDTO;
 import common.dto.SubscriberDTO;
 import common.dto.WaitingListDTO;
 import common.dto.RestaurantTableDTO;
+import common.dto.ListDeltaDTO;
+import common.dto.StreamChunkDTO;
 import common.dto.LoginRequestDTO;
 import common.dto.LoginResponseDTO;
 
+import java.io.File;
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.XYChart;
@@ -64,6 +75,11 @@ public class StaffController implements ClientUI {
     @FXML private TableView<ReservationRow> tblReservations;
     @FXML private VBox paneReservations;
     @FXML private TableView<SubscriberRow> tblSubscribers;
+    @FXML private VBox paneSubscribers;
+    @FXML private TextField tfSubscriberSearch;
+    @FXML private DatePicker dpResFrom;
+    @FXML private DatePicker dpResTo;
+    @FXML private ComboBox<String> cbResStatus;
     @FXML private TableView<CurrentDinersRow> tblCurrentDiners;
     
     // Manager Views
@@ -98,6 +114,30 @@ public class StaffController implements ClientUI {
     @FXML private Label lblManagerSection;
     
     // ✅ REMOVED: private ReservationFormController reservationFormController; 
+
+    /**
+     * True once the server confirmed the live-update subscription: lists are then pushed
+     * by the server after every change, so actions do not re-request them.
+     */
+    private boolean liveUpdates = false;
+
+    /** Local copies of the large lists; refreshes only transfer the rows that changed. */
+    private final SyncedList<ReservationDTO> reservations =
+            new SyncedList<>(ReservationDTO.class, r -> String.valueOf(r.getReservationId()));
+    private final SyncedList<SubscriberDTO> subscribers =
+            new SyncedList<>(SubscriberDTO.class, SubscriberDTO::getId);
+
+    /** Rows per page when browsing search results. */
+    private static final int PAGE_SIZE = 50;
+    /** Search results are loaded page by page while scrolling (filters fixed per search). */
+    private TablePager reservationPager;
+    private TablePager subscriberPager;
+    private PageRequestDTO reservationQuery = new PageRequestDTO(PAGE_SIZE, null);
+    private PageRequestDTO subscriberQuery = new PageRequestDTO(PAGE_SIZE, null);
+    /** Coalesced table swaps posted from the receive thread */
+    private final FxUpdates fxUpdates = new FxUpdates();
+    /** CSV export in progress (its chunks are written on the receive thread as they arrive), or null */
+    private volatile CsvStreamExport activeExport;
     /**
      * JavaFX initialization hook called after FXML injection.
      * <p>
@@ -206,8 +246,22 @@ public class StaffController implements ClientUI {
             tfTableId.setDisable(true); // User cannot edit this anymore
         }
 
-        onViewReservations(null);
-        sendToServer(Envelope.request(OpCode.REQUEST_TODAY_HOURS, null));
+        reservationPager = new TablePager(tblReservations,
+                cursor -> requestPage(OpCode.REQUEST_AGENT_RESERVATIONS_PAGE, reservationQuery, cursor,
+                        reservationPager, this::handleReservationsPage));
+        subscriberPager = new TablePager(tblSubscribers,
+                cursor -> requestPage(OpCode.REQUEST_SUBSCRIBERS_PAGE, subscriberQuery, cursor,
+                        subscriberPager, this::handleSubscribersPage));
+        if (cbResStatus != null) {
+            cbResStatus.getItems().setAll("All", "PENDING", "CONFIRMED", "CANCELED", "EXPIRED", "ARRIVED");
+        }
+
+        // Dashboard load: reservations, today's hours and the live subscription in one round trip
+        showReservationsPane();
+        sendToServer(Envelope.batch(
+                Envelope.request(OpCode.REQUEST_AGENT_RESERVATIONS_SYNC, reservations.since()),
+                Envelope.request(OpCode.REQUEST_TODAY_HOURS, null),
+                Envelope.request(OpCode.REQUEST_SUBSCRIBE, new ArrayList<>(Arrays.asList(Topic.values())))));
     }
 
     // ========================================================
@@ -233,90 +287,151 @@ public class StaffController implements ClientUI {
         Platform.runLater(() -> { if (lblStatus != null) lblStatus.setText("Error: " + e.getMessage()); });
     }
     /**
-     * Main dispatcher for server messages.
+     * Main dispatcher for server messages (client receive thread).
      * <p>
-     * Decodes the incoming message into an {@link Envelope}, validates it, then routes by {@link OpCode}.
-     * Each case updates the relevant UI section and may trigger refresh requests.
+     * Decodes the incoming message into an {@link Envelope} and routes it; the replies
+     * inside a {@link OpCode#RESPONSE_BATCH} are routed one by one, in request order.
      * </p>
      *
      * @param msg raw message object from the networking client (Envelope or KryoMessage)
      */
     @Override
     public void handleServerMessage(Object msg) {
-        Platform.runLater(() -> {
-            Envelope env = unwrapToEnvelope(msg);
-            if (env == null || !env.isOk()) return;
+        Envelope env = unwrapToEnvelope(msg);
+        if (env == null) return;
 
+        if (env.getOp() == OpCode.RESPONSE_BATCH && env.getPayload() instanceof List<?> replies) {
+            for (Object r : replies) {
+                if (r instanceof Envelope reply) receive(reply);
+            }
+        } else {
+            receive(env);
+        }
+    }
+    /**
+     * Client receive thread: the large lists (and list deltas) are mapped to row models
+     * here, and only the table swap is posted to the FX thread, coalesced per table by
+     * {@link #fxUpdates}. Export chunks are written to their file here too. Everything else
+     * goes to {@link #dispatch(Envelope)} on the FX thread.
+     *
+     * @param env reply envelope
+     */
+    private void receive(Envelope env) {
+        if (env.isOk()) {
+            Object payload = env.getPayload();
             switch (env.getOp()) {
-                // --- Lists Updates ---
-                case RESPONSE_AGENT_RESERVATIONS_LIST -> updateReservationsTable((List<?>) env.getPayload());
-                case RESPONSE_MAKE_RESERVATION -> {
-                    // Server returns MakeReservationResponseDTO
-                    Object p = env.getPayload();
-                    if (p instanceof MakeReservationResponseDTO res) {
-                        if (res.isOk()) {
-                            showAlert("Success", "Reservation Created! Code: " + res.getConfirmationCode());
-                            // Refresh the list
-                            sendToServer(Envelope.request(OpCode.REQUEST_AGENT_RESERVATIONS_LIST, null));
-                        } else {
-                            showAlert("Failed", res.getMessage());
-                        }
-                    }
+                case RESPONSE_AGENT_RESERVATIONS_LIST -> {
+                    List<ReservationRow> rows = toReservationRows((List<?>) payload);
+                    fxUpdates.post(tblReservations, () -> tblReservations.getItems().setAll(rows));
+                    return;
                 }
-
-                case RESPONSE_TERMINAL_CANCEL_RESERVATION -> {
-                    // Server sends a simple String message
-                    showAlert("Info", (String) env.getPayload());
-                    // ✅ REFRESH: Ask for the fresh list immediately
-                    sendToServer(Envelope.request(OpCode.REQUEST_AGENT_RESERVATIONS_LIST, null));
+                case RESPONSE_SUBSCRIBERS_LIST -> {
+                    List<SubscriberRow> rows = toSubscriberRows((List<?>) payload);
+                    fxUpdates.post(tblSubscribers, () -> tblSubscribers.getItems().setAll(rows));
+                    return;
                 }
-                
-                case RESPONSE_SUBSCRIBERS_LIST        -> updateSubscribersTable((List<?>) env.getPayload());
-                
-                case RESPONSE_WAITING_LIST -> {
-                    Object p = env.getPayload();
-                    if (p instanceof List) {
-                        updateWaitingListTable((List<?>) p);
-                    } else if (p instanceof String errorMSG) {
-                        // ✅ NEW: If we receive a String, it's an error/status message -> Show Popup
-                        showAlert("Info", errorMSG);
-                        // Then refresh the list to be safe
-                        sendToServer(Envelope.request(OpCode.REQUEST_WAITING_LIST, null));
+                case RESPONSE_CURRENT_DINERS -> {
+                    List<CurrentDinersRow> rows = toCurrentDinersRows((List<?>) payload);
+                    fxUpdates.post(tblCurrentDiners, () -> tblCurrentDiners.getItems().setAll(rows));
+                    return;
+                }
+                case RESPONSE_AGENT_RESERVATIONS_SYNC -> {
+                    receiveReservationsDelta((ListDeltaDTO) payload);
+                    return;
+                }
+                case RESPONSE_SUBSCRIBERS_SYNC -> {
+                    receiveSubscribersDelta((ListDeltaDTO) payload);
+                    return;
+                }
+                case RESPONSE_AGENT_RESERVATIONS_EXPORT,
+                     RESPONSE_SUBSCRIBERS_EXPORT -> {
+                    receiveExportChunk((StreamChunkDTO) payload);
+                    return;
+                }
+                default -> {}
+            }
+        }
+        Platform.runLater(() -> dispatch(env));
+    }
+    /**
+     * Validates a reply and routes it by {@link OpCode}.
+     * Each case updates the relevant UI section and may trigger refresh requests.
+     *
+     * @param env reply envelope (FX thread)
+     */
+    private void dispatch(Envelope env) {
+        if (!env.isOk()) return;
+
+        switch (env.getOp()) {
+            // --- Lists Updates (large lists and export chunks are handled in receive()) ---
+            case RESPONSE_MAKE_RESERVATION -> {
+                // Server returns MakeReservationResponseDTO
+                Object p = env.getPayload();
+                if (p instanceof MakeReservationResponseDTO res) {
+                    if (res.isOk()) {
+                        showAlert("Success", "Reservation Created! Code: " + res.getConfirmationCode());
+                        // Refresh the list (pushed by the server when subscribed)
+                        if (!liveUpdates) requestReservationsSync();
                     } else {
-                        sendToServer(Envelope.request(OpCode.REQUEST_WAITING_LIST, null));
+                        showAlert("Failed", res.getMessage());
                     }
-                } 
-                case RESPONSE_WAITING_ADD, 
-                RESPONSE_WAITING_REMOVE -> handleWaitingListUpdateResponse((String) env.getPayload());
+                }
+            }
 
-                
-                case RESPONSE_CURRENT_DINERS          -> updateCurrentDinersTable((List<?>) env.getPayload());
-                case RESPONSE_TABLES_GET              -> updateRestaurantTables((List<?>) env.getPayload());
-                case RESPONSE_OPENING_HOURS_GET       -> updateOpeningHours((List<?>) env.getPayload());
-                case RESPONSE_SUBSCRIBER_HISTORY      -> showHistoryPopup((common.dto.HistoryDTO) env.getPayload());
-
-                // --- Single Updates / Actions ---
-                case RESPONSE_REGISTER_CUSTOMER -> showAlert("Success", "Customer registered successfully.");
-                case RESPONSE_TODAY_HOURS       -> updateTodayHours((String) env.getPayload());
-                case RESPONSE_LOGIN_SUBSCRIBER  -> handleSubscriberLoginResponse((LoginResponseDTO) env.getPayload());
-
-               
-               
-                case RESPONSE_TABLE_ADD, 
-                     RESPONSE_TABLE_REMOVE, 
-                     RESPONSE_TABLE_UPDATE -> handleTableUpdateResponse((String) env.getPayload());
-
-                case RESPONSE_OPENING_HOURS_UPDATE, 
-                     RESPONSE_OPENING_HOURS_ADD_SPECIAL, 
-                     RESPONSE_OPENING_HOURS_REMOVE -> handleOpeningHoursUpdateResponse((String) env.getPayload());
-
-                // --- Reports ---
-                case RESPONSE_REPORT_PERFORMANCE -> handleReportPerformanceResponse(env);
-                case RESPONSE_REPORT_ACTIVITY    -> handleReportActivityResponse(env);
-
-                default -> System.out.println("StaffController: Unknown Op " + env.getOp());
+            case RESPONSE_TERMINAL_CANCEL_RESERVATION -> {
+                // Server sends a simple String message
+                showAlert("Info", (String) env.getPayload());
+                // ✅ REFRESH: Ask for the fresh list immediately (unless it is pushed)
+                if (!liveUpdates) requestReservationsSync();
             }
-        });
+            
+            
+            case RESPONSE_WAITING_LIST -> {
+                Object p = env.getPayload();
+                if (p instanceof List) {
+                    updateWaitingListTable((List<?>) p);
+                } else if (p instanceof String errorMSG) {
+                    // ✅ NEW: If we receive a String, it's an error/status message -> Show Popup
+                    showAlert("Info", errorMSG);
+                    // Then refresh the list to be safe
+                    sendToServer(Envelope.request(OpCode.REQUEST_WAITING_LIST, null));
+                } else {
+                    sendToServer(Envelope.request(OpCode.REQUEST_WAITING_LIST, null));
+                }
+            } 
+            case RESPONSE_WAITING_ADD, 
+            RESPONSE_WAITING_REMOVE -> handleWaitingListUpdateResponse((String) env.getPayload());
+
+            
+            case RESPONSE_TABLES_GET              -> updateRestaurantTables((List<?>) env.getPayload());
+            case RESPONSE_OPENING_HOURS_GET       -> updateOpeningHours((List<?>) env.getPayload());
+            case RESPONSE_SUBSCRIBER_HISTORY      -> showHistoryPopup((common.dto.HistoryDTO) env.getPayload());
+
+            // --- Single Updates / Actions ---
+            case RESPONSE_REGISTER_CUSTOMER -> showAlert("Success", "Customer registered successfully.");
+            case RESPONSE_TODAY_HOURS       -> updateTodayHours((String) env.getPayload());
+            case RESPONSE_LOGIN_SUBSCRIBER  -> handleSubscriberLoginResponse((LoginResponseDTO) env.getPayload());
+
+           
+           
+            case RESPONSE_TABLE_ADD, 
+                 RESPONSE_TABLE_REMOVE, 
+                 RESPONSE_TABLE_UPDATE -> handleTableUpdateResponse((String) env.getPayload());
+
+            case RESPONSE_OPENING_HOURS_UPDATE, 
+                 RESPONSE_OPENING_HOURS_ADD_SPECIAL, 
+                 RESPONSE_OPENING_HOURS_REMOVE -> handleOpeningHoursUpdateResponse((String) env.getPayload());
+
+            // --- Reports ---
+            case RESPONSE_REPORT_PERFORMANCE -> handleReportPerformanceResponse(env);
+            case RESPONSE_REPORT_ACTIVITY    -> handleReportActivityResponse(env);
+
+            // --- Live updates ---
+            case RESPONSE_SUBSCRIBE   -> liveUpdates = true;
+            case RESPONSE_UNSUBSCRIBE -> liveUpdates = false;
+
+            default -> System.out.println("StaffController: Unknown Op " + env.getOp());
+        }
     }
 
     // ========================================================
@@ -435,6 +550,7 @@ public class StaffController implements ClientUI {
                 ClientSession.setUsername("Guest");
                 ClientSession.setGuestEmail(parts.length > 1 ? parts[1] : "");
                 ClientSession.setGuestPhone(parts.length > 2 ? parts[2] : "");
+                stopLiveUpdates();
                 SceneManager.showCustomerMain();
             }
         });
@@ -446,6 +562,13 @@ public class StaffController implements ClientUI {
      */
     @FXML
     private void onViewReservations(ActionEvent event) {
+        showReservationsPane();
+        onLiveReservations(null);
+    }
+    /**
+     * Shows the reservations pane (without requesting data).
+     */
+    private void showReservationsPane() {
         lblTitle.setText("Reservations");
         hideAllViews();
         setupReservationsColumns();
@@ -455,8 +578,59 @@ public class StaffController implements ClientUI {
         }
         // ensure table itself is visible
         tblReservations.setVisible(true); 
-
-        sendToServer(Envelope.request(OpCode.REQUEST_AGENT_RESERVATIONS_LIST, null));
+    }
+    /**
+     * Switches the reservations table back to the live list (today and later),
+     * kept up to date by delta syncs and server pushes.
+     *
+     * @param event button click event (can be null when called programmatically)
+     */
+    @FXML
+    private void onLiveReservations(ActionEvent event) {
+        if (reservationPager.isActive()) {
+            reservationPager.stop();
+            updateReservationsTable(reservations.values());
+        }
+        requestReservationsSync();
+    }
+    /**
+     * Searches all reservations (history included) with the date range and status filters.
+     * Results are loaded page by page while the table is scrolled.
+     *
+     * @param event button click event
+     */
+    @FXML
+    private void onSearchReservations(ActionEvent event) {
+        reservationQuery = readReservationFilters();
+        tblReservations.getItems().clear();
+        reservationPager.start();
+    }
+    /**
+     * @return first-page request with the date range and status filters of the reservations bar
+     */
+    private PageRequestDTO readReservationFilters() {
+        PageRequestDTO q = new PageRequestDTO(PAGE_SIZE, null);
+        if (dpResFrom != null && dpResFrom.getValue() != null) q.setFromDate(dpResFrom.getValue().toString());
+        if (dpResTo != null && dpResTo.getValue() != null) q.setToDate(dpResTo.getValue().toString());
+        String status = (cbResStatus != null) ? cbResStatus.getValue() : null;
+        if (status != null && !"All".equals(status)) q.setStatus(status);
+        return q;
+    }
+    /**
+     * Exports all reservations matching the current filters to a CSV file.
+     * The server streams the rows in chunks; each chunk is written as it arrives.
+     *
+     * @param event button click event
+     */
+    @FXML
+    private void onExportReservations(ActionEvent event) {
+        startExport(OpCode.REQUEST_AGENT_RESERVATIONS_EXPORT, readReservationFilters(), "reservations.csv",
+                List.of("Reservation ID", "Confirmation Code", "Time", "Expiry", "Guests", "Status"),
+                o -> {
+                    ReservationDTO r = (ReservationDTO) o;
+                    return List.of(String.valueOf(r.getReservationId()), r.getConfirmationCode(), r.getReservationTime(),
+                            r.getExpiryTime(), String.valueOf(r.getNumOfCustomers()), r.getStatus());
+                });
     }
     /**
      * Shows the subscribers view and requests the subscribers list from the server.
@@ -468,8 +642,122 @@ public class StaffController implements ClientUI {
         lblTitle.setText("Subscribers");
         hideAllViews();
         setupSubscriberColumns();
+        if (paneSubscribers != null) { paneSubscribers.setVisible(true); paneSubscribers.setManaged(true); }
         tblSubscribers.setVisible(true); tblSubscribers.setManaged(true);
-        sendToServer(Envelope.request(OpCode.REQUEST_SUBSCRIBERS_LIST, null));
+        if (subscriberPager.isActive()) {
+            subscriberPager.stop();
+            updateSubscribersTable(subscribers.values());
+        }
+        sendToServer(Envelope.request(OpCode.REQUEST_SUBSCRIBERS_SYNC, subscribers.since()));
+    }
+    /**
+     * Searches subscribers whose username or name starts with the search text.
+     * Results are loaded page by page while the table is scrolled.
+     *
+     * @param event button click or Enter in the search field
+     */
+    @FXML
+    private void onSearchSubscribers(ActionEvent event) {
+        String prefix = (tfSubscriberSearch != null) ? tfSubscriberSearch.getText() : null;
+        if (prefix == null || prefix.isBlank()) {
+            onViewSubscribers(event);
+            return;
+        }
+        PageRequestDTO q = new PageRequestDTO(PAGE_SIZE, null);
+        q.setNamePrefix(prefix.trim());
+
+        subscriberQuery = q;
+        tblSubscribers.getItems().clear();
+        subscriberPager.start();
+    }
+    /**
+     * Exports all subscribers (or those matching the search text) to a CSV file.
+     * The server streams the rows in chunks; each chunk is written as it arrives.
+     *
+     * @param event button click event
+     */
+    @FXML
+    private void onExportSubscribers(ActionEvent event) {
+        PageRequestDTO q = new PageRequestDTO(PAGE_SIZE, null);
+        String prefix = (tfSubscriberSearch != null) ? tfSubscriberSearch.getText() : null;
+        if (prefix != null && !prefix.isBlank()) q.setNamePrefix(prefix.trim());
+
+        startExport(OpCode.REQUEST_SUBSCRIBERS_EXPORT, q, "subscribers.csv",
+                List.of("Username", "Name", "Phone", "Email", "Birth Date"),
+                o -> {
+                    SubscriberDTO sub = (SubscriberDTO) o;
+                    return List.of(sub.getId(), sub.getFullName(), sub.getPhone(), sub.getEmail(), sub.getBirthDate());
+                });
+    }
+    /**
+     * Asks for the target file, opens it and sends the export request.
+     * Only one export runs at a time.
+     */
+    private void startExport(OpCode op, PageRequestDTO filter, String defaultName,
+                             List<String> header, Function<Object, List<String>> toColumns) {
+        if (activeExport != null) {
+            showAlert("Export", "An export is already running.");
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export CSV");
+        chooser.setInitialFileName(defaultName);
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showSaveDialog(lblTitle.getScene().getWindow());
+        if (file == null) return;
+
+        Envelope req = Envelope.request(op, filter);
+        try {
+            activeExport = new CsvStreamExport(file.toPath(), req.getRequestId(), header, toColumns);
+        } catch (IOException e) {
+            showAlert("Export", "Could not create " + file.getName() + ": " + e.getMessage());
+            return;
+        }
+        if (lblStatus != null) lblStatus.setText("Exporting to " + file.getName() + "...");
+        sendToServer(req);
+    }
+    /**
+     * Writes one chunk of the running export (client receive thread) and acknowledges it,
+     * which lets the server send more: the server keeps only a few chunks in flight, so
+     * the receive queue stays small however slowly the file is written. Only the ack and
+     * the final result are posted to the FX thread.
+     *
+     * @param chunk received chunk
+     */
+    private void receiveExportChunk(StreamChunkDTO chunk) {
+        CsvStreamExport export = activeExport;
+        if (export == null || !export.matches(chunk)) return;
+        if (!export.accept(chunk)) {
+            StreamChunkDTO ack = new StreamChunkDTO(chunk.getRequestId(), chunk.getSeq());
+            Platform.runLater(() -> sendToServer(Envelope.request(OpCode.REQUEST_STREAM_ACK, ack)));
+            return;
+        }
+
+        String name = export.getFile().getFileName().toString();
+        long rows = export.getRows();
+        String error = export.getError();
+        Platform.runLater(() -> {
+            if (activeExport == export) activeExport = null;
+            if (error == null) {
+                if (lblStatus != null) lblStatus.setText("Exported " + rows + " row(s) to " + name);
+                showAlert("Export", "Exported " + rows + " row(s) to " + name + ".");
+            } else {
+                if (lblStatus != null) lblStatus.setText("Export failed");
+                showAlert("Export Failed", error + " (" + rows + " row(s) written to " + name + ")");
+            }
+        });
+    }
+    /**
+     * Stops the running export and tells the server to stop streaming it.
+     */
+    private void cancelExport() {
+        CsvStreamExport export = activeExport;
+        if (export == null) return;
+        activeExport = null;
+        export.cancel();
+        StreamChunkDTO cancel = new StreamChunkDTO(export.getRequestId(), -1);
+        cancel.setLast(true);
+        sendToServer(Envelope.request(OpCode.REQUEST_STREAM_ACK, cancel));
     }
     /**
      * Shows the waiting list view and requests the waiting list from the server.
@@ -598,8 +886,9 @@ public class StaffController implements ClientUI {
 
         // 2. Send Requests for this specific month
         common.dto.ReportRequestDTO req = new common.dto.ReportRequestDTO(month, year);
-        sendToServer(Envelope.request(OpCode.REQUEST_REPORT_PERFORMANCE, req));
-        sendToServer(Envelope.request(OpCode.REQUEST_REPORT_ACTIVITY, req));
+        sendToServer(Envelope.batch(
+                Envelope.request(OpCode.REQUEST_REPORT_PERFORMANCE, req),
+                Envelope.request(OpCode.REQUEST_REPORT_ACTIVITY, req)));
     }
     
 
@@ -661,8 +950,18 @@ public class StaffController implements ClientUI {
      */
     @FXML
     private void onLogout(ActionEvent event) {
+        stopLiveUpdates();
         SceneManager.showLogin();
     }
+    /**
+     * Cancels the live-update subscription (and a running export) before leaving the
+     * dashboard, so the next screen does not receive staff list pushes.
+     */
+    private void stopLiveUpdates() {
+        liveUpdates = false;
+        cancelExport();
+        sendToServer(Envelope.request(OpCode.REQUEST_UNSUBSCRIBE, null));
+    }
 
     // ========================================================
     // HELPERS
@@ -683,6 +982,7 @@ public class StaffController implements ClientUI {
             paneReservations.setManaged(false);
         }        
     	tblSubscribers.setVisible(false); tblSubscribers.setManaged(false);
+        if (paneSubscribers != null) { paneSubscribers.setVisible(false); paneSubscribers.setManaged(false); }
         
         // Hide waiting list wrapper pane when available (preferred).
         // Fallback: hide parent node if FXML wrapper isn't defined yet.
@@ -708,23 +1008,127 @@ public class StaffController implements ClientUI {
  * @param data raw list payload expected to contain {@link common.dto.ReservationDTO} items
  */
     private void updateReservationsTable(List<?> data) {
-        tblReservations.getItems().clear();
-        
+        tblReservations.getItems().setAll(toReservationRows(data));
+    }
+    /**
+     * Adds reservation DTOs to the end of the reservations table.
+     *
+     * @param data raw list expected to contain {@link common.dto.ReservationDTO} items
+     */
+    private void appendReservations(List<?> data) {
+        tblReservations.getItems().addAll(toReservationRows(data));
+    }
+    /**
+     * Maps reservation DTOs to table rows (any thread; touches no UI).
+     *
+     * @param data raw list expected to contain {@link common.dto.ReservationDTO} items
+     * @return rows in list order
+     */
+    private static List<ReservationRow> toReservationRows(List<?> data) {
+        List<ReservationRow> rows = new ArrayList<>(data.size());
         for (Object obj : data) {
             if (obj instanceof common.dto.ReservationDTO dto) {
-                // Here we use the NEW 8-argument constructor explicitly
-                // This bypasses dtoToRow entirely for this specific table
-                tblReservations.getItems().add(new ReservationRow(
+                rows.add(new ReservationRow(
                     dto.getReservationId(), 
                     dto.getConfirmationCode(), 
                     dto.getReservationTime(), 
                     dto.getExpiryTime(), 
                     dto.getNumOfCustomers(), 
                     dto.getStatus()
-                   
                 ));
             }
         }
+        return rows;
+    }
+
+    /**
+     * Asks the server for the reservations that changed since the last applied version.
+     */
+    private void requestReservationsSync() {
+        sendToServer(Envelope.request(OpCode.REQUEST_AGENT_RESERVATIONS_SYNC, reservations.since()));
+    }
+    /**
+     * Applies a reservations delta (sync reply or live push) and re-renders the table
+     * (client receive thread; rows are built here, the FX thread only swaps them in).
+     * If the delta does not fit the local copy, asks for a fresh sync instead.
+     *
+     * @param delta changed rows since a version
+     */
+    private void receiveReservationsDelta(ListDeltaDTO delta) {
+        if (!reservations.apply(delta)) {
+            Platform.runLater(this::requestReservationsSync);
+            return;
+        }
+        if (delta.isEmpty()) return;
+        List<ReservationRow> rows = toReservationRows(reservations.values());
+        fxUpdates.post(tblReservations, () -> {
+            // While search results are shown, keep the live copy current without touching the table
+            if (!reservationPager.isActive()) tblReservations.getItems().setAll(rows);
+        });
+    }
+    /**
+     * Applies a subscribers delta and re-renders the table (client receive thread).
+     *
+     * @param delta changed rows since a version
+     */
+    private void receiveSubscribersDelta(ListDeltaDTO delta) {
+        if (!subscribers.apply(delta)) {
+            Platform.runLater(() -> sendToServer(Envelope.request(OpCode.REQUEST_SUBSCRIBERS_SYNC, subscribers.since())));
+            return;
+        }
+        if (delta.isEmpty()) return;
+        List<SubscriberRow> rows = toSubscriberRows(subscribers.values());
+        fxUpdates.post(tblSubscribers, () -> {
+            if (!subscriberPager.isActive()) tblSubscribers.getItems().setAll(rows);
+        });
+    }
+    /**
+     * Sends a page request for the current search. The reply is matched to this request
+     * by request id, so a page of an older search is never mixed into a newer one.
+     *
+     * @param op     page request op
+     * @param query  filters of the current search
+     * @param cursor cursor of the previous page, null for the first page
+     * @param pager  pager that asked for the page
+     * @param onPage receives the search the page belongs to and the page (FX thread)
+     */
+    private void requestPage(OpCode op, PageRequestDTO query, String cursor,
+                             TablePager pager, BiConsumer<PageRequestDTO, PageDTO> onPage) {
+        query.setCursor(cursor);
+        ClientSession.request(Envelope.request(op, query)).whenCompleteAsync((env, error) -> {
+            if (error == null && env.isOk() && env.getPayload() instanceof PageDTO page) {
+                onPage.accept(query, page);
+                return;
+            }
+            pager.onPageFailed();
+            if (lblStatus != null) {
+                lblStatus.setText(error != null ? ClientSession.describeFailure(error) : env.getMessage());
+            }
+        }, Platform::runLater);
+    }
+    /**
+     * Adds a page of reservation search results to the table.
+     *
+     * @param query search the page belongs to
+     * @param page  received page
+     */
+    private void handleReservationsPage(PageRequestDTO query, PageDTO page) {
+        if (!reservationPager.isActive() || query != reservationQuery) return;
+        if (page.isFirst()) tblReservations.getItems().clear();
+        appendReservations(page.getRows());
+        reservationPager.onPage(page);
+    }
+    /**
+     * Adds a page of subscriber search results to the table.
+     *
+     * @param query search the page belongs to
+     * @param page  received page
+     */
+    private void handleSubscribersPage(PageRequestDTO query, PageDTO page) {
+        if (!subscriberPager.isActive() || query != subscriberQuery) return;
+        if (page.isFirst()) tblSubscribers.getItems().clear();
+        appendSubscribers(page.getRows());
+        subscriberPager.onPage(page);
     }
 
 /**
@@ -733,20 +1137,36 @@ public class StaffController implements ClientUI {
  * @param data raw list payload expected to contain {@link common.dto.SubscriberDTO} items
  */
     private void updateSubscribersTable(List<?> data) {
-        tblSubscribers.getItems().clear();
-        
+        tblSubscribers.getItems().setAll(toSubscriberRows(data));
+    }
+    /**
+     * Adds subscriber DTOs to the end of the subscribers table.
+     *
+     * @param data raw list expected to contain {@link common.dto.SubscriberDTO} items
+     */
+    private void appendSubscribers(List<?> data) {
+        tblSubscribers.getItems().addAll(toSubscriberRows(data));
+    }
+    /**
+     * Maps subscriber DTOs to table rows (any thread; touches no UI).
+     *
+     * @param data raw list expected to contain {@link common.dto.SubscriberDTO} items
+     * @return rows in list order
+     */
+    private static List<SubscriberRow> toSubscriberRows(List<?> data) {
+        List<SubscriberRow> rows = new ArrayList<>(data.size());
         for (Object obj : data) {
             if (obj instanceof common.dto.SubscriberDTO dto) {
-                // ✅ Pass dto.getBirthDate() to the Row
-                tblSubscribers.getItems().add(new SubscriberRow(
+                rows.add(new SubscriberRow(
                     dto.getId(),
                     dto.getFullName(),  
                     dto.getPhone(),
                     dto.getEmail(),
-                    dto.getBirthDate() // ✅ New argument
+                    dto.getBirthDate()
                 ));
             }
         }
+        return rows;
     }
 
 /**
@@ -764,15 +1184,17 @@ public class StaffController implements ClientUI {
         }
     }
     /**
-     * Populates the current diners table (customers currently seated in the restaurant).
+     * Maps current diners DTOs (customers currently seated in the restaurant) to table rows
+     * (any thread; touches no UI).
      *
      * @param data raw list payload expected to contain {@link common.dto.CurrentDinersDTO} items
+     * @return rows in list order
      */
-    private void updateCurrentDinersTable(List<?> data) {
-        tblCurrentDiners.getItems().clear();
+    private static List<CurrentDinersRow> toCurrentDinersRows(List<?> data) {
+        List<CurrentDinersRow> rows = new ArrayList<>(data.size());
         for (Object obj : data) {
             if (obj instanceof common.dto.CurrentDinersDTO dto) {
-                tblCurrentDiners.getItems().add(new CurrentDinersRow(
+                rows.add(new CurrentDinersRow(
                     dto.getTableNumber(),
                     dto.getCustomerName(),
                     dto.getPeopleCount(),
@@ -781,6 +1203,7 @@ public class StaffController implements ClientUI {
                 ));
             }
         }
+        return rows;
     }
     /**
      * Populates the restaurant tables list (table id, seats, status) from server DTOs.
@@ -1614,6 +2037,7 @@ public class StaffController implements ClientUI {
         if (res.isOk()) {
             ClientSession.setRole("SUBSCRIBER");
             ClientSession.setUsername(res.getUsername());
+            stopLiveUpdates();
             SceneManager.showCustomerMain();
         } else {
             showAlert("Validation Failed", res.getMessage());
@@ -1626,8 +2050,8 @@ public class StaffController implements ClientUI {
      */
     private void handleWaitingListUpdateResponse(String msg) {
         if (msg != null) showAlert("Success", msg);
-        // Refresh the table immediately
-        sendToServer(Envelope.request(OpCode.REQUEST_WAITING_LIST, null));    
+        // Refresh the table immediately (pushed by the server when subscribed)
+        if (!liveUpdates) sendToServer(Envelope.request(OpCode.REQUEST_WAITING_LIST, null));    
     }
     /**
      * Shows a message (if provided) and refreshes the restaurant tables list.
@@ -1636,7 +2060,7 @@ public class StaffController implements ClientUI {
      */
     private void handleTableUpdateResponse(String msg) {
         if (msg != null) showAlert("Success", msg);
-        refreshTableList();
+        if (!liveUpdates) refreshTableList();
     }
     /**
      * Shows a message (if provided) and refreshes opening hours data,
@@ -1647,9 +2071,9 @@ public class StaffController implements ClientUI {
     private void handleOpeningHoursUpdateResponse(String msg) {
         if (msg != null) showAlert("Success", msg);
         
-        sendToServer(Envelope.request(OpCode.REQUEST_OPENING_HOURS_GET, null));
-        
-        sendToServer(Envelope.request(OpCode.REQUEST_TODAY_HOURS, null));
+        sendToServer(Envelope.batch(
+                Envelope.request(OpCode.REQUEST_OPENING_HOURS_GET, null),
+                Envelope.request(OpCode.REQUEST_TODAY_HOURS, null)));
     }
     
     
@@ -0,0 +1,87 @@
+package Client;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import common.dto.ListDeltaDTO;
+import common.dto.ListSyncRequestDTO;
+
+/**
+ * Client-side copy of a server list that is kept up to date with {@link ListDeltaDTO}s.
+ * <p>
+ * The first sync returns the full list; later syncs (and pushes) only carry the rows
+ * that changed. Thread-safe: deltas are applied on the client's receive thread while
+ * the FX thread reads {@link #values()} and {@link #since()}.
+ * </p>
+ *
+ * @param <T> row DTO type
+ */
+public class SyncedList<T> {
+
+    private final Class<T> type;
+    private final Function<T, String> keyOf;
+    private final Map<String, T> rows = new LinkedHashMap<>();
+    private long epoch;
+    private long version;
+
+    /**
+     * @param type  row DTO class (other payload objects are ignored)
+     * @param keyOf extracts the row key (same key as the server uses)
+     */
+    public SyncedList(Class<T> type, Function<T, String> keyOf) {
+        this.type = type;
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * @return payload for the next sync request (the last version applied)
+     */
+    public synchronized ListSyncRequestDTO since() {
+        return new ListSyncRequestDTO(epoch, version);
+    }
+
+    /**
+     * Applies a delta.
+     *
+     * A push and a sync reply are sent independently, so a delta may arrive after a newer
+     * one. A delta this copy already covers is dropped; older row images are never
+     * merged into a newer copy.
+     *
+     * @param d delta or full snapshot from the server
+     * @return false if the delta does not fit this copy (changes were missed, or it only
+     *         partly overlaps the applied versions); the caller should then send a sync
+     *         request with {@link #since()}
+     */
+    public synchronized boolean apply(ListDeltaDTO d) {
+        boolean sameEpoch = d.getEpoch() == epoch;
+        if (d.isFull()) {
+            if (sameEpoch && d.getVersion() < version) return true; // older snapshot
+            rows.clear();
+        } else {
+            if (!sameEpoch || d.getFromVersion() > version) return false;
+            if (d.getVersion() <= version) return true;               // already covered
+            if (d.getFromVersion() < version) return false;           // partly covered
+        }
+
+        for (Object o : d.getUpserts()) {
+            if (type.isInstance(o)) {
+                T row = type.cast(o);
+                rows.put(keyOf.apply(row), row);
+            }
+        }
+        for (String key : d.getDeletedKeys()) {
+            rows.remove(key);
+        }
+        epoch = d.getEpoch();
+        version = d.getVersion();
+        return true;
+    }
+
+    /** @return current rows in server order (new rows at the end) */
+    public synchronized List<T> values() {
+        return new ArrayList<>(rows.values());
+    }
+}
@@ -0,0 +1,105 @@
+package Client;
+
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+import common.dto.PageDTO;
+
+/**
+ * Loads a {@link TableView} page by page while the user scrolls.
+ * <p>
+ * {@link #start()} requests the first page; when the vertical scroll bar reaches the
+ * bottom (or the loaded rows do not fill the table yet), the next page is requested
+ * with the cursor of the last {@link PageDTO}. Only one page request is in flight at a time.
+ * Use from the FX thread only.
+ * </p>
+ */
+public class TablePager {
+
+    private final TableView<?> table;
+    private final Consumer<String> requestPage;
+    private ScrollBar attachedBar;
+    private boolean active;
+    private boolean loading;
+    private boolean hasMore;
+    private String nextCursor;
+
+    /**
+     * @param table       table to watch
+     * @param requestPage sends the page request for a cursor (null = first page)
+     */
+    public TablePager(TableView<?> table, Consumer<String> requestPage) {
+        this.table = table;
+        this.requestPage = requestPage;
+        table.skinProperty().addListener((obs, o, n) -> Platform.runLater(this::attach));
+        table.getItems().addListener((InvalidationListener) obs -> Platform.runLater(this::attach));
+    }
+
+    /** Starts paging from the first page (drops the previous cursor). */
+    public void start() {
+        active = true;
+        hasMore = false;
+        nextCursor = null;
+        loading = true;
+        requestPage.accept(null);
+    }
+
+    /** Stops paging (the table shows other data now). */
+    public void stop() {
+        active = false;
+        loading = false;
+    }
+
+    /** @return true while the table is in paged mode */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Records a received page. The caller adds the rows to the table.
+     *
+     * @param page received page
+     */
+    public void onPage(PageDTO page) {
+        loading = false;
+        hasMore = page.isHasMore();
+        nextCursor = page.getNextCursor();
+        Platform.runLater(this::loadMoreIfNeeded);
+    }
+
+    /** Records that the last page request failed; the next scroll retries it. */
+    public void onPageFailed() {
+        loading = false;
+    }
+
+    /** Hooks the vertical scroll bar once the table skin created it. */
+    private void attach() {
+        ScrollBar bar = verticalBar();
+        if (bar == null || bar == attachedBar) return;
+        attachedBar = bar;
+        bar.valueProperty().addListener((obs, o, n) -> loadMoreIfNeeded());
+    }
+
+    private void loadMoreIfNeeded() {
+        if (!active || loading || !hasMore) return;
+        ScrollBar bar = verticalBar();
+        boolean atBottom = bar == null || !bar.isVisible() || bar.getValue() >= bar.getMax() - 0.001;
+        if (atBottom) {
+            loading = true;
+            requestPage.accept(nextCursor);
+        }
+    }
+
+    private ScrollBar verticalBar() {
+        for (Node n : table.lookupAll(".scroll-bar")) {
+            if (n instanceof ScrollBar sb && sb.getOrientation() == Orientation.VERTICAL) return sb;
+        }
+        return null;
+    }
+}
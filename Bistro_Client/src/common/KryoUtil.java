@@ -103,6 +103,15 @@ public final class KryoUtil {
         kryo.register(common.dto.TerminalActiveItemDTO.class);
         kryo.register(common.dto.TerminalValidateResponseDTO.class);
         kryo.register(common.dto.WaitingListDTO.class);
+        kryo.register(common.dto.OpMetricsDTO.class);
+        kryo.register(common.dto.ServerMetricsDTO.class);
+        kryo.register(common.dto.PoolMetricsDTO.class);
+        kryo.register(common.Topic.class);
+        kryo.register(common.dto.ListSyncRequestDTO.class);
+        kryo.register(common.dto.ListDeltaDTO.class);
+        kryo.register(common.dto.PageRequestDTO.class);
+        kryo.register(common.dto.PageDTO.class);
+        kryo.register(common.dto.StreamChunkDTO.class);
 
         // If you still use this anywhere in network payloads, register it too:
         // kryo.register(common.dto.ResolveSubscriberQrResponseDTO.class);
@@ -0,0 +1,72 @@
+package common.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Changes to a server-side list since a given version.
+ *
+ * <p>
+ * Rows are identified by a string key (e.g. the reservation id or the subscriber
+ * username). To apply a delta the client:
+ * </p>
+ * <ul>
+ *   <li>if {@link #isFull()}: replaces its whole list with {@link #getUpserts()};</li>
+ *   <li>else, if it belongs to another epoch or {@link #getFromVersion()} is newer than
+ *       the client's version: asks for a sync with its own version (it missed changes);</li>
+ *   <li>else: puts every row of {@link #getUpserts()} (insert or replace by key) and
+ *       removes every key of {@link #getDeletedKeys()}.</li>
+ * </ul>
+ * Afterwards the client stores {@link #getEpoch()} and {@link #getVersion()} for its next sync.
+ */
+public class ListDeltaDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Server run the versions belong to; versions of different epochs are unrelated */
+    private long epoch;
+    /** The delta contains all changes after this version (0 for a full snapshot) */
+    private long fromVersion;
+    /** Version of the list after applying this delta */
+    private long version;
+    /** True if {@link #upserts} is the complete list */
+    private boolean full;
+    /** Inserted or updated rows (DTOs of the list type) */
+    private ArrayList<Object> upserts = new ArrayList<>();
+    /** Keys of deleted rows */
+    private ArrayList<String> deletedKeys = new ArrayList<>();
+
+    /** Required no-args constructor for serialization */
+    public ListDeltaDTO() {}
+
+    /** @return epoch of the versions */
+    public long getEpoch() { return epoch; }
+    /** @param epoch epoch of the versions */
+    public void setEpoch(long epoch) { this.epoch = epoch; }
+
+    /** @return version the delta starts after */
+    public long getFromVersion() { return fromVersion; }
+    /** @param fromVersion version the delta starts after */
+    public void setFromVersion(long fromVersion) { this.fromVersion = fromVersion; }
+
+    /** @return version after applying the delta */
+    public long getVersion() { return version; }
+    /** @param version version after applying the delta */
+    public void setVersion(long version) { this.version = version; }
+
+    /** @return true for a full snapshot */
+    public boolean isFull() { return full; }
+    /** @param full true for a full snapshot */
+    public void setFull(boolean full) { this.full = full; }
+
+    /** @return inserted/updated rows */
+    public ArrayList<Object> getUpserts() { return upserts; }
+    /** @param upserts inserted/updated rows */
+    public void setUpserts(ArrayList<Object> upserts) { this.upserts = upserts; }
+
+    /** @return keys of deleted rows */
+    public ArrayList<String> getDeletedKeys() { return deletedKeys; }
+    /** @param deletedKeys keys of deleted rows */
+    public void setDeletedKeys(ArrayList<String> deletedKeys) { this.deletedKeys = deletedKeys; }
+
+    /** @return true if nothing changed */
+    public boolean isEmpty() { return !full && upserts.isEmpty() && deletedKeys.isEmpty(); }
+}
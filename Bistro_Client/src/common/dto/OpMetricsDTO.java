@@ -0,0 +1,74 @@
+package common.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO with the request metrics of a single {@link common.OpCode}.
+ *
+ * <p>
+ * Part of {@link ServerMetricsDTO}. Latency values are in microseconds
+ * and come from the server's per-op latency histogram.
+ * </p>
+ */
+public class OpMetricsDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Operation name (OpCode) */
+    private String op;
+    /** Number of completed requests */
+    private long count;
+    /** Number of requests that failed or answered with an error */
+    private long errors;
+    /** Requests currently being handled */
+    private int inFlight;
+    /** Median latency (µs) */
+    private long p50Micros;
+    /** 95th percentile latency (µs) */
+    private long p95Micros;
+    /** 99th percentile latency (µs) */
+    private long p99Micros;
+    /** Highest latency seen (µs) */
+    private long maxMicros;
+
+    /** Required no-args constructor for serialization */
+    public OpMetricsDTO() {}
+
+    /** @return operation name */
+    public String getOp() { return op; }
+    /** @param op operation name */
+    public void setOp(String op) { this.op = op; }
+
+    /** @return completed requests */
+    public long getCount() { return count; }
+    /** @param count completed requests */
+    public void setCount(long count) { this.count = count; }
+
+    /** @return failed requests */
+    public long getErrors() { return errors; }
+    /** @param errors failed requests */
+    public void setErrors(long errors) { this.errors = errors; }
+
+    /** @return requests in flight */
+    public int getInFlight() { return inFlight; }
+    /** @param inFlight requests in flight */
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    /** @return median latency (µs) */
+    public long getP50Micros() { return p50Micros; }
+    /** @param p50Micros median latency (µs) */
+    public void setP50Micros(long p50Micros) { this.p50Micros = p50Micros; }
+
+    /** @return 95th percentile latency (µs) */
+    public long getP95Micros() { return p95Micros; }
+    /** @param p95Micros 95th percentile latency (µs) */
+    public void setP95Micros(long p95Micros) { this.p95Micros = p95Micros; }
+
+    /** @return 99th percentile latency (µs) */
+    public long getP99Micros() { return p99Micros; }
+    /** @param p99Micros 99th percentile latency (µs) */
+    public void setP99Micros(long p99Micros) { this.p99Micros = p99Micros; }
+
+    /** @return highest latency (µs) */
+    public long getMaxMicros() { return maxMicros; }
+    /** @param maxMicros highest latency (µs) */
+    public void setMaxMicros(long maxMicros) { this.maxMicros = maxMicros; }
+}
@@ -0,0 +1,48 @@
+package common.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * One page of a staff list, answer to a {@link PageRequestDTO}.
+ *
+ * <p>
+ * {@link #getRows()} holds the DTOs of the list type (e.g. {@link ReservationDTO}).
+ * If {@link #isHasMore()} is true, the next page is requested with the same filters
+ * and {@link #getNextCursor()} as cursor.
+ * </p>
+ */
+public class PageDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Rows of this page, in list order */
+    private ArrayList<Object> rows = new ArrayList<>();
+    /** Cursor for the next page (null if this is the last page) */
+    private String nextCursor;
+    /** True if more rows follow */
+    private boolean hasMore;
+    /** True if this is the first page (the client then replaces its rows) */
+    private boolean first;
+
+    /** Required no-args constructor for serialization */
+    public PageDTO() {}
+
+    /** @return rows of this page */
+    public ArrayList<Object> getRows() { return rows; }
+    /** @param rows rows of this page */
+    public void setRows(ArrayList<Object> rows) { this.rows = rows; }
+
+    /** @return cursor for the next page, or null */
+    public String getNextCursor() { return nextCursor; }
+    /** @param nextCursor cursor for the next page */
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    /** @return true if more rows follow */
+    public boolean isHasMore() { return hasMore; }
+    /** @param hasMore true if more rows follow */
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    /** @return true for the first page */
+    public boolean isFirst() { return first; }
+    /** @param first true for the first page */
+    public void setFirst(boolean first) { this.first = first; }
+}
@@ -0,0 +1,78 @@
+package common.dto;
+
+import java.io.Serializable;
+
+/**
+ * Request for one page of a staff list (reservations, subscribers, waiting list).
+ *
+ * <p>
+ * Paging is keyset-based: the client sends back the {@link PageDTO#getNextCursor()} of
+ * the previous page (null for the first page) and the server continues right after that
+ * row, so deep pages cost the same as the first one. The cursor is opaque to the client.
+ * </p>
+ * <p>
+ * Filters are optional (null / blank = no filter) and must stay the same while paging:
+ * </p>
+ * <ul>
+ *   <li>reservations: {@link #fromDate} / {@link #toDate} (yyyy-MM-dd, inclusive) and {@link #status};</li>
+ *   <li>subscribers: {@link #namePrefix} (matches the start of the username or the name);</li>
+ *   <li>waiting list: {@link #fromDate} / {@link #toDate} and {@link #status}.</li>
+ * </ul>
+ */
+public class PageRequestDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Rows per page (the server clamps it) */
+    private int limit;
+    /** Cursor of the previous page, null for the first page */
+    private String cursor;
+    /** First day included (yyyy-MM-dd) */
+    private String fromDate;
+    /** Last day included (yyyy-MM-dd) */
+    private String toDate;
+    /** Exact status (e.g. CONFIRMED) */
+    private String status;
+    /** Start of the username / name */
+    private String namePrefix;
+
+    /** Required no-args constructor for serialization */
+    public PageRequestDTO() {}
+
+    /**
+     * @param limit  rows per page
+     * @param cursor cursor of the previous page, or null for the first page
+     */
+    public PageRequestDTO(int limit, String cursor) {
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    /** @return rows per page */
+    public int getLimit() { return limit; }
+    /** @param limit rows per page */
+    public void setLimit(int limit) { this.limit = limit; }
+
+    /** @return cursor of the previous page (null for the first page) */
+    public String getCursor() { return cursor; }
+    /** @param cursor cursor of the previous page */
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    /** @return first day included */
+    public String getFromDate() { return fromDate; }
+    /** @param fromDate first day included (yyyy-MM-dd) */
+    public void setFromDate(String fromDate) { this.fromDate = fromDate; }
+
+    /** @return last day included */
+    public String getToDate() { return toDate; }
+    /** @param toDate last day included (yyyy-MM-dd) */
+    public void setToDate(String toDate) { this.toDate = toDate; }
+
+    /** @return status filter */
+    public String getStatus() { return status; }
+    /** @param status status filter */
+    public void setStatus(String status) { this.status = status; }
+
+    /** @return name prefix filter */
+    public String getNamePrefix() { return namePrefix; }
+    /** @param namePrefix name prefix filter */
+    public void setNamePrefix(String namePrefix) { this.namePrefix = namePrefix; }
+}
@@ -0,0 +1,79 @@
+package common.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * One frame of a streamed (chunked) response, e.g. {@code RESPONSE_SUBSCRIBERS_EXPORT}.
+ *
+ * <p>
+ * Large results are not sent as one list: the server reads rows one by one and sends
+ * them in chunks of a fixed number of rows, each in its own Envelope. All chunks of a
+ * stream carry the {@link #getRequestId() request id} of the request and an increasing
+ * {@link #getSeq() sequence number} starting at 0. The final chunk has {@link #isLast()}
+ * set (it may have no rows) and the total row count; if the stream fails, the final
+ * chunk carries an {@link #getError() error} instead.
+ * </p>
+ * <p>
+ * The client acknowledges chunks with {@code REQUEST_STREAM_ACK}, using the same class
+ * without rows: request id and the seq of the last chunk it has written. An ack with
+ * {@link #isLast()} set cancels the stream.
+ * </p>
+ */
+public class StreamChunkDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Request id of the request that started the stream */
+    private String requestId;
+    /** Chunk number, 0-based */
+    private int seq;
+    /** True for the end-of-stream chunk */
+    private boolean last;
+    /** Rows of this chunk (DTOs of the stream type) */
+    private ArrayList<Object> rows = new ArrayList<>();
+    /** Total rows sent (only set on the last chunk) */
+    private long totalRows;
+    /** Error message if the stream was aborted (only on the last chunk) */
+    private String error;
+
+    /** Required no-args constructor for serialization */
+    public StreamChunkDTO() {}
+
+    /**
+     * @param requestId request id of the stream
+     * @param seq       chunk number
+     */
+    public StreamChunkDTO(String requestId, int seq) {
+        this.requestId = requestId;
+        this.seq = seq;
+    }
+
+    /** @return request id of the stream */
+    public String getRequestId() { return requestId; }
+    /** @param requestId request id of the stream */
+    public void setRequestId(String requestId) { this.requestId = requestId; }
+
+    /** @return chunk number */
+    public int getSeq() { return seq; }
+    /** @param seq chunk number */
+    public void setSeq(int seq) { this.seq = seq; }
+
+    /** @return true for the end-of-stream chunk */
+    public boolean isLast() { return last; }
+    /** @param last true for the end-of-stream chunk */
+    public void setLast(boolean last) { this.last = last; }
+
+    /** @return rows of this chunk */
+    public ArrayList<Object> getRows() { return rows; }
+    /** @param rows rows of this chunk */
+    public void setRows(ArrayList<Object> rows) { this.rows = rows; }
+
+    /** @return total rows of the stream (last chunk only) */
+    public long getTotalRows() { return totalRows; }
+    /** @param totalRows total rows of the stream */
+    public void setTotalRows(long totalRows) { this.totalRows = totalRows; }
+
+    /** @return error message, or null if the stream completed */
+    public String getError() { return error; }
+    /** @param error error message */
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,196 @@
+package DataBase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Thin JDBC wrappers that feed {@link QueryStats}.
+ * <p>
+ * {@link #wrap(Connection)} returns a proxy connection whose statements time every
+ * {@code execute*} call, remember bind parameters (for the slow-query log) and count
+ * rows read through their result sets. Everything else is passed straight to the
+ * driver, so DAO code does not change.
+ * <p>
+ * Can be turned off with {@code -Dbistro.sql.instrument=false}.
+ */
+final class InstrumentedJdbc {
+
+    /** Whether new physical connections are wrapped. */
+    static final boolean ENABLED =
+            !"false".equalsIgnoreCase(System.getProperty("bistro.sql.instrument", "true"));
+
+    private InstrumentedJdbc() {}
+
+    /**
+     * Wraps a physical connection (no-op if instrumentation is disabled).
+     *
+     * @param conn driver connection
+     * @return instrumented connection
+     */
+    static Connection wrap(Connection conn) {
+        if (!ENABLED || conn == null) return conn;
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ConnectionHandler(conn));
+    }
+
+    /** Calls the real method and unwraps the driver exception. */
+    private static Object invoke(Object target, Method m, Object[] args) throws Throwable {
+        try {
+            return m.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // =========================================================
+    // Connection
+    // =========================================================
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) { this.target = target; }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            Object result = InstrumentedJdbc.invoke(target, m, args);
+
+            String name = m.getName();
+            if ("prepareStatement".equals(name) && result instanceof PreparedStatement ps) {
+                return Proxy.newProxyInstance(
+                        PreparedStatement.class.getClassLoader(),
+                        new Class<?>[] { PreparedStatement.class },
+                        new StatementHandler(ps, (String) args[0]));
+            }
+            if ("prepareCall".equals(name) && result instanceof CallableStatement cs) {
+                return Proxy.newProxyInstance(
+                        CallableStatement.class.getClassLoader(),
+                        new Class<?>[] { CallableStatement.class },
+                        new StatementHandler(cs, (String) args[0]));
+            }
+            if ("createStatement".equals(name) && result instanceof Statement st) {
+                return Proxy.newProxyInstance(
+                        Statement.class.getClassLoader(),
+                        new Class<?>[] { Statement.class },
+                        new StatementHandler(st, null));
+            }
+            return result;
+        }
+    }
+
+    // =========================================================
+    // Statement / PreparedStatement / CallableStatement
+    // =========================================================
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        /** SQL given to prepareStatement / prepareCall (null for plain statements). */
+        private final String preparedSql;
+        private final QueryStats.Agg preparedAgg;
+        /** Bind parameters by JDBC index (slot 0 unused). */
+        private Object[] params;
+        /** Highest parameter index set so far. */
+        private int paramCount;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.preparedAgg = preparedSql == null ? null : QueryStats.forSql(preparedSql);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer idx) {
+                rememberParam(idx, name.equals("setNull") ? null : args[1]);
+                return InstrumentedJdbc.invoke(target, m, args);
+            }
+            if ("clearParameters".equals(name)) {
+                params = null;
+                paramCount = 0;
+                return InstrumentedJdbc.invoke(target, m, args);
+            }
+            if (name.startsWith("execute")) {
+                return timedExecute(m, args);
+            }
+            if ("getResultSet".equals(name)) {
+                Object rs = InstrumentedJdbc.invoke(target, m, args);
+                return (rs instanceof ResultSet r && preparedAgg != null) ? wrapResultSet(r, preparedAgg) : rs;
+            }
+            return InstrumentedJdbc.invoke(target, m, args);
+        }
+
+        private Object timedExecute(Method m, Object[] args) throws Throwable {
+            boolean adHoc = args != null && args.length > 0 && args[0] instanceof String;
+            String sql = adHoc ? (String) args[0] : preparedSql;
+            QueryStats.Agg agg = (adHoc || preparedAgg == null) ? QueryStats.forSql(sql) : preparedAgg;
+
+            long t0 = System.nanoTime();
+            Object result;
+            try {
+                result = InstrumentedJdbc.invoke(target, m, args);
+            } catch (Throwable t) {
+                QueryStats.recordExecution(agg, System.nanoTime() - t0, 0, true, sql, snapshotParams());
+                throw t;
+            }
+            long nanos = System.nanoTime() - t0;
+
+            QueryStats.recordExecution(agg, nanos, affectedRows(result), false, sql, snapshotParams());
+
+            if (result instanceof ResultSet rs) return wrapResultSet(rs, agg);
+            return result;
+        }
+
+        private void rememberParam(int idx, Object value) {
+            if (idx < 1 || idx > 10_000) return;
+            if (params == null || params.length <= idx) {
+                params = params == null ? new Object[Math.max(idx + 1, 8)] : Arrays.copyOf(params, Math.max(idx + 1, params.length * 2));
+            }
+            params[idx] = value;
+            paramCount = Math.max(paramCount, idx);
+        }
+
+        private Object[] snapshotParams() {
+            return params == null ? null : Arrays.copyOf(params, paramCount + 1);
+        }
+
+        private static long affectedRows(Object result) {
+            if (result instanceof Integer n) return Math.max(0, n);
+            if (result instanceof Long n) return Math.max(0L, n);
+            if (result instanceof int[] arr) {
+                long sum = 0;
+                for (int n : arr) if (n > 0) sum += n;
+                return sum;
+            }
+            return 0;
+        }
+    }
+
+    // =========================================================
+    // ResultSet (counts rows)
+    // =========================================================
+
+    private static ResultSet wrapResultSet(ResultSet rs, QueryStats.Agg agg) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                (proxy, m, args) -> {
+                    Object result = invoke(rs, m, args);
+                    if ("next".equals(m.getName()) && Boolean.TRUE.equals(result)) {
+                        QueryStats.recordRow(agg);
+                    }
+                    return result;
+                });
+    }
+}
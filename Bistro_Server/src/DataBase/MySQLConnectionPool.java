@@ -4,30 +4,48 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import Server.LatencyHistogram;
+import Server.ServerConfig;
+import common.dto.PoolMetricsDTO;
 
 /**
  * Singleton MySQL connection pool.
  * Reuses connections and periodically closes idle ones.
+ * <p>
+ * Also keeps telemetry (see {@link #getMetrics()}): active/idle gauges, physical
+ * connections created/closed, a borrow-wait histogram and the connection that has
+ * been held the longest (with the stack that borrowed it when
+ * {@code -Dbistro.pool.trackStacks=true}; walking the stack on every borrow is too
+ * costly to leave on).
  */
 public class MySQLConnectionPool {
 
-    // ---------- DB CONFIG
+    // ---------- DB CONFIG (defaults; overridable via ServerConfig db.url / db.user / db.password)
     private static final String URL = "jdbc:mysql://localhost:3306/Bistro";
     private static final String USER = "root";
     private static final String PASSWORD = "Yazan12@"; 
 
-    // ---------- POOL CONFIG ----------
+    // ---------- POOL CONFIG (defaults; overridable via ServerConfig pool.*) ----------
     /** Maximum number of pooled connections that can be cached. */
     private static final int  MAX_POOL_SIZE      = 10;
     /** Idle timeout – how long a connection may sit unused before cleanup (ms). */
     private static final long MAX_IDLE_MILLIS    = 30_000L;  // 30s idle timeout
     /** How often the cleanup task runs (seconds). */
     private static final long CLEANUP_PERIOD_SEC = 10L;      // run cleanup every 10s
+    /** Record who borrowed each connection (for "longest held"); off unless -Dbistro.pool.trackStacks=true. */
+    private static final boolean TRACK_BORROW_STACKS = Boolean.getBoolean("bistro.pool.trackStacks");
+    /** Frames kept from the borrowing stack. */
+    private static final int BORROW_STACK_DEPTH = 12;
 
     // ---------- SINGLETON INSTANCE ----------
     private static MySQLConnectionPool instance;
@@ -42,24 +60,57 @@ public class MySQLConnectionPool {
         return instance;
     }
 
+    /**
+     * Returns the pool only if it was already created (does not open anything).
+     *
+     * @return the pool instance, or null if no connection was requested yet
+     */
+    public static synchronized MySQLConnectionPool getInstanceIfCreated() {
+        return instance;
+    }
+
+    // ---------- EFFECTIVE CONFIG (read once from ServerConfig) ----------
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxPoolSize;
+    private final long maxIdleMillis;
+
     // ---------- INTERNAL STATE ----------
     /** Queue of pooled connections that are currently free to use. */
     private final BlockingQueue<PooledConnection> pool;
     /** Background task that periodically removes idle connections. */
     private final ScheduledExecutorService cleaner;
 
+    // ---------- TELEMETRY ----------
+    /** Connections currently handed out (borrowed and not yet released). */
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final AtomicLong totalCreated = new AtomicLong();
+    private final AtomicLong totalClosed = new AtomicLong();
+    private final AtomicLong totalBorrows = new AtomicLong();
+    /** Time spent in getConnection() getting a free connection from the queue (µs); creating one is not counted. */
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+
     /**
      * Private constructor – only getInstance() can create the pool.
      * Initializes the queue and schedules the periodic cleanup job.
      */
     private MySQLConnectionPool() {
-        pool = new LinkedBlockingQueue<>(MAX_POOL_SIZE);
+        ServerConfig cfg = ServerConfig.get();
+        url = cfg.getString("db.url", URL);
+        user = cfg.getString("db.user", USER);
+        password = cfg.getString("db.password", PASSWORD);
+        maxPoolSize = Math.max(1, cfg.getInt("pool.maxSize", MAX_POOL_SIZE));
+        maxIdleMillis = cfg.getLong("pool.maxIdleMillis", MAX_IDLE_MILLIS);
+        long cleanupPeriodSec = Math.max(1, cfg.getLong("pool.cleanupPeriodSec", CLEANUP_PERIOD_SEC));
+
+        pool = new LinkedBlockingQueue<>(maxPoolSize);
 
         cleaner = Executors.newSingleThreadScheduledExecutor();
         cleaner.scheduleAtFixedRate(
                 this::cleanupIdleConnections,
-                CLEANUP_PERIOD_SEC,
-                CLEANUP_PERIOD_SEC,
+                cleanupPeriodSec,
+                cleanupPeriodSec,
                 TimeUnit.SECONDS
         );
     }
@@ -70,14 +121,18 @@ public class MySQLConnectionPool {
      * @return a PooledConnection ready to use (wrapped JDBC Connection)
      */
     public PooledConnection getConnection() {
+        long waitStart = System.nanoTime();
+
         // Try to reuse from queue
         PooledConnection pConn = pool.poll();
+        long waitMicros = (System.nanoTime() - waitStart) / 1_000L;
 
         if (pConn == null) {
-            // Queue empty -> create new physical connection
+            // Queue empty -> create new physical connection (instrumented, see QueryStats)
             try {
-                Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-                pConn = new PooledConnection(conn);
+                Connection conn = DriverManager.getConnection(url, user, password);
+                pConn = new PooledConnection(InstrumentedJdbc.wrap(conn));
+                totalCreated.incrementAndGet();
             } catch (SQLException e) {
                 throw new RuntimeException("Failed to create DB connection", e);
             }
@@ -86,9 +141,39 @@ public class MySQLConnectionPool {
             pConn.touch();
         }
 
+        pConn.markBorrowed(TRACK_BORROW_STACKS ? borrowSite() : null);
+        active.add(pConn);
+        totalBorrows.incrementAndGet();
+        borrowWait.record(waitMicros);
         return pConn;
     }
 
+    /**
+     * Opens an instrumented connection outside the pool, for work that may hold it for
+     * long while waiting on something else (e.g. an export written to a slow client), so
+     * it cannot drain the pool. Not counted in the pool metrics; the caller closes it.
+     *
+     * @return new JDBC connection
+     * @throws SQLException if the connection fails
+     */
+    public Connection openDedicatedConnection() throws SQLException {
+        return InstrumentedJdbc.wrap(DriverManager.getConnection(url, user, password));
+    }
+
+    /**
+     * Opens a connection outside the pool, with the pool's URL and credentials plus
+     * extra URL parameters (e.g. {@code rewriteBatchedStatements=true} for bulk loads).
+     * It is not instrumented nor counted in the metrics; the caller closes it.
+     *
+     * @param urlParams parameters appended to {@code db.url}
+     * @return new JDBC connection
+     * @throws SQLException if the connection fails
+     */
+    public Connection openUnpooledConnection(String urlParams) throws SQLException {
+        String sep = url.indexOf('?') >= 0 ? "&" : "?";
+        return DriverManager.getConnection(url + sep + urlParams, user, password);
+    }
+
     /**
      * Returns a pooled connection back to the pool.
      * If the pool is already full, the underlying JDBC connection is closed.
@@ -101,17 +186,20 @@ public class MySQLConnectionPool {
 
         // Mark as recently used before putting back in the pool
         pConn.touch();
+        active.remove(pConn);
+        pConn.markReturned();
 
         boolean offered = pool.offer(pConn);
         if (!offered) {
             // Pool is full -> close it instead of blocking
             pConn.closePhysicalConnection();
+            totalClosed.incrementAndGet();
         }
     }
 
     /**
      * Periodic cleanup: closes connections that have been idle for too long.
-     * Runs automatically according to CLEANUP_PERIOD_SEC.
+     * Runs automatically according to pool.cleanupPeriodSec (default CLEANUP_PERIOD_SEC).
      */
     private void cleanupIdleConnections() {
         long now = System.currentTimeMillis();
@@ -119,9 +207,10 @@ public class MySQLConnectionPool {
         Iterator<PooledConnection> it = pool.iterator();
         while (it.hasNext()) {
             PooledConnection pConn = it.next();
-            if (now - pConn.getLastUsed() > MAX_IDLE_MILLIS) {
+            if (now - pConn.getLastUsed() > maxIdleMillis) {
                 it.remove();
                 pConn.closePhysicalConnection();
+                totalClosed.incrementAndGet();
             }
         }
     }
@@ -134,9 +223,58 @@ public class MySQLConnectionPool {
         cleaner.shutdown();
         for (PooledConnection pConn : pool) {
             pConn.closePhysicalConnection();
+            totalClosed.incrementAndGet();
         }
         pool.clear();
     }
+
+    /**
+     * Builds a telemetry snapshot of the pool.
+     *
+     * @return current pool metrics
+     */
+    public PoolMetricsDTO getMetrics() {
+        PoolMetricsDTO dto = new PoolMetricsDTO();
+        dto.setActive(active.size());
+        dto.setIdle(pool.size());
+        dto.setMaxSize(maxPoolSize);
+        dto.setTotalCreated(totalCreated.get());
+        dto.setTotalClosed(totalClosed.get());
+        dto.setTotalBorrows(totalBorrows.get());
+        dto.setWaitP50Micros(borrowWait.getPercentile(50));
+        dto.setWaitP99Micros(borrowWait.getPercentile(99));
+        dto.setWaitMaxMicros(borrowWait.getMax());
+
+        // Oldest borrow among the connections currently handed out
+        long now = System.currentTimeMillis();
+        PooledConnection oldest = null;
+        long oldestAt = Long.MAX_VALUE;
+        for (PooledConnection pConn : active) {
+            long at = pConn.getBorrowedAt();
+            if (at > 0 && at < oldestAt) {
+                oldestAt = at;
+                oldest = pConn;
+            }
+        }
+        if (oldest != null) {
+            dto.setLongestHeldMillis(now - oldestAt);
+            dto.setLongestHeldBy(oldest.getBorrowedBy());
+        }
+        return dto;
+    }
+
+    /**
+     * Describes the caller of getConnection(): thread name plus the first frames
+     * outside this class.
+     */
+    private static String borrowSite() {
+        String frames = StackWalker.getInstance().walk(s -> s
+                .dropWhile(f -> f.getClassName().equals(MySQLConnectionPool.class.getName()))
+                .limit(BORROW_STACK_DEPTH)
+                .map(f -> "  at " + f)
+                .collect(Collectors.joining(System.lineSeparator())));
+        return "Thread " + Thread.currentThread().getName() + System.lineSeparator() + frames;
+    }
 }
 
 
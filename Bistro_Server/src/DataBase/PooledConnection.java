@@ -14,6 +14,10 @@ public class PooledConnection {
     // Last time (in millis) this connection was used
     private long lastUsed;
 
+    // Borrow info while the connection is handed out (read by pool telemetry)
+    private volatile long borrowedAt;
+    private volatile String borrowedBy;
+
     public PooledConnection(Connection conn) {
         this.conn = conn;
         touch(); // Mark as just used
@@ -45,6 +49,38 @@ public class PooledConnection {
         return lastUsed;
     }
 
+    /**
+     * Marks this connection as handed out.
+     *
+     * @param by borrowing thread and stack (may be null)
+     */
+    void markBorrowed(String by) {
+        borrowedBy = by;
+        borrowedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Clears the borrow info when the connection goes back to the pool.
+     */
+    void markReturned() {
+        borrowedAt = 0;
+        borrowedBy = null;
+    }
+
+    /**
+     * Get the time (in millis) this connection was borrowed, or 0 if it is idle.
+     */
+    public long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    /**
+     * Get the thread/stack that borrowed this connection (null if idle or not tracked).
+     */
+    public String getBorrowedBy() {
+        return borrowedBy;
+    }
+
     /**
      * Physically close the DB connection.
      * Only the connection pool should call this.
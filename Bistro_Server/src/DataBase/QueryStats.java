@@ -0,0 +1,296 @@
+package DataBase;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Aggregated SQL statistics collected by {@link InstrumentedJdbc}.
+ * <p>
+ * Statements are grouped by <b>normalized SQL</b> (literals replaced by {@code ?},
+ * whitespace collapsed), and for every group we keep execution count, errors,
+ * rows returned/affected, total and max execution time.
+ * <p>
+ * Statements slower than {@code bistro.sql.slowMillis} (default 200 ms) are written
+ * to a slow-query log. The log goes to the file given by {@code bistro.sql.slowLogFile},
+ * or to the console if it is not set. Bind parameters are redacted (only their type and
+ * length are logged, and inline literals are masked) because they carry names, emails,
+ * phones and codes; {@code -Dbistro.sql.logParamValues=true} logs the values, e.g. on a
+ * developer machine.
+ */
+public class QueryStats {
+
+    /** Slow-query threshold in milliseconds. */
+    private static final long SLOW_MILLIS = Long.getLong("bistro.sql.slowMillis", 200L);
+    /** Longest SQL text kept per group / in the slow log. */
+    private static final int MAX_SQL_LENGTH = 500;
+    /** Write bind parameter values (not only type and length) to the slow log. Off by default. */
+    private static final boolean LOG_PARAM_VALUES = Boolean.getBoolean("bistro.sql.logParamValues");
+    /** Longest single bind parameter written to the slow log. */
+    private static final int MAX_PARAM_LENGTH = 100;
+    /** Stop caching normalized text after this many distinct raw statements. */
+    private static final int MAX_NORMALIZE_CACHE = 2048;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** One aggregate row (immutable snapshot). */
+    public static final class Entry {
+        public final String sql;
+        public final long count;
+        public final long errors;
+        public final long rows;
+        public final long totalMicros;
+        public final long maxMicros;
+
+        Entry(String sql, long count, long errors, long rows, long totalMicros, long maxMicros) {
+            this.sql = sql;
+            this.count = count;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        /** @return average execution time (µs) */
+        public long getAvgMicros() {
+            return count == 0 ? 0 : totalMicros / count;
+        }
+    }
+
+    /** Live counters of one normalized statement. */
+    static final class Agg {
+        final String sql;
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalMicros = new LongAdder();
+        final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0L);
+
+        Agg(String sql) { this.sql = sql; }
+    }
+
+    private static final Map<String, Agg> STATS = new ConcurrentHashMap<>();
+    private static final Map<String, String> NORMALIZED = new ConcurrentHashMap<>();
+    private static final LongAdder slowCount = new LongAdder();
+
+    private static final Object SLOW_LOG_LOCK = new Object();
+    private static BufferedWriter slowLogWriter;
+
+    private QueryStats() {}
+
+    // =========================================================
+    // Recording (called by InstrumentedJdbc)
+    // =========================================================
+
+    /**
+     * Returns the aggregate for a raw SQL string (created on first use).
+     *
+     * @param rawSql SQL as passed to prepareStatement / execute
+     * @return aggregate of the normalized statement
+     */
+    static Agg forSql(String rawSql) {
+        String norm = normalize(rawSql);
+        return STATS.computeIfAbsent(norm, Agg::new);
+    }
+
+    /**
+     * Records one statement execution.
+     *
+     * @param agg      statement aggregate
+     * @param nanos    execution time
+     * @param rows     rows affected (0 for queries; their rows are added while reading)
+     * @param failed   true if the driver threw
+     * @param rawSql   SQL text (for the slow log)
+     * @param params   bind parameters by index (may be null)
+     */
+    static void recordExecution(Agg agg, long nanos, long rows, boolean failed, String rawSql, Object[] params) {
+        long micros = nanos / 1_000L;
+        agg.count.increment();
+        agg.totalMicros.add(micros);
+        agg.maxMicros.accumulate(micros);
+        if (rows > 0) agg.rows.add(rows);
+        if (failed) agg.errors.increment();
+
+        if (micros >= SLOW_MILLIS * 1_000L) {
+            slowCount.increment();
+            logSlow(micros, rawSql, params, failed);
+        }
+    }
+
+    /**
+     * Adds one row read through a {@link java.sql.ResultSet} of this statement.
+     *
+     * @param agg statement aggregate
+     */
+    static void recordRow(Agg agg) {
+        agg.rows.increment();
+    }
+
+    // =========================================================
+    // Reading
+    // =========================================================
+
+    /**
+     * @return all statement aggregates, most expensive (total time) first
+     */
+    public static List<Entry> snapshot() {
+        List<Entry> list = new ArrayList<>();
+        for (Agg a : STATS.values()) {
+            list.add(new Entry(a.sql, a.count.sum(), a.errors.sum(), a.rows.sum(),
+                    a.totalMicros.sum(), a.maxMicros.get()));
+        }
+        list.sort(Comparator.comparingLong((Entry e) -> e.totalMicros).reversed());
+        return list;
+    }
+
+    /** @return number of statements that crossed the slow threshold */
+    public static long getSlowCount() {
+        return slowCount.sum();
+    }
+
+    /**
+     * Builds a short text report of the top statements by total time.
+     *
+     * @param limit max number of statements to include
+     * @return multi-line report
+     */
+    public static String formatTop(int limit) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[SQL] Top statements by total time (slow: ").append(getSlowCount()).append(")");
+
+        List<Entry> all = snapshot();
+        for (int i = 0; i < Math.min(limit, all.size()); i++) {
+            Entry e = all.get(i);
+            sb.append(System.lineSeparator())
+              .append(String.format("  %8.1fms total | %6d x | avg %7.2fms | max %7.2fms | rows %7d | err %d | %s",
+                      e.totalMicros / 1000.0, e.count, e.getAvgMicros() / 1000.0,
+                      e.maxMicros / 1000.0, e.rows, e.errors, e.sql));
+        }
+        return sb.toString();
+    }
+
+    /** Clears all aggregates (e.g. before a load test). */
+    public static void reset() {
+        STATS.clear();
+        slowCount.reset();
+    }
+
+    // =========================================================
+    // Helpers
+    // =========================================================
+
+    /**
+     * Normalizes SQL so that statements differing only in literals share one group.
+     *
+     * @param sql raw SQL
+     * @return normalized SQL
+     */
+    static String normalize(String sql) {
+        if (sql == null) return "<null>";
+
+        String cached = NORMALIZED.get(sql);
+        if (cached != null) return cached;
+
+        String n = STRING_LITERAL.matcher(sql).replaceAll("?");
+        n = NUMBER_LITERAL.matcher(n).replaceAll("?");
+        n = WHITESPACE.matcher(n).replaceAll(" ").trim();
+        n = IN_LIST.matcher(n).replaceAll("(?...)");
+        if (n.length() > MAX_SQL_LENGTH) n = n.substring(0, MAX_SQL_LENGTH) + "...";
+
+        if (NORMALIZED.size() < MAX_NORMALIZE_CACHE) NORMALIZED.put(sql, n);
+        return n;
+    }
+
+    private static void logSlow(long micros, String rawSql, Object[] params, boolean failed) {
+        String sql;
+        if (!LOG_PARAM_VALUES) {
+            sql = normalize(rawSql); // masks inline literals too
+        } else {
+            sql = rawSql == null ? "<null>" : WHITESPACE.matcher(rawSql).replaceAll(" ").trim();
+            if (sql.length() > MAX_SQL_LENGTH) sql = sql.substring(0, MAX_SQL_LENGTH) + "...";
+        }
+
+        String line = LocalDateTime.now() + " " + String.format("%.1fms", micros / 1000.0)
+                + (failed ? " FAILED" : "") + " | " + sql + " | params=" + formatParams(params);
+
+        synchronized (SLOW_LOG_LOCK) {
+            BufferedWriter w = slowLogWriter();
+            if (w == null) {
+                System.out.println("[SLOW SQL] " + line);
+                return;
+            }
+            try {
+                w.write(line);
+                w.newLine();
+                w.flush();
+            } catch (IOException e) {
+                System.out.println("[SLOW SQL] " + line);
+            }
+        }
+    }
+
+    /** Opens the slow-log file lazily (caller holds {@link #SLOW_LOG_LOCK}). */
+    private static BufferedWriter slowLogWriter() {
+        if (slowLogWriter != null) return slowLogWriter;
+
+        String p = System.getProperty("bistro.sql.slowLogFile");
+        if (p == null || p.isBlank()) return null;
+
+        try {
+            Path file = Paths.get(p.trim());
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            slowLogWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("[SQL] Cannot open slow-query log " + p + ": " + e.getMessage());
+        }
+        return slowLogWriter;
+    }
+
+    /**
+     * @return bind parameters as {@code [String(12), Integer, null]}, or with their values
+     *         if {@code bistro.sql.logParamValues} is set
+     */
+    private static String formatParams(Object[] params) {
+        if (params == null || params.length <= 1) return "[]";
+
+        StringBuilder sb = new StringBuilder("[");
+        // index 0 is unused (JDBC parameters start at 1)
+        for (int i = 1; i < params.length; i++) {
+            if (i > 1) sb.append(", ");
+            Object v = params[i];
+            if (v == null) {
+                sb.append("null");
+            } else if (!LOG_PARAM_VALUES) {
+                sb.append(v.getClass().getSimpleName());
+                if (v instanceof CharSequence cs) sb.append('(').append(cs.length()).append(')');
+                else if (v instanceof byte[] b) sb.append('(').append(b.length).append(')');
+            } else if (v instanceof byte[] b) {
+                sb.append("<").append(b.length).append(" bytes>");
+            } else if (v instanceof CharSequence || v instanceof java.util.Date || v instanceof java.time.temporal.Temporal) {
+                String s = v.toString();
+                if (s.length() > MAX_PARAM_LENGTH) s = s.substring(0, MAX_PARAM_LENGTH) + "...";
+                sb.append('\'').append(s).append('\'');
+            } else {
+                sb.append(v);
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
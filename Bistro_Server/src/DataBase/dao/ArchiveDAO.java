@@ -0,0 +1,306 @@
+package DataBase.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import DataBase.MySQLConnectionPool;
+import DataBase.PooledConnection;
+
+/**
+ * Hot / cold split of the history tables.
+ * <p>
+ * Finished reservations and waiting-list entries are moved, with their whole graph
+ * (activities, visits, bills), from {@code reservation}, {@code waiting_list},
+ * {@code user_activity}, {@code visit} and {@code bill} into the {@code *_archive} tables
+ * of the same layout (created by schema migration v4). The hot tables then only hold
+ * what the jobs and terminals work on, whatever the age of the restaurant.
+ * <p>
+ * An entry is archived when:
+ * <ul>
+ *   <li>its status is final (reservation CANCELED / EXPIRED, waiting entry CANCELED /
+ *       EXPIRED / ARRIVED) and its time is older than {@code archive.afterDays};</li>
+ *   <li>no table is held for it;</li>
+ *   <li>each of its visits ended before the cutoff, was already taken by the
+ *       performance-log ETL, and has no unpaid bill.</li>
+ * </ul>
+ * History and report queries read both sides through {@link #hotAndCold}.
+ * {@code performance_log} stays hot (it is the report table), so its visit id no
+ * longer has a foreign key.
+ * <p>
+ * A schema change to one of the hot tables must be applied to its archive table too.
+ */
+public final class ArchiveDAO {
+
+    /** Days an entry stays hot after its time. */
+    public static final int DEFAULT_AFTER_DAYS = 30;
+    /** Entries moved per transaction. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final Pattern TABLE = Pattern.compile("\\{(\\w+)}");
+
+    /** null = not checked yet */
+    private static volatile Boolean available;
+
+    private ArchiveDAO() {}
+
+    /** SQL over hot and archived rows, with its parameters (mutable, to append a tail). */
+    static final class Query {
+        final String sql;
+        final List<Object> params;
+
+        Query(String sql, List<Object> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    /** Archivable source: the entity a reservation or waiting-list activity points at. */
+    private enum Source {
+        RESERVATION("reservation", "reservation_id", "reservation_time",
+                "'CANCELED','EXPIRED'", "reserved_for_reservation_id"),
+        WAITING("waiting_list", "waiting_id", "request_time",
+                "'CANCELED','EXPIRED','ARRIVED'", "reserved_for_waiting_id");
+
+        final String table;
+        final String idColumn;
+        final String timeColumn;
+        final String finalStatuses;
+        final String tableHoldColumn;
+
+        Source(String table, String idColumn, String timeColumn, String finalStatuses, String tableHoldColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.timeColumn = timeColumn;
+            this.finalStatuses = finalStatuses;
+            this.tableHoldColumn = tableHoldColumn;
+        }
+    }
+
+    /**
+     * @return true if the archive tables exist (checked once per server run)
+     */
+    public static boolean isAvailable() {
+        Boolean a = available;
+        if (a != null) return a;
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        try (PreparedStatement ps = pc.getConnection().prepareStatement("""
+            SELECT 1
+            FROM information_schema.tables
+            WHERE table_schema = DATABASE()
+              AND table_name = 'reservation_archive'
+        """);
+             ResultSet rs = ps.executeQuery()) {
+            a = rs.next();
+        } catch (SQLException e) {
+            System.out.println("[Archive] Could not check archive tables: " + e.getMessage());
+            return false;
+        } finally {
+            pool.releaseConnection(pc);
+        }
+        if (!a) System.out.println("[Archive] Archive tables missing, history reads hot tables only.");
+        available = a;
+        return a;
+    }
+
+    /**
+     * Expands a query over hot and archived rows.
+     * <p>
+     * Table names in {@code template} are written in braces ({@code {reservation}}); the
+     * template becomes {@code (hot) UNION ALL (archive)} with the parameters bound once per
+     * branch. An entry is moved with its whole graph, so the joins of one branch never need
+     * the other side. Without archive tables, only {@code (hot)} is returned.
+     *
+     * @param template one SELECT (may end with its own ORDER BY / LIMIT)
+     * @param params   its parameters
+     * @return union and its parameters; the caller may append an outer ORDER BY / LIMIT
+     */
+    static Query hotAndCold(String template, List<?> params) {
+        String hot = tables(template, "");
+        if (!isAvailable()) return new Query("(" + hot + ")", new ArrayList<>(params));
+
+        List<Object> both = new ArrayList<>(params.size() * 2);
+        both.addAll(params);
+        both.addAll(params);
+        return new Query("(" + hot + ") UNION ALL (" + tables(template, "_archive") + ")", both);
+    }
+
+    private static String tables(String template, String suffix) {
+        Matcher m = TABLE.matcher(template);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            m.appendReplacement(sb, m.group(1) + suffix);
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Moves every archivable entry (see class comment) to the archive tables,
+     * in transactions of {@code batchSize} entries.
+     *
+     * @param afterDays entries whose time is older than this many days are archived
+     * @param batchSize entries per transaction
+     * @return number of reservations and waiting-list entries archived
+     * @throws Exception on database error (batches committed before stay archived)
+     */
+    public static int archiveOnce(int afterDays, int batchSize) throws Exception {
+        if (afterDays <= 0 || !isAvailable()) return 0;
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        int total = 0;
+        try {
+            Timestamp etlDone = etlWatermark(conn);
+            for (Source source : Source.values()) {
+                int moved;
+                do {
+                    moved = archiveBatch(conn, source, afterDays, batchSize, etlDone);
+                    total += moved;
+                } while (moved == batchSize);
+            }
+        } finally {
+            pool.releaseConnection(pc);
+        }
+        return total;
+    }
+
+    private static int archiveBatch(Connection conn, Source s, int afterDays, int batchSize, Timestamp etlDone)
+            throws Exception {
+        try {
+            conn.setAutoCommit(false);
+
+            List<Integer> ids = new ArrayList<>();
+            List<String> codes = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT e." + s.idColumn + ", e.confirmation_code" +
+                    " FROM " + s.table + " e" +
+                    " WHERE e.status IN (" + s.finalStatuses + ")" +
+                    "   AND e." + s.timeColumn + " < NOW() - INTERVAL ? DAY" +
+                    "   AND NOT EXISTS (SELECT 1 FROM restaurant_table t WHERE t." + s.tableHoldColumn + " = e." + s.idColumn + ")" +
+                    "   AND NOT EXISTS (" +
+                    "       SELECT 1" +
+                    "       FROM user_activity ua" +
+                    "       JOIN visit v ON v.activity_id = ua.activity_id" +
+                    "       LEFT JOIN bill b ON b.visit_id = v.visit_id" +
+                    "       WHERE ua." + s.idColumn + " = e." + s.idColumn +
+                    "         AND (v.actual_end_time IS NULL" +
+                    "              OR v.actual_end_time >= NOW() - INTERVAL ? DAY" +
+                    "              OR v.actual_end_time >= ?" +
+                    "              OR b.is_paid = 'NO'))" +
+                    " ORDER BY e." + s.idColumn +
+                    " LIMIT ?" +
+                    " FOR UPDATE SKIP LOCKED")) {
+                ps.setInt(1, afterDays);
+                ps.setInt(2, afterDays);
+                ps.setTimestamp(3, etlDone);
+                ps.setInt(4, batchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                        codes.add(rs.getString(2));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                conn.rollback();
+                return 0;
+            }
+
+            List<Integer> activityIds = selectIds(conn,
+                    "SELECT activity_id FROM user_activity WHERE " + s.idColumn + " IN ", ids);
+            List<Integer> visitIds = selectIds(conn,
+                    "SELECT visit_id FROM visit WHERE activity_id IN ", activityIds);
+
+            // Copy parents first, delete children first
+            copy(conn, s.table, s.idColumn, ids);
+            copy(conn, "user_activity", "activity_id", activityIds);
+            copy(conn, "visit", "visit_id", visitIds);
+            copy(conn, "bill", "visit_id", visitIds);
+
+            delete(conn, "bill", "visit_id", visitIds);
+            delete(conn, "visit", "visit_id", visitIds);
+            delete(conn, "contact_index", "activity_id", activityIds);
+            delete(conn, "user_activity", "activity_id", activityIds);
+            delete(conn, s.table, s.idColumn, ids);
+            deleteCodes(conn, codes);
+
+            conn.commit();
+            for (String code : codes) CodeDirectory.invalidate(code);
+            return ids.size();
+
+        } catch (Exception e) {
+            try { conn.rollback(); } catch (Exception ignored) {}
+            throw e;
+        } finally {
+            try { conn.setAutoCommit(true); } catch (Exception ignored) {}
+        }
+    }
+
+    /** Visits closed before this were taken by the performance-log ETL (epoch if it never ran). */
+    private static Timestamp etlWatermark(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT last_end_time FROM etl_watermark WHERE job_name = 'performance_log'");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) return rs.getTimestamp(1);
+        } catch (SQLException e) {
+            // No watermark table yet: only entries without visits are archived
+        }
+        return new Timestamp(0);
+    }
+
+    private static List<Integer> selectIds(Connection conn, String sqlPrefix, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) return Collections.emptyList();
+        List<Integer> out = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sqlPrefix + placeholders(ids.size()))) {
+            bindInts(ps, ids);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(rs.getInt(1));
+            }
+        }
+        return out;
+    }
+
+    private static void copy(Connection conn, String table, String column, List<Integer> ids) throws SQLException {
+        update(conn, "INSERT INTO " + table + "_archive SELECT * FROM " + table + " WHERE " + column + " IN ", ids);
+    }
+
+    private static void delete(Connection conn, String table, String column, List<Integer> ids) throws SQLException {
+        update(conn, "DELETE FROM " + table + " WHERE " + column + " IN ", ids);
+    }
+
+    private static void update(Connection conn, String sqlPrefix, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        try (PreparedStatement ps = conn.prepareStatement(sqlPrefix + placeholders(ids.size()))) {
+            bindInts(ps, ids);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void deleteCodes(Connection conn, List<String> codes) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM code_directory WHERE confirmation_code IN " + placeholders(codes.size()))) {
+            for (int i = 0; i < codes.size(); i++) ps.setString(i + 1, codes.get(i));
+            ps.executeUpdate();
+        }
+    }
+
+    private static String placeholders(int n) {
+        return "(" + String.join(",", Collections.nCopies(n, "?")) + ")";
+    }
+
+    private static void bindInts(PreparedStatement ps, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) ps.setInt(i + 1, ids.get(i));
+    }
+}
@@ -30,6 +30,167 @@ import java.util.List;
  */
 public class BillDAO {
 
+    /** MySQL error code of a CALL to a procedure that does not exist. */
+    private static final int ER_SP_DOES_NOT_EXIST = 1305;
+    /** Cleared when the pay_bill procedure is missing (old schema). */
+    private static volatile boolean payProcedureAvailable = true;
+
+    /**
+     * Creates the {@code pay_bill} procedure (same text as data1/bistro_routines.sql);
+     * installed by {@code SchemaMigrator} after a {@code DROP PROCEDURE IF EXISTS}. A change
+     * to the procedure needs a new migration version so deployed databases pick it up.
+     */
+    public static final String CREATE_PAY_BILL_SQL = """
+        CREATE PROCEDURE `pay_bill`(
+            IN p_kind VARCHAR(11),
+            IN p_entity_id INT,
+            IN p_activity_id INT,
+            IN p_subscriber TINYINT)
+        BEGIN
+            -- Pays the latest bill of an activity in one call (BillDAO.payBillByConfirmationCode):
+            -- checks the ARRIVED status, marks the bill paid (10% subscriber discount), ends the
+            -- active visits, frees the occupied tables and expires the reservation / waiting entry.
+            -- Returns one row: ok, error, table_id (main table), freed_tables (comma separated).
+            DECLARE v_error VARCHAR(255) DEFAULT NULL;
+            DECLARE v_status VARCHAR(20) DEFAULT NULL;
+            DECLARE v_visit_id INT DEFAULT NULL;
+            DECLARE v_table_id VARCHAR(10) DEFAULT NULL;
+            DECLARE v_bill_id INT DEFAULT NULL;
+            DECLARE v_amount DECIMAL(10,2) DEFAULT NULL;
+            DECLARE v_paid VARCHAR(3) DEFAULT NULL;
+            DECLARE v_freed TEXT DEFAULT NULL;
+            DECLARE v_freed_count INT DEFAULT 0;
+            DECLARE v_is_reservation BOOLEAN DEFAULT (p_kind = 'RESERVATION');
+
+            DECLARE CONTINUE HANDLER FOR NOT FOUND BEGIN END;
+            DECLARE EXIT HANDLER FOR SQLEXCEPTION
+            BEGIN
+                ROLLBACK;
+                RESIGNAL;
+            END;
+
+            START TRANSACTION;
+
+            body: BEGIN
+                IF v_is_reservation THEN
+                    SELECT status INTO v_status FROM reservation WHERE reservation_id = p_entity_id FOR UPDATE;
+                ELSE
+                    SELECT status INTO v_status FROM waiting_list WHERE waiting_id = p_entity_id FOR UPDATE;
+                END IF;
+
+                IF v_status IS NULL THEN
+                    SET v_error = IF(v_is_reservation, 'Reservation not found.', 'Waiting list not found.');
+                    LEAVE body;
+                END IF;
+                IF UPPER(v_status) <> 'ARRIVED' THEN
+                    SET v_error = CONCAT('Pay allowed only after check-in (',
+                                         IF(v_is_reservation, 'reservation', 'waiting list'),
+                                         ' must be ARRIVED). Current: ', v_status);
+                    LEAVE body;
+                END IF;
+
+                SELECT visit_id, table_id INTO v_visit_id, v_table_id
+                FROM visit
+                WHERE activity_id = p_activity_id
+                  AND actual_end_time IS NULL
+                ORDER BY actual_start_time DESC
+                LIMIT 1;
+                IF v_visit_id IS NULL THEN
+                    SET v_error = 'No active visit found for this code.';
+                    LEAVE body;
+                END IF;
+
+                SELECT b.bill_id, b.total_amount, b.is_paid INTO v_bill_id, v_amount, v_paid
+                FROM bill b
+                JOIN visit v ON v.visit_id = b.visit_id
+                WHERE v.activity_id = p_activity_id
+                ORDER BY b.bill_id DESC
+                LIMIT 1
+                FOR UPDATE;
+                IF v_bill_id IS NULL THEN
+                    SET v_error = 'Bill not created yet for this activity. Please click ''Find Bill'' first.';
+                    LEAVE body;
+                END IF;
+                IF v_paid = 'YES' THEN
+                    SET v_error = 'Bill already paid.';
+                    LEAVE body;
+                END IF;
+
+                UPDATE bill
+                SET is_paid = 'YES',
+                    is_subscriber_discount = IF(p_subscriber, 'YES', 'NO'),
+                    total_amount = IF(p_subscriber, v_amount * 0.9, v_amount)
+                WHERE bill_id = v_bill_id AND is_paid = 'NO';
+                IF ROW_COUNT() <> 1 THEN
+                    SET v_error = 'Pay failed (bill state changed).';
+                    LEAVE body;
+                END IF;
+
+                UPDATE visit
+                SET actual_end_time = NOW()
+                WHERE activity_id = p_activity_id
+                  AND actual_end_time IS NULL;
+                IF ROW_COUNT() <= 0 THEN
+                    SET v_error = 'Pay failed (no active visits to end).';
+                    LEAVE body;
+                END IF;
+
+                IF v_is_reservation THEN
+                    SELECT GROUP_CONCAT(table_id ORDER BY table_id), COUNT(*) INTO v_freed, v_freed_count
+                    FROM restaurant_table
+                    WHERE reserved_for_reservation_id = p_entity_id
+                      AND status = 'OCCUPIED'
+                    FOR UPDATE;
+                    UPDATE restaurant_table
+                    SET status = 'FREE',
+                        reserved_for_reservation_id = NULL,
+                        reserved_until = NULL
+                    WHERE reserved_for_reservation_id = p_entity_id
+                      AND status = 'OCCUPIED';
+                ELSE
+                    SELECT GROUP_CONCAT(table_id ORDER BY table_id), COUNT(*) INTO v_freed, v_freed_count
+                    FROM restaurant_table
+                    WHERE reserved_for_waiting_id = p_entity_id
+                      AND status = 'OCCUPIED'
+                    FOR UPDATE;
+                    UPDATE restaurant_table
+                    SET status = 'FREE',
+                        reserved_for_waiting_id = NULL,
+                        reserved_until = NULL
+                    WHERE reserved_for_waiting_id = p_entity_id
+                      AND status = 'OCCUPIED';
+                END IF;
+                IF v_freed_count <= 0 THEN
+                    SET v_error = CONCAT('Pay failed (no occupied tables found for ',
+                                         IF(v_is_reservation, 'reservation', 'waiting list'), ').');
+                    LEAVE body;
+                END IF;
+
+                IF v_is_reservation THEN
+                    UPDATE reservation SET status = 'EXPIRED'
+                    WHERE reservation_id = p_entity_id AND status = 'ARRIVED';
+                ELSE
+                    UPDATE waiting_list SET status = 'EXPIRED'
+                    WHERE waiting_id = p_entity_id AND status = 'ARRIVED';
+                END IF;
+                IF ROW_COUNT() <> 1 THEN
+                    SET v_error = CONCAT('Pay failed (',
+                                         IF(v_is_reservation, 'reservation', 'waiting list'),
+                                         ' not ARRIVED / already finished).');
+                    LEAVE body;
+                END IF;
+            END body;
+
+            IF v_error IS NULL THEN
+                COMMIT;
+            ELSE
+                ROLLBACK;
+            END IF;
+
+            SELECT v_error IS NULL AS ok, v_error AS error, v_table_id AS table_id, v_freed AS freed_tables;
+        END
+        """;
+
     // =========================
     // Existing insert (kept)
     // =========================
@@ -86,19 +247,14 @@ public class BillDAO {
         Connection conn = pc.getConnection();
 
         try {
-            // 1) Resolve code -> reservation_id or waiting_id
-            Integer reservationId = findReservationIdByCode(conn, code);
-            Integer waitingId = (reservationId == null) ? findWaitingIdByCode(conn, code) : null;
-
-            if (reservationId == null && waitingId == null) {
+            // 1+2) Resolve code -> reservation/waiting entry + user_activity row
+            CodeDirectory.Entry entry = CodeDirectory.resolve(conn, code);
+            if (entry == null) {
                 return BillLookupResult.notFound("Code not found.");
             }
-
-            // 2) Resolve -> user_activity row
-            UserActivityRow ua = findUserActivity(conn, reservationId, waitingId);
-            if (ua == null) {
-                return BillLookupResult.notFound("No activity found for this code.");
-            }
+            Integer reservationId = entry.reservationId();
+            Integer waitingId = entry.waitingId();
+            UserActivityRow ua = UserActivityRow.of(entry);
 
             // 3) Find ACTIVE visit (Option A: actual_end_time IS NULL)
             VisitRow v = findActiveVisit(conn, ua.activityId);
@@ -169,9 +325,11 @@ public class BillDAO {
      *   <li>Releases occupied tables</li>
      *   <li>Updates reservation or waiting-list status</li>
      * </ul>
+     * When the {@code pay_bill} stored procedure is installed, all of this runs in a
+     * single call; otherwise statement by statement in a JDBC transaction.
      *
      * @param code confirmation code
-     * @return payment result
+     * @return payment result (with the ids of the released tables)
      * @throws Exception if payment fails or database error occurs
      */
     public static PayBillResult payBillByConfirmationCode(String code) throws Exception {
@@ -184,16 +342,25 @@ public class BillDAO {
         Connection conn = pc.getConnection();
 
         try {
-            conn.setAutoCommit(false);
-
-            Integer reservationId = findReservationIdByCode(conn, code);
-            Integer waitingId = (reservationId == null) ? findWaitingIdByCode(conn, code) : null;
-
-            if (reservationId == null && waitingId == null) {
-                conn.rollback();
+            CodeDirectory.Entry entry = CodeDirectory.resolve(conn, code);
+            if (entry == null) {
                 return PayBillResult.fail("Code not found.");
             }
 
+            // One round trip when the pay_bill procedure is installed
+            if (payProcedureAvailable) {
+                PayBillResult r = payWithProcedure(conn, entry);
+                if (r != null) {
+                    if (r.ok) FloorModel.freed(r.freedTableIds);
+                    return r;
+                }
+            }
+
+            conn.setAutoCommit(false);
+
+            Integer reservationId = entry.reservationId();
+            Integer waitingId = entry.waitingId();
+
             // ✅ Enforce correct "can pay" status before doing anything
             if (reservationId != null) {
                 try (PreparedStatement ps = conn.prepareStatement("""
@@ -237,11 +404,7 @@ public class BillDAO {
                 }
             }
 
-            UserActivityRow ua = findUserActivity(conn, reservationId, waitingId);
-            if (ua == null) {
-                conn.rollback();
-                return PayBillResult.fail("No activity found for this code.");
-            }
+            UserActivityRow ua = UserActivityRow.of(entry);
 
             // find any active visit (there may be MANY in Option B)
             VisitRow v = findActiveVisit(conn, ua.activityId);
@@ -308,6 +471,7 @@ public class BillDAO {
             // ✅ OPTION B FIX #2: Free ALL tables used by the reservation OR waiting list
             // =========================================================
             String releasedTablesInfo;
+            List<String> freedTableIds = lockOccupiedTableIds(conn, reservationId, waitingId);
 
             if (reservationId != null) {
                 int freed = RestaurantTableDAO.freeOccupiedTablesForReservation(conn, reservationId);
@@ -361,10 +525,11 @@ public class BillDAO {
             }
 
             conn.commit();
+            FloorModel.freed(freedTableIds);
 
             // Keep compatibility with UI (tableId still returned, though multi-table exists)
             // For multi-table, we still return the main table from the active visit.
-            return PayBillResult.ok("Payment successful ✅ — " + releasedTablesInfo, v.tableId);
+            return PayBillResult.ok("Payment successful ✅ — " + releasedTablesInfo, v.tableId, freedTableIds);
 
         } catch (Exception e) {
             try { conn.rollback(); } catch (Exception ignored) {}
@@ -378,6 +543,56 @@ public class BillDAO {
     // =========================
     // Helpers (private)
     // =========================
+
+    /**
+     * Pays through the {@code pay_bill} stored procedure ({@link #CREATE_PAY_BILL_SQL}):
+     * status check, bill/visit/table/status updates and commit in one call.
+     *
+     * @param conn  connection in auto-commit mode (the procedure runs its own transaction)
+     * @param entry resolved confirmation code
+     * @return result, or null if the procedure is not installed
+     * @throws SQLException on database error
+     */
+    private static PayBillResult payWithProcedure(Connection conn, CodeDirectory.Entry entry) throws SQLException {
+        try (CallableStatement cs = conn.prepareCall("{CALL pay_bill(?, ?, ?, ?)}")) {
+            cs.setString(1, entry.kind.name());
+            cs.setInt(2, entry.entityId);
+            cs.setInt(3, entry.activityId);
+            cs.setBoolean(4, entry.isSubscriber());
+            try (ResultSet rs = cs.executeQuery()) {
+                if (!rs.next()) return PayBillResult.fail("Pay failed (no result).");
+                if (!rs.getBoolean("ok")) return PayBillResult.fail(rs.getString("error"));
+
+                String freed = rs.getString("freed_tables");
+                List<String> freedTableIds = (freed == null || freed.isBlank())
+                        ? List.of() : List.of(freed.split(","));
+                return PayBillResult.ok("Payment successful ✅ — Released " + freedTableIds.size() + " table(s)",
+                        rs.getString("table_id"), freedTableIds);
+            }
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_SP_DOES_NOT_EXIST) throw e;
+            payProcedureAvailable = false;
+            System.out.println("[BillDAO] pay_bill procedure not installed, paying statement by statement.");
+            return null;
+        }
+    }
+
+    /**
+     * Locks the tables the reservation / waiting entry occupies and returns their ids.
+     */
+    private static List<String> lockOccupiedTableIds(Connection conn, Integer reservationId, Integer waitingId) throws Exception {
+        String column = (reservationId != null) ? "reserved_for_reservation_id" : "reserved_for_waiting_id";
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT table_id FROM restaurant_table WHERE " + column + " = ? AND status = 'OCCUPIED' "
+                + "ORDER BY table_id FOR UPDATE")) {
+            ps.setInt(1, (reservationId != null) ? reservationId : waitingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<String> ids = new ArrayList<>();
+                while (rs.next()) ids.add(rs.getString(1));
+                return ids;
+            }
+        }
+    }
     
     private static BillRow findLatestBillByActivity(Connection conn, int activityId) throws Exception {
         try (PreparedStatement ps = conn.prepareStatement("""
@@ -403,70 +618,6 @@ public class BillDAO {
     }
 
 
-    private static Integer findReservationIdByCode(Connection conn, String code) throws Exception {
-        try (PreparedStatement ps = conn.prepareStatement("""
-            SELECT reservation_id FROM reservation WHERE confirmation_code = ?
-        """)) {
-            ps.setString(1, code);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt(1) : null;
-            }
-        }
-    }
-
-    private static Integer findWaitingIdByCode(Connection conn, String code) throws Exception {
-        try (PreparedStatement ps = conn.prepareStatement("""
-            SELECT waiting_id FROM waiting_list WHERE confirmation_code = ?
-        """)) {
-            ps.setString(1, code);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt(1) : null;
-            }
-        }
-    }
-
-    private static UserActivityRow findUserActivity(Connection conn, Integer reservationId, Integer waitingId) throws Exception {
-        if (reservationId != null) {
-            try (PreparedStatement ps = conn.prepareStatement("""
-                SELECT activity_id, subscriber_username, guest_email, guest_phone
-                FROM user_activity
-                WHERE reservation_id = ?
-                ORDER BY activity_date DESC
-                LIMIT 1
-            """)) {
-                ps.setInt(1, reservationId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (!rs.next()) return null;
-                    return new UserActivityRow(
-                            rs.getInt("activity_id"),
-                            rs.getString("subscriber_username"),
-                            rs.getString("guest_email"),
-                            rs.getString("guest_phone")
-                    );
-                }
-            }
-        } else {
-            try (PreparedStatement ps = conn.prepareStatement("""
-                SELECT activity_id, subscriber_username, guest_email, guest_phone
-                FROM user_activity
-                WHERE waiting_id = ?
-                ORDER BY activity_date DESC
-                LIMIT 1
-            """)) {
-                ps.setInt(1, waitingId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (!rs.next()) return null;
-                    return new UserActivityRow(
-                            rs.getInt("activity_id"),
-                            rs.getString("subscriber_username"),
-                            rs.getString("guest_email"),
-                            rs.getString("guest_phone")
-                    );
-                }
-            }
-        }
-    }
-
     private static VisitRow findActiveVisit(Connection conn, int activityId) throws Exception {
         try (PreparedStatement ps = conn.prepareStatement("""
             SELECT visit_id, table_id, actual_start_time, actual_end_time
@@ -596,7 +747,11 @@ public class BillDAO {
     // =========================
     // Small structs
     // =========================
-    private record UserActivityRow(int activityId, String subscriberUsername, String guestEmail, String guestPhone) {}
+    private record UserActivityRow(int activityId, String subscriberUsername, String guestEmail, String guestPhone) {
+        static UserActivityRow of(CodeDirectory.Entry e) {
+            return new UserActivityRow(e.activityId, e.subscriberUsername, e.guestEmail, e.guestPhone);
+        }
+    }
     private record VisitRow(int visitId, String tableId, Timestamp start, Timestamp end) {}
     private record BillRow(int billId, int visitId, double totalAmount, String isSubscriberDiscount, String isPaid) {}
 
@@ -632,15 +787,20 @@ public class BillDAO {
         public final boolean ok;
         public final String message;
         public final String tableId;
+        /** Tables released by the payment (empty on failure) */
+        public final List<String> freedTableIds;
 
-        private PayBillResult(boolean ok, String message, String tableId) {
+        private PayBillResult(boolean ok, String message, String tableId, List<String> freedTableIds) {
             this.ok = ok;
             this.message = message;
             this.tableId = tableId;
+            this.freedTableIds = freedTableIds;
         }
 
-        public static PayBillResult ok(String msg, String tableId) { return new PayBillResult(true, msg, tableId); }
-        public static PayBillResult fail(String msg) { return new PayBillResult(false, msg, null); }
+        public static PayBillResult ok(String msg, String tableId, List<String> freedTableIds) {
+            return new PayBillResult(true, msg, tableId, List.copyOf(freedTableIds));
+        }
+        public static PayBillResult fail(String msg) { return new PayBillResult(false, msg, null, List.of()); }
     }
 
     /**
@@ -0,0 +1,340 @@
+package DataBase.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import DataBase.MySQLConnectionPool;
+import DataBase.PooledConnection;
+import Server.LatencyHistogram;
+import Server.ServerConfig;
+import common.dto.TerminalValidateResponseDTO;
+
+/**
+ * Terminal check-in of a reservation in one transaction and one commit.
+ * <p>
+ * Steps (each one timed, see {@link #formatTiming()}):
+ * <ol>
+ *   <li><b>resolve</b>: code to reservation and activity through {@link CodeDirectory} (usually cached);</li>
+ *   <li><b>lock</b>: one locking read of the reservation with the DB clock and an
+ *       "already checked in" flag;</li>
+ *   <li><b>plan</b>: the allocation is chosen in memory ({@link RestaurantTableDAO#planAllocation})
+ *       from the FREE tables of the {@link FloorModel} snapshot (no query; a stale snapshot
+ *       falls back to one plain read) and taken with one optimistic UPDATE, which validates
+ *       it. Only if another check-in took one of the tables first are the FREE tables read
+ *       from the database and the party re-planned, up to {@value #PLAN_ATTEMPTS} times. A
+ *       party that does not fit the snapshot is checked against the database before it is
+ *       moved to PENDING. PENDING reservations take their RESERVED tables instead;</li>
+ *   <li><b>persist</b>: set ARRIVED, insert all visits in one multi-row INSERT;</li>
+ *   <li><b>commit</b>, then {@link FloorModel#seated} records the party.</li>
+ * </ol>
+ * Outcomes that change state without seating (late no-show canceled, no table so the
+ * reservation becomes PENDING) are committed the same way. Check-ins slower than
+ * {@code checkin.slowMillis} (default 50) are logged with their step timing.
+ */
+public final class CheckInEngine {
+
+    /** Check-in budget (ms); slower check-ins are logged. */
+    private static final long SLOW_MILLIS = 50;
+    /** Check-in allowed from reservation time until this many minutes after it. */
+    private static final long WINDOW_MINUTES = 15;
+    /** Allocations tried when tables are taken by concurrent check-ins. */
+    private static final int PLAN_ATTEMPTS = 3;
+
+    /** Step name -> latency (µs) over all check-ins of this server run. */
+    private static final Map<String, LatencyHistogram> STEP_LATENCY = new ConcurrentSkipListMap<>();
+
+    private CheckInEngine() {}
+
+    /** Check-in outcome and the time spent in each step. */
+    public static final class Result {
+        /** Reply for the terminal */
+        public final TerminalValidateResponseDTO response;
+        /** e.g. "resolve=0.1ms lock=0.9ms plan=1.2ms persist=2.0ms commit=1.1ms total=5.3ms" */
+        public final String timing;
+
+        Result(TerminalValidateResponseDTO response, String timing) {
+            this.response = response;
+            this.timing = timing;
+        }
+    }
+
+    /** Per-step stopwatch of one check-in. */
+    private static final class Timing {
+        private final long start = System.nanoTime();
+        private long last = start;
+        private final StringBuilder text = new StringBuilder();
+
+        void step(String name) {
+            long now = System.nanoTime();
+            record(name, now - last, text);
+            last = now;
+        }
+
+        String finish() {
+            long total = System.nanoTime() - start;
+            record("total", total, text);
+            long slowMillis = ServerConfig.get().getLong("checkin.slowMillis", SLOW_MILLIS);
+            if (total / 1_000_000 >= slowMillis) {
+                System.out.println("[CheckIn] Slow check-in: " + text);
+            }
+            return text.toString();
+        }
+
+        private static void record(String name, long nanos, StringBuilder text) {
+            STEP_LATENCY.computeIfAbsent(name, k -> new LatencyHistogram()).record(nanos / 1000);
+            if (text.length() > 0) text.append(' ');
+            text.append(name).append('=').append(String.format("%.1fms", nanos / 1_000_000.0));
+        }
+    }
+
+    /** Reservation row read under lock. */
+    private record LockedReservation(int reservationId, int people, String status,
+                                     Timestamp reservationTime, Timestamp dbNow, boolean checkedIn,
+                                     String subscriberName) {}
+
+    /**
+     * Checks in a reservation.
+     *
+     * @param code confirmation code
+     * @return result, or null if the code is not a reservation code (try the waiting list)
+     * @throws Exception on database error
+     */
+    public static Result checkIn(String code) throws Exception {
+        Timing timing = new Timing();
+        CodeDirectory.Entry entry = CodeDirectory.resolve(code);
+        timing.step("resolve");
+        if (entry == null || entry.kind != CodeDirectory.Kind.RESERVATION) return null;
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try {
+            conn.setAutoCommit(false);
+
+            LockedReservation r = lockReservation(conn, entry);
+            timing.step("lock");
+            if (r == null) {
+                conn.rollback();
+                return null;
+            }
+
+            TerminalValidateResponseDTO dto = new TerminalValidateResponseDTO(true, "OK");
+            dto.setReservationId(r.reservationId);
+            dto.setReservationTime(r.reservationTime);
+            dto.setNumOfCustomers(r.people);
+            dto.setStatus(r.status == null ? "" : r.status);
+            dto.setTableId("-");
+            dto.setCheckInAllowed(false);
+
+            boolean confirmed = "CONFIRMED".equalsIgnoreCase(r.status);
+            if (!confirmed && !"PENDING".equalsIgnoreCase(r.status)) {
+                return rollback(conn, timing, reject(dto, "Check-in not allowed: status is " + r.status));
+            }
+            if (r.checkedIn) {
+                return rollback(conn, timing, reject(dto, "Already checked-in for this reservation."));
+            }
+            if (r.reservationTime == null) {
+                return rollback(conn, timing, reject(dto, "Reservation time is missing."));
+            }
+
+            // Time window applies only to CONFIRMED (DB clock avoids timezone mismatch)
+            if (confirmed) {
+                long startMs = r.reservationTime.getTime();
+                long nowMs = r.dbNow.getTime();
+                if (nowMs < startMs) {
+                    return rollback(conn, timing, reject(dto, "Too early. Check-in starts at reservation time."));
+                }
+                if (nowMs > startMs + WINDOW_MINUTES * 60_000L) {
+                    boolean canceled = setStatus(conn, r.reservationId, "CONFIRMED", "CANCELED");
+                    if (canceled) dto.setStatus("CANCELED");
+                    return commit(conn, timing, reject(dto, "Too late. Reservation was canceled (no-show)."));
+                }
+            }
+
+            List<String> tableIds;
+            if (confirmed) {
+                tableIds = occupyFreeTables(conn, r);
+                timing.step("plan");
+                if (tableIds == null) {
+                    // Tables full -> move to PENDING (the assignment job reserves tables later)
+                    boolean pending = setStatus(conn, r.reservationId, "CONFIRMED", "PENDING");
+                    if (pending) dto.setStatus("PENDING");
+                    return commit(conn, timing, waitFor(dto, pending
+                            ? "No suitable tables free. Reservation moved to PENDING — you will be emailed when tables are reserved."
+                            : "No suitable tables free. Could not move to PENDING."));
+                }
+                if (tableIds.isEmpty()) {
+                    return rollback(conn, timing, reject(dto, "Allocation failed, tables keep being taken. Please try again."));
+                }
+            } else {
+                // PENDING -> second scan: must have RESERVED tables for this reservation
+                tableIds = RestaurantTableDAO.getReservedTablesForReservation(conn, r.reservationId);
+                timing.step("plan");
+                if (tableIds.isEmpty()) {
+                    return rollback(conn, timing, waitFor(dto, "Still waiting for reserved tables. Please wait for the email."));
+                }
+                if (RestaurantTableDAO.occupyReservedTablesForReservation(conn, r.reservationId) <= 0) {
+                    return rollback(conn, timing, waitFor(dto,
+                            "Reserved tables are not available (or 15-min window expired). Please wait for new tables."));
+                }
+            }
+
+            if (!setArrived(conn, r.reservationId)) {
+                return rollback(conn, timing, reject(dto, "Failed to mark ARRIVED (status changed)."));
+            }
+            VisitDAO.insertVisits(conn, entry.activityId, tableIds);
+            timing.step("persist");
+
+            String mainTable = tableIds.get(0);
+            dto.setStatus("ARRIVED");
+            dto.setTableId(mainTable);
+            dto.setMessage("Checked-in successfully. Table: " + String.join(", ", tableIds));
+            Result result = commit(conn, timing, dto);
+
+            String name = (r.subscriberName != null && !r.subscriberName.isBlank()) ? r.subscriberName : entry.guestEmail;
+            FloorModel.seated(tableIds, r.people, name, entry.code);
+            return result;
+
+        } catch (Exception e) {
+            try { conn.rollback(); } catch (Exception ignored) {}
+            throw e;
+        } finally {
+            try { conn.setAutoCommit(true); } catch (Exception ignored) {}
+            pool.releaseConnection(pc);
+        }
+    }
+
+    /**
+     * @return per-step latency of all check-ins since start (p50 / p99 / max), for the log
+     */
+    public static String formatTiming() {
+        StringBuilder sb = new StringBuilder("[CheckIn] Step latency");
+        if (STEP_LATENCY.isEmpty()) return sb.append(": no check-ins").toString();
+        for (Map.Entry<String, LatencyHistogram> e : STEP_LATENCY.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            sb.append(System.lineSeparator())
+              .append(String.format("  %-8s %6d x | p50 %7.2fms | p99 %7.2fms | max %7.2fms",
+                      e.getKey(), h.getCount(), h.getPercentile(50) / 1000.0,
+                      h.getPercentile(99) / 1000.0, h.getMax() / 1000.0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Plans and occupies FREE tables for a CONFIRMED reservation. The first plan comes from
+     * the floor snapshot; the database is read only when the snapshot is stale, when the
+     * optimistic UPDATE finds a planned table taken (re-planned without it), or to confirm
+     * that the party really does not fit.
+     *
+     * @return occupied tables, null if the party does not fit, empty if every attempt lost a table
+     */
+    private static List<String> occupyFreeTables(Connection conn, LockedReservation r) throws Exception {
+        List<RestaurantTableDAO.TableCandidate> free = FloorModel.freeTables();
+        boolean fromSnapshot = free != null;
+        if (!fromSnapshot) free = RestaurantTableDAO.getFreeTables(conn);
+
+        for (int attempt = 0; attempt < PLAN_ATTEMPTS; attempt++) {
+            List<String> plan = RestaurantTableDAO.planAllocation(free, r.people);
+            if (plan == null) {
+                if (!fromSnapshot) return null;
+                free = RestaurantTableDAO.getFreeTables(conn);
+                fromSnapshot = false;
+                plan = RestaurantTableDAO.planAllocation(free, r.people);
+                if (plan == null) return null;
+            }
+            List<String> taken = RestaurantTableDAO.occupyTablesForReservation(conn, r.reservationId, plan);
+            if (taken.isEmpty()) return plan;
+
+            // Conflict: the plan was stale, re-read the free floor
+            free = RestaurantTableDAO.getFreeTables(conn);
+            fromSnapshot = false;
+            free.removeIf(t -> taken.contains(t.tableId));
+        }
+        return Collections.emptyList();
+    }
+
+    private static LockedReservation lockReservation(Connection conn, CodeDirectory.Entry entry) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("""
+            SELECT r.reservation_id, r.num_of_customers, r.status, r.reservation_time, NOW() AS db_now,
+                   EXISTS (
+                       SELECT 1
+                       FROM visit v
+                       JOIN user_activity ua ON ua.activity_id = v.activity_id
+                       WHERE ua.reservation_id = r.reservation_id
+                   ) AS checked_in,
+                   (SELECT s.name FROM subscribers s WHERE s.username = ?) AS subscriber_name
+            FROM reservation r
+            WHERE r.reservation_id = ?
+            FOR UPDATE
+        """)) {
+            ps.setString(1, entry.subscriberUsername);
+            ps.setInt(2, entry.entityId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new LockedReservation(
+                        rs.getInt("reservation_id"),
+                        rs.getInt("num_of_customers"),
+                        rs.getString("status"),
+                        rs.getTimestamp("reservation_time"),
+                        rs.getTimestamp("db_now"),
+                        rs.getBoolean("checked_in"),
+                        rs.getString("subscriber_name")
+                );
+            }
+        }
+    }
+
+    private static boolean setStatus(Connection conn, int reservationId, String from, String to) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("""
+            UPDATE reservation SET status = ? WHERE reservation_id = ? AND status = ?
+        """)) {
+            ps.setString(1, to);
+            ps.setInt(2, reservationId);
+            ps.setString(3, from);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    private static boolean setArrived(Connection conn, int reservationId) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("""
+            UPDATE reservation
+            SET status = 'ARRIVED',
+                expiry_time = DATE_ADD(reservation_time, INTERVAL 2 HOUR)
+            WHERE reservation_id = ?
+              AND status IN ('CONFIRMED','PENDING')
+        """)) {
+            ps.setInt(1, reservationId);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    private static TerminalValidateResponseDTO reject(TerminalValidateResponseDTO dto, String message) {
+        dto.setValid(false);
+        dto.setMessage(message);
+        return dto;
+    }
+
+    private static TerminalValidateResponseDTO waitFor(TerminalValidateResponseDTO dto, String message) {
+        dto.setValid(true);
+        dto.setMessage(message);
+        return dto;
+    }
+
+    private static Result commit(Connection conn, Timing timing, TerminalValidateResponseDTO dto) throws Exception {
+        conn.commit();
+        timing.step("commit");
+        return new Result(dto, timing.finish());
+    }
+
+    private static Result rollback(Connection conn, Timing timing, TerminalValidateResponseDTO dto) throws Exception {
+        conn.rollback();
+        return new Result(dto, timing.finish());
+    }
+}
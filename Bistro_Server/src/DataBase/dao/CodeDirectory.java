@@ -0,0 +1,277 @@
+package DataBase.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import DataBase.MySQLConnectionPool;
+import DataBase.PooledConnection;
+
+/**
+ * Resolves a confirmation code to what it belongs to in one lookup:
+ * kind (reservation / waiting list), entity id, and the {@code user_activity} row
+ * (activity id, subscriber or guest contact).
+ * <p>
+ * Lookup order:
+ * <ol>
+ *   <li>in-memory LRU cache ({@link #MAX_CACHED} codes; entries never change, since a
+ *       code always belongs to the same reservation/waiting entry and activity);</li>
+ *   <li>the {@code code_directory} table (primary key lookup);</li>
+ *   <li>the source table chosen by the code prefix (see {@link #routeOf(String)}),
+ *       joined with {@code user_activity} in one query; the other table only if the
+ *       routed one misses (old codes that do not follow the prefix rule). The result is
+ *       written back to {@code code_directory} (read-repair), so every code is resolved
+ *       from the source tables at most once.</li>
+ * </ol>
+ * If the {@code code_directory} table does not exist yet, step 2 is skipped and the
+ * directory lives in memory only.
+ * <p>
+ * The current visit and bill are not part of an entry: they change with every
+ * check-in and payment, and are looked up by {@link Entry#activityId}.
+ */
+public final class CodeDirectory {
+
+    /** What a confirmation code belongs to. */
+    public enum Kind { RESERVATION, WAITING }
+
+    /** Codes kept in memory. */
+    private static final int MAX_CACHED = 10_000;
+
+    private static final Map<String, Entry> CACHE = new LinkedHashMap<>(256, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    /** Cleared when the directory table is missing (old schema). */
+    private static volatile boolean tableAvailable = true;
+
+    private CodeDirectory() {}
+
+    /** Resolved confirmation code. Immutable. */
+    public static final class Entry {
+        public final String code;
+        public final Kind kind;
+        /** reservation_id or waiting_id, depending on {@link #kind} */
+        public final int entityId;
+        public final int activityId;
+        public final String subscriberUsername;
+        public final String guestEmail;
+        public final String guestPhone;
+
+        Entry(String code, Kind kind, int entityId, int activityId,
+              String subscriberUsername, String guestEmail, String guestPhone) {
+            this.code = code;
+            this.kind = kind;
+            this.entityId = entityId;
+            this.activityId = activityId;
+            this.subscriberUsername = subscriberUsername;
+            this.guestEmail = guestEmail;
+            this.guestPhone = guestPhone;
+        }
+
+        /** @return reservation id, or null for a waiting-list code */
+        public Integer reservationId() {
+            return kind == Kind.RESERVATION ? entityId : null;
+        }
+
+        /** @return waiting id, or null for a reservation code */
+        public Integer waitingId() {
+            return kind == Kind.WAITING ? entityId : null;
+        }
+
+        /** @return true if the activity belongs to a subscriber */
+        public boolean isSubscriber() {
+            return subscriberUsername != null && !subscriberUsername.isBlank();
+        }
+    }
+
+    /**
+     * Guesses the kind from the code itself: waiting-list codes start with W, reservation
+     * codes never do (see {@link ConfirmationCodes}; older ones are 10 hex chars).
+     *
+     * @param code confirmation code
+     * @return kind to look up first
+     */
+    public static Kind routeOf(String code) {
+        return (code != null && !code.isEmpty() && Character.toUpperCase(code.charAt(0)) == 'W')
+                ? Kind.WAITING : Kind.RESERVATION;
+    }
+
+    /**
+     * Resolves a code using its own pooled connection.
+     *
+     * @param code confirmation code
+     * @return entry, or null if the code is unknown (or has no activity yet)
+     * @throws Exception on database error
+     */
+    public static Entry resolve(String code) throws Exception {
+        if (code == null || code.isBlank()) return null;
+        Entry cached = cached(code.trim());
+        if (cached != null) return cached;
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        try {
+            return resolve(pc.getConnection(), code);
+        } finally {
+            pool.releaseConnection(pc);
+        }
+    }
+
+    /**
+     * Resolves a code on the caller's connection (e.g. inside its transaction).
+     * <p>
+     * The memory cache is only filled from committed data: on an auto-commit connection
+     * right away, inside a transaction not at all (the rows read, or the directory row
+     * written back, may still be rolled back). Such a caller may pass the entry to
+     * {@link #remember(Entry)} after its commit.
+     *
+     * @param conn open connection
+     * @param code confirmation code
+     * @return entry, or null if the code is unknown (or has no activity yet)
+     * @throws SQLException on database error
+     */
+    public static Entry resolve(Connection conn, String code) throws SQLException {
+        if (code == null || code.isBlank()) return null;
+        code = code.trim();
+
+        Entry e = cached(code);
+        if (e != null) return e;
+        misses.incrementAndGet();
+
+        e = fromDirectory(conn, code);
+        if (e == null) {
+            Kind first = routeOf(code);
+            e = fromSource(conn, code, first);
+            if (e == null) e = fromSource(conn, code, first == Kind.WAITING ? Kind.RESERVATION : Kind.WAITING);
+            if (e == null) return null;
+            writeBack(conn, e);
+        }
+        if (conn.getAutoCommit()) remember(e);
+        return e;
+    }
+
+    /**
+     * Caches a resolved entry; for entries resolved inside a transaction, call it once the
+     * transaction has committed.
+     *
+     * @param e entry from {@link #resolve(Connection, String)}
+     */
+    public static void remember(Entry e) {
+        if (e == null) return;
+        synchronized (CACHE) {
+            CACHE.put(e.code, e);
+        }
+    }
+
+    /**
+     * Drops a code from the memory cache (e.g. when its rows are moved or deleted).
+     *
+     * @param code confirmation code
+     */
+    public static void invalidate(String code) {
+        if (code == null) return;
+        synchronized (CACHE) {
+            CACHE.remove(code.trim());
+        }
+    }
+
+    /** @return "hits/misses/size" for diagnostics */
+    public static String stats() {
+        int size;
+        synchronized (CACHE) {
+            size = CACHE.size();
+        }
+        return "CodeDirectory hits=" + hits.get() + " misses=" + misses.get() + " cached=" + size;
+    }
+
+    private static Entry cached(String code) {
+        Entry e;
+        synchronized (CACHE) {
+            e = CACHE.get(code);
+        }
+        if (e != null) hits.incrementAndGet();
+        return e;
+    }
+
+    private static Entry fromDirectory(Connection conn, String code) throws SQLException {
+        if (!tableAvailable) return null;
+        try (PreparedStatement ps = conn.prepareStatement("""
+            SELECT kind, entity_id, activity_id, subscriber_username, guest_email, guest_phone
+            FROM code_directory
+            WHERE confirmation_code = ?
+        """)) {
+            ps.setString(1, code);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new Entry(code, Kind.valueOf(rs.getString("kind")), rs.getInt("entity_id"),
+                        rs.getInt("activity_id"), rs.getString("subscriber_username"),
+                        rs.getString("guest_email"), rs.getString("guest_phone"));
+            }
+        } catch (SQLSyntaxErrorException e) {
+            tableAvailable = false;
+            System.out.println("[CodeDirectory] code_directory table missing, using memory only: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** One query: code -> entity id + latest activity of that entity. */
+    private static Entry fromSource(Connection conn, String code, Kind kind) throws SQLException {
+        String sql = (kind == Kind.RESERVATION) ? """
+            SELECT r.reservation_id AS entity_id, ua.activity_id,
+                   ua.subscriber_username, ua.guest_email, ua.guest_phone
+            FROM reservation r
+            JOIN user_activity ua ON ua.reservation_id = r.reservation_id
+            WHERE r.confirmation_code = ?
+            ORDER BY ua.activity_date DESC
+            LIMIT 1
+        """ : """
+            SELECT w.waiting_id AS entity_id, ua.activity_id,
+                   ua.subscriber_username, ua.guest_email, ua.guest_phone
+            FROM waiting_list w
+            JOIN user_activity ua ON ua.waiting_id = w.waiting_id
+            WHERE w.confirmation_code = ?
+            ORDER BY ua.activity_date DESC
+            LIMIT 1
+        """;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, code);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                return new Entry(code, kind, rs.getInt("entity_id"), rs.getInt("activity_id"),
+                        rs.getString("subscriber_username"), rs.getString("guest_email"), rs.getString("guest_phone"));
+            }
+        }
+    }
+
+    private static void writeBack(Connection conn, Entry e) {
+        if (!tableAvailable) return;
+        try (PreparedStatement ps = conn.prepareStatement("""
+            INSERT IGNORE INTO code_directory
+                (confirmation_code, kind, entity_id, activity_id, subscriber_username, guest_email, guest_phone)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+        """)) {
+            ps.setString(1, e.code);
+            ps.setString(2, e.kind.name());
+            ps.setInt(3, e.entityId);
+            ps.setInt(4, e.activityId);
+            ps.setString(5, e.subscriberUsername);
+            ps.setString(6, e.guestEmail);
+            ps.setString(7, e.guestPhone);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            // The directory is only a shortcut; the source tables stay authoritative
+            System.out.println("[CodeDirectory] Could not record " + e.code + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package DataBase.dao;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generates confirmation codes that are unique by construction, so an INSERT never has
+ * to be retried on a duplicate code.
+ * <p>
+ * A code is a kind letter followed by 9 Crockford base32 characters (no I, L, O, U),
+ * e.g. {@code R0F3KQ7XZ2} for a reservation and {@code W09DM4TQ1H} for a waiting-list entry:
+ * <ul>
+ *   <li>the number comes from {@link IdSequence#CONFIRMATION_CODE}, reserved in blocks
+ *       across all servers, so it is never handed out twice;</li>
+ *   <li>it goes through a fixed 44-bit Feistel permutation, a bijection, so consecutive
+ *       codes do not look consecutive and still never collide;</li>
+ *   <li>the result is written as 9 base32 characters (45 bits).</li>
+ * </ul>
+ * Older codes never collide with these: reservation codes were 10 hex characters (no R),
+ * waiting-list codes {@code W} + 8 hex characters (one character shorter). The first
+ * letter keeps {@link CodeDirectory#routeOf} working.
+ * <p>
+ * A code costs a synchronized counter increment; the database is only reached once per
+ * block of 100 codes. If the sequence table is missing (old schema), a random number
+ * is used instead (one warning in the log), and uniqueness rests on the unique key of
+ * the table again: callers retry the INSERT with a new code when
+ * {@link #isDuplicateCode} says the code was taken, at most {@link #MAX_ATTEMPTS} times.
+ */
+public final class ConfirmationCodes {
+
+    /** Crockford base32: digits and letters without I, L, O, U. */
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CHARS = 9;
+    private static final int HALF_BITS = 22;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    /** Numbers must stay below this for the permutation to be a bijection. */
+    private static final long MAX_NUMBER = 1L << (2 * HALF_BITS);
+    private static final long[] ROUND_KEYS = { 0x2545F4L, 0x3C6EF3L, 0x1B8735L, 0x0D5A77L };
+
+    /** INSERT attempts when a random fallback code hits the unique key. */
+    public static final int MAX_ATTEMPTS = 5;
+    /** MySQL error code of a duplicate key. */
+    private static final int ER_DUP_ENTRY = 1062;
+
+    private static final AtomicBoolean fallbackLogged = new AtomicBoolean();
+
+    private ConfirmationCodes() {}
+
+    /**
+     * @return new reservation code ({@code "R"} + 9 characters)
+     * @throws Exception on database error while reserving a block
+     */
+    public static String nextReservationCode() throws Exception {
+        return "R" + encode(permute(nextNumber()));
+    }
+
+    /**
+     * @return new waiting-list code ({@code "W"} + 9 characters)
+     * @throws Exception on database error while reserving a block
+     */
+    public static String nextWaitingCode() throws Exception {
+        return "W" + encode(permute(nextNumber()));
+    }
+
+    private static long nextNumber() throws Exception {
+        long n;
+        try {
+            n = IdSequence.CONFIRMATION_CODE.nextValue();
+        } catch (SQLException e) {
+            if (fallbackLogged.compareAndSet(false, true)) {
+                System.out.println("[ConfirmationCodes] " + e.getMessage() + ", using random codes.");
+            }
+            return ThreadLocalRandom.current().nextLong(MAX_NUMBER);
+        }
+        if (n >= MAX_NUMBER) throw new IllegalStateException("Confirmation code space exhausted");
+        return n;
+    }
+
+    /**
+     * @param e error of an INSERT with a confirmation code
+     * @return true if the code was already taken (only random fallback codes can be), so
+     *         the INSERT may be retried with a new code
+     */
+    public static boolean isDuplicateCode(SQLException e) {
+        return e.getErrorCode() == ER_DUP_ENTRY
+                && e.getMessage() != null && e.getMessage().contains("confirmation_code");
+    }
+
+    /** Balanced Feistel network over 44 bits: a bijection of [0, 2^44). */
+    static long permute(long n) {
+        long left = (n >>> HALF_BITS) & HALF_MASK;
+        long right = n & HALF_MASK;
+        for (long key : ROUND_KEYS) {
+            long mixed = left ^ round(right, key);
+            left = right;
+            right = mixed;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    private static long round(long half, long key) {
+        long x = (half * 0x9E3779B1L + key) & 0xFFFFFFFFL;
+        return (x ^ (x >>> 13)) & HALF_MASK;
+    }
+
+    /** @return {@link #CHARS} base32 characters, most significant first */
+    static String encode(long value) {
+        char[] out = new char[CHARS];
+        for (int i = CHARS - 1; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,147 @@
+package DataBase.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Normalized guest contact -> activity index ({@code contact_index} table), used by
+ * lost-code recovery instead of scanning {@code user_activity} with an OR over four columns.
+ * <p>
+ * Keys:
+ * <ul>
+ *   <li>email: trimmed, lower case ({@code "Dana@Mail.com "} -> {@code "dana@mail.com"});</li>
+ *   <li>phone: digits only ({@code "050-123 4567"} -> {@code "0501234567"}).</li>
+ * </ul>
+ * A contact containing {@code '@'} is an email, anything else a phone, so the two kinds
+ * never collide. Rows are added by {@link UserActivityDAO} when a guest activity is
+ * inserted; existing activities are indexed by {@link #backfill} (schema migration v3,
+ * bulk loads) with the same rules.
+ * Subscriber contacts are not indexed here: {@code subscribers.email} and
+ * {@code subscribers.phone} are unique keys already.
+ * <p>
+ * If the table does not exist yet, {@link #isAvailable()} turns false and recovery falls
+ * back to the scan.
+ */
+public final class ContactIndex {
+
+    /** Indexes the guest emails of all activities; SQL form of {@link #emailKey}. */
+    public static final String BACKFILL_EMAILS_SQL = """
+        INSERT IGNORE INTO contact_index (contact, activity_id)
+        SELECT LOWER(TRIM(guest_email)), activity_id
+        FROM user_activity
+        WHERE TRIM(guest_email) <> ''
+    """;
+
+    /** Indexes the guest phones of all activities; SQL form of {@link #phoneKey}. */
+    public static final String BACKFILL_PHONES_SQL = """
+        INSERT IGNORE INTO contact_index (contact, activity_id)
+        SELECT REGEXP_REPLACE(guest_phone, '[^0-9]', ''), activity_id
+        FROM user_activity
+        WHERE REGEXP_REPLACE(guest_phone, '[^0-9]', '') <> ''
+    """;
+
+    /** Cleared when the index table is missing (old schema). */
+    private static volatile boolean tableAvailable = true;
+
+    private ContactIndex() {}
+
+    /**
+     * @param contact email or phone as typed
+     * @return lookup key, or null if nothing is left after normalizing
+     */
+    public static String normalize(String contact) {
+        if (contact == null) return null;
+        return contact.indexOf('@') >= 0 ? emailKey(contact) : phoneKey(contact);
+    }
+
+    /**
+     * @param email email address
+     * @return trimmed lower-case key, or null if blank
+     */
+    public static String emailKey(String email) {
+        if (email == null) return null;
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    /**
+     * @param phone phone number
+     * @return digits only, or null if there are none
+     */
+    public static String phoneKey(String phone) {
+        if (phone == null) return null;
+        String key = phone.replaceAll("\\D", "");
+        return key.isEmpty() ? null : key;
+    }
+
+    /** @return false once the {@code contact_index} table was found missing */
+    public static boolean isAvailable() {
+        return tableAvailable;
+    }
+
+    /**
+     * Indexes the guest contact of a new activity. Runs on the caller's connection, so it
+     * commits or rolls back with the activity. Never throws: the index only speeds up
+     * recovery.
+     *
+     * @param conn       connection that inserted the activity
+     * @param activityId new activity ID
+     * @param email      guest email (nullable)
+     * @param phone      guest phone (nullable)
+     */
+    public static void add(Connection conn, int activityId, String email, String phone) {
+        if (!tableAvailable || activityId <= 0) return;
+        String emailKey = emailKey(email);
+        String phoneKey = phoneKey(phone);
+        if (emailKey == null && phoneKey == null) return;
+
+        try (PreparedStatement ps = conn.prepareStatement("""
+            INSERT IGNORE INTO contact_index (contact, activity_id)
+            VALUES (?, ?), (?, ?)
+        """)) {
+            // A missing key repeats the other one; INSERT IGNORE drops the duplicate
+            ps.setString(1, emailKey != null ? emailKey : phoneKey);
+            ps.setInt(2, activityId);
+            ps.setString(3, phoneKey != null ? phoneKey : emailKey);
+            ps.setInt(4, activityId);
+            ps.executeUpdate();
+        } catch (SQLSyntaxErrorException e) {
+            tableMissing(e);
+        } catch (SQLException e) {
+            System.out.println("[ContactIndex] Could not index activity " + activityId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes every activity of {@code user_activity} in two set-based statements
+     * (activities already indexed are skipped). Used after bulk loads, which insert
+     * activities without going through {@link #add}.
+     *
+     * @param conn connection
+     * @return rows added, 0 if the table is missing
+     * @throws SQLException on database error
+     */
+    public static int backfill(Connection conn) throws SQLException {
+        if (!tableAvailable) return 0;
+        try (Statement st = conn.createStatement()) {
+            return st.executeUpdate(BACKFILL_EMAILS_SQL) + st.executeUpdate(BACKFILL_PHONES_SQL);
+        } catch (SQLSyntaxErrorException e) {
+            tableMissing(e);
+            return 0;
+        }
+    }
+
+    /**
+     * Called when a lookup found the table missing.
+     *
+     * @param e error of the lookup
+     */
+    static void tableMissing(SQLSyntaxErrorException e) {
+        tableAvailable = false;
+        System.out.println("[ContactIndex] contact_index table missing, recovery will scan: " + e.getMessage());
+    }
+}
@@ -0,0 +1,263 @@
+package DataBase.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import DataBase.MySQLConnectionPool;
+import DataBase.PooledConnection;
+import common.dto.CurrentDinersDTO;
+import common.dto.RestaurantTableDTO;
+
+/**
+ * Live in-memory model of the floor: table -> status, seats and the party seated there
+ * (size, name, visit start, confirmation code).
+ * <p>
+ * The dashboard lists ({@code REQUEST_TABLES_GET}, {@code REQUEST_CURRENT_DINERS} and
+ * their live pushes) are built from an immutable snapshot, so reads take no lock and
+ * run no query.
+ * <p>
+ * Keeping it current:
+ * <ul>
+ *   <li>seeded with one query at server start ({@link #reload()});</li>
+ *   <li>check-in ({@link #seated}) and payment ({@link #freed}) update it in place, after
+ *       their commit;</li>
+ *   <li>the other writers (waiting-list check-in, table assignment / release jobs,
+ *       cancellations, table maintenance) call {@link #markStale()}, and the next read
+ *       reloads the model once.</li>
+ * </ul>
+ */
+public final class FloorModel {
+
+    /** State of one table. Immutable. */
+    public static final class TableState {
+        public final String tableId;
+        public final int seats;
+        /** FREE / RESERVED / OCCUPIED */
+        public final String status;
+        /** Party size of the open visit (0 = nobody seated) */
+        public final int party;
+        public final String customerName;
+        /** Start of the open visit, or null */
+        public final LocalDateTime visitStart;
+        public final String confirmationCode;
+
+        TableState(String tableId, int seats, String status, int party,
+                   String customerName, LocalDateTime visitStart, String confirmationCode) {
+            this.tableId = tableId;
+            this.seats = seats;
+            this.status = status;
+            this.party = party;
+            this.customerName = customerName;
+            this.visitStart = visitStart;
+            this.confirmationCode = confirmationCode;
+        }
+
+        /** @return true if a party is seated (open visit) */
+        public boolean isSeated() {
+            return visitStart != null;
+        }
+
+        TableState free() {
+            return new TableState(tableId, seats, "FREE", 0, null, null, null);
+        }
+    }
+
+    /** Current snapshot, ordered by table id; replaced as a whole on every change. */
+    private static volatile Map<String, TableState> floor = Collections.emptyMap();
+    /** Bumped by {@link #markStale()}. */
+    private static final AtomicLong staleGeneration = new AtomicLong(1);
+    /** Generation the snapshot was loaded at (0 = never loaded). */
+    private static volatile long loadedGeneration = 0;
+    /** Serializes writers (reads never take it). */
+    private static final Object LOCK = new Object();
+
+    private FloorModel() {}
+
+    /**
+     * Reloads the whole floor from the database (one query).
+     * On error the model stays stale and the next read tries again.
+     */
+    public static void reload() {
+        synchronized (LOCK) {
+            long generation = staleGeneration.get();
+            try {
+                floor = load();
+                loadedGeneration = generation;
+            } catch (Exception e) {
+                System.out.println("[FloorModel] Reload failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Marks the model out of date after a change it was not told about. */
+    public static void markStale() {
+        staleGeneration.incrementAndGet();
+    }
+
+    /**
+     * @return all tables ordered by id (snapshot copy)
+     */
+    public static List<RestaurantTableDTO> tables() {
+        Map<String, TableState> snap = current();
+        List<RestaurantTableDTO> out = new ArrayList<>(snap.size());
+        for (TableState t : snap.values()) {
+            out.add(new RestaurantTableDTO(t.tableId, t.seats, t.status));
+        }
+        return out;
+    }
+
+    /**
+     * FREE tables of the snapshot, most seats first (the order of
+     * {@link RestaurantTableDAO#getFreeTables}), so a check-in can plan its allocation
+     * without a query. The snapshot can lag behind check-ins that have not committed yet;
+     * the caller takes the tables with an optimistic {@code status = 'FREE'} UPDATE, which
+     * validates the plan.
+     *
+     * @return free tables, or null if the snapshot is stale (read the database instead)
+     */
+    static List<RestaurantTableDAO.TableCandidate> freeTables() {
+        long loaded = loadedGeneration;
+        Map<String, TableState> snap = floor;
+        if (loaded != staleGeneration.get()) return null;
+
+        List<RestaurantTableDAO.TableCandidate> out = new ArrayList<>();
+        for (TableState t : snap.values()) {
+            if ("FREE".equalsIgnoreCase(t.status)) out.add(new RestaurantTableDAO.TableCandidate(t.tableId, t.seats));
+        }
+        out.sort(Comparator.comparingInt((RestaurantTableDAO.TableCandidate t) -> t.seats).reversed());
+        return out;
+    }
+
+    /**
+     * @return one row per table with a seated party, oldest visit first (snapshot copy)
+     */
+    public static List<CurrentDinersDTO> currentDiners() {
+        List<TableState> seated = new ArrayList<>();
+        for (TableState t : current().values()) {
+            if (t.isSeated()) seated.add(t);
+        }
+        seated.sort(Comparator.comparing((TableState t) -> t.visitStart).thenComparing(t -> t.tableId));
+
+        List<CurrentDinersDTO> out = new ArrayList<>(seated.size());
+        for (TableState t : seated) {
+            String name = (t.customerName == null || t.customerName.isBlank()) ? "Guest" : t.customerName;
+            out.add(new CurrentDinersDTO(tableNumber(t.tableId), name, t.party,
+                    t.visitStart.toLocalTime().toString(), "Seated"));
+        }
+        return out;
+    }
+
+    /**
+     * Records a committed check-in: the tables are OCCUPIED by the party.
+     *
+     * @param tableIds     tables the party occupies
+     * @param party        party size
+     * @param customerName subscriber name or guest contact (null = "Guest")
+     * @param code         confirmation code
+     */
+    public static void seated(List<String> tableIds, int party, String customerName, String code) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        update(tableIds, t -> new TableState(t.tableId, t.seats, "OCCUPIED", party, customerName, now, code));
+    }
+
+    /**
+     * Records a committed payment: the tables are FREE again.
+     *
+     * @param tableIds freed tables
+     */
+    public static void freed(List<String> tableIds) {
+        update(tableIds, TableState::free);
+    }
+
+    private interface Change {
+        TableState apply(TableState t);
+    }
+
+    private static void update(List<String> tableIds, Change change) {
+        if (tableIds == null || tableIds.isEmpty()) return;
+        synchronized (LOCK) {
+            Map<String, TableState> next = new TreeMap<>(floor);
+            for (String id : tableIds) {
+                TableState t = next.get(id);
+                if (t == null) {
+                    // Table not in the model (added meanwhile): reload on the next read
+                    markStale();
+                    continue;
+                }
+                next.put(id, change.apply(t));
+            }
+            floor = Collections.unmodifiableMap(next);
+        }
+    }
+
+    private static Map<String, TableState> current() {
+        if (loadedGeneration != staleGeneration.get()) {
+            synchronized (LOCK) {
+                if (loadedGeneration != staleGeneration.get()) reload();
+            }
+        }
+        return floor;
+    }
+
+    private static Map<String, TableState> load() throws Exception {
+        String sql = """
+            SELECT t.table_id, t.num_of_seats, t.status,
+                   v.actual_start_time,
+                   COALESCE(r.num_of_customers, w.num_of_customers) AS party,
+                   COALESCE(NULLIF(s.name, ''), ua.guest_email) AS customer_name,
+                   COALESCE(r.confirmation_code, w.confirmation_code) AS confirmation_code
+            FROM restaurant_table t
+            LEFT JOIN visit v ON v.table_id = t.table_id AND v.actual_end_time IS NULL
+            LEFT JOIN user_activity ua ON ua.activity_id = v.activity_id
+            LEFT JOIN reservation r ON r.reservation_id = ua.reservation_id
+            LEFT JOIN waiting_list w ON w.waiting_id = ua.waiting_id
+            LEFT JOIN subscribers s ON s.username = ua.subscriber_username
+            ORDER BY t.table_id, v.actual_start_time DESC
+        """;
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        Map<String, TableState> out = new TreeMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String tableId = rs.getString("table_id");
+                if (out.containsKey(tableId)) continue; // latest open visit only
+                Timestamp start = rs.getTimestamp("actual_start_time");
+                out.put(tableId, new TableState(
+                        tableId,
+                        rs.getInt("num_of_seats"),
+                        rs.getString("status"),
+                        start == null ? 0 : rs.getInt("party"),
+                        rs.getString("customer_name"),
+                        start == null ? null : start.toLocalDateTime(),
+                        rs.getString("confirmation_code")
+                ));
+            }
+        } finally {
+            pool.releaseConnection(pc);
+        }
+        return Collections.unmodifiableMap(out);
+    }
+
+    /** Same numbering as the diners list always used: the digits of the table id. */
+    private static int tableNumber(String tableId) {
+        try {
+            return Integer.parseInt(tableId.replaceAll("\\D", ""));
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package DataBase.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+
+import DataBase.MySQLConnectionPool;
+import DataBase.PooledConnection;
+
+/**
+ * Prefixed id sequence ({@code MEM12}, {@code BAR12}, {@code T7}) handed out from
+ * blocks reserved in the {@code id_sequence} table.
+ * <p>
+ * Reserving a block is one atomic statement, run in auto-commit mode on a pooled
+ * connection borrowed for it (never the caller's connection):
+ * <pre>
+ *   UPDATE id_sequence SET next_value = LAST_INSERT_ID(next_value + block) WHERE name = ?
+ * </pre>
+ * so two registrations, or two servers, never get the same number, and the row lock is
+ * released as soon as the statement ends: the caller's transaction does not hold it. Numbers of a block that is not used up
+ * (server stopped) are skipped: ids are unique and increasing, not gap-free.
+ * <p>
+ * The row of a sequence is created on first use from the largest id in the table
+ * (one scan, once), or at 1 for a sequence without a source table. If the
+ * {@code id_sequence} table does not exist yet, every call falls back to that MAX query.
+ */
+public final class IdSequence {
+
+    /** Subscriber member codes. */
+    public static final IdSequence MEMBER_CODE =
+            new IdSequence("member_code", "MEM", 20, "subscribers", "member_code");
+    /** Subscriber barcode data. */
+    public static final IdSequence BARCODE =
+            new IdSequence("barcode_data", "BAR", 20, "subscribers", "barcode_data");
+    /** Restaurant table ids (rare inserts, so no gaps). */
+    public static final IdSequence TABLE_ID =
+            new IdSequence("table_id", "T", 1, "restaurant_table", "table_id");
+    /**
+     * Counter behind the confirmation codes (see {@link ConfirmationCodes}); no source table,
+     * so its row is kept when the database is reset and codes are never handed out twice.
+     */
+    public static final IdSequence CONFIRMATION_CODE =
+            new IdSequence("confirmation_code", "", 100, null, null);
+
+    /** Cleared when the sequence table is missing (old schema). */
+    private static volatile boolean tableAvailable = true;
+
+    private final String name;
+    private final String prefix;
+    private final int blockSize;
+    private final String sourceTable;
+    private final String sourceColumn;
+
+    /** Next number of the current block, and the first one past it. */
+    private long next;
+    private long limit;
+
+    private IdSequence(String name, String prefix, int blockSize, String sourceTable, String sourceColumn) {
+        this.name = name;
+        this.prefix = prefix;
+        this.blockSize = blockSize;
+        this.sourceTable = sourceTable;
+        this.sourceColumn = sourceColumn;
+    }
+
+    /**
+     * @return next id, e.g. {@code "MEM13"}
+     * @throws Exception on database error
+     */
+    public String next() throws Exception {
+        return prefix + nextValue();
+    }
+
+    /**
+     * @return next number of the sequence
+     * @throws SQLException if the sequence table is missing and there is no source table
+     *                      to fall back to
+     * @throws Exception    on database error
+     */
+    public synchronized long nextValue() throws Exception {
+        if (next >= limit) {
+            if (!tableAvailable || !reserveBlock()) {
+                if (sourceTable == null) throw new SQLException("id_sequence table missing for " + name);
+                return maxInUse() + 1;
+            }
+        }
+        return next++;
+    }
+
+    /**
+     * Reserves the next block into {@link #next} / {@link #limit}.
+     *
+     * @return false if the sequence table is missing
+     */
+    private boolean reserveBlock() throws Exception {
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try {
+            // A connection handed back mid-transaction would keep the row locked until reuse
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            long end = bump(conn);
+            if (end < 0) {
+                seed(conn);
+                end = bump(conn);
+                if (end < 0) throw new SQLException("Sequence row missing: " + name);
+            }
+            next = end - blockSize;
+            limit = end;
+            return true;
+        } catch (SQLSyntaxErrorException e) {
+            tableAvailable = false;
+            System.out.println("[IdSequence] id_sequence table missing, using MAX scans: " + e.getMessage());
+            return false;
+        } finally {
+            pool.releaseConnection(pc);
+        }
+    }
+
+    /** @return new next_value of the row (end of the reserved block), or -1 if there is no row */
+    private long bump(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "UPDATE id_sequence SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?")) {
+            ps.setInt(1, blockSize);
+            ps.setString(2, name);
+            if (ps.executeUpdate() == 0) return -1;
+        }
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT LAST_INSERT_ID()")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /** Creates the row after the largest id in use (no-op if another server just did). */
+    private void seed(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT IGNORE INTO id_sequence (name, next_value) VALUES (?, ?)")) {
+            ps.setString(1, name);
+            ps.setLong(2, maxInUse(conn) + 1);
+            ps.executeUpdate();
+        }
+    }
+
+    private long maxInUse() throws Exception {
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        try {
+            return maxInUse(pc.getConnection());
+        } finally {
+            pool.releaseConnection(pc);
+        }
+    }
+
+    /** @return largest number used with this prefix, 0 if none */
+    private long maxInUse(Connection conn) throws SQLException {
+        if (sourceTable == null) return 0;
+        String sql = "SELECT COALESCE(MAX(CAST(SUBSTRING(" + sourceColumn + ", ?) AS UNSIGNED)), 0)"
+                + " FROM " + sourceTable
+                + " WHERE " + sourceColumn + " REGEXP ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, prefix.length() + 1);
+            ps.setString(2, "^" + prefix + "[0-9]+$");
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
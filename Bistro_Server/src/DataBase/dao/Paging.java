@@ -0,0 +1,157 @@
+package DataBase.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import common.dto.PageDTO;
+import common.dto.PageRequestDTO;
+
+/**
+ * Shared helpers for the keyset-paginated list queries of the DAOs.
+ * <p>
+ * A page query orders by a unique key (e.g. {@code reservation_time, reservation_id}),
+ * fetches {@code limit + 1} rows to know whether more follow, and continues the next
+ * page with {@code WHERE key > cursor} instead of {@code OFFSET}, so every page is an
+ * index range scan of the same size.
+ * <p>
+ * Cursors are plain strings ({@code part|part}) built by the DAO from the last row.
+ */
+final class Paging {
+
+    /** Rows per page when the client does not say. */
+    static final int DEFAULT_LIMIT = 50;
+    /** Largest page the server returns. */
+    static final int MAX_LIMIT = 200;
+    /**
+     * Fetch size for streaming queries. With a forward-only, read-only statement, MySQL
+     * Connector/J only streams rows one by one for {@code Integer.MIN_VALUE}; any other
+     * value makes the driver buffer the whole result in memory first.
+     */
+    static final int STREAM_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private Paging() {}
+
+    /**
+     * @param req page request
+     * @return requested page size clamped to 1..{@link #MAX_LIMIT}
+     */
+    static int limit(PageRequestDTO req) {
+        int l = req.getLimit();
+        if (l <= 0) return DEFAULT_LIMIT;
+        return Math.min(l, MAX_LIMIT);
+    }
+
+    /**
+     * @param value optional filter value
+     * @return true if the filter is set
+     */
+    static boolean has(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * @param day yyyy-MM-dd or blank
+     * @return start of that day, or null if blank
+     */
+    static Timestamp dayStart(String day) {
+        if (!has(day)) return null;
+        return Timestamp.valueOf(parseDay(day).atStartOfDay());
+    }
+
+    /**
+     * @param day yyyy-MM-dd or blank
+     * @return start of the following day (exclusive upper bound), or null if blank
+     */
+    static Timestamp dayAfter(String day) {
+        if (!has(day)) return null;
+        return Timestamp.valueOf(parseDay(day).plusDays(1).atStartOfDay());
+    }
+
+    private static LocalDate parseDay(String day) {
+        try {
+            return LocalDate.parse(day.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date (expected yyyy-MM-dd): " + day);
+        }
+    }
+
+    /**
+     * Splits a cursor into its parts.
+     *
+     * @param cursor cursor from the previous page (may be null)
+     * @param parts  expected number of parts
+     * @return parts, or null for the first page
+     */
+    static String[] cursor(String cursor, int parts) {
+        if (!has(cursor)) return null;
+        String[] p = cursor.split("\\|", parts);
+        if (p.length != parts) throw new IllegalArgumentException("Invalid page cursor.");
+        return p;
+    }
+
+    /**
+     * Builds a {@code LIKE} pattern matching values that start with {@code prefix}
+     * (use with {@code ESCAPE '\\'}).
+     *
+     * @param prefix literal prefix
+     * @return pattern
+     */
+    static String prefixPattern(String prefix) {
+        return prefix.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Binds positional parameters in order.
+     *
+     * @param ps     statement
+     * @param params values
+     * @throws SQLException on bind error
+     */
+    static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    /**
+     * Prepares a forward-only, read-only statement that streams its rows
+     * (see {@link #STREAM_FETCH_SIZE}).
+     *
+     * @param conn connection (no other statement may run on it until the result set is closed)
+     * @param sql  query
+     * @return statement
+     * @throws SQLException on error
+     */
+    static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(STREAM_FETCH_SIZE);
+        return ps;
+    }
+
+    /**
+     * Builds the page result from up to {@code limit + 1} fetched rows.
+     *
+     * @param rows       fetched rows (the extra row, if any, is removed)
+     * @param cursors    cursor of each fetched row
+     * @param limit      page size
+     * @param firstPage  true if the request had no cursor
+     * @return page
+     */
+    static PageDTO page(List<?> rows, List<String> cursors, int limit, boolean firstPage) {
+        PageDTO page = new PageDTO();
+        boolean more = rows.size() > limit;
+        int n = Math.min(rows.size(), limit);
+        page.setRows(new ArrayList<>(rows.subList(0, n)));
+        page.setHasMore(more);
+        page.setNextCursor(more ? cursors.get(n - 1) : null);
+        page.setFirst(firstPage);
+        return page;
+    }
+}
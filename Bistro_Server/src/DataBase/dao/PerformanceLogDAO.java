@@ -3,8 +3,14 @@ package DataBase.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.sql.Date;
 
 import DataBase.MySQLConnectionPool;
@@ -129,71 +135,318 @@ public class PerformanceLogDAO {
             ps.executeUpdate();
         }
     }
+    // =========================================================
+    // Incremental performance ETL (watermark based)
+    // =========================================================
+
+    /** Watermark row name used by the performance-log ETL. */
+    private static final String ETL_JOB_NAME = "performance_log";
+    /** Max visits handled in one batch (one transaction per batch). */
+    private static final int ETL_BATCH_SIZE = 500;
+    /** Max batches per run, so one run never holds the job thread for long. */
+    private static final int ETL_MAX_BATCHES = 20;
+    /**
+     * Visits closed in the last few seconds are left for the next run.
+     * Protects against a paying transaction that committed after a later one.
+     */
+    private static final int ETL_SETTLE_SECONDS = 5;
+
+    private static volatile boolean watermarkTableReady = false;
+    private static volatile EtlRunStats lastRun;
+    private static final AtomicLong totalRuns = new AtomicLong();
+    private static final AtomicLong totalRowsProcessed = new AtomicLong();
+
     /**
-     * Generates performance log entries for the previous month.
+     * Statistics of a single incremental ETL run.
+     */
+    public static class EtlRunStats {
+        public final int rowsProcessed;
+        public final int batches;
+        /** Age (ms) of the oldest visit picked up in this run (0 if none). */
+        public final long lagMillis;
+        public final long durationMillis;
+        public final Timestamp watermarkTime;
+        public final int watermarkVisitId;
+        /** True if the run reached the end of the closed visits. */
+        public final boolean caughtUp;
+
+        public EtlRunStats(int rowsProcessed, int batches, long lagMillis, long durationMillis,
+                           Timestamp watermarkTime, int watermarkVisitId, boolean caughtUp) {
+            this.rowsProcessed = rowsProcessed;
+            this.batches = batches;
+            this.lagMillis = lagMillis;
+            this.durationMillis = durationMillis;
+            this.watermarkTime = watermarkTime;
+            this.watermarkVisitId = watermarkVisitId;
+            this.caughtUp = caughtUp;
+        }
+
+        @Override
+        public String toString() {
+            return "rows=" + rowsProcessed + ", batches=" + batches
+                    + ", lag=" + (lagMillis / 1000) + "s, duration=" + durationMillis + "ms"
+                    + ", watermark=" + watermarkTime + "#" + watermarkVisitId
+                    + (caughtUp ? "" : " (backlog left)");
+        }
+    }
+
+    /** One closed visit with its computed metrics. */
+    private static class EtlRow {
+        final int visitId;
+        final Timestamp endTime;
+        final int lateMinutes;
+        final int overstayMinutes;
+
+        EtlRow(int visitId, Timestamp endTime, int lateMinutes, int overstayMinutes) {
+            this.visitId = visitId;
+            this.endTime = endTime;
+            this.lateMinutes = lateMinutes;
+            this.overstayMinutes = overstayMinutes;
+        }
+    }
+
+    /**
+     * Processes visits closed since the stored high-watermark into performance_log.
+     * <p>
+     * Visits are read in {@code (actual_end_time, visit_id)} order, in batches of
+     * {@link #ETL_BATCH_SIZE}. Each batch inserts its log rows and moves the
+     * watermark in the same transaction, so a crash never loses or repeats a batch.
+     * The watermark row is locked ({@code FOR UPDATE}) while a batch runs, so two
+     * servers cannot process the same visits. Visits that already have a log row
+     * (e.g. the auto-reserve marker) are skipped.
      * <p>
-     * Calculates late arrivals and overstays for completed visits
-     * and avoids inserting duplicate records.
+     * The report date of each row is the day the visit ended.
      *
-     * @return number of log rows inserted
+     * @return statistics of this run
+     * @throws Exception if a database error occurs
      */
-    public static int generateMonthlyReport() {
-        int rowsAffected = 0;
-        
-        // This query selects visits from the LAST month that are NOT in performance_log yet
-        String sql = """
-            INSERT INTO performance_log (visit_id, late_minutes, overstay_minutes, report_date)
-            SELECT 
+    public static EtlRunStats runIncrementalEtl() throws Exception {
+        long startedAt = System.currentTimeMillis();
+        ensureWatermarkTable();
+
+        String sqlLockWatermark = """
+            SELECT last_end_time, last_visit_id
+            FROM etl_watermark
+            WHERE job_name = ?
+            FOR UPDATE
+        """;
+
+        String sqlReadBatch = """
+            SELECT
                 v.visit_id,
-                
-                -- Calculate Late Minutes (Only for Reservations) --
-                CASE 
+                v.actual_end_time,
+                CASE
                     WHEN r.reservation_time IS NOT NULL AND v.actual_start_time > r.reservation_time
                     THEN TIMESTAMPDIFF(MINUTE, r.reservation_time, v.actual_start_time)
-                    ELSE 0 
+                    ELSE 0
                 END AS late_calc,
-                
-                -- Calculate Overstay Minutes (Duration > 120 mins) --
-                CASE 
+                CASE
                     WHEN TIMESTAMPDIFF(MINUTE, v.actual_start_time, v.actual_end_time) > 120
                     THEN TIMESTAMPDIFF(MINUTE, v.actual_start_time, v.actual_end_time) - 120
-                    ELSE 0 
-                END AS overstay_calc,
-                
-                CURRENT_DATE
-                
+                    ELSE 0
+                END AS overstay_calc
             FROM visit v
             JOIN user_activity ua ON v.activity_id = ua.activity_id
             LEFT JOIN reservation r ON ua.reservation_id = r.reservation_id
-            WHERE 
-                -- 1. Visit is completed
-                v.actual_end_time IS NOT NULL
-                
-                -- 2. Visit happened in the PREVIOUS month (relative to today)
-                AND MONTH(v.actual_end_time) = MONTH(CURRENT_DATE - INTERVAL 1 MONTH)
-                AND YEAR(v.actual_end_time) = YEAR(CURRENT_DATE - INTERVAL 1 MONTH)
-                
-                -- 3. Avoid duplicates: Only insert if not already logged
-                AND v.visit_id NOT IN (SELECT visit_id FROM performance_log)
+            WHERE v.actual_end_time IS NOT NULL
+              AND v.actual_end_time <= NOW() - INTERVAL %d SECOND
+              AND (v.actual_end_time > ?
+                   OR (v.actual_end_time = ? AND v.visit_id > ?))
+            ORDER BY v.actual_end_time, v.visit_id
+            LIMIT %d
+        """.formatted(ETL_SETTLE_SECONDS, ETL_BATCH_SIZE);
+
+        String sqlInsertLog = """
+            INSERT INTO performance_log (visit_id, late_minutes, overstay_minutes, report_date)
+            SELECT ?, ?, ?, ?
+            FROM DUAL
+            WHERE NOT EXISTS (SELECT 1 FROM performance_log WHERE visit_id = ?)
         """;
 
+        String sqlMoveWatermark = """
+            UPDATE etl_watermark
+            SET last_end_time = ?, last_visit_id = ?, last_run_at = NOW()
+            WHERE job_name = ?
+        """;
+
+        int rows = 0;
+        int batches = 0;
+        boolean caughtUp = false;
+        Timestamp oldestPicked = null;
+        Timestamp wmTime = null;
+        int wmVisitId = 0;
+
         MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
-        PooledConnection pc = null;
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
 
         try {
-            pc = pool.getConnection();
-            Connection conn = pc.getConnection();
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                rowsAffected = ps.executeUpdate();
+            conn.setAutoCommit(false);
+
+            while (batches < ETL_MAX_BATCHES) {
+
+                // 1) Lock + read watermark
+                try (PreparedStatement ps = conn.prepareStatement(sqlLockWatermark)) {
+                    ps.setString(1, ETL_JOB_NAME);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) throw new Exception("Missing etl_watermark row: " + ETL_JOB_NAME);
+                        wmTime = rs.getTimestamp("last_end_time");
+                        wmVisitId = rs.getInt("last_visit_id");
+                    }
+                }
+
+                // 2) Next batch after the watermark
+                List<EtlRow> batch = new ArrayList<>();
+                try (PreparedStatement ps = conn.prepareStatement(sqlReadBatch)) {
+                    ps.setTimestamp(1, wmTime);
+                    ps.setTimestamp(2, wmTime);
+                    ps.setInt(3, wmVisitId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            batch.add(new EtlRow(
+                                    rs.getInt("visit_id"),
+                                    rs.getTimestamp("actual_end_time"),
+                                    rs.getInt("late_calc"),
+                                    rs.getInt("overstay_calc")));
+                        }
+                    }
+                }
+
+                if (batch.isEmpty()) {
+                    conn.commit(); // release the watermark lock
+                    caughtUp = true;
+                    break;
+                }
+
+                if (oldestPicked == null) oldestPicked = batch.get(0).endTime;
+
+                // 3) Insert log rows (skip visits that are already logged)
+                try (PreparedStatement ps = conn.prepareStatement(sqlInsertLog)) {
+                    for (EtlRow r : batch) {
+                        ps.setInt(1, r.visitId);
+                        ps.setInt(2, r.lateMinutes);
+                        ps.setInt(3, r.overstayMinutes);
+                        ps.setDate(4, new Date(r.endTime.getTime()));
+                        ps.setInt(5, r.visitId);
+                        ps.addBatch();
+                    }
+                    for (int n : ps.executeBatch()) {
+                        if (n > 0) rows += n;
+                    }
+                }
+
+                // 4) Move watermark to the last visit of this batch
+                EtlRow last = batch.get(batch.size() - 1);
+                try (PreparedStatement ps = conn.prepareStatement(sqlMoveWatermark)) {
+                    ps.setTimestamp(1, last.endTime);
+                    ps.setInt(2, last.visitId);
+                    ps.setString(3, ETL_JOB_NAME);
+                    ps.executeUpdate();
+                }
+
+                conn.commit();
+                batches++;
+                wmTime = last.endTime;
+                invalidateReportMonths(batch);
+                wmVisitId = last.visitId;
+
+                if (batch.size() < ETL_BATCH_SIZE) {
+                    caughtUp = true;
+                    break;
+                }
             }
+
         } catch (Exception e) {
-            System.out.println("[Report] Error generating monthly report: " + e.getMessage());
-            e.printStackTrace();
+            try { conn.rollback(); } catch (Exception ignored) {}
+            throw e;
+
         } finally {
-            if (pc != null) pool.releaseConnection(pc);
+            try { conn.setAutoCommit(true); } catch (Exception ignored) {}
+            pool.releaseConnection(pc);
+        }
+
+        long lagMillis = (oldestPicked == null) ? 0 : Math.max(0, startedAt - oldestPicked.getTime());
+        EtlRunStats stats = new EtlRunStats(
+                rows, batches, lagMillis, System.currentTimeMillis() - startedAt,
+                wmTime, wmVisitId, caughtUp);
+
+        lastRun = stats;
+        totalRuns.incrementAndGet();
+        totalRowsProcessed.addAndGet(rows);
+        return stats;
+    }
+
+    /**
+     * Drops cached performance reports for every month touched by a batch.
+     */
+    private static void invalidateReportMonths(List<EtlRow> batch) {
+        Set<YearMonth> months = new HashSet<>();
+        for (EtlRow r : batch) {
+            months.add(YearMonth.from(r.endTime.toLocalDateTime()));
+        }
+        for (YearMonth ym : months) {
+            ReportCache.invalidate(ReportCache.ReportType.PERFORMANCE, ym.getMonthValue(), ym.getYear());
+        }
+    }
+
+    /**
+     * @return statistics of the last completed ETL run, or null if none ran yet
+     */
+    public static EtlRunStats getLastEtlRun() {
+        return lastRun;
+    }
+
+    /**
+     * @return number of completed ETL runs since server start
+     */
+    public static long getTotalEtlRuns() {
+        return totalRuns.get();
+    }
+
+    /**
+     * @return number of performance_log rows inserted by the ETL since server start
+     */
+    public static long getTotalEtlRowsProcessed() {
+        return totalRowsProcessed.get();
+    }
+
+    /**
+     * Creates the watermark table and the ETL row if they do not exist yet.
+     * Runs once per server process.
+     *
+     * @throws Exception if a database error occurs
+     */
+    private static void ensureWatermarkTable() throws Exception {
+        if (watermarkTableReady) return;
+
+        String sqlCreate = """
+            CREATE TABLE IF NOT EXISTS etl_watermark (
+                job_name VARCHAR(50) NOT NULL,
+                last_end_time DATETIME NOT NULL,
+                last_visit_id INT NOT NULL DEFAULT 0,
+                last_run_at DATETIME DEFAULT NULL,
+                PRIMARY KEY (job_name)
+            )
+        """;
+
+        String sqlSeed = """
+            INSERT IGNORE INTO etl_watermark (job_name, last_end_time, last_visit_id)
+            VALUES (?, '1970-01-01 00:00:00', 0)
+        """;
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try (Statement st = conn.createStatement();
+             PreparedStatement ps = conn.prepareStatement(sqlSeed)) {
+            st.execute(sqlCreate);
+            ps.setString(1, ETL_JOB_NAME);
+            ps.executeUpdate();
+            watermarkTableReady = true;
+        } finally {
+            pool.releaseConnection(pc);
         }
-        
-        return rowsAffected;
     }
 }
 
@@ -0,0 +1,333 @@
+package DataBase.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import common.dto.ReportDTO;
+/**
+ * In-memory cache in front of {@link ReportDAO}.
+ * <p>
+ * Entries are keyed by (report type, month, year):
+ * <ul>
+ *   <li>Closed months never change, so they are kept until explicitly invalidated.</li>
+ *   <li>The current (or a future) month expires after a short TTL and is
+ *       invalidated when new visits are recorded.</li>
+ * </ul>
+ * If the system property {@code bistro.reportCache.file} is set, closed months
+ * are also written to that file in a compact binary form and loaded again on
+ * the next server start.
+ * <p>
+ * Every invalidation bumps a generation counter of its (type, month); a miss only stores
+ * its rows if the counter did not move while it was loading, so a load that raced
+ * {@link #invalidateCurrentMonth()} cannot put the stale result back.
+ */
+public class ReportCache {
+
+    /** Report kinds served by the cache. */
+    public enum ReportType { PERFORMANCE, ACTIVITY }
+
+    /** TTL for months that are still open (ms). */
+    private static final long OPEN_MONTH_TTL_MILLIS = 60_000L;
+    /**
+     * A month counts as closed one day after it ended, so late ETL rows
+     * (visits paid just before midnight) still land before it is frozen.
+     */
+    private static final int CLOSED_MONTH_GRACE_DAYS = 1;
+
+    /** System property holding the optional persistence file path. */
+    public static final String PERSIST_FILE_PROPERTY = "bistro.reportCache.file";
+    private static final int FILE_MAGIC = 0x42524331; // "BRC1"
+    private static final int FILE_VERSION = 1;
+
+    private static final Map<Key, Entry> CACHE = new ConcurrentHashMap<>();
+    /** Invalidations per key; a load stores its rows only if this did not change meanwhile. */
+    private static final Map<Key, Long> GENERATIONS = new ConcurrentHashMap<>();
+    /** Bumped by {@link #clear()}, which invalidates every key at once. */
+    private static final AtomicLong clears = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final Object DISK_LOCK = new Object();
+    private static volatile boolean diskLoaded = false;
+
+    /** Loads rows from the database on a cache miss. */
+    private interface Loader {
+        List<ReportDTO> load(int month, int year) throws Exception;
+    }
+
+    /** Cache key: (type, month, year). */
+    private static final class Key {
+        final ReportType type;
+        final int month;
+        final int year;
+
+        Key(ReportType type, int month, int year) {
+            this.type = type;
+            this.month = month;
+            this.year = year;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return type == k.type && month == k.month && year == k.year;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, month, year);
+        }
+    }
+
+    /** Cached rows and their expiry time ({@link Long#MAX_VALUE} for closed months). */
+    private static final class Entry {
+        final List<ReportDTO> rows;
+        final long expiresAt;
+
+        Entry(List<ReportDTO> rows, long expiresAt) {
+            this.rows = rows;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isPermanent() { return expiresAt == Long.MAX_VALUE; }
+    }
+
+    private ReportCache() {}
+
+    /**
+     * Cached version of {@link ReportDAO#getPerformanceReport(int, int)}.
+     *
+     * @param month report month (1–12)
+     * @param year  report year
+     * @return list of daily performance report entries
+     * @throws Exception if a database error occurs on a miss
+     */
+    public static List<ReportDTO> getPerformanceReport(int month, int year) throws Exception {
+        return get(ReportType.PERFORMANCE, month, year, ReportDAO::getPerformanceReport);
+    }
+
+    /**
+     * Cached version of {@link ReportDAO#getSubscriberActivityReport(int, int)}.
+     *
+     * @param month report month (1–12)
+     * @param year  report year
+     * @return list of daily activity report entries
+     * @throws Exception if a database error occurs on a miss
+     */
+    public static List<ReportDTO> getSubscriberActivityReport(int month, int year) throws Exception {
+        return get(ReportType.ACTIVITY, month, year, ReportDAO::getSubscriberActivityReport);
+    }
+
+    private static List<ReportDTO> get(ReportType type, int month, int year, Loader loader) throws Exception {
+        loadFromDiskOnce();
+
+        Key key = new Key(type, month, year);
+        long now = System.currentTimeMillis();
+
+        Entry e = CACHE.get(key);
+        if (e != null && e.expiresAt > now) {
+            hits.incrementAndGet();
+            return new ArrayList<>(e.rows);
+        }
+
+        misses.incrementAndGet();
+        long clearsBefore = clears.get();
+        long generationBefore = generation(key);
+        List<ReportDTO> rows = new ArrayList<>(loader.load(month, year));
+
+        boolean closed = isClosedMonth(month, year);
+        Entry fresh = new Entry(rows, closed ? Long.MAX_VALUE : now + OPEN_MONTH_TTL_MILLIS);
+        // Checked inside compute: an invalidation bumps first and removes after, so it either
+        // makes this store skip or removes what it stored
+        boolean[] stored = new boolean[1];
+        CACHE.compute(key, (k, old) -> {
+            if (clears.get() != clearsBefore || generation(k) != generationBefore) return old;
+            stored[0] = true;
+            return fresh;
+        });
+        if (closed && stored[0]) saveToDisk();
+
+        return new ArrayList<>(rows);
+    }
+
+    private static long generation(Key key) {
+        return GENERATIONS.getOrDefault(key, 0L);
+    }
+
+    /** Bumps the generation of a key, then drops its entry. */
+    private static Entry drop(Key key) {
+        GENERATIONS.merge(key, 1L, Long::sum);
+        return CACHE.remove(key);
+    }
+
+    /**
+     * Drops one cached report month (e.g. after late rows were added to it).
+     *
+     * @param type  report type
+     * @param month month (1–12)
+     * @param year  year
+     */
+    public static void invalidate(ReportType type, int month, int year) {
+        Entry removed = drop(new Key(type, month, year));
+        if (removed != null && removed.isPermanent()) saveToDisk();
+    }
+
+    /**
+     * Drops both report types for the current month.
+     * Called when new visits are recorded.
+     */
+    public static void invalidateCurrentMonth() {
+        LocalDate today = LocalDate.now();
+        for (ReportType t : ReportType.values()) {
+            drop(new Key(t, today.getMonthValue(), today.getYear()));
+        }
+    }
+
+    /** Removes all entries, also from the persistence file (e.g. after a database reset). */
+    public static void clear() {
+        clears.incrementAndGet();
+        CACHE.clear();
+        saveToDisk();
+    }
+
+    /** @return number of cached report months */
+    public static int size() { return CACHE.size(); }
+
+    /** @return number of requests served from the cache */
+    public static long getHits() { return hits.get(); }
+
+    /** @return number of requests that went to the database */
+    public static long getMisses() { return misses.get(); }
+
+    /** @return hits / (hits + misses), or 0 if nothing was requested yet */
+    public static double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private static boolean isClosedMonth(int month, int year) {
+        LocalDate frozenFrom = YearMonth.of(year, month).plusMonths(1).atDay(1).plusDays(CLOSED_MONTH_GRACE_DAYS);
+        return !LocalDate.now().isBefore(frozenFrom);
+    }
+
+    // =========================================================
+    // Disk persistence (closed months only)
+    // =========================================================
+
+    private static Path persistFile() {
+        String p = System.getProperty(PERSIST_FILE_PROPERTY);
+        return (p == null || p.isBlank()) ? null : Paths.get(p.trim());
+    }
+
+    /**
+     * Loads closed months from the persistence file (once per process).
+     * A missing or unreadable file just means an empty cache.
+     */
+    private static void loadFromDiskOnce() {
+        if (diskLoaded) return;
+        synchronized (DISK_LOCK) {
+            if (diskLoaded) return;
+            diskLoaded = true;
+
+            Path file = persistFile();
+            if (file == null || !Files.isRegularFile(file)) return;
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                    System.out.println("[ReportCache] Ignoring " + file + " (unknown format)");
+                    return;
+                }
+
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    ReportType type = ReportType.values()[in.readByte()];
+                    int year = in.readShort();
+                    int month = in.readByte();
+                    int n = in.readInt();
+
+                    List<ReportDTO> rows = new ArrayList<>(n);
+                    for (int j = 0; j < n; j++) {
+                        ReportDTO dto = new ReportDTO();
+                        dto.setDate(in.readUTF());
+                        dto.setTotalLate(in.readInt());
+                        dto.setTotalOverstay(in.readInt());
+                        dto.setTotalReservations(in.readInt());
+                        dto.setTotalWaiting(in.readInt());
+                        rows.add(dto);
+                    }
+                    CACHE.putIfAbsent(new Key(type, month, year), new Entry(rows, Long.MAX_VALUE));
+                }
+                System.out.println("[ReportCache] Loaded " + count + " closed report month(s) from " + file);
+
+            } catch (Exception e) {
+                System.out.println("[ReportCache] Failed to load " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rewrites the persistence file with all closed-month entries.
+     * Written to a temp file first, then moved over the old one.
+     */
+    private static void saveToDisk() {
+        Path file = persistFile();
+        if (file == null) return;
+
+        synchronized (DISK_LOCK) {
+            List<Map.Entry<Key, Entry>> closed = new ArrayList<>();
+            for (Map.Entry<Key, Entry> me : CACHE.entrySet()) {
+                if (me.getValue().isPermanent()) closed.add(me);
+            }
+
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                if (file.getParent() != null) Files.createDirectories(file.getParent());
+
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(FILE_MAGIC);
+                    out.writeInt(FILE_VERSION);
+                    out.writeInt(closed.size());
+
+                    for (Map.Entry<Key, Entry> me : closed) {
+                        Key k = me.getKey();
+                        List<ReportDTO> rows = me.getValue().rows;
+
+                        out.writeByte(k.type.ordinal());
+                        out.writeShort(k.year);
+                        out.writeByte(k.month);
+                        out.writeInt(rows.size());
+
+                        for (ReportDTO dto : rows) {
+                            out.writeUTF(dto.getDate() == null ? "" : dto.getDate());
+                            out.writeInt(dto.getTotalLate());
+                            out.writeInt(dto.getTotalOverstay());
+                            out.writeInt(dto.getTotalReservations());
+                            out.writeInt(dto.getTotalWaiting());
+                        }
+                    }
+                }
+
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            } catch (IOException e) {
+                System.out.println("[ReportCache] Failed to save " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
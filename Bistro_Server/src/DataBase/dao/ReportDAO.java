@@ -75,7 +75,7 @@ public class ReportDAO {
      * Retrieves a monthly subscriber activity report.
      * <p>
      * Counts the number of reservations and waiting-list entries
-     * per day based on user activity records.
+     * per day based on user activity records (hot and archived).
      *
      * @param month report month (1–12)
      * @param year  report year (e.g. 2025)
@@ -86,25 +86,29 @@ public class ReportDAO {
         List<ReportDTO> list = new ArrayList<>();
         // Note: Using LEFT JOIN or just checking tables. 
         // For simplicity, we count from user_activity.
+        // Hot and archived activities of the month
+        ArchiveDAO.Query activities = ArchiveDAO.hotAndCold("""
+            SELECT activity_date, reservation_id, waiting_id
+            FROM {user_activity}
+            WHERE MONTH(activity_date) = ?
+              AND YEAR(activity_date) = ?
+        """, List.of(month, year));
         String sql = """
             SELECT 
                 DATE(activity_date) as act_date,
                 COUNT(CASE WHEN reservation_id IS NOT NULL THEN 1 END) as total_res,
                 COUNT(CASE WHEN waiting_id IS NOT NULL THEN 1 END) as total_wait
-            FROM user_activity
-            WHERE MONTH(activity_date) = ?
-              AND YEAR(activity_date) = ?
+            FROM (%s) ua
             GROUP BY act_date
             ORDER BY act_date ASC
-        """;
+        """.formatted(activities.sql);
 
         MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
         PooledConnection pc = pool.getConnection();
         Connection conn = pc.getConnection();
 
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, month);
-            ps.setInt(2, year);
+            Paging.bind(ps, activities.params);
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -11,10 +11,13 @@ import Server.EmailService;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
 
 import common.dto.MakeReservationRequestDTO;
+import common.dto.PageDTO;
+import common.dto.PageRequestDTO;
 import common.dto.ReservationDTO;
 /**
  * Data Access Object for reservation management.
@@ -97,6 +100,173 @@ public class ReservationDAO {
 
         return list;
     }
+
+    /**
+     * Returns the reservations whose time falls in {@code [from, to)}, ordered by
+     * {@code (reservation_time, reservation_id)}. Uses the reservation-time index instead
+     * of reading the whole table.
+     *
+     * @param from first time included, or null for no lower bound
+     * @param to   first time excluded, or null for no upper bound
+     * @return reservations in the range
+     * @throws SQLException on database error
+     */
+    public static List<Reservation> getReservationsInRange(Timestamp from, Timestamp to) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT reservation_id, num_of_customers, reservation_time, expiry_time, status, confirmation_code " +
+                "FROM reservation WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        if (from != null) { sql.append(" AND reservation_time >= ?"); params.add(from); }
+        if (to != null) { sql.append(" AND reservation_time < ?"); params.add(to); }
+        sql.append(" ORDER BY reservation_time, reservation_id");
+
+        List<Reservation> list = new ArrayList<>();
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            Paging.bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new Reservation(
+                            rs.getInt("reservation_id"),
+                            rs.getInt("num_of_customers"),
+                            rs.getTimestamp("reservation_time"),
+                            rs.getTimestamp("expiry_time"),
+                            rs.getString("status"),
+                            rs.getString("confirmation_code")));
+                }
+            }
+        } finally {
+            pool.releaseConnection(pc);
+        }
+        return list;
+    }
+
+    /**
+     * Returns one page of reservations ordered by {@code (reservation_time, reservation_id)},
+     * with optional date range and status filters (see {@link PageRequestDTO}).
+     * <p>
+     * Keyset pagination: the next page starts after the cursor row, so the cost does not
+     * grow with the page number or with the size of the table.
+     *
+     * @param req page size, cursor and filters
+     * @return page of {@link ReservationDTO}
+     * @throws SQLException on database error
+     */
+    public static PageDTO getReservationsPage(PageRequestDTO req) throws SQLException {
+        int limit = Paging.limit(req);
+        StringBuilder sql = new StringBuilder(
+                "SELECT reservation_id, num_of_customers, reservation_time, expiry_time, status, confirmation_code " +
+                "FROM {reservation} WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendReservationFilters(req, sql, params);
+
+        String[] cursor = Paging.cursor(req.getCursor(), 2);
+        if (cursor != null) {
+            Timestamp afterTime;
+            int afterId;
+            try {
+                afterTime = Timestamp.valueOf(cursor[0]);
+                afterId = Integer.parseInt(cursor[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid page cursor.");
+            }
+            sql.append(" AND reservation_time >= ? AND (reservation_time > ? OR reservation_id > ?)");
+            params.add(afterTime);
+            params.add(afterTime);
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY reservation_time, reservation_id LIMIT ?");
+        params.add(limit + 1);
+
+        // Same page from the archive, then the first limit + 1 of both
+        ArchiveDAO.Query q = ArchiveDAO.hotAndCold(sql.toString(), params);
+        q.params.add(limit + 1);
+        String pageSql = q.sql + " ORDER BY reservation_time, reservation_id LIMIT ?";
+
+        List<ReservationDTO> rows = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try (PreparedStatement ps = conn.prepareStatement(pageSql)) {
+            Paging.bind(ps, q.params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ReservationDTO dto = toReservationDTO(rs);
+                    rows.add(dto);
+                    cursors.add(dto.getReservationTime() + "|" + dto.getReservationId());
+                }
+            }
+        } finally {
+            pool.releaseConnection(pc);
+        }
+        return Paging.page(rows, cursors, limit, cursor == null);
+    }
+
+    /**
+     * Streams all reservations matching the filters of {@code filter} (cursor and limit are
+     * ignored) to {@code sink}, in {@code (reservation_time, reservation_id)} order.
+     * Rows are read one by one from a forward-only result set, so memory does not depend
+     * on the number of rows.
+     * The query runs on a dedicated connection, not a pooled one, so a slow or stalled
+     * client does not hold a pool connection for the whole export.
+     *
+     * @param filter date range / status filters
+     * @param sink   receives each row
+     * @return number of rows streamed
+     * @throws Exception on database error, or when the sink aborts
+     */
+    public static long streamReservations(PageRequestDTO filter, RowSink<? super ReservationDTO> sink) throws Exception {
+        StringBuilder sql = new StringBuilder(
+                "SELECT reservation_id, num_of_customers, reservation_time, expiry_time, status, confirmation_code " +
+                "FROM {reservation} WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendReservationFilters(filter, sql, params);
+        ArchiveDAO.Query q = ArchiveDAO.hotAndCold(sql.toString(), params);
+        String streamSql = q.sql + " ORDER BY reservation_time, reservation_id";
+
+        long n = 0;
+        // Dedicated connection: the sink writes to the client, which may be slow
+        try (Connection conn = MySQLConnectionPool.getInstance().openDedicatedConnection();
+             PreparedStatement ps = Paging.prepareStreaming(conn, streamSql)) {
+            Paging.bind(ps, q.params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(toReservationDTO(rs));
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    /** Appends the date range / status filters of a page or stream request. */
+    private static void appendReservationFilters(PageRequestDTO req, StringBuilder sql, List<Object> params) {
+        Timestamp from = Paging.dayStart(req.getFromDate());
+        if (from != null) { sql.append(" AND reservation_time >= ?"); params.add(from); }
+        Timestamp to = Paging.dayAfter(req.getToDate());
+        if (to != null) { sql.append(" AND reservation_time < ?"); params.add(to); }
+        if (Paging.has(req.getStatus())) { sql.append(" AND status = ?"); params.add(req.getStatus().trim()); }
+    }
+
+    /** Maps the current reservation row (list columns) to a DTO. */
+    private static ReservationDTO toReservationDTO(ResultSet rs) throws SQLException {
+        Timestamp resTime = rs.getTimestamp("reservation_time");
+        Timestamp expTime = rs.getTimestamp("expiry_time");
+        return new ReservationDTO(
+                rs.getInt("reservation_id"),
+                rs.getString("confirmation_code"),
+                (resTime != null) ? resTime.toString() : "",
+                (expTime != null) ? expTime.toString() : "",
+                rs.getInt("num_of_customers"),
+                rs.getString("status"));
+    }
  // ADD inside ReservationDAO class
     
     public static class CreateReservationResult {
@@ -123,11 +293,22 @@ public class ReservationDAO {
      * @throws Exception if capacity is exceeded or transaction fails
      */
     public CreateReservationResult createReservationWithActivity(MakeReservationRequestDTO req) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return insertReservationWithActivity(req, ConfirmationCodes.nextReservationCode());
+            } catch (SQLException e) {
+                // Only random fallback codes can collide (see ConfirmationCodes)
+                if (attempt >= ConfirmationCodes.MAX_ATTEMPTS || !ConfirmationCodes.isDuplicateCode(e)) throw e;
+            }
+        }
+    }
 
-        String status = "CONFIRMED";
+    /**
+     * One attempt of {@link #createReservationWithActivity} with a given code.
+     */
+    private CreateReservationResult insertReservationWithActivity(MakeReservationRequestDTO req, String code) throws Exception {
 
-        String code = UUID.randomUUID().toString().replace("-", "")
-                .substring(0, 10).toUpperCase();
+        String status = "CONFIRMED";
 
         Timestamp reservationTime = req.getReservationTime();
 
@@ -741,14 +922,15 @@ public class ReservationDAO {
 
     public List<Reservation> getReservationsBySubscriber(String username) throws Exception {
 
-        String sql = """
+        // Hot and archived history, newest first
+        ArchiveDAO.Query q = ArchiveDAO.hotAndCold("""
             SELECT r.reservation_id, r.num_of_customers, r.reservation_time,
                    r.expiry_time, r.status, r.confirmation_code
-            FROM reservation r
-            JOIN user_activity ua ON ua.reservation_id = r.reservation_id
+            FROM {reservation} r
+            JOIN {user_activity} ua ON ua.reservation_id = r.reservation_id
             WHERE ua.subscriber_username = ?
-            ORDER BY r.reservation_time DESC
-        """;
+        """, Collections.singletonList(username));
+        String sql = q.sql + " ORDER BY reservation_time DESC";
 
         List<Reservation> list = new ArrayList<>();
 
@@ -757,7 +939,7 @@ public class ReservationDAO {
         Connection conn = pc.getConnection();
 
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username);
+            Paging.bind(ps, q.params);
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
@@ -779,14 +961,15 @@ public class ReservationDAO {
 
     public List<Reservation> getReservationsByGuest(String email, String phone) throws Exception {
 
-        String sql = """
+        // Hot and archived history, newest first
+        ArchiveDAO.Query q = ArchiveDAO.hotAndCold("""
             SELECT r.reservation_id, r.num_of_customers, r.reservation_time,
                    r.expiry_time, r.status, r.confirmation_code
-            FROM reservation r
-            JOIN user_activity ua ON ua.reservation_id = r.reservation_id
+            FROM {reservation} r
+            JOIN {user_activity} ua ON ua.reservation_id = r.reservation_id
             WHERE (ua.guest_email = ? OR ua.guest_phone = ?)
-            ORDER BY r.reservation_time DESC
-        """;
+        """, Arrays.asList(email, phone));
+        String sql = q.sql + " ORDER BY reservation_time DESC";
 
         List<Reservation> list = new ArrayList<>();
 
@@ -795,8 +978,7 @@ public class ReservationDAO {
         Connection conn = pc.getConnection();
 
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, email);
-            ps.setString(2, phone);
+            Paging.bind(ps, q.params);
 
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
@@ -962,7 +1144,13 @@ public class ReservationDAO {
         }
     }
 
-    public static void autoReserveForPendingReservations() throws Exception {
+    /**
+     * Reserves tables (15-minute hold) for the first PENDING reservation that fits now.
+     *
+     * @return true if tables were reserved
+     * @throws Exception on database error
+     */
+    public static boolean autoReserveForPendingReservations() throws Exception {
 
         String pickSql = """
             SELECT reservation_id, num_of_customers
@@ -1017,11 +1205,12 @@ public class ReservationDAO {
                         }
                     } catch (Exception ignored) {}
 
-                    return; // ✅ IMPORTANT: stop after FIRST success
+                    return true; // ✅ IMPORTANT: stop after FIRST success
                 }
             }
 
             conn.rollback(); // nothing fit
+            return false;
 
         } catch (Exception e) {
             try { conn.rollback(); } catch (Exception ignored) {}
@@ -1244,17 +1433,18 @@ public class ReservationDAO {
     
     public static List<ReservationDTO> getReservationsBySubscriberForStaff(String username) {
         List<ReservationDTO> list = new ArrayList<>();
-        // ✅ JOIN with user_activity to find the username
-        String sql = "SELECT r.* FROM reservation r " +
-                     "JOIN user_activity ua ON r.reservation_id = ua.reservation_id " +
-                     "WHERE ua.subscriber_username = ?";
+        // ✅ JOIN with user_activity to find the username (hot and archived history)
+        ArchiveDAO.Query q = ArchiveDAO.hotAndCold(
+                "SELECT r.* FROM {reservation} r " +
+                "JOIN {user_activity} ua ON r.reservation_id = ua.reservation_id " +
+                "WHERE ua.subscriber_username = ?", Collections.singletonList(username));
 
         MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
         PooledConnection pc = pool.getConnection();
         Connection conn = pc.getConnection();
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username);
+        try (PreparedStatement ps = conn.prepareStatement(q.sql)) {
+            Paging.bind(ps, q.params);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     list.add(new ReservationDTO(
@@ -3,6 +3,7 @@ package DataBase.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Savepoint;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -332,7 +333,7 @@ public class RestaurantTableDAO {
         }
     }
 
-    private static class TableCandidate {
+    static class TableCandidate {
         final String tableId;
         final int seats;
         TableCandidate(String tableId, int seats) {
@@ -341,7 +342,89 @@ public class RestaurantTableDAO {
         }
     }
 
-    private static List<TableCandidate> getFreeTables(Connection conn) throws Exception {
+    /**
+     * Chooses tables for a party without touching the database, with the same rules as
+     * {@link #allocateFreeTablesBestFit}: the smallest single table that fits, otherwise
+     * the multi-table best fit.
+     *
+     * @param free   free tables
+     * @param needed party size
+     * @return chosen table ids, or null if the party does not fit
+     */
+    static List<String> planAllocation(List<TableCandidate> free, int needed) {
+        TableCandidate single = null;
+        for (TableCandidate t : free) {
+            if (t.seats >= needed && (single == null || t.seats < single.seats)) single = t;
+        }
+        if (single != null) return List.of(single.tableId);
+
+        List<TableCandidate> chosen = chooseBestFit(free, needed);
+        if (chosen == null || chosen.isEmpty()) return null;
+        List<String> ids = new ArrayList<>(chosen.size());
+        for (TableCandidate t : chosen) ids.add(t.tableId);
+        return ids;
+    }
+
+    /**
+     * Occupies planned FREE tables for a reservation in one optimistic statement (the
+     * candidates were read without locks). If another check-in took one of them first,
+     * the tables this call did take are released again (savepoint), so the caller can
+     * re-plan without them.
+     *
+     * @param conn          connection inside a transaction
+     * @param reservationId reservation identifier
+     * @param tableIds      tables from {@link #planAllocation}
+     * @return planned tables that were no longer FREE (empty = all occupied)
+     * @throws Exception on database error
+     */
+    static List<String> occupyTablesForReservation(Connection conn, int reservationId, List<String> tableIds) throws Exception {
+        String in = String.join(",", Collections.nCopies(tableIds.size(), "?"));
+        String sql = """
+            UPDATE restaurant_table
+            SET status = 'OCCUPIED',
+                reserved_for_reservation_id = ?,
+                reserved_until = NULL
+            WHERE status = 'FREE'
+              AND table_id IN (%s)
+        """.formatted(in);
+
+        Savepoint before = conn.setSavepoint();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, reservationId);
+            for (int i = 0; i < tableIds.size(); i++) ps.setString(i + 2, tableIds.get(i));
+            if (ps.executeUpdate() == tableIds.size()) {
+                conn.releaseSavepoint(before);
+                return Collections.emptyList();
+            }
+        }
+
+        // Own uncommitted rows are visible: whatever this UPDATE did not take was taken by someone else
+        List<String> taken = new ArrayList<>(tableIds);
+        try (PreparedStatement ps = conn.prepareStatement("""
+            SELECT table_id
+            FROM restaurant_table
+            WHERE status = 'OCCUPIED'
+              AND reserved_for_reservation_id = ?
+              AND table_id IN (%s)
+        """.formatted(in))) {
+            ps.setInt(1, reservationId);
+            for (int i = 0; i < tableIds.size(); i++) ps.setString(i + 2, tableIds.get(i));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) taken.remove(rs.getString(1));
+            }
+        }
+        conn.rollback(before);
+        return taken;
+    }
+
+    /**
+     * Reads all FREE tables (plain read, no locks).
+     *
+     * @param conn connection
+     * @return free tables, largest first (mutable)
+     * @throws Exception on database error
+     */
+    static List<TableCandidate> getFreeTables(Connection conn) throws Exception {
         String sql = """
             SELECT table_id, num_of_seats
             FROM restaurant_table
@@ -1176,9 +1259,8 @@ public class RestaurantTableDAO {
     /**
      * Inserts a new table into the database with an automatically generated ID.
      * <p>
-     * This method calculates the next available ID in the sequence (e.g., T10 -> T11)
-     * by finding the current maximum numeric suffix in the 'restaurant_table' table.
-     * It is thread-safe regarding the connection pool but does not lock the table for strict serialization.
+     * The ID is the next number of the {@link IdSequence#TABLE_ID} sequence (e.g., T10 -> T11),
+     * so concurrent inserts, also from other servers, never pick the same ID.
      * </p>
      *
      * @param seats the number of seats for the new table
@@ -1186,39 +1268,14 @@ public class RestaurantTableDAO {
      * @throws Exception if a database access error occurs or generation fails
      */
     public static String insertTableAutoId(int seats) throws Exception {
+        String nextId = IdSequence.TABLE_ID.next();
+
         MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
         PooledConnection pc = pool.getConnection();
         Connection conn = pc.getConnection();
 
         try {
-            // 1. Find the highest existing ID (Assuming format 'T' + number, e.g., T1, T2, T10)
-            // We cast the substring to UNSIGNED to ensure T10 comes after T2
-            String sqlMax = """
-                SELECT table_id 
-                FROM restaurant_table 
-                WHERE table_id LIKE 'T%' 
-                ORDER BY CAST(SUBSTRING(table_id, 2) AS UNSIGNED) DESC 
-                LIMIT 1
-            """;
-            
-            String nextId = "T1"; // Default if empty
-
-            try (PreparedStatement ps = conn.prepareStatement(sqlMax);
-                 ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    String currentMax = rs.getString(1);
-                    try {
-                        // Extract number part (e.g. "10" from "T10")
-                        int num = Integer.parseInt(currentMax.substring(1));
-                        nextId = "T" + (num + 1);
-                    } catch (NumberFormatException e) {
-                        // Fallback if ID format is weird, just append timestamp or random
-                        nextId = "T" + (System.currentTimeMillis() % 10000);
-                    }
-                }
-            }
-
-            // 2. Insert the new table
+            // Insert the new table
             String sqlInsert = "INSERT INTO restaurant_table (table_id, num_of_seats, status) VALUES (?, ?, ?)";
             try (PreparedStatement ps = conn.prepareStatement(sqlInsert)) {
                 ps.setString(1, nextId);
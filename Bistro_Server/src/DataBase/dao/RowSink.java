@@ -0,0 +1,19 @@
+package DataBase.dao;
+
+/**
+ * Receives rows one at a time from a streaming DAO query
+ * (e.g. {@link ReservationDAO#streamReservations}).
+ *
+ * @param <T> row DTO type
+ */
+@FunctionalInterface
+public interface RowSink<T> {
+
+    /**
+     * Called for each row, in query order, while the result set is still open.
+     *
+     * @param row row DTO
+     * @throws Exception to abort the query (e.g. the client connection failed)
+     */
+    void accept(T row) throws Exception;
+}
@@ -10,6 +10,8 @@ import java.util.UUID;
 
 import DataBase.MySQLConnectionPool;
 import DataBase.PooledConnection;
+import common.dto.PageDTO;
+import common.dto.PageRequestDTO;
 import common.dto.ProfileDTO;
 import common.dto.SubscriberDTO;
 /**
@@ -23,7 +25,7 @@ public class SubscriberDAO {
 	/**
 	 * Inserts a new subscriber into the system.
 	 * <p>
-	 * Automatically generates a member code and barcode.
+	 * Automatically generates a member code and barcode ({@link IdSequence}).
 	 * If birth date is missing, defaults to current date
 	 * to prevent database errors.
 	 *
@@ -40,8 +42,8 @@ public class SubscriberDAO {
             String phone, String email,
            Date birthDate) throws Exception {
     	
-    	String memberCode = generateNextId("member_code", "MEM");
-        String barcode = generateNextId("barcode_data", "BAR");
+    	String memberCode = IdSequence.MEMBER_CODE.next();
+        String barcode = IdSequence.BARCODE.next();
 
         // 2. If birthDate is missing from UI, default to today (prevents crash)
         if (birthDate == null) {
@@ -73,52 +75,6 @@ public class SubscriberDAO {
             pool.releaseConnection(pc);
         }
     }
-    /**
-     * Generates the next incremental identifier for a given column.
-     * <p>
-     * Used for member codes and barcode data.
-     * Scans existing values and returns the next available ID
-     * with the specified prefix.
-     *
-     * @param columnName database column to scan
-     * @param prefix string prefix (e.g., MEM, BAR)
-     * @return generated identifier
-     * @throws Exception on database error
-     */
-    private static String generateNextId(String columnName, String prefix) throws Exception {
-        String sql = "SELECT " + columnName + " FROM subscribers";
-        
-        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
-        PooledConnection pc = pool.getConnection();
-        Connection conn = pc.getConnection();
-        
-        int maxId = 0;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                String val = rs.getString(1); // e.g., "MEM12"
-                if (val != null && val.startsWith(prefix)) {
-                    try {
-                        // Extract the number part ("12")
-                        String numPart = val.substring(prefix.length());
-                        int num = Integer.parseInt(numPart);
-                        if (num > maxId) {
-                            maxId = num;
-                        }
-                    } catch (NumberFormatException ignored) {
-                        // Skip if it's not a valid number format
-                    }
-                }
-            }
-        } finally {
-            pool.releaseConnection(pc);
-        }
-
-        // Return the next number (e.g., "MEM13")
-        return prefix + (maxId + 1);
-    }
 
     // ============================================
     // YOUR CODE (From HEAD) - Get List for Agent
@@ -127,14 +83,17 @@ public class SubscriberDAO {
     /**
      * Retrieves all subscribers for staff/agent view.
      * <p>
-     * Returns basic subscriber details without sensitive data.
+     * Returns basic subscriber details without sensitive data. This is the live list
+     * diffed by the subscribers delta sync, so it is loaded whole on purpose; browsing
+     * and search use {@link #getSubscribersPage(PageRequestDTO)} and exports use
+     * {@link #streamSubscribers}, which never hold the whole table.
      *
      * @return list of subscribers
      * @throws Exception on database error
      */
     public static List<SubscriberDTO> getAllSubscribers() throws Exception {
         List<SubscriberDTO> list = new ArrayList<>();
-        String sql = "SELECT * FROM subscribers"; 
+        String sql = "SELECT username, name, phone, email, birth_date FROM subscribers";
 
         MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
         PooledConnection pc = pool.getConnection();
@@ -162,6 +121,104 @@ public class SubscriberDAO {
         return list;
     }
 
+    /**
+     * Returns one page of subscribers ordered by username, optionally filtered by a
+     * prefix of the username or the name (see {@link PageRequestDTO}).
+     * <p>
+     * Keyset pagination on the primary key: the next page starts after the cursor username.
+     *
+     * @param req page size, cursor and filters
+     * @return page of {@link SubscriberDTO}
+     * @throws Exception on database error
+     */
+    public static PageDTO getSubscribersPage(PageRequestDTO req) throws Exception {
+        int limit = Paging.limit(req);
+        StringBuilder sql = new StringBuilder(
+                "SELECT username, name, phone, email, birth_date FROM subscribers WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendSubscriberFilters(req, sql, params);
+
+        String[] cursor = Paging.cursor(req.getCursor(), 1);
+        if (cursor != null) {
+            sql.append(" AND username > ?");
+            params.add(cursor[0]);
+        }
+        sql.append(" ORDER BY username LIMIT ?");
+        params.add(limit + 1);
+
+        List<SubscriberDTO> rows = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            Paging.bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    SubscriberDTO dto = toSubscriberDTO(rs);
+                    rows.add(dto);
+                    cursors.add(dto.getId());
+                }
+            }
+        } finally {
+            pool.releaseConnection(pc);
+        }
+        return Paging.page(rows, cursors, limit, cursor == null);
+    }
+
+    /**
+     * Streams all subscribers matching the name-prefix filter of {@code filter} (cursor and
+     * limit are ignored) to {@code sink}, ordered by username. Rows are read one by one
+     * from a forward-only result set, so memory does not depend on the number of rows.
+     * The query runs on a dedicated connection, not a pooled one, so a slow or stalled
+     * client does not hold a pool connection for the whole export.
+     *
+     * @param filter name prefix filter
+     * @param sink   receives each row
+     * @return number of rows streamed
+     * @throws Exception on database error, or when the sink aborts
+     */
+    public static long streamSubscribers(PageRequestDTO filter, RowSink<? super SubscriberDTO> sink) throws Exception {
+        StringBuilder sql = new StringBuilder(
+                "SELECT username, name, phone, email, birth_date FROM subscribers WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendSubscriberFilters(filter, sql, params);
+        sql.append(" ORDER BY username");
+
+        long n = 0;
+        // Dedicated connection: the sink writes to the client, which may be slow
+        try (Connection conn = MySQLConnectionPool.getInstance().openDedicatedConnection();
+             PreparedStatement ps = Paging.prepareStreaming(conn, sql.toString())) {
+            Paging.bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(toSubscriberDTO(rs));
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    /** Appends the name-prefix filter of a page or stream request. */
+    private static void appendSubscriberFilters(PageRequestDTO req, StringBuilder sql, List<Object> params) {
+        if (Paging.has(req.getNamePrefix())) {
+            String pattern = Paging.prefixPattern(req.getNamePrefix());
+            sql.append(" AND (username LIKE ? ESCAPE '\\\\' OR name LIKE ? ESCAPE '\\\\')");
+            params.add(pattern);
+            params.add(pattern);
+        }
+    }
+
+    /** Maps the current subscriber row (list columns) to a DTO. */
+    private static SubscriberDTO toSubscriberDTO(ResultSet rs) throws java.sql.SQLException {
+        String birthDate = rs.getString("birth_date");
+        return new SubscriberDTO(rs.getString("username"), rs.getString("name"), rs.getString("phone"),
+                rs.getString("email"), birthDate == null ? "" : birthDate);
+    }
+
     // ============================================
     // TEAMMATE'S CODE (From main) - Login Checks
     // ============================================
@@ -3,6 +3,8 @@ package DataBase.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
@@ -52,7 +54,7 @@ public class UserActivityDAO {
         PooledConnection pc = pool.getConnection();
         Connection conn = pc.getConnection();
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             // subscriber_username
             if (subscriberUsername == null || subscriberUsername.isEmpty())
@@ -88,6 +90,7 @@ public class UserActivityDAO {
             ps.setTimestamp(6, activityDate);
 
             ps.executeUpdate();
+            indexContact(conn, ps, guestEmail, guestPhone);
 
         } finally {
             pool.releaseConnection(pc);
@@ -124,7 +127,7 @@ public class UserActivityDAO {
             VALUES (?, ?, ?, ?, ?, ?)
         """;
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             if (subscriberUsername == null || subscriberUsername.isEmpty())
                 ps.setNull(1, Types.VARCHAR);
@@ -154,6 +157,7 @@ public class UserActivityDAO {
             ps.setTimestamp(6, activityDate);
 
             ps.executeUpdate();
+            indexContact(conn, ps, guestEmail, guestPhone);
         }
     }
     /**
@@ -174,11 +178,12 @@ public class UserActivityDAO {
         PooledConnection pc = pool.getConnection();
         Connection conn = pc.getConnection();
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, phone);
             ps.setString(2, email);
             ps.setInt(3, waitingId);
             ps.executeUpdate();
+            indexContact(conn, ps, email, phone);
         } finally {
             pool.releaseConnection(pc);
         }
@@ -234,12 +239,24 @@ public class UserActivityDAO {
             ps.executeUpdate();
 
             try (var rs = ps.getGeneratedKeys()) {
-                if (rs.next()) return rs.getInt(1);
+                if (rs.next()) {
+                    int activityId = rs.getInt(1);
+                    ContactIndex.add(conn, activityId, email, phone);
+                    return activityId;
+                }
             }
         }
         return -1;
     }
 
+    /** Indexes the guest contact of the activity just inserted by {@code ps} (see {@link ContactIndex}). */
+    private static void indexContact(Connection conn, PreparedStatement ps, String email, String phone) throws Exception {
+        if (ContactIndex.emailKey(email) == null && ContactIndex.phoneKey(phone) == null) return;
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            if (keys.next()) ContactIndex.add(conn, keys.getInt(1), email, phone);
+        }
+    }
+
  // ===============================
  // Lost-code recovery helper
  // ===============================
@@ -271,7 +288,10 @@ public class UserActivityDAO {
      * 2) Closest upcoming active reservation
      * 3) Latest waiting-list entry still WAITING
      *
-     * Works for both guests and subscribers.
+     * Works for both guests and subscribers. Guest activities are found through
+     * {@link ContactIndex} (normalized email / phone), subscriber ones through the unique
+     * email / phone of {@code subscribers}; the active candidates come back in one query
+     * and are ranked in memory.
      *
      * @param contact email or phone number
      * @return LostCodeResult or null if nothing active found
@@ -281,7 +301,114 @@ public class UserActivityDAO {
      if (contact == null) return null;
      contact = contact.trim();
      if (contact.isEmpty()) return null;
+     if (!ContactIndex.isAvailable()) return findActiveCodeByContactScan(contact);
+
+     String key = ContactIndex.normalize(contact);
+
+     String sql = """
+    		    SELECT
+    		        COALESCE(s.email, ua.guest_email) AS email,
+    		        COALESCE(s.phone, ua.guest_phone) AS phone,
+    		        r.confirmation_code AS r_code,
+    		        r.reservation_time,
+    		        w.confirmation_code AS w_code,
+    		        w.status AS w_status,
+    		        w.request_time,
+    		        NOW() AS db_now
+    		    FROM (
+    		        SELECT ci.activity_id
+    		        FROM contact_index ci
+    		        WHERE ci.contact = ?
+    		        UNION
+    		        SELECT sa.activity_id
+    		        FROM subscribers sc
+    		        JOIN user_activity sa ON sa.subscriber_username = sc.username
+    		        WHERE sc.email = ? OR sc.phone = ?
+    		    ) hit
+    		    JOIN user_activity ua ON ua.activity_id = hit.activity_id
+    		    LEFT JOIN subscribers s ON s.username = ua.subscriber_username
+    		    LEFT JOIN reservation r ON r.reservation_id = ua.reservation_id
+    		                           AND r.status IN ('CONFIRMED','PENDING','ARRIVED')
+    		    LEFT JOIN waiting_list w ON w.waiting_id = ua.waiting_id
+    		                            AND w.status IN ('ASSIGNED','WAITING')
+    		    WHERE r.reservation_id IS NOT NULL OR w.waiting_id IS NOT NULL
+    		""";
+
+     MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+     PooledConnection pc = pool.getConnection();
+     Connection conn = pc.getConnection();
+
+     LostCodeResult assigned = null, reservation = null, waiting = null;
+     Timestamp assignedTime = null, waitingTime = null;
+     long reservationRank = Long.MAX_VALUE;
+
+     try (PreparedStatement ps = conn.prepareStatement(sql)) {
+         ps.setString(1, key == null ? "" : key);
+         ps.setString(2, contact);
+         ps.setString(3, contact);
+
+         try (ResultSet rs = ps.executeQuery()) {
+             while (rs.next()) {
+                 String email = rs.getString("email");
+                 String phone = rs.getString("phone");
+
+                 String rCode = rs.getString("r_code");
+                 Timestamp reservationTime = rs.getTimestamp("reservation_time");
+                 if (rCode != null && !rCode.isBlank() && reservationTime != null) {
+                     // Upcoming first, then closest to now
+                     long diff = reservationTime.getTime() - rs.getTimestamp("db_now").getTime();
+                     long rank = (diff >= 0) ? diff : Long.MAX_VALUE / 2 - diff;
+                     if (reservation == null || rank < reservationRank) {
+                         reservation = lostCode("RESERVATION", rCode, email, phone);
+                         reservationRank = rank;
+                     }
+                 }
+
+                 String wCode = rs.getString("w_code");
+                 Timestamp requestTime = rs.getTimestamp("request_time");
+                 if (wCode != null && !wCode.isBlank()) {
+                     if ("ASSIGNED".equals(rs.getString("w_status"))) {
+                         if (assigned == null || later(requestTime, assignedTime)) {
+                             assigned = lostCode("WAITING", wCode, email, phone);
+                             assignedTime = requestTime;
+                         }
+                     } else if (waiting == null || later(requestTime, waitingTime)) {
+                         waiting = lostCode("WAITING", wCode, email, phone);
+                         waitingTime = requestTime;
+                     }
+                 }
+             }
+         }
+     } catch (SQLSyntaxErrorException e) {
+         ContactIndex.tableMissing(e);
+         return findActiveCodeByContactScan(contact);
+     } finally {
+         pool.releaseConnection(pc);
+     }
+
+     if (assigned != null) return assigned;
+     if (reservation != null) return reservation;
+     return waiting;
+ }
+
+ private static boolean later(Timestamp a, Timestamp b) {
+     return a != null && (b == null || a.after(b));
+ }
+
+ private static LostCodeResult lostCode(String type, String code, String email, String phone) {
+     return new LostCodeResult(
+         type,
+         code.trim(),
+         (email == null ? null : email.trim()),
+         (phone == null ? null : phone.trim())
+     );
+ }
 
+ /**
+  * Lost-code recovery without {@link ContactIndex}: up to three queries that scan
+  * {@code user_activity}. Used only while the index table does not exist.
+  */
+ private static LostCodeResult findActiveCodeByContactScan(String contact) throws Exception {
      // 1) Priority: WAITING LIST that is ASSIGNED (ONLY ASSIGNED, not ARRIVED)
      String sqlAssignedWaiting = """
     		    SELECT
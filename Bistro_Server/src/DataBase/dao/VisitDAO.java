@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import DataBase.MySQLConnectionPool;
@@ -57,6 +58,7 @@ public class VisitDAO {
         } finally {
             pool.releaseConnection(pc);
         }
+        ReportCache.invalidateCurrentMonth();
     }
     /**
      * Inserts a visit using an existing connection.
@@ -80,6 +82,35 @@ public class VisitDAO {
             ps.setString(2, tableId);
             ps.executeUpdate();
         }
+        ReportCache.invalidateCurrentMonth();
+    }
+    /**
+     * Inserts one open visit per table in a single multi-row statement.
+     * <p>
+     * Same as calling {@link #insertVisit(Connection, int, String)} for each table,
+     * in one round trip.
+     *
+     * @param conn active database connection
+     * @param activityId linked user_activity ID
+     * @param tableIds table identifiers (not empty)
+     * @throws Exception on database error
+     */
+    public static void insertVisits(Connection conn, int activityId, List<String> tableIds) throws Exception {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO visit (activity_id, table_id, actual_start_time, actual_end_time) VALUES ");
+        for (int i = 0; i < tableIds.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, NOW(), NULL)");
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int idx = 1;
+            for (String tableId : tableIds) {
+                ps.setInt(idx++, activityId);
+                ps.setString(idx++, tableId);
+            }
+            ps.executeUpdate();
+        }
+        ReportCache.invalidateCurrentMonth();
     }
 
     // =============================================================
@@ -270,17 +301,18 @@ public class VisitDAO {
      */
     public static List<String> getVisitsBySubscriber(String username) {
         List<String> list = new ArrayList<>();
-        // ✅ JOIN with user_activity to find the username
-        String sql = "SELECT v.* FROM visit v " +
-                     "JOIN user_activity ua ON v.activity_id = ua.activity_id " +
-                     "WHERE ua.subscriber_username = ?";
+        // ✅ JOIN with user_activity to find the username (hot and archived history)
+        ArchiveDAO.Query q = ArchiveDAO.hotAndCold(
+                "SELECT v.* FROM {visit} v " +
+                "JOIN {user_activity} ua ON v.activity_id = ua.activity_id " +
+                "WHERE ua.subscriber_username = ?", Collections.singletonList(username));
 
         MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
         PooledConnection pc = pool.getConnection();
         Connection conn = pc.getConnection();
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, username);
+        try (PreparedStatement ps = conn.prepareStatement(q.sql)) {
+            Paging.bind(ps, q.params);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     String start = rs.getString("actual_start_time");
@@ -10,6 +10,8 @@ import java.util.List;
 
 import DataBase.MySQLConnectionPool;
 import DataBase.PooledConnection;
+import common.dto.PageDTO;
+import common.dto.PageRequestDTO;
 import common.dto.SubscriberDTO;
 import common.dto.TerminalValidateResponseDTO;
 import common.dto.WaitingListDTO;
@@ -99,6 +101,74 @@ public class WaitingListDAO {
         return list;
     }
 
+    /**
+     * Returns one page of waiting-list entries (any status, including history) ordered by
+     * {@code (request_time, waiting_id)}, with optional date range and status filters
+     * (see {@link PageRequestDTO}).
+     *
+     * @param req page size, cursor and filters
+     * @return page of {@link WaitingListDTO}
+     * @throws Exception on database error
+     */
+    public static PageDTO getWaitingListPage(PageRequestDTO req) throws Exception {
+        int limit = Paging.limit(req);
+        StringBuilder sql = new StringBuilder(
+                "SELECT waiting_id, num_of_customers, request_time, status, confirmation_code FROM {waiting_list} WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+
+        Timestamp from = Paging.dayStart(req.getFromDate());
+        if (from != null) { sql.append(" AND request_time >= ?"); params.add(from); }
+        Timestamp to = Paging.dayAfter(req.getToDate());
+        if (to != null) { sql.append(" AND request_time < ?"); params.add(to); }
+        if (Paging.has(req.getStatus())) { sql.append(" AND status = ?"); params.add(req.getStatus().trim()); }
+
+        String[] cursor = Paging.cursor(req.getCursor(), 2);
+        if (cursor != null) {
+            Timestamp afterTime;
+            int afterId;
+            try {
+                afterTime = Timestamp.valueOf(cursor[0]);
+                afterId = Integer.parseInt(cursor[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid page cursor.");
+            }
+            sql.append(" AND request_time >= ? AND (request_time > ? OR waiting_id > ?)");
+            params.add(afterTime);
+            params.add(afterTime);
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY request_time, waiting_id LIMIT ?");
+        params.add(limit + 1);
+
+        // Same page from the archive, then the first limit + 1 of both
+        ArchiveDAO.Query q = ArchiveDAO.hotAndCold(sql.toString(), params);
+        q.params.add(limit + 1);
+        String pageSql = q.sql + " ORDER BY request_time, waiting_id LIMIT ?";
+
+        List<WaitingListDTO> rows = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try (PreparedStatement ps = conn.prepareStatement(pageSql)) {
+            Paging.bind(ps, q.params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("waiting_id");
+                    Timestamp ts = rs.getTimestamp("request_time");
+                    rows.add(new WaitingListDTO(id, rs.getInt("num_of_customers"),
+                            (ts != null) ? ts.toString() : "", rs.getString("status"), rs.getString("confirmation_code")));
+                    cursors.add(ts + "|" + id);
+                }
+            }
+        } finally {
+            pool.releaseConnection(pc);
+        }
+        return Paging.page(rows, cursors, limit, cursor == null);
+    }
+
     // =============================================================
     // 2. METHODS FROM MAIN (The Complex Logic)
     // =============================================================
@@ -1,18 +1,31 @@
 package DataBase.importer;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import DataBase.MySQLConnectionPool;
+import Server.ServerConfig;
+
 /**
  * Central importer runner for loading all system tables from TXT files.
  * <p>
- * Executes all importers in the correct order according to
- * database foreign-key dependencies.
+ * Resets the database, then loads every table with {@link BulkLoader}: batched inserts,
+ * one transaction per chunk, tables of the same foreign-key level in parallel.
  * Intended for initial data seeding and testing environments.
+ * <pre>
+ *   java -cp ... DataBase.importer.AllTablesImporter [--config bistro-server.properties] [dataDir]
+ * </pre>
+ * Config keys: {@code import.dir} (data folder, overridden by {@code dataDir}),
+ * {@code import.batchSize} and {@code import.threads}.
+ * The {@code Txt*Importer} classes still load a single file row by row.
  */
 public class AllTablesImporter {
 
     // Folder that contains ALL txt files
 	/**
-	 * Base folder containing all TXT data files.
+	 * Default folder containing all TXT data files ({@code import.dir}).
 	 * <p>
-	 * Each importer receives a full file path built from this base.
+	 * Holds one {@code <table>.txt} file per table.
 	 */
     private static final String BASE_PATH =
     		"C:/Users/yazan/git/Midterm-Project-Bistro/bistro_sample_data/";
@@ -22,15 +35,23 @@ public class AllTablesImporter {
      * Flow:
      * <ul>
      *   <li>Optionally resets the database (testing only)</li>
-     *   <li>Imports base tables without dependencies</li>
-     *   <li>Imports business entities (reservations, waiting list)</li>
-     *   <li>Imports user activity and visit mapping</li>
+     *   <li>Imports base tables and business entities (reservations, waiting list)</li>
+     *   <li>Imports user activity, then visit mapping</li>
      *   <li>Imports billing and performance logs</li>
      * </ul>
+     * Each table prints its row count and rows/sec.
      *
-     * @param args not used
+     * @param args {@code [--config <file>] [dataDir]}
      */
     public static void main(String[] args) {
+        Path configFile = null;
+        String dir = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--config".equals(args[i]) && i + 1 < args.length) configFile = Paths.get(args[++i]);
+            else dir = args[i];
+        }
+        ServerConfig cfg = ServerConfig.load(configFile);
+        if (dir == null) dir = cfg.getString("import.dir", BASE_PATH);
 
         try {
             System.out.println("=== START IMPORT ===");
@@ -38,33 +59,18 @@ public class AllTablesImporter {
             // ⚠️ ONLY FOR TESTING — remove in production
             DatabaseResetter.resetDatabase();
 
-            // ===== 1) Base tables (no FK dependencies) =====
-            TxtStaffImporter.importFromFile(BASE_PATH + "staff.txt");
-            TxtSubscriberImporter.importFromFile(BASE_PATH + "subscribers.txt");
-            TxtRestaurantTableImporter.importFromFile(BASE_PATH + "restaurant_table.txt");
-            TxtOpeningHoursImporter.importFromFile(BASE_PATH + "opening_hours.txt");
-
-            // ===== 2) Business flow =====
-            TxtReservationImporter.importFromFile(BASE_PATH + "reservation.txt");
-            TxtWaitingListImporter.importFromFile(BASE_PATH + "waiting_list.txt");
-
-            // ===== 3) User activity mapping =====
-            TxtUserActivityImporter.importFromFile(BASE_PATH + "user_activity.txt");
-
-            // ===== 4) Visit =====
-            TxtVisitImporter.importFromFile(BASE_PATH + "visit.txt");
-
-            // ===== 5) Financial =====
-            TxtBillImporter.importFromFile(BASE_PATH + "bill.txt");
-
-            // ===== 6) Performance logs =====
-            TxtPerformanceLogImporter.importFromFile(BASE_PATH + "performance_log.txt");
+            BulkLoader.loadAll(Paths.get(dir),
+                    cfg.getInt("import.batchSize", BulkLoader.DEFAULT_BATCH_SIZE),
+                    cfg.getInt("import.threads", BulkLoader.DEFAULT_THREADS));
 
             System.out.println("=== ✅ ALL IMPORT DONE SUCCESSFULLY ===");
 
         } catch (Exception e) {
             System.out.println("=== ❌ IMPORT FAILED ===");
             e.printStackTrace();
+        } finally {
+            MySQLConnectionPool pool = MySQLConnectionPool.getInstanceIfCreated();
+            if (pool != null) pool.shutdown();
         }
     }
 }
@@ -0,0 +1,407 @@
+package DataBase.importer;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import DataBase.MySQLConnectionPool;
+import DataBase.dao.ContactIndex;
+import DataBase.dao.IdSequence;
+import DataBase.dao.ReportCache;
+
+/**
+ * Bulk loader for the sample data files, used by {@link AllTablesImporter}.
+ * <p>
+ * Same files and columns as the {@code Txt*Importer} classes, which insert one row per
+ * statement through the DAOs (one pooled connection and one auto-commit per row).
+ * Here each table is loaded on a connection of its own:
+ * <ul>
+ *   <li>rows are added to one PreparedStatement batch, and the connection is opened with
+ *       {@code rewriteBatchedStatements=true}, so the driver sends a batch as multi-row
+ *       INSERTs;</li>
+ *   <li>every {@code batchSize} rows the batch is executed and committed (one transaction
+ *       per chunk; chunks committed before an error stay loaded);</li>
+ *   <li>tables are loaded in dependency levels (see {@link #TABLES}): the tables of one
+ *       level run in parallel, a level starts when the previous one is done.</li>
+ * </ul>
+ * The files refer to rows by their position (activity 12 is the 12th activity line),
+ * so each table is loaded in file order by a single thread.
+ * <p>
+ * Side effects of the DAO inserts are kept: subscriber codes come from {@link IdSequence},
+ * guest contacts are indexed after {@code user_activity} (set-based, see
+ * {@link ContactIndex#backfill}), and the report cache is cleared after {@code visit}.
+ */
+public final class BulkLoader {
+
+    /** Rows per batch and transaction. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    /** Tables loaded at the same time. */
+    public static final int DEFAULT_THREADS = 4;
+
+    /** Binds the CSV fields of one line; returns false to skip the line. */
+    @FunctionalInterface
+    interface RowBinder {
+        boolean bind(PreparedStatement ps, String[] p, int lineNumber) throws Exception;
+    }
+
+    /** Work done once a table is loaded, on its connection. */
+    @FunctionalInterface
+    interface AfterLoad {
+        void run(Connection conn) throws Exception;
+    }
+
+    /** One table: its file, its INSERT and the tables its rows point at. */
+    static final class Table {
+        final String name;
+        final String file;
+        final String sql;
+        final RowBinder binder;
+        final List<String> dependsOn;
+        final AfterLoad after;
+
+        Table(String name, String sql, RowBinder binder, AfterLoad after, String... dependsOn) {
+            this.name = name;
+            this.file = name + ".txt";
+            this.sql = sql;
+            this.binder = binder;
+            this.after = after;
+            this.dependsOn = Arrays.asList(dependsOn);
+        }
+    }
+
+    /** Outcome of one table. */
+    static final class Result {
+        final String table;
+        final int rows;
+        final int skipped;
+        final long nanos;
+
+        Result(String table, int rows, int skipped, long nanos) {
+            this.table = table;
+            this.rows = rows;
+            this.skipped = skipped;
+            this.nanos = nanos;
+        }
+
+        double rowsPerSec() {
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s %8d rows in %7.2f s (%,.0f rows/s)%s",
+                    table, rows, nanos / 1_000_000_000.0, rowsPerSec(),
+                    skipped > 0 ? ", " + skipped + " line(s) skipped" : "");
+        }
+    }
+
+    /** All tables; the order among tables of the same level does not matter. */
+    static final List<Table> TABLES = List.of(
+            new Table("staff", """
+                INSERT INTO staff (username, password, staff_role, full_name)
+                VALUES (?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                ps.setString(1, p[1]);
+                ps.setString(2, p[2]);
+                ps.setString(3, p[3]);
+                ps.setString(4, p[4]);
+                return true;
+            }, null),
+
+            new Table("subscribers", """
+                INSERT INTO subscribers
+                    (username, password, name, phone, email, member_code, barcode_data, birth_date)
+                VALUES
+                    (?, ?, ?, ?, ?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                Date birthDate;
+                try {
+                    birthDate = Date.valueOf(p[7].trim());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(
+                            "Invalid birth_date at line " + line + ": '" + p[7].trim() + "' (expected YYYY-MM-DD)");
+                }
+                ps.setString(1, p[0].trim());
+                ps.setString(2, p[1].trim());
+                ps.setString(3, p[2].trim());
+                ps.setString(4, p[3].trim());
+                ps.setString(5, p[4].trim());
+                ps.setString(6, IdSequence.MEMBER_CODE.next());
+                ps.setString(7, IdSequence.BARCODE.next());
+                ps.setDate(8, birthDate);
+                return true;
+            }, null),
+
+            new Table("restaurant_table", """
+                INSERT INTO restaurant_table (table_id, num_of_seats, status)
+                VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE num_of_seats = VALUES(num_of_seats)
+            """, (ps, p, line) -> {
+                ps.setString(1, p[0]);
+                ps.setInt(2, Integer.parseInt(p[1]));
+                ps.setString(3, p[2]);
+                return true;
+            }, null),
+
+            new Table("opening_hours", """
+                INSERT INTO opening_hours
+                (day_of_week, open_time, close_time, is_special, special_date)
+                VALUES (?, ?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                ps.setString(1, p[1]);
+                ps.setTime(2, Time.valueOf(p[2]));
+                ps.setTime(3, Time.valueOf(p[3]));
+                ps.setString(4, p[4]);
+                if (p[5].isEmpty()) ps.setNull(5, Types.DATE);
+                else ps.setDate(5, Date.valueOf(p[5]));
+                return true;
+            }, null),
+
+            new Table("reservation", """
+                INSERT INTO reservation
+                (num_of_customers, reservation_time, expiry_time, status, confirmation_code)
+                VALUES (?, ?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                ps.setInt(1, Integer.parseInt(p[1]));
+                ps.setTimestamp(2, Timestamp.valueOf(p[2]));
+                ps.setTimestamp(3, Timestamp.valueOf(p[3]));
+                ps.setString(4, p[4]);
+                ps.setString(5, p[5]);
+                return true;
+            }, null),
+
+            new Table("waiting_list", """
+                INSERT INTO waiting_list
+                (num_of_customers, request_time, status, confirmation_code)
+                VALUES (?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                ps.setInt(1, Integer.parseInt(p[1]));
+                ps.setTimestamp(2, Timestamp.valueOf(p[2]));
+                ps.setString(3, p[3]);
+                ps.setString(4, p[4]);
+                return true;
+            }, null),
+
+            new Table("user_activity", """
+                INSERT INTO user_activity
+                (subscriber_username, guest_phone, guest_email,
+                 reservation_id, waiting_id, activity_date)
+                VALUES (?, ?, ?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                if (p.length < 7) {
+                    System.out.println("⚠ Skipping invalid user_activity line " + line + " → " + String.join(",", p));
+                    return false;
+                }
+                setStringOrNull(ps, 1, p[1]);
+                setStringOrNull(ps, 2, p[2]);
+                setStringOrNull(ps, 3, p[3]);
+                setIntOrNull(ps, 4, p[4]);
+                setIntOrNull(ps, 5, p[5]);
+                ps.setTimestamp(6, Timestamp.valueOf(p[6].trim()));
+                return true;
+            }, conn -> {
+                int indexed = ContactIndex.backfill(conn);
+                conn.commit();
+                System.out.println("[Import] contact_index: " + indexed + " guest contact(s) indexed");
+            }, "subscribers", "reservation", "waiting_list"),
+
+            new Table("visit", """
+                INSERT INTO visit
+                (activity_id, table_id, actual_start_time, actual_end_time)
+                VALUES (?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                ps.setInt(1, Integer.parseInt(p[1]));
+                ps.setString(2, p[2]);
+                ps.setTimestamp(3, Timestamp.valueOf(p[3]));
+                ps.setTimestamp(4, Timestamp.valueOf(p[4]));
+                return true;
+            }, conn -> ReportCache.invalidateCurrentMonth(), "user_activity", "restaurant_table"),
+
+            new Table("bill", """
+                INSERT INTO bill (visit_id, total_amount, is_subscriber_discount, is_paid)
+                VALUES (?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                ps.setInt(1, Integer.parseInt(p[1]));
+                ps.setDouble(2, Double.parseDouble(p[2]));
+                ps.setString(3, p[3]);
+                ps.setString(4, p[4]);
+                return true;
+            }, null, "visit"),
+
+            new Table("performance_log", """
+                INSERT INTO performance_log
+                (visit_id, late_minutes, overstay_minutes, report_date)
+                VALUES (?, ?, ?, ?)
+            """, (ps, p, line) -> {
+                ps.setInt(1, Integer.parseInt(p[1]));
+                ps.setInt(2, Integer.parseInt(p[2]));
+                ps.setInt(3, Integer.parseInt(p[3]));
+                ps.setDate(4, Date.valueOf(p[4]));
+                return true;
+            }, null, "visit")
+    );
+
+    private BulkLoader() {}
+
+    /**
+     * Loads every table of {@link #TABLES} from {@code dir} (tables are expected empty,
+     * see {@link DatabaseResetter}).
+     *
+     * @param dir       folder holding {@code <table>.txt} for every table
+     * @param batchSize rows per batch and transaction
+     * @param threads   tables loaded at the same time
+     * @return one result per table, in load order
+     * @throws Exception on file, parse or database error (the first one; the other tables
+     *                   of its level finish, the next levels do not start)
+     */
+    public static List<Result> loadAll(Path dir, int batchSize, int threads) throws Exception {
+        int chunk = Math.max(1, batchSize);
+        List<Result> results = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "bulk-loader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long t0 = System.nanoTime();
+        try {
+            for (List<Table> level : levels(TABLES)) {
+                List<Future<Result>> futures = new ArrayList<>();
+                for (Table table : level) {
+                    futures.add(pool.submit(() -> load(table, dir.resolve(table.file), chunk)));
+                }
+                Exception failure = null;
+                for (Future<Result> f : futures) {
+                    try {
+                        Result r = f.get();
+                        results.add(r);
+                        System.out.println("[Import] " + r);
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause() instanceof Exception ex ? ex : new Exception(e.getCause());
+                        }
+                    }
+                }
+                if (failure != null) throw failure;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long rows = results.stream().mapToLong(r -> r.rows).sum();
+        System.out.println(String.format("[Import] Total: %d rows in %.2f s (batch %d, %d thread(s))",
+                rows, (System.nanoTime() - t0) / 1_000_000_000.0, chunk, Math.max(1, threads)));
+        return results;
+    }
+
+    /**
+     * Groups tables so that each one comes after the tables it depends on.
+     *
+     * @param tables tables with their dependencies
+     * @return levels, in load order
+     * @throws IllegalStateException on an unknown table or a dependency cycle
+     */
+    static List<List<Table>> levels(List<Table> tables) {
+        Map<String, Table> pending = new LinkedHashMap<>();
+        for (Table t : tables) pending.put(t.name, t);
+        for (Table t : tables) {
+            for (String d : t.dependsOn) {
+                if (!pending.containsKey(d)) throw new IllegalStateException(t.name + " depends on unknown table " + d);
+            }
+        }
+
+        List<List<Table>> levels = new ArrayList<>();
+        Set<String> loaded = new HashSet<>();
+        while (!pending.isEmpty()) {
+            List<Table> level = new ArrayList<>();
+            for (Table t : pending.values()) {
+                if (loaded.containsAll(t.dependsOn)) level.add(t);
+            }
+            if (level.isEmpty()) throw new IllegalStateException("Dependency cycle among " + pending.keySet());
+            for (Table t : level) {
+                pending.remove(t.name);
+                loaded.add(t.name);
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private static Result load(Table table, Path file, int batchSize) throws Exception {
+        long t0 = System.nanoTime();
+        int rows = 0;
+        int skipped = 0;
+        int lineNumber = 1;
+
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()));
+             Connection conn = MySQLConnectionPool.getInstance()
+                     .openUnpooledConnection("rewriteBatchedStatements=true")) {
+
+            br.readLine(); // skip header
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(table.sql)) {
+                int pending = 0;
+                String line;
+                while ((line = br.readLine()) != null) {
+                    lineNumber++;
+                    line = line.replace("\uFEFF", "");
+                    if (line.trim().isEmpty()) continue;
+
+                    if (!table.binder.bind(ps, line.split(",", -1), lineNumber)) {
+                        skipped++;
+                        continue;
+                    }
+                    ps.addBatch();
+                    if (++pending == batchSize) {
+                        ps.executeBatch();
+                        conn.commit();
+                        rows += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                    conn.commit();
+                    rows += pending;
+                }
+                if (table.after != null) table.after.run(conn);
+
+            } catch (Exception e) {
+                try { conn.rollback(); } catch (Exception ignored) {}
+                throw new Exception(table.name + " (" + file.getFileName() + " line " + lineNumber + ", "
+                        + rows + " row(s) committed): " + e.getMessage(), e);
+            }
+        }
+        return new Result(table.name, rows, skipped, System.nanoTime() - t0);
+    }
+
+    private static void setStringOrNull(PreparedStatement ps, int index, String value) throws Exception {
+        String v = value.trim();
+        if (v.isEmpty()) ps.setNull(index, Types.VARCHAR);
+        else ps.setString(index, v);
+    }
+
+    private static void setIntOrNull(PreparedStatement ps, int index, String value) throws Exception {
+        String v = value.trim();
+        if (v.isEmpty()) ps.setNull(index, Types.INTEGER);
+        else ps.setInt(index, Integer.parseInt(v));
+    }
+}
@@ -1,6 +1,7 @@
 package DataBase.importer;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Statement;
 
 import DataBase.MySQLConnectionPool;
@@ -16,6 +17,20 @@ import DataBase.PooledConnection;
  * Intended for testing, development, and initial data loading only.
  */
 public class DatabaseResetter {
+
+    /** MySQL error code: table does not exist. */
+    private static final int ER_NO_SUCH_TABLE = 1146;
+
+    /**
+     * Tables derived from the business tables or holding their archived rows.
+     * Created by the schema migrations, so they may be missing on an old schema.
+     */
+    private static final String[] DERIVED_TABLES = {
+        "code_directory", "contact_index",
+        "bill_archive", "visit_archive", "user_activity_archive",
+        "reservation_archive", "waiting_list_archive"
+    };
+
 	/**
 	 * Resets the entire database content by truncating all tables.
 	 * <p>
@@ -57,6 +72,22 @@ public class DatabaseResetter {
             stmt.execute("TRUNCATE subscribers");
             stmt.execute("TRUNCATE staff");
 
+            // ===== Code directory, contact index, archive =====
+            for (String table : DERIVED_TABLES) {
+                truncateIfExists(stmt, table);
+            }
+
+            // ===== Id sequences: reseeded from the data, except the confirmation code counter,
+            // which has no source table; restarting it would hand out codes again that a
+            // running server may still have cached for the old rows =====
+            executeIfTableExists(stmt, "DELETE FROM id_sequence WHERE name <> 'confirmation_code'");
+
+            // ===== ETL watermark: restart from the beginning (the ETL needs its row) =====
+            executeIfTableExists(stmt, """
+                UPDATE etl_watermark
+                SET last_end_time = '1970-01-01 00:00:00', last_visit_id = 0, last_run_at = NULL
+            """);
+
             // Enable FK checks
             stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
 
@@ -66,4 +97,17 @@ public class DatabaseResetter {
             pool.releaseConnection(pConn);
         }
     }
+
+    private static void truncateIfExists(Statement stmt, String table) throws SQLException {
+        executeIfTableExists(stmt, "TRUNCATE " + table);
+    }
+
+    /** Runs a statement, ignoring the error of a table that was never created. */
+    private static void executeIfTableExists(Statement stmt, String sql) throws SQLException {
+        try {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_NO_SUCH_TABLE) throw e;
+        }
+    }
 }
@@ -0,0 +1,169 @@
+package DataBase.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs {@code EXPLAIN} on the hot queries of the server and reports how each table is read.
+ * <p>
+ * A query <b>fails</b> the check when a table is read with a full scan
+ * ({@code type = ALL}), whether or not an index was possible: a scan of a growing table
+ * is a missing or unusable index. The only exception is a table listed in the query's
+ * own allowlist: small lookup tables (e.g. a handful of restaurant tables), where the
+ * optimizer rightly prefers to scan. An allowed scan is reported as a warning.
+ * <p>
+ * Queries use sample literals; they only need the same shape as the real statements.
+ */
+public final class ExplainCheck {
+
+    /** One registered hot query, with the tables it may scan. */
+    private record HotQuery(String name, String sql, Set<String> scanAllowed) {
+        HotQuery(String name, String sql) {
+            this(name, sql, Set.of());
+        }
+    }
+
+    /** Plan of one table of one hot query. */
+    public static final class Finding {
+        public final String query;
+        public final String table;
+        public final String type;
+        public final String possibleKeys;
+        public final String key;
+        public final long rows;
+        /** True if the query's allowlist lets it scan this table */
+        public final boolean scanAllowed;
+
+        Finding(String query, String table, String type, String possibleKeys, String key, long rows,
+                boolean scanAllowed) {
+            this.query = query;
+            this.table = table;
+            this.type = type;
+            this.possibleKeys = possibleKeys;
+            this.key = key;
+            this.rows = rows;
+            this.scanAllowed = scanAllowed;
+        }
+
+        /** @return true if the table is scanned */
+        public boolean isFullScan() {
+            return "ALL".equalsIgnoreCase(type);
+        }
+
+        /** @return true if the table is scanned and the query is not allowed to scan it */
+        public boolean isFailure() {
+            return isFullScan() && !scanAllowed;
+        }
+    }
+
+    private static final List<HotQuery> QUERIES = List.of(
+            new HotQuery("no-show / reminder scan",
+                    "SELECT reservation_id FROM reservation WHERE status = 'CONFIRMED' AND reservation_time <= NOW()"),
+            new HotQuery("pending reservations",
+                    "SELECT reservation_id, num_of_customers FROM reservation WHERE status = 'PENDING' "
+                    + "ORDER BY reservation_time LIMIT 20"),
+            new HotQuery("expired arrivals",
+                    "SELECT reservation_id FROM reservation WHERE status = 'ARRIVED' AND expiry_time < NOW()"),
+            new HotQuery("reservation by code",
+                    "SELECT reservation_id FROM reservation WHERE confirmation_code = 'X'"),
+            new HotQuery("next waiting entry",
+                    "SELECT waiting_id FROM waiting_list WHERE status = 'WAITING' ORDER BY request_time LIMIT 1"),
+            new HotQuery("old waiting entries",
+                    "SELECT waiting_id FROM waiting_list WHERE status = 'WAITING' "
+                    + "AND request_time < NOW() - INTERVAL 4 HOUR"),
+            new HotQuery("waiting entry by code",
+                    "SELECT waiting_id FROM waiting_list WHERE confirmation_code = 'X'"),
+            new HotQuery("reservations page",
+                    "SELECT reservation_id FROM reservation WHERE reservation_time >= '2025-01-01' "
+                    + "AND (reservation_time > '2025-01-01' OR reservation_id > 1) "
+                    + "ORDER BY reservation_time, reservation_id LIMIT 51"),
+            new HotQuery("waiting list page",
+                    "SELECT waiting_id FROM waiting_list WHERE request_time >= '2025-01-01' "
+                    + "AND (request_time > '2025-01-01' OR waiting_id > 1) "
+                    + "ORDER BY request_time, waiting_id LIMIT 51"),
+            // The floor is a few dozen rows: scanning it is cheaper than an index lookup
+            new HotQuery("free tables",
+                    "SELECT table_id, num_of_seats FROM restaurant_table WHERE status = 'FREE'",
+                    Set.of("restaurant_table")),
+            new HotQuery("tables of a reservation",
+                    "SELECT table_id FROM restaurant_table WHERE reserved_for_reservation_id = 1 AND status = 'OCCUPIED'",
+                    Set.of("restaurant_table")),
+            new HotQuery("tables of a waiting entry",
+                    "SELECT table_id FROM restaurant_table WHERE reserved_for_waiting_id = 1 AND status = 'OCCUPIED'",
+                    Set.of("restaurant_table")),
+            new HotQuery("open visit of an activity",
+                    "SELECT visit_id, table_id FROM visit WHERE activity_id = 1 AND actual_end_time IS NULL"),
+            new HotQuery("activity by guest email",
+                    "SELECT activity_id FROM user_activity WHERE guest_email = 'x@example.com'"),
+            new HotQuery("activity by guest phone",
+                    "SELECT activity_id FROM user_activity WHERE guest_phone = '0500000000'"),
+            new HotQuery("activity by waiting entry",
+                    "SELECT activity_id FROM user_activity WHERE waiting_id = 1"),
+            new HotQuery("activities by guest contact",
+                    "SELECT activity_id FROM contact_index WHERE contact = 'x@example.com'"),
+            new HotQuery("activities by subscriber contact",
+                    "SELECT ua.activity_id FROM subscribers s JOIN user_activity ua ON ua.subscriber_username = s.username "
+                    + "WHERE s.email = 'x@example.com' OR s.phone = 'x@example.com'"),
+            new HotQuery("code directory",
+                    "SELECT kind, entity_id FROM code_directory WHERE confirmation_code = 'X'")
+    );
+
+    private ExplainCheck() {}
+
+    /**
+     * Explains every registered hot query.
+     *
+     * @param conn connection to the migrated schema
+     * @return one finding per table per query
+     * @throws SQLException if a query cannot be explained (e.g. missing table)
+     */
+    public static List<Finding> run(Connection conn) throws SQLException {
+        List<Finding> out = new ArrayList<>();
+        try (Statement st = conn.createStatement()) {
+            for (HotQuery q : QUERIES) {
+                try (ResultSet rs = st.executeQuery("EXPLAIN " + q.sql)) {
+                    while (rs.next()) {
+                        String table = rs.getString("table");
+                        if (table == null) continue; // e.g. "no matching row in const table"
+                        out.add(new Finding(q.name, table, rs.getString("type"),
+                                rs.getString("possible_keys"), rs.getString("key"), rs.getLong("rows"),
+                                q.scanAllowed.contains(table)));
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @param findings result of {@link #run}
+     * @return true if no query scans a table outside its allowlist
+     */
+    public static boolean passed(List<Finding> findings) {
+        for (Finding f : findings) {
+            if (f.isFailure()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param findings result of {@link #run}
+     * @return multi-line report
+     */
+    public static String format(List<Finding> findings) {
+        StringBuilder sb = new StringBuilder("[SCHEMA] EXPLAIN check: ")
+                .append(passed(findings) ? "passed" : "FAILED");
+        for (Finding f : findings) {
+            String verdict = f.isFailure() ? "FAIL" : f.isFullScan() ? "warn" : "ok";
+            sb.append(System.lineSeparator())
+              .append(String.format("  %-4s %-28s %-16s type=%-6s key=%-32s rows=%d",
+                      verdict, f.query, f.table, f.type, f.key == null ? "-" : f.key, f.rows));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package DataBase.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * One versioned schema change, applied by {@link SchemaMigrator}.
+ * <p>
+ * MySQL commits every DDL statement on its own, so a migration that fails halfway is
+ * run again from its first step on the next attempt. Every step must therefore be
+ * idempotent: use {@link #addIndex} / {@link #dropForeignKey} (skip what is done) or SQL that is safe to
+ * repeat ({@code CREATE TABLE IF NOT EXISTS}, ...).
+ */
+public final class Migration {
+
+    /** One step of a migration. */
+    public interface Step {
+        /**
+         * @param conn connection (auto-commit)
+         * @throws SQLException on error
+         */
+        void apply(Connection conn) throws SQLException;
+
+        /** @return short text for the log */
+        String describe();
+    }
+
+    final int version;
+    final String description;
+    final List<Step> steps;
+
+    private Migration(int version, String description, List<Step> steps) {
+        this.version = version;
+        this.description = description;
+        this.steps = steps;
+    }
+
+    /**
+     * @param version     schema version reached by this migration (strictly increasing)
+     * @param description short description (stored in {@code schema_version})
+     * @param steps       idempotent steps, run in order
+     * @return migration
+     */
+    public static Migration of(int version, String description, Step... steps) {
+        return new Migration(version, description, List.of(steps));
+    }
+
+    /**
+     * @param statement SQL statement that is safe to run twice
+     * @return step running it
+     */
+    public static Step sql(String statement) {
+        return new Step() {
+            @Override
+            public void apply(Connection conn) throws SQLException {
+                try (Statement st = conn.createStatement()) {
+                    st.execute(statement);
+                }
+            }
+
+            @Override
+            public String describe() {
+                String s = statement.strip().replaceAll("\\s+", " ");
+                return s.length() > 80 ? s.substring(0, 77) + "..." : s;
+            }
+        };
+    }
+
+    /**
+     * @param table   table name
+     * @param index   index name
+     * @param columns indexed columns, in order
+     * @return step creating the index unless an index with that name already exists
+     */
+    public static Step addIndex(String table, String index, String... columns) {
+        return new Step() {
+            @Override
+            public void apply(Connection conn) throws SQLException {
+                if (indexExists(conn, table, index)) return;
+                try (Statement st = conn.createStatement()) {
+                    st.execute("ALTER TABLE `" + table + "` ADD INDEX `" + index + "` (`"
+                            + String.join("`, `", columns) + "`)");
+                }
+            }
+
+            @Override
+            public String describe() {
+                return "index " + table + "." + index + " (" + String.join(", ", columns) + ")";
+            }
+        };
+    }
+
+    /**
+     * @param table      table name
+     * @param foreignKey constraint name
+     * @return step dropping the foreign key unless it is already gone
+     */
+    public static Step dropForeignKey(String table, String foreignKey) {
+        return new Step() {
+            @Override
+            public void apply(Connection conn) throws SQLException {
+                if (!foreignKeyExists(conn, table, foreignKey)) return;
+                try (Statement st = conn.createStatement()) {
+                    st.execute("ALTER TABLE `" + table + "` DROP FOREIGN KEY `" + foreignKey + "`");
+                }
+            }
+
+            @Override
+            public String describe() {
+                return "drop foreign key " + table + "." + foreignKey;
+            }
+        };
+    }
+
+    private static boolean foreignKeyExists(Connection conn, String table, String foreignKey) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+            SELECT 1
+            FROM information_schema.table_constraints
+            WHERE constraint_schema = DATABASE()
+              AND table_name = ?
+              AND constraint_name = ?
+              AND constraint_type = 'FOREIGN KEY'
+        """)) {
+            ps.setString(1, table);
+            ps.setString(2, foreignKey);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+            SELECT 1
+            FROM information_schema.statistics
+            WHERE table_schema = DATABASE()
+              AND table_name = ?
+              AND index_name = ?
+            LIMIT 1
+        """)) {
+            ps.setString(1, table);
+            ps.setString(2, index);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package DataBase.migration;
+
+import static DataBase.migration.Migration.addIndex;
+import static DataBase.migration.Migration.dropForeignKey;
+import static DataBase.migration.Migration.sql;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import DataBase.MySQLConnectionPool;
+import DataBase.PooledConnection;
+import DataBase.dao.BillDAO;
+import DataBase.dao.ContactIndex;
+import Server.ServerConfig;
+
+/**
+ * Versioned schema migrations.
+ * <p>
+ * Applied versions are recorded in {@code schema_version}; {@link #migrate()} runs the
+ * missing ones in order. The server runs it at start unless {@code db.migrateOnStart=false};
+ * it can also be run by hand:
+ * <pre>
+ *   java -cp ... DataBase.migration.SchemaMigrator [--config bistro-server.properties] [migrate|status|check]
+ * </pre>
+ * {@code check} runs {@link ExplainCheck} on the hot queries and exits with 1 if one
+ * of them scans a table it is not allowed to scan.
+ * <p>
+ * A MySQL named lock keeps two servers starting at the same time from migrating twice.
+ * To change the schema, append a {@link Migration} with the next version to {@link #MIGRATIONS}.
+ */
+public final class SchemaMigrator {
+
+    /** Named lock held while migrating. */
+    private static final String LOCK_NAME = "bistro_schema_migration";
+    private static final int LOCK_TIMEOUT_SEC = 30;
+
+    /** All migrations, in version order. */
+    static final List<Migration> MIGRATIONS = List.of(
+            Migration.of(1, "Indexes for the hot predicates",
+                    addIndex("reservation", "idx_reservation_status_time", "status", "reservation_time", "expiry_time"),
+                    addIndex("waiting_list", "idx_waiting_status_time", "status", "request_time"),
+                    addIndex("restaurant_table", "idx_table_status", "status"),
+                    addIndex("restaurant_table", "idx_table_reservation", "reserved_for_reservation_id"),
+                    addIndex("restaurant_table", "idx_table_waiting", "reserved_for_waiting_id"),
+                    addIndex("visit", "idx_visit_activity_end", "activity_id", "actual_end_time"),
+                    addIndex("user_activity", "idx_activity_guest_email", "guest_email"),
+                    addIndex("user_activity", "idx_activity_guest_phone", "guest_phone")),
+            Migration.of(2, "Confirmation code directory",
+                    sql("""
+                        CREATE TABLE IF NOT EXISTS code_directory (
+                          confirmation_code varchar(10) NOT NULL,
+                          kind enum('RESERVATION','WAITING') NOT NULL,
+                          entity_id int NOT NULL,
+                          activity_id int NOT NULL,
+                          subscriber_username varchar(50) DEFAULT NULL,
+                          guest_email varchar(100) DEFAULT NULL,
+                          guest_phone varchar(20) DEFAULT NULL,
+                          PRIMARY KEY (confirmation_code)
+                        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                    """)),
+            // Same normalization as ContactIndex.emailKey / phoneKey (see ContactIndex.backfill)
+            Migration.of(3, "Guest contact index for lost-code recovery",
+                    sql("""
+                        CREATE TABLE IF NOT EXISTS contact_index (
+                          contact varchar(100) NOT NULL,
+                          activity_id int NOT NULL,
+                          PRIMARY KEY (contact, activity_id)
+                        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                    """),
+                    sql(ContactIndex.BACKFILL_EMAILS_SQL),
+                    sql(ContactIndex.BACKFILL_PHONES_SQL)),
+            // See ArchiveDAO. LIKE copies columns and indexes, not foreign keys.
+            Migration.of(4, "Archive tables for finished history",
+                    sql("CREATE TABLE IF NOT EXISTS reservation_archive LIKE reservation"),
+                    sql("CREATE TABLE IF NOT EXISTS waiting_list_archive LIKE waiting_list"),
+                    sql("CREATE TABLE IF NOT EXISTS user_activity_archive LIKE user_activity"),
+                    sql("CREATE TABLE IF NOT EXISTS visit_archive LIKE visit"),
+                    sql("CREATE TABLE IF NOT EXISTS bill_archive LIKE bill"),
+                    dropForeignKey("performance_log", "performance_log_ibfk_1")),
+            // Rows are seeded on first use, see IdSequence
+            Migration.of(5, "Block-allocated id sequences",
+                    sql("""
+                        CREATE TABLE IF NOT EXISTS id_sequence (
+                          name varchar(50) NOT NULL,
+                          next_value bigint NOT NULL,
+                          PRIMARY KEY (name)
+                        ) ENGINE=InnoDB
+                    """)),
+            // Keyset paging order (time, id); already in the data1 dumps, missing on older databases
+            Migration.of(6, "Keyset paging indexes",
+                    addIndex("reservation", "idx_reservation_time_id", "reservation_time", "reservation_id"),
+                    addIndex("waiting_list", "idx_waiting_request_time_id", "request_time", "waiting_id")),
+            // Only the data1 dump had it, so deployed databases always paid statement by statement
+            Migration.of(7, "pay_bill stored procedure",
+                    sql("DROP PROCEDURE IF EXISTS pay_bill"),
+                    sql(BillDAO.CREATE_PAY_BILL_SQL))
+    );
+
+    private SchemaMigrator() {}
+
+    /**
+     * Applies every migration newer than the recorded version.
+     *
+     * @return number of migrations applied
+     * @throws Exception on database error (versions applied before the error stay recorded)
+     */
+    public static int migrate() throws Exception {
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        Connection conn = pc.getConnection();
+
+        try {
+            ensureVersionTable(conn);
+            if (!lock(conn)) throw new SQLException("Another process is migrating the schema (lock timeout).");
+            try {
+                int current = currentVersion(conn);
+                int applied = 0;
+                for (Migration m : MIGRATIONS) {
+                    if (m.version <= current) continue;
+                    System.out.println("[SCHEMA] Applying v" + m.version + ": " + m.description);
+                    for (Migration.Step step : m.steps) {
+                        long t0 = System.nanoTime();
+                        step.apply(conn);
+                        System.out.println(String.format("[SCHEMA]   %s (%.0f ms)",
+                                step.describe(), (System.nanoTime() - t0) / 1_000_000.0));
+                    }
+                    record(conn, m);
+                    applied++;
+                }
+                return applied;
+            } finally {
+                unlock(conn);
+            }
+        } finally {
+            pool.releaseConnection(pc);
+        }
+    }
+
+    /**
+     * Runs {@link #migrate()} at server start unless {@code db.migrateOnStart} is false.
+     * Errors are logged; the server keeps running on the old schema.
+     */
+    public static void migrateOnStartup() {
+        if ("false".equalsIgnoreCase(ServerConfig.get().getString("db.migrateOnStart", "true"))) return;
+        try {
+            int applied = migrate();
+            if (applied > 0) System.out.println("[SCHEMA] Applied " + applied + " migration(s), now at v" + latestVersion());
+        } catch (Exception e) {
+            System.out.println("[SCHEMA] Migration failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return version of the last migration known to this build
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.isEmpty() ? 0 : MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * @param conn connection
+     * @return highest applied version (0 if none)
+     * @throws SQLException on error
+     */
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Runs the EXPLAIN check on the hot queries.
+     *
+     * @return true if it passed
+     * @throws Exception on database error
+     */
+    public static boolean check() throws Exception {
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+        PooledConnection pc = pool.getConnection();
+        try {
+            List<ExplainCheck.Finding> findings = ExplainCheck.run(pc.getConnection());
+            System.out.println(ExplainCheck.format(findings));
+            return ExplainCheck.passed(findings);
+        } finally {
+            pool.releaseConnection(pc);
+        }
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args {@code [--config <file>] [migrate|status|check]} (default: migrate)
+     */
+    public static void main(String[] args) throws Exception {
+        Path configFile = null;
+        String command = "migrate";
+        for (int i = 0; i < args.length; i++) {
+            if ("--config".equals(args[i]) && i + 1 < args.length) configFile = Paths.get(args[++i]);
+            else command = args[i];
+        }
+        ServerConfig.load(configFile);
+
+        int exit = 0;
+        try {
+            switch (command) {
+                case "migrate" -> {
+                    int applied = migrate();
+                    System.out.println("[SCHEMA] Applied " + applied + " migration(s), latest is v" + latestVersion());
+                }
+                case "status" -> {
+                    MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+                    PooledConnection pc = pool.getConnection();
+                    try {
+                        Connection conn = pc.getConnection();
+                        ensureVersionTable(conn);
+                        System.out.println("[SCHEMA] Database at v" + currentVersion(conn) + ", latest is v" + latestVersion());
+                    } finally {
+                        pool.releaseConnection(pc);
+                    }
+                }
+                case "check" -> exit = check() ? 0 : 1;
+                default -> {
+                    System.out.println("Usage: SchemaMigrator [--config <file>] [migrate|status|check]");
+                    exit = 2;
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("[SCHEMA] " + command + " failed: " + e.getMessage());
+            exit = 1;
+        } finally {
+            MySQLConnectionPool pool = MySQLConnectionPool.getInstanceIfCreated();
+            if (pool != null) pool.shutdown();
+        }
+        System.exit(exit);
+    }
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                  version int NOT NULL,
+                  description varchar(200) NOT NULL,
+                  applied_at datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                  PRIMARY KEY (version)
+                ) ENGINE=InnoDB
+            """);
+        }
+    }
+
+    private static void record(Connection conn, Migration m) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            ps.setInt(1, m.version);
+            ps.setString(2, m.description);
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean lock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SEC);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException ignored) {}
+    }
+}
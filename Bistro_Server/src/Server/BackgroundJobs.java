@@ -1,10 +1,13 @@
 package Server;
 
+import DataBase.dao.ArchiveDAO;
 import DataBase.dao.BillDAO;
+import DataBase.dao.FloorModel;
 import DataBase.dao.ReservationDAO;
 import DataBase.dao.RestaurantTableDAO;
 import DataBase.dao.WaitingListDAO;
 import DataBase.Reservation;
+import common.Topic;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
@@ -21,7 +24,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *   <li>Handling waiting list assignments</li>
  *   <li>Releasing expired table reservations</li>
  *   <li>Sending reminder emails and SMS messages</li>
- *   <li>Generating monthly performance reports</li>
+ *   <li>Feeding the performance log (incremental ETL)</li>
+ *   <li>Archiving finished reservations and visits</li>
  * </ul>
  *
  * All jobs run in background threads using a {@link ScheduledExecutorService}.
@@ -29,9 +33,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class BackgroundJobs {
 
-    private static ScheduledExecutorService scheduler;
+    private static volatile ScheduledExecutorService scheduler;
     private static final AtomicBoolean started = new AtomicBoolean(false);
     private static final Object TABLE_ASSIGN_LOCK = new Object();
+    /** An immediate assignment cycle is queued (see {@link #onTablesFreed(List)}). */
+    private static final AtomicBoolean assignmentQueued = new AtomicBoolean(false);
 
     // ✅ In-memory protection: reminder sent once per server run (reservation reminder only)
     private static final Set<Integer> reminderSent = ConcurrentHashMap.newKeySet();
@@ -49,8 +55,9 @@ public class BackgroundJobs {
             return;
         }
 
-        // We run 4 periodic tasks => pool size 4
-        scheduler = Executors.newScheduledThreadPool(4);
+        // Executor size and cadences come from ServerConfig (jobs.*); defaults are the old constants
+        ServerConfig cfg = ServerConfig.get();
+        scheduler = Executors.newScheduledThreadPool(Math.max(1, cfg.getInt("jobs.threads", 4)));
 
         // =========================
         // Thread #1: Cancel NO-SHOWS (15 minutes)
@@ -60,82 +67,18 @@ public class BackgroundJobs {
                 int updated = ReservationDAO.cancelNoShows15Min();
                 if (updated > 0) {
                     System.out.println("[JOB] CANCELED no-shows (15 min): " + updated);
+                    SubscriptionHub.getInstance().publish(Topic.RESERVATIONS);
                 }
             } catch (Exception e) {
                 System.out.println("[JOB] cancelNoShows15Min error: " + e.getMessage());
             }
-        }, 5, 30, TimeUnit.SECONDS);
+        }, 5, period(cfg, "jobs.noShow.periodSec", 30), TimeUnit.SECONDS);
 
      // =========================
      // Thread #2 (combined): Pending reservations FIRST, then waiting list
      // =========================
-     scheduler.scheduleAtFixedRate(() -> {
-         synchronized (TABLE_ASSIGN_LOCK) {
-             try {
-            	 
-
-                 // (0) ✅ Release expired RESERVED holds for waiting list FIRST
-                 int released = RestaurantTableDAO.releaseExpiredReservedTablesForWaiting();
-                 if (released > 0) {
-                     System.out.println("[JOB] Released expired RESERVED tables for waiting: " + released);
-                 }
-
-                 // (1) Waiting-list maintenance (also frees reserved tables by canceling ASSIGNED no-show)
-                 int canceled = WaitingListDAO.cancelAssignedOver15Minutes();
-                 if (canceled > 0) {
-                     System.out.println("[JOB] CANCELED assigned waiting over 15min: " + canceled);
-                 }
-
-                 int oldCanceled = WaitingListDAO.cancelWaitingOlderThanHours(4);
-                 if (oldCanceled > 0) {
-                     System.out.println("[JOB] CANCELED old WAITING entries (4h): " + oldCanceled);
-                 }
-
-                 // (2) ✅ Reservations have priority (pending reserve)
-                 ReservationDAO.autoReserveForPendingReservations();
-
-                 int canceledPending = ReservationDAO.cancelPendingReservationsWithExpiredHold();
-                 if (canceledPending > 0) {
-                     System.out.println("[JOB] CANCELED pending reservations after reserved timeout: " + canceledPending);
-                 }
-
-                 // (3) Assign waiting list (after reservations had their chance)
-                 int assignedCount = 0;
-
-                 while (true) {
-                     var next = WaitingListDAO.assignNextWaitingByReservingTable();
-                     if (next == null) break;
-
-                     assignedCount++;
-
-
-                     String code = next.getConfirmationCode();
-
-                     String email = WaitingListDAO.getEmailForWaitingId(next.getId());
-                     String phone = WaitingListDAO.getPhoneForWaitingId(next.getId());
-
-                     if (code != null && !code.isBlank()) {
-
-                         if (email != null && !email.isBlank()) {
-                             EmailService.sendWaitingTableReady(email, code);
-                         }
-
-                         if (phone != null && !phone.isBlank()) {
-                             EmailService.smsStub(phone, "[SMS] Your table is ready! Waiting code: " + code);
-                         }
-                     }
-
-                 }
-
-                 if (assignedCount > 0) {
-                     System.out.println("[JOB] ASSIGNED waiting entries: " + assignedCount);
-                 }
-
-             } catch (Exception e) {
-                 System.out.println("[JOB] assignment cycle error: " + e.getMessage());
-             }
-         }
-     }, 10, 20, TimeUnit.SECONDS);
+     scheduler.scheduleAtFixedRate(BackgroundJobs::runTableAssignmentCycle,
+             10, period(cfg, "jobs.tableAssign.periodSec", 20), TimeUnit.SECONDS);
 
         // =========================
         // Thread #4: Bill reminder after 2 hours (visit-based)
@@ -146,7 +89,7 @@ public class BackgroundJobs {
             } catch (Exception e) {
                 System.out.println("[JOB] Bill reminder job error: " + e.getMessage());
             }
-        }, 30, 300, TimeUnit.SECONDS); // start after 30s, then every 5 min
+        }, 30, period(cfg, "jobs.billReminder.periodSec", 300), TimeUnit.SECONDS); // start after 30s, then every 5 min (default)
 
         // =========================
         // OPTIONAL Thread #5: Reservation reminder (upcoming reservation in ~2 hours)
@@ -158,25 +101,152 @@ public class BackgroundJobs {
             } catch (Exception e) {
                 System.out.println("[JOB] reservation reminder error: " + e.getMessage());
             }
-        }, 15, 60, TimeUnit.SECONDS);
+        }, 15, period(cfg, "jobs.reservationReminder.periodSec", 60), TimeUnit.SECONDS);
 
         System.out.println("[JOB] BackgroundJobs started.");
         
         
         // =========================
-        // Thread #6: Monthly Performance Report Generator
-        // Runs once every 24 hours. Checks if there is data from last month to process.
+        // Thread #6: Performance log ETL (incremental)
+        // Processes visits closed since the last watermark, in bounded batches.
         // =========================
-        scheduler.scheduleAtFixedRate(() -> {
+        scheduler.scheduleWithFixedDelay(() -> {
             try {
-                int recordsCreated = DataBase.dao.PerformanceLogDAO.generateMonthlyReport();
-                if (recordsCreated > 0) {
-                    System.out.println("[JOB] Generated Monthly Performance Report. Rows added: " + recordsCreated);
+                DataBase.dao.PerformanceLogDAO.EtlRunStats stats =
+                        DataBase.dao.PerformanceLogDAO.runIncrementalEtl();
+                if (stats.rowsProcessed > 0 || !stats.caughtUp) {
+                    System.out.println("[JOB] Performance log ETL: " + stats);
                 }
             } catch (Exception e) {
-                System.out.println("[JOB] Monthly Report Error: " + e.getMessage());
+                System.out.println("[JOB] Performance log ETL error: " + e.getMessage());
             }
-        }, 0, 24, TimeUnit.HOURS); // Start immediately, repeat every 24 hours
+        }, 20, period(cfg, "jobs.etl.periodSec", 60), TimeUnit.SECONDS);
+
+        // =========================
+        // Thread #7: Archive finished history (hot/cold split, see ArchiveDAO)
+        // =========================
+        int archiveAfterDays = cfg.getInt("archive.afterDays", ArchiveDAO.DEFAULT_AFTER_DAYS);
+        int archiveBatchSize = Math.max(1, cfg.getInt("archive.batchSize", ArchiveDAO.DEFAULT_BATCH_SIZE));
+        if (archiveAfterDays > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    int archived = ArchiveDAO.archiveOnce(archiveAfterDays, archiveBatchSize);
+                    if (archived > 0) {
+                        System.out.println("[JOB] Archived finished reservations / waiting entries: " + archived);
+                    }
+                } catch (Exception e) {
+                    System.out.println("[JOB] Archive error: " + e.getMessage());
+                }
+            }, 120, period(cfg, "jobs.archive.periodSec", 3600), TimeUnit.SECONDS);
+        }
+    }
+    /**
+     * Runs the table assignment cycle once: releases expired holds, cancels no-shows,
+     * reserves tables for pending reservations, then assigns the waiting list.
+     * Runs periodically and, via {@link #onTablesFreed(List)}, right after tables are freed.
+     */
+    private static void runTableAssignmentCycle() {
+        synchronized (TABLE_ASSIGN_LOCK) {
+            try {
+                // (0) ✅ Release expired RESERVED holds for waiting list FIRST
+                int released = RestaurantTableDAO.releaseExpiredReservedTablesForWaiting();
+                if (released > 0) {
+                    System.out.println("[JOB] Released expired RESERVED tables for waiting: " + released);
+                }
+
+                // (1) Waiting-list maintenance (also frees reserved tables by canceling ASSIGNED no-show)
+                int canceled = WaitingListDAO.cancelAssignedOver15Minutes();
+                if (canceled > 0) {
+                    System.out.println("[JOB] CANCELED assigned waiting over 15min: " + canceled);
+                }
+
+                int oldCanceled = WaitingListDAO.cancelWaitingOlderThanHours(4);
+                if (oldCanceled > 0) {
+                    System.out.println("[JOB] CANCELED old WAITING entries (4h): " + oldCanceled);
+                }
+
+                // (2) ✅ Reservations have priority (pending reserve)
+                int reservedPending = ReservationDAO.autoReserveForPendingReservations() ? 1 : 0;
+
+                int canceledPending = ReservationDAO.cancelPendingReservationsWithExpiredHold();
+                if (canceledPending > 0) {
+                    System.out.println("[JOB] CANCELED pending reservations after reserved timeout: " + canceledPending);
+                }
+
+                // (3) Assign waiting list (after reservations had their chance)
+                int assignedCount = 0;
+
+                while (true) {
+                    var next = WaitingListDAO.assignNextWaitingByReservingTable();
+                    if (next == null) break;
+
+                    assignedCount++;
+
+
+                    String code = next.getConfirmationCode();
+
+                    String email = WaitingListDAO.getEmailForWaitingId(next.getId());
+                    String phone = WaitingListDAO.getPhoneForWaitingId(next.getId());
+
+                    if (code != null && !code.isBlank()) {
+
+                        if (email != null && !email.isBlank()) {
+                            EmailService.sendWaitingTableReady(email, code);
+                        }
+
+                        if (phone != null && !phone.isBlank()) {
+                            EmailService.smsStub(phone, "[SMS] Your table is ready! Waiting code: " + code);
+                        }
+                    }
+
+                }
+
+                if (assignedCount > 0) {
+                    System.out.println("[JOB] ASSIGNED waiting entries: " + assignedCount);
+                }
+
+                // Live staff screens: one push per cycle, only if something changed
+                if (released + canceled + oldCanceled + reservedPending + canceledPending + assignedCount > 0) {
+                    FloorModel.markStale();
+                    SubscriptionHub.getInstance().publish(Topic.WAITING_LIST, Topic.TABLES, Topic.RESERVATIONS);
+                }
+
+            } catch (Exception e) {
+                System.out.println("[JOB] assignment cycle error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs an assignment cycle now (instead of at the next period) because tables were
+     * just freed, e.g. by a payment. Requests made while one is already queued are merged.
+     *
+     * @param tableIds freed tables (for the log)
+     */
+    public static void onTablesFreed(List<String> tableIds) {
+        ScheduledExecutorService s = scheduler;
+        if (s == null || tableIds == null || tableIds.isEmpty()) return;
+        if (!assignmentQueued.compareAndSet(false, true)) return;
+        try {
+            s.execute(() -> {
+                assignmentQueued.set(false);
+                System.out.println("[JOB] Tables freed " + tableIds + ", running assignment cycle.");
+                runTableAssignmentCycle();
+            });
+        } catch (RejectedExecutionException e) {
+            assignmentQueued.set(false);
+        }
+    }
+    /**
+     * Reads a job period (seconds) from the config, never less than 1.
+     *
+     * @param cfg server configuration
+     * @param key config key
+     * @param def default period (seconds)
+     * @return period in seconds
+     */
+    private static long period(ServerConfig cfg, String key, long def) {
+        return Math.max(1, cfg.getLong(key, def));
     }
     /**
      * Stops all background jobs immediately.
@@ -240,14 +310,16 @@ public class BackgroundJobs {
      */
     private static void runUpcomingReservationReminderOnce() throws Exception {
 
-        List<Reservation> all = new ReservationDAO().getAllReservations();
-
         LocalDateTime now = LocalDateTime.now();
 
         // window around "reservation is in 2 hours"
         LocalDateTime from = now.plusHours(2).minusMinutes(2);
         LocalDateTime to = now.plusHours(2).plusMinutes(2);
 
+        // Only the reservations inside the window (index range, not the whole table)
+        List<Reservation> all = ReservationDAO.getReservationsInRange(
+                Timestamp.valueOf(from), Timestamp.valueOf(to.plusSeconds(1)));
+
         for (Reservation r : all) {
 
             // already reminded (in this server run)
@@ -2,10 +2,20 @@ package Server;
 
 import java.io.IOException;
 import java.sql.Date; // From HEAD
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.sql.CommonDataSource;
 
@@ -16,6 +26,7 @@ import common.Envelope;
 import common.KryoMessage;
 import common.KryoUtil;
 import common.OpCode;
+import common.Topic;
 
 // Imports from HEAD (Registration)
 import common.dto.RegistrationDTO;
@@ -25,15 +36,26 @@ import common.dto.TerminalActiveItemDTO;
 import common.dto.TerminalValidateResponseDTO;
 import common.dto.WaitingListDTO;
 // Imports from MAIN (Reservation & Login)
+import common.dto.ListDeltaDTO;
+import common.dto.ListSyncRequestDTO;
 import common.dto.LoginResponseDTO;
+import common.dto.PageDTO;
+import common.dto.PageRequestDTO;
+import common.dto.StreamChunkDTO;
 import common.dto.MakeReservationRequestDTO;
 import common.dto.MakeReservationResponseDTO;
 import common.dto.CurrentDinersDTO; // Make sure to import this
 
 import DataBase.dao.VisitDAO;
 import common.dto.ProfileDTO;
+import DataBase.QueryStats;
 import DataBase.Reservation;
 import DataBase.dao.BillDAO;
+import DataBase.dao.CheckInEngine;
+import DataBase.dao.FloorModel;
+import DataBase.migration.SchemaMigrator;
+import DataBase.dao.CodeDirectory;
+import DataBase.dao.ConfirmationCodes;
 import DataBase.dao.OpeningHoursDAO;
 import DataBase.dao.ReservationDAO;
 import DataBase.dao.SubscriberDAO;
@@ -61,6 +83,79 @@ public class BistroServer extends AbstractServer {
     private final ReservationDAO reservationDAO = new ReservationDAO();
     /** DAO for subscriber operations (kept for future/consistency). */
     private final SubscriberDAO subscriberDAO = new SubscriberDAO();
+    /** Per-op request counters and latency histograms. */
+    private final RequestMetrics metrics = new RequestMetrics();
+    /** Live dashboard subscriptions (staff screens). */
+    private final SubscriptionHub hub = SubscriptionHub.getInstance();
+    /** Versioned copies of the large staff lists, for delta syncs. */
+    private final ListDeltaTracker<ReservationDTO> reservationsTracker =
+            new ListDeltaTracker<>("Reservations", r -> String.valueOf(r.getReservationId()));
+    private final ListDeltaTracker<SubscriberDTO> subscribersTracker =
+            new ListDeltaTracker<>("Subscribers", SubscriberDTO::getId);
+
+    /** Topics that change when a request with this op was handled (pushed to subscribers). */
+    private static final Map<OpCode, Topic[]> CHANGES = new EnumMap<>(OpCode.class);
+    static {
+        CHANGES.put(OpCode.REQUEST_MAKE_RESERVATION, new Topic[] { Topic.RESERVATIONS, Topic.TABLES });
+        CHANGES.put(OpCode.REQUEST_CANCEL_RESERVATION, new Topic[] { Topic.RESERVATIONS, Topic.TABLES, Topic.WAITING_LIST });
+        CHANGES.put(OpCode.REQUEST_TERMINAL_CANCEL_RESERVATION, new Topic[] { Topic.RESERVATIONS, Topic.TABLES, Topic.WAITING_LIST });
+        CHANGES.put(OpCode.REQUEST_TERMINAL_CHECK_IN, Topic.values());
+        CHANGES.put(OpCode.REQUEST_WAITING_ADD, new Topic[] { Topic.WAITING_LIST, Topic.TABLES });
+        CHANGES.put(OpCode.REQUEST_WAITING_REMOVE, new Topic[] { Topic.WAITING_LIST, Topic.TABLES });
+        CHANGES.put(OpCode.REQUEST_LEAVE_WAITING_LIST, new Topic[] { Topic.WAITING_LIST, Topic.TABLES });
+        CHANGES.put(OpCode.REQUEST_TABLE_ADD, new Topic[] { Topic.TABLES });
+        CHANGES.put(OpCode.REQUEST_TABLE_REMOVE, new Topic[] { Topic.TABLES });
+        CHANGES.put(OpCode.REQUEST_TABLE_UPDATE, new Topic[] { Topic.TABLES });
+        CHANGES.put(OpCode.REQUEST_PAY_BILL, Topic.values());
+    }
+
+    /** Ops that update {@link FloorModel} themselves (the others mark it stale). */
+    private static final Set<OpCode> FLOOR_TRACKED_OPS = EnumSet.of(
+            OpCode.REQUEST_TERMINAL_CHECK_IN, OpCode.REQUEST_PAY_BILL);
+
+    /** Sub-requests accepted in one batch. */
+    private static final int MAX_BATCH_SIZE = 32;
+    /**
+     * Ops that only read, so a batch may run them in parallel. Any other op in a batch
+     * runs alone, after the requests before it and before the requests after it.
+     * REQUEST_BILL_GET_BY_CODE is not one: the first lookup of a visit creates its bill.
+     */
+    private static final Set<OpCode> READ_ONLY_OPS = EnumSet.of(
+            OpCode.REQUEST_RESERVATIONS_LIST, OpCode.REQUEST_SUBSCRIBERS_LIST,
+            OpCode.REQUEST_AGENT_RESERVATIONS_LIST, OpCode.REQUEST_AGENT_RESERVATIONS_SYNC,
+            OpCode.REQUEST_SUBSCRIBERS_SYNC, OpCode.REQUEST_AGENT_RESERVATIONS_PAGE,
+            OpCode.REQUEST_SUBSCRIBERS_PAGE, OpCode.REQUEST_WAITING_LIST_PAGE,
+            OpCode.REQUEST_CHECK_AVAILABILITY, OpCode.REQUEST_GET_AVAILABLE_TIMES,
+            OpCode.REQUEST_WAITING_LIST, OpCode.REQUEST_CURRENT_DINERS, OpCode.REQUEST_TABLES_GET,
+            OpCode.REQUEST_OPENING_HOURS_GET, OpCode.REQUEST_TODAY_HOURS,
+            OpCode.REQUEST_REPORT_PERFORMANCE, OpCode.REQUEST_REPORT_ACTIVITY,
+            OpCode.REQUEST_GET_PROFILE,
+            OpCode.REQUEST_SUBSCRIBER_HISTORY, OpCode.REQUEST_SERVER_METRICS);
+    /** Ops that reply with more than one message (or nest batches) and cannot be batched. */
+    private static final Set<OpCode> NOT_BATCHABLE = EnumSet.of(
+            OpCode.REQUEST_BATCH, OpCode.REQUEST_AGENT_RESERVATIONS_EXPORT, OpCode.REQUEST_SUBSCRIBERS_EXPORT,
+            OpCode.REQUEST_STREAM_ACK);
+    /** Streamed exports: run on {@link #exportPool} so the connection thread can read their acks. */
+    private static final Set<OpCode> EXPORT_OPS = EnumSet.of(
+            OpCode.REQUEST_AGENT_RESERVATIONS_EXPORT, OpCode.REQUEST_SUBSCRIBERS_EXPORT);
+    /** Request id of the request handled on this thread; echoed in every reply to it. */
+    private static final ThreadLocal<String> REQUEST_ID = new ThreadLocal<>();
+    /** Replies collected for the batch sub-request running on this thread (null = send directly). */
+    private static final ThreadLocal<List<Envelope>> BATCH_REPLIES = new ThreadLocal<>();
+    /** Runs the read-only sub-requests of batches. */
+    private final ExecutorService batchPool = Executors.newFixedThreadPool(
+            Math.max(1, ServerConfig.get().getInt("batch.threads", 4)), r -> {
+                Thread t = new Thread(r, "batch-worker");
+                t.setDaemon(true);
+                return t;
+            });
+    /** Runs streamed exports, which block waiting for client acks (see {@link ChunkedResponse}). */
+    private final ExecutorService exportPool = Executors.newFixedThreadPool(
+            Math.max(1, ServerConfig.get().getInt("stream.exportThreads", 2)), r -> {
+                Thread t = new Thread(r, "export-worker");
+                t.setDaemon(true);
+                return t;
+            });
     /**
      * Creates a new server instance.
      *
@@ -70,24 +165,51 @@ public class BistroServer extends AbstractServer {
     public BistroServer(int port, ServerController controller) {
         super(port);
         this.controller = controller;
+
+        hub.registerLoader(Topic.WAITING_LIST, OpCode.RESPONSE_WAITING_LIST, WaitingListDAO::getAllWaitingList);
+        hub.registerLoader(Topic.TABLES, OpCode.RESPONSE_TABLES_GET, FloorModel::tables);
+        hub.registerLoader(Topic.CURRENT_DINERS, OpCode.RESPONSE_CURRENT_DINERS, FloorModel::currentDiners);
+        hub.registerLoader(Topic.RESERVATIONS, OpCode.RESPONSE_AGENT_RESERVATIONS_SYNC, () -> {
+            ListDeltaDTO d = reservationsTracker.pushDelta(loadAgentReservations());
+            return d.isEmpty() ? null : d;
+        });
     }
     /**
-     * Writes a log line either to the UI (if available) or to console.
+     * @return request metrics of this server (used by the UI and REQUEST_SERVER_METRICS)
+     */
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+    /**
+     * Writes an INFO line to the server log ({@link ServerLog}), or to console when running headless.
      *
      * @param text message to log
      */
     private void log(String text) {
-        if (controller != null) controller.appendLogFromServer(text);
-        else System.out.println(text);
+        log(ServerLog.Level.INFO, text);
     }
     /**
-     * Extracts host name from client connection.
+     * Writes a log line with the given level. Never blocks the request thread:
+     * the UI and the file appender read the line from the log ring later.
+     *
+     * @param level log level
+     * @param text  message to log
+     */
+    private void log(ServerLog.Level level, String text) {
+        ServerLog.log(level, text);
+        if (controller == null) System.out.println(level + " " + text);
+    }
+    /**
+     * Returns the client host name without doing DNS: the name stored on the connection,
+     * else the cached name from {@link HostNameResolver}, else the IP.
      *
      * @param c client connection
-     * @return host name or "unknown" if missing
+     * @return host name, IP, or "unknown" if missing
      */
     private String host(ConnectionToClient c) {
-        return (c.getInetAddress() != null) ? c.getInetAddress().getHostName() : "unknown";
+        Object stored = c.getInfo("host");
+        if (stored instanceof String s) return s;
+        return HostNameResolver.getInstance().cachedName(c.getInetAddress());
     }
     /**
      * Extracts IP address from client connection.
@@ -100,13 +222,17 @@ public class BistroServer extends AbstractServer {
     }
     /**
      * Called by OCSF when server starts listening.
-     * Starts background jobs and updates UI.
+     * Migrates the schema, starts background jobs and updates UI.
      */
     @Override
     protected void serverStarted() {
         log("Server started on port " + getPort());
         if (controller != null) controller.onServerStarted(getPort());
+        SchemaMigrator.migrateOnStartup();
+        FloorModel.reload();
         BackgroundJobs.start();
+        metrics.startDumpFromSystemProperties();
+        ServerLog.startFileAppenderFromSystemProperties();
     }
     /**
      * Called by OCSF when server is stopped.
@@ -117,10 +243,15 @@ public class BistroServer extends AbstractServer {
         log("Server stopped.");
         if (controller != null) controller.onServerStopped();
         BackgroundJobs.stop();
+        metrics.stopDump();
+        log(QueryStats.formatTop(10));
+        log(CheckInEngine.formatTiming());
     }
     /**
      * Called when a client connects.
      * Stores host/ip as client info and updates UI.
+     * The row starts with the IP (or a cached name); the real host name is
+     * resolved in the background and pushed to the UI when it arrives.
      *
      * @param client client that connected
      */
@@ -133,6 +264,13 @@ public class BistroServer extends AbstractServer {
         client.setInfo("host", host);
         client.setInfo("ip", ip);
         if (controller != null) controller.onClientConnected(host, ip);
+
+        HostNameResolver.getInstance().resolveAsync(client.getInetAddress(), (resolvedIp, name) -> {
+            if (name.equals(client.getInfo("host"))) return;
+            client.setInfo("host", name);
+            log(ServerLog.Level.DEBUG, "Resolved " + resolvedIp + " -> " + name);
+            if (controller != null) controller.onClientHostResolved(resolvedIp, name);
+        });
     }
     /**
      * Called when a client disconnects normally.
@@ -146,6 +284,7 @@ public class BistroServer extends AbstractServer {
         String ip = (String) client.getInfo("ip");
         if (host == null) host = host(client);
         if (ip == null) ip = ip(client);
+        hub.removeClient(client);
         log("Client disconnected: " + host + " (" + ip + ")");
         if (controller != null) controller.onClientDisconnected(host, ip);
     }
@@ -163,7 +302,8 @@ public class BistroServer extends AbstractServer {
         String ip = (String) client.getInfo("ip");
         if (host == null) host = host(client);
         if (ip == null) ip = ip(client);
-        log("Client exception: " + host + " (" + ip + "): " + exception.getMessage());
+        hub.removeClient(client);
+        log(ServerLog.Level.WARN, "Client exception: " + host + " (" + ip + "): " + exception.getMessage());
         if (controller != null) controller.onClientDisconnected(host, ip);
     }
 
@@ -182,12 +322,78 @@ public class BistroServer extends AbstractServer {
                 return;
             }
 
-            switch (req.getOp()) {
+            REQUEST_ID.set(req.getRequestId());
+            if (req.getOp() == OpCode.REQUEST_BATCH) {
+                handleBatch(req, client);
+            } else if (EXPORT_OPS.contains(req.getOp())) {
+                exportPool.execute(() -> runExport(req, client));
+            } else {
+                dispatch(req, client);
+            }
+        } catch (Exception e) {
+            log(ServerLog.Level.ERROR, "Error handling message: " + e.getMessage());
+            try {
+                sendError(client, OpCode.ERROR, "Server exception: " + e.getMessage());
+            } catch (Exception ignored) {}
+        } finally {
+            REQUEST_ID.remove();
+        }
+    }
+    /**
+     * Runs a streamed export on the export pool. The handler reports its own errors to
+     * the client through the stream; anything else is logged.
+     *
+     * @param req    export request
+     * @param client client connection
+     */
+    private void runExport(Envelope req, ConnectionToClient client) {
+        REQUEST_ID.set(req.getRequestId());
+        try {
+            dispatch(req, client);
+        } catch (Exception e) {
+            log(ServerLog.Level.ERROR, "Error handling " + req.getOp() + ": " + e.getMessage());
+        } finally {
+            REQUEST_ID.remove();
+        }
+    }
+    /**
+     * @param topics topics changed by a request
+     * @return true if the change touches the floor (tables or seated diners)
+     */
+    private static boolean changesFloor(Topic[] topics) {
+        for (Topic t : topics) {
+            if (t == Topic.TABLES || t == Topic.CURRENT_DINERS) return true;
+        }
+        return false;
+    }
+    /**
+     * Runs one request: routes it by {@link OpCode}, records its metrics and publishes
+     * the topics it changed.
+     *
+     * @param req    decoded request
+     * @param client client connection
+     * @throws Exception if the handler fails
+     */
+    private void dispatch(Envelope req, ConnectionToClient client) throws Exception {
+        OpCode op = req.getOp();
+        String outerId = REQUEST_ID.get();
+        REQUEST_ID.set(req.getRequestId());
+        long startNs = metrics.begin(op);
+        try {
+            switch (op) {
                 // --- RESERVATIONS ---
                 case REQUEST_RESERVATIONS_LIST -> handleReservationsList(req, client);
                 case REQUEST_REGISTER_CUSTOMER -> handleRegisterCustomer(req, client);
                 case REQUEST_SUBSCRIBERS_LIST -> handleSubscribersList(req, client);
                 case REQUEST_AGENT_RESERVATIONS_LIST -> handleAgentReservationsList(req, client);
+                case REQUEST_AGENT_RESERVATIONS_SYNC -> handleAgentReservationsSync(req, client);
+                case REQUEST_SUBSCRIBERS_SYNC -> handleSubscribersSync(req, client);
+                case REQUEST_AGENT_RESERVATIONS_PAGE -> handleReservationsPage(req, client);
+                case REQUEST_SUBSCRIBERS_PAGE -> handleSubscribersPage(req, client);
+                case REQUEST_WAITING_LIST_PAGE -> handleWaitingListPage(req, client);
+                case REQUEST_AGENT_RESERVATIONS_EXPORT -> handleReservationsExport(req, client);
+                case REQUEST_SUBSCRIBERS_EXPORT -> handleSubscribersExport(req, client);
+                case REQUEST_STREAM_ACK -> handleStreamAck(req, client);
                 case REQUEST_MAKE_RESERVATION -> handleMakeReservation(req, client);
                 case REQUEST_CHECK_AVAILABILITY -> handleCheckAvailability(req, client);
                 case REQUEST_CANCEL_RESERVATION -> handleCancelReservation(req, client);
@@ -195,35 +401,35 @@ public class BistroServer extends AbstractServer {
                 // --- LOGIN ---
                 case REQUEST_LOGIN_SUBSCRIBER -> handleLoginSubscriber(req, client);
                 case REQUEST_LOGIN_STAFF      -> handleLoginStaff(req, client);
-                
+            
                 // --- TERMINAL ---
                 case REQUEST_TERMINAL_VALIDATE_CODE -> handleTerminalValidateCode(req, client);
                 case REQUEST_TERMINAL_CHECK_IN -> handleTerminalCheckIn(req, client);
                 case REQUEST_TERMINAL_CANCEL_RESERVATION -> handleTerminalCancelReservation(req, client);
                 case REQUEST_TERMINAL_GET_SUBSCRIBER_ACTIVE_CODES ->handleTerminalGetSubscriberActiveCodes(req, client);
-                
+            
                 // --- WAITING LIST (Fixed Logic) ---
                 case REQUEST_WAITING_LIST -> handlgeteWaitingList(req, client); // Agent Viewing List
                 case REQUEST_WAITING_ADD  -> handleWaitingList(req, client); // Customer Joining
                 case REQUEST_WAITING_REMOVE -> handleRemoveWaitingCustomer(req, client); // <--- ADD THIS
                 case REQUEST_LEAVE_WAITING_LIST -> handleLeaveWaitingList(req, client);
-                
+            
                 // --- DASHBOARD: CURRENT DINERS ---
                 case REQUEST_CURRENT_DINERS -> handleCurrentDiners(req, client);
-                
+            
                 // --- DASHBOARD: TABLES ---
                 case REQUEST_TABLES_GET -> handleGetTables(client);
                 case REQUEST_TABLE_ADD -> handleAddTable(req, client);
                 case REQUEST_TABLE_REMOVE -> handleRemoveTable(req, client);
                 case REQUEST_TABLE_UPDATE -> handleUpdateTable(req, client);
-                
+            
                 // --- DASHBOARD: OPENING HOURS ---
                 case REQUEST_OPENING_HOURS_GET -> handleGetOpeningHours(client);
                 case REQUEST_OPENING_HOURS_UPDATE -> handleUpdateOpeningHours(req, client);
                 case REQUEST_OPENING_HOURS_ADD_SPECIAL -> handleAddSpecialHour(req, client);
                 case REQUEST_OPENING_HOURS_REMOVE -> handleRemoveSpecialHour(req, client);
                 case REQUEST_TODAY_HOURS -> handleGetTodayHours(client);
-                
+            
                 // --- DASHBOARD: REPORTS ---
                 case REQUEST_REPORT_PERFORMANCE -> handleReportPerformance(req,client);
                 case REQUEST_REPORT_ACTIVITY -> handleReportActivity(req,client);
@@ -232,26 +438,108 @@ public class BistroServer extends AbstractServer {
                 case REQUEST_HISTORY_GET -> sendOk(client, OpCode.RESPONSE_HISTORY_GET, new ArrayList<>());
                 case REQUEST_BILL_GET_BY_CODE -> handleBillGetByCode(req, client);
                 case REQUEST_PAY_BILL        -> handlePayBill(req, client);
-                
+            
                 case REQUEST_GET_PROFILE -> handleGetProfile(req, client);
                 case REQUEST_UPDATE_PROFILE -> handleUpdateProfile(req, client);
                 case REQUEST_RECOVER_CONFIRMATION_CODE -> handleRecoverConfirmationCode(req, client);
                 case REQUEST_GET_AVAILABLE_TIMES -> handleGetAvailableTimes(req, client);
-                
+            
                 case REQUEST_SUBSCRIBER_HISTORY -> handleSubscriberHistory(req, client);
-                
+            
                 case REQUEST_TERMINAL_RESOLVE_SUBSCRIBER_QR -> handleTerminalResolveSubscriberQR(req, client);
 
+                // --- MONITORING ---
+                case REQUEST_SERVER_METRICS -> sendOk(client, OpCode.RESPONSE_SERVER_METRICS, metrics.snapshot());
+
+                // --- LIVE DASHBOARD ---
+                case REQUEST_SUBSCRIBE -> handleSubscribe(req, client);
+                case REQUEST_UNSUBSCRIBE -> handleUnsubscribe(req, client);
 
                 default -> sendError(client, OpCode.ERROR, "Unknown op: " + req.getOp());
             }
 
+            Topic[] changed = CHANGES.get(op);
+            if (changed != null) {
+                if (!FLOOR_TRACKED_OPS.contains(op) && changesFloor(changed)) FloorModel.markStale();
+                hub.publish(changed);
+            }
         } catch (Exception e) {
-            log("Error handling message: " + e.getMessage());
-            try {
-                sendError(client, OpCode.ERROR, "Server exception: " + e.getMessage());
-            } catch (Exception ignored) {}
+            metrics.markError();
+            throw e;
+        } finally {
+            metrics.end(op, startNs);
+            REQUEST_ID.set(outerId);
+        }
+    }
+    /**
+     * Runs the requests of a batch and sends all their replies in one
+     * {@link OpCode#RESPONSE_BATCH} envelope (one round trip, one serialization).
+     * <p>
+     * Consecutive read-only requests ({@link #READ_ONLY_OPS}) run in parallel on the
+     * batch pool; any other request waits for the ones before it and runs alone, so
+     * writes keep their order. Replies are returned in request order, each with the
+     * request id of its request. A failing request becomes an error reply; the others
+     * still run.
+     *
+     * @param req    batch request (payload: list of request envelopes)
+     * @param client client connection
+     * @throws Exception if a sub-request could not be run or the reply could not be sent
+     */
+    private void handleBatch(Envelope req, ConnectionToClient client) throws Exception {
+        long startNs = metrics.begin(OpCode.REQUEST_BATCH);
+        try {
+            if (!(req.getPayload() instanceof List<?> parts) || parts.isEmpty()) {
+                sendError(client, OpCode.RESPONSE_BATCH, "Empty batch.");
+                return;
+            }
+            if (parts.size() > MAX_BATCH_SIZE) {
+                sendError(client, OpCode.RESPONSE_BATCH, "Too many requests in batch (max " + MAX_BATCH_SIZE + ").");
+                return;
+            }
+            List<Future<List<Envelope>>> results = new ArrayList<>(parts.size());
+            for (Object part : parts) {
+                if (!(part instanceof Envelope sub)) {
+                    results.add(CompletableFuture.completedFuture(List.of(Envelope.error("Batch entry is not a request."))));
+                } else if (READ_ONLY_OPS.contains(sub.getOp())) {
+                    results.add(batchPool.submit(() -> runInBatch(sub, client)));
+                } else {
+                    for (Future<List<Envelope>> f : results) f.get();
+                    results.add(CompletableFuture.completedFuture(runInBatch(sub, client)));
+                }
+            }
+
+            ArrayList<Envelope> replies = new ArrayList<>(parts.size());
+            for (Future<List<Envelope>> f : results) replies.addAll(f.get());
+            sendOk(client, OpCode.RESPONSE_BATCH, replies);
+        } finally {
+            metrics.end(OpCode.REQUEST_BATCH, startNs);
+        }
+    }
+    /**
+     * Runs one batch sub-request on the current thread and returns its replies
+     * instead of sending them.
+     *
+     * @param sub    sub-request
+     * @param client client connection
+     * @return replies of the sub-request (usually one)
+     */
+    private List<Envelope> runInBatch(Envelope sub, ConnectionToClient client) {
+        List<Envelope> replies = new ArrayList<>(1);
+        BATCH_REPLIES.set(replies);
+        try {
+            if (NOT_BATCHABLE.contains(sub.getOp())) {
+                sendError(client, OpCode.ERROR, sub.getOp() + " cannot be part of a batch.");
+            } else {
+                dispatch(sub, client);
+            }
+        } catch (Exception e) {
+            log(ServerLog.Level.ERROR, "Error handling batched " + sub.getOp() + ": " + e.getMessage());
+            replies.add(Envelope.error("Server exception: " + e.getMessage()));
+        } finally {
+            BATCH_REPLIES.remove();
         }
+        for (Envelope r : replies) r.setRequestId(sub.getRequestId());
+        return replies;
     }
     /**
      * Converts incoming object into {@link Envelope}.
@@ -269,7 +557,7 @@ public class BistroServer extends AbstractServer {
                 if (obj instanceof Envelope e) return e;
             }
         } catch (Exception ex) {
-            log("Decode error: " + ex.getMessage());
+            log(ServerLog.Level.WARN, "Decode error: " + ex.getMessage());
         }
         return null;
     }
@@ -296,21 +584,33 @@ public class BistroServer extends AbstractServer {
      * @throws IOException if send fails
      */
     private void sendError(ConnectionToClient client, OpCode op, String message) throws IOException {
+        metrics.markError();
         Envelope resp = Envelope.error(message);
         resp.setOp(op);
         sendEnvelope(client, resp);
     }
 
     /**
-     * Serializes envelope via Kryo and sends it.
+     * Serializes envelope via Kryo and sends it, tagged with the request id of the
+     * request being handled (so the client can match the reply to its request).
      *
      * @param client target client
      * @param env    envelope to send
      * @throws IOException if sending fails
      */
     private void sendEnvelope(ConnectionToClient client, Envelope env) throws IOException {
+        String requestId = REQUEST_ID.get();
+        if (requestId != null) env.setRequestId(requestId);
+        List<Envelope> batch = BATCH_REPLIES.get();
+        if (batch != null) {
+            batch.add(env);
+            return;
+        }
         byte[] bytes = KryoUtil.toBytes(env);
-        client.sendToClient(new KryoMessage("ENVELOPE", bytes));
+        // Pushes from SubscriptionHub write to the same stream from another thread
+        synchronized (client) {
+            client.sendToClient(new KryoMessage("ENVELOPE", bytes));
+        }
     }
 
     /* ==================== Handlers ==================== */
@@ -457,7 +757,7 @@ public class BistroServer extends AbstractServer {
             sendOk(client, OpCode.RESPONSE_SUBSCRIBER_HISTORY, history);
 
         } catch (Exception e) {
-            log("Error fetching history: " + e.getMessage());
+            log(ServerLog.Level.ERROR, "Error fetching history: " + e.getMessage());
             try {
                 sendError(client, OpCode.RESPONSE_SUBSCRIBER_HISTORY, "Server error: " + e.getMessage());
             } catch (Exception ignored) {}
@@ -557,7 +857,7 @@ public class BistroServer extends AbstractServer {
     /**
      * Pays bill by confirmation code.
      * Accepts payload: String code OR Object[] { code, method }.
-     * Response payload is Object[] { ok, message, tableId }.
+     * Response payload is Object[] { ok, message, tableId, freedTableIds }.
      */
     private void handlePayBill(Envelope req, ConnectionToClient client) {
         try {
@@ -574,8 +874,12 @@ public class BistroServer extends AbstractServer {
 
             BillDAO.PayBillResult r = BillDAO.payBillByConfirmationCode(code);
 
-            // Object[] { ok, message, tableId }
-            sendOk(client, OpCode.RESPONSE_PAY_BILL, new Object[] { r.ok, r.message, r.tableId });
+            // Object[] { ok, message, tableId, freedTableIds }
+            sendOk(client, OpCode.RESPONSE_PAY_BILL,
+                    new Object[] { r.ok, r.message, r.tableId, new ArrayList<>(r.freedTableIds) });
+
+            // Seat the waiting list on the freed tables now rather than at the next job period
+            if (r.ok) BackgroundJobs.onTablesFreed(r.freedTableIds);
 
         } catch (Exception e) {
             try {
@@ -806,25 +1110,21 @@ public class BistroServer extends AbstractServer {
 
             Timestamp now = new Timestamp(System.currentTimeMillis());
 
-            String code = null;
-            int waitingId = -1;
-
-            for (int i = 0; i < 5; i++) {
-                code = "W" + java.util.UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase();
-
+            // Codes are unique by construction; only random fallback codes can collide (see ConfirmationCodes)
+            String code;
+            int waitingId;
+            for (int attempt = 1; ; attempt++) {
+                code = ConfirmationCodes.nextWaitingCode();
                 try {
                     waitingId = WaitingListDAO.insertWaitingReturnId(people, now, "WAITING", code);
-                    if (waitingId > 0) break; // success
-                } catch (Exception ex) {
-                    String msg = ex.getMessage() == null ? "" : ex.getMessage().toLowerCase();
-                    if (!msg.contains("duplicate")) {
-                        throw ex;
-                    }
+                    break;
+                } catch (SQLException ex) {
+                    if (attempt >= ConfirmationCodes.MAX_ATTEMPTS || !ConfirmationCodes.isDuplicateCode(ex)) throw ex;
                 }
             }
 
-            if (waitingId <= 0 || code == null) {
-                sendOk(client, OpCode.RESPONSE_WAITING_LIST, "Failed to generate unique waiting code. Please try again.");
+            if (waitingId <= 0) {
+                sendOk(client, OpCode.RESPONSE_WAITING_LIST, "Failed to create waiting list entry. Please try again.");
                 return;
             }
 
@@ -923,11 +1223,11 @@ public class BistroServer extends AbstractServer {
 
 
         } catch (Exception e) {
-            log("Cancel reservation failed: " + e.getMessage());
+            log(ServerLog.Level.ERROR, "Cancel reservation failed: " + e.getMessage());
             try {
                 sendOk(client, OpCode.RESPONSE_CANCEL_RESERVATION, "Server error: " + e.getMessage());
             } catch (Exception ignored) {
-                log("Also failed to send response to client: " + ignored.getMessage());
+                log(ServerLog.Level.WARN, "Also failed to send response to client: " + ignored.getMessage());
             }
         }
     }
@@ -937,14 +1237,14 @@ public class BistroServer extends AbstractServer {
     private void handleCurrentDiners(Envelope req, ConnectionToClient client) {
         try {
             // Log that we started the request (This helps debug!)
-            log("Received request for Current Diners from " + host(client));
+            log(ServerLog.Level.DEBUG, "Received request for Current Diners from " + host(client));
 
-            List<common.dto.CurrentDinersDTO> list = DataBase.dao.VisitDAO.getActiveDiners();
+            List<common.dto.CurrentDinersDTO> list = FloorModel.currentDiners();
             sendOk(client, OpCode.RESPONSE_CURRENT_DINERS, list);
             
-            log("Sent " + list.size() + " current diners.");
+            log(ServerLog.Level.DEBUG, "Sent " + list.size() + " current diners.");
         } catch (Exception e) {
-            log("Error fetching current diners: " + e.getMessage());
+            log(ServerLog.Level.ERROR, "Error fetching current diners: " + e.getMessage());
             e.printStackTrace(); // Print error to console
         }
     }
@@ -953,7 +1253,7 @@ public class BistroServer extends AbstractServer {
      */
     private void handleGetTables(ConnectionToClient client) {
         try {
-            List<common.dto.RestaurantTableDTO> list = DataBase.dao.RestaurantTableDAO.getAllTables();
+            List<common.dto.RestaurantTableDTO> list = FloorModel.tables();
             sendOk(client, OpCode.RESPONSE_TABLES_GET, list);
         } catch (Exception e) {
             try { sendError(client, OpCode.ERROR, "Fetch tables failed: " + e.getMessage()); } catch (Exception ignored) {}
@@ -1137,12 +1437,12 @@ public class BistroServer extends AbstractServer {
     
     
     /**
-     * Creates performance report data for given month/year.
+     * Creates performance report data for given month/year (served from {@link DataBase.dao.ReportCache}).
      */
     private void handleReportPerformance(Envelope req, ConnectionToClient client) {
         try {
             common.dto.ReportRequestDTO dto = (common.dto.ReportRequestDTO) req.getPayload();
-            List<common.dto.ReportDTO> data = DataBase.dao.ReportDAO.getPerformanceReport(dto.getMonth(), dto.getYear());
+            List<common.dto.ReportDTO> data = DataBase.dao.ReportCache.getPerformanceReport(dto.getMonth(), dto.getYear());
             sendOk(client, OpCode.RESPONSE_REPORT_PERFORMANCE, data);
         } catch (Exception e) {
             e.printStackTrace();
@@ -1150,12 +1450,12 @@ public class BistroServer extends AbstractServer {
         }
     }
     /**
-     * Creates subscriber activity report data for given month/year.
+     * Creates subscriber activity report data for given month/year (served from {@link DataBase.dao.ReportCache}).
      */
     private void handleReportActivity(Envelope req, ConnectionToClient client) {
         try {
             common.dto.ReportRequestDTO dto = (common.dto.ReportRequestDTO) req.getPayload();
-            List<common.dto.ReportDTO> data = DataBase.dao.ReportDAO.getSubscriberActivityReport(dto.getMonth(), dto.getYear());
+            List<common.dto.ReportDTO> data = DataBase.dao.ReportCache.getSubscriberActivityReport(dto.getMonth(), dto.getYear());
             sendOk(client, OpCode.RESPONSE_REPORT_ACTIVITY, data);
         } catch (Exception e) {
             e.printStackTrace();
@@ -1198,7 +1498,7 @@ public class BistroServer extends AbstractServer {
             sendOk(client, OpCode.RESPONSE_REGISTER_CUSTOMER, "Success");
 
         } catch (Exception e) {
-            log("Error registering customer: " + e.getMessage());
+            log(ServerLog.Level.ERROR, "Error registering customer: " + e.getMessage());
             sendError(client, OpCode.ERROR, "Registration failed: " + e.getMessage());
         }
     }
@@ -1377,6 +1677,18 @@ public class BistroServer extends AbstractServer {
      *   <li>maps waiting-list status into valid/check-in allowed flags</li>
      * </ul>
      */
+    /**
+     * Sends the terminal info of a reservation code if it is a valid reservation.
+     *
+     * @return true if a reply was sent
+     */
+    private boolean sendTerminalReservationInfo(ConnectionToClient client, String code) throws Exception {
+        TerminalValidateResponseDTO info = DataBase.dao.ReservationDAO.getTerminalInfoByCode(code);
+        if (info == null || !info.isValid()) return false;
+        sendOk(client, OpCode.RESPONSE_TERMINAL_VALIDATE_CODE, info);
+        return true;
+    }
+
     private void handleTerminalValidateCode(Envelope req, ConnectionToClient client) {
         try {
             Object payload = readEnvelopePayload(req);
@@ -1390,15 +1702,15 @@ public class BistroServer extends AbstractServer {
 
             code = code.trim();
 
+            // Waiting codes start with "W": skip the reservation lookup for them
+            boolean waitingFirst = CodeDirectory.routeOf(code) == CodeDirectory.Kind.WAITING;
+
             // 1) Try RESERVATION code (existing)
-            TerminalValidateResponseDTO info = DataBase.dao.ReservationDAO.getTerminalInfoByCode(code);
-            if (info != null && info.isValid()) {
-                sendOk(client, OpCode.RESPONSE_TERMINAL_VALIDATE_CODE, info);
-                return;
-            }
+            if (!waitingFirst && sendTerminalReservationInfo(client, code)) return;
 
-         // 2) Try WAITING LIST code (NEW)
+            // 2) Try WAITING LIST code (NEW)
             WaitingListDTO w = WaitingListDAO.getByCode(code);
+            if (w == null && waitingFirst && sendTerminalReservationInfo(client, code)) return;
             if (w == null) {
                 sendOk(client, OpCode.RESPONSE_TERMINAL_VALIDATE_CODE,
                         new TerminalValidateResponseDTO(false, "Code not found."));
@@ -1446,7 +1758,7 @@ public class BistroServer extends AbstractServer {
     /**
      * Performs terminal check-in:
      * <ul>
-     *   <li>reservation check-in: marks ARRIVED or PENDING (if no table yet)</li>
+     *   <li>reservation check-in: marks ARRIVED or PENDING (if no table yet), see {@link CheckInEngine}</li>
      *   <li>waiting-list check-in: delegates to {@link WaitingListDAO#checkInWaitingListByCode(String)}</li>
      * </ul>
      */
@@ -1463,33 +1775,17 @@ public class BistroServer extends AbstractServer {
 
             code = code.trim();
             
-            // 1) RESERVATION check-in (keep your existing behavior)
-            TerminalValidateResponseDTO info = DataBase.dao.ReservationDAO.getTerminalInfoByCode(code);
-            if (info != null && info.isValid()) {
-            	String tableId = ReservationDAO.markArrivedByCodeReturnTableId(code);
-            	TerminalValidateResponseDTO dto = ReservationDAO.getTerminalInfoByCode(code);
-            	dto.setValid(true);
-
-            	if (tableId == null || tableId.isBlank()) {
-            	    // no table -> the DAO should have switched it to PENDING
-            	    dto.setStatus("PENDING");
-            	    dto.setCheckInAllowed(false);
-            	    dto.setTableId("-");
-            	    dto.setMessage("No suitable table now. Please wait — you will be notified when a table is ready.");
-            	} else {
-            	    dto.setStatus("ARRIVED");
-            	    dto.setCheckInAllowed(false);
-            	    dto.setTableId(tableId);
-            	    dto.setMessage("Checked-in successfully. Table: " + tableId);
-            	}
-
-            	sendOk(client, OpCode.RESPONSE_TERMINAL_CHECK_IN, dto);
-            	return;
-
+            // 1) RESERVATION check-in: one transaction (null = not a reservation code)
+            CheckInEngine.Result result = CheckInEngine.checkIn(code);
+            if (result != null) {
+                ServerLog.debug("Check-in " + code + ": " + result.timing);
+                sendOk(client, OpCode.RESPONSE_TERMINAL_CHECK_IN, result.response);
+                return;
             }
 
             // 2) WAITING LIST check-in (ALL DB WORK INSIDE DAO)
             TerminalValidateResponseDTO dto = WaitingListDAO.checkInWaitingListByCode(code);
+            FloorModel.markStale();
 
             sendOk(client, OpCode.RESPONSE_TERMINAL_CHECK_IN, dto);
 
@@ -1548,7 +1844,7 @@ public class BistroServer extends AbstractServer {
             }
 
             Envelope reply = Envelope.ok(OpCode.RESPONSE_LOGIN_SUBSCRIBER, res);
-            client.sendToClient(new KryoMessage("ENVELOPE", KryoUtil.toBytes(reply)));
+            sendEnvelope(client, reply);
 
         } catch (Exception e) {
             try {
@@ -1560,7 +1856,7 @@ public class BistroServer extends AbstractServer {
                         null
                 );
                 Envelope reply = Envelope.ok(OpCode.RESPONSE_LOGIN_SUBSCRIBER, res);
-                client.sendToClient(new KryoMessage("ENVELOPE", KryoUtil.toBytes(reply)));
+                sendEnvelope(client, reply);
             } catch (Exception ignored) {}
         }
     }
@@ -1578,12 +1874,12 @@ public class BistroServer extends AbstractServer {
                     : new common.dto.LoginResponseDTO(false, "Invalid username or password", null, null, null);
 
             Envelope reply = Envelope.ok(OpCode.RESPONSE_LOGIN_STAFF, res);
-            client.sendToClient(new KryoMessage("ENVELOPE", KryoUtil.toBytes(reply)));
+            sendEnvelope(client, reply);
         } catch (Exception e) {
             try {
                 LoginResponseDTO res = new common.dto.LoginResponseDTO(false, "Server error: " + e.getMessage(), null, null, null);
                 Envelope reply = Envelope.ok(OpCode.RESPONSE_LOGIN_STAFF, res);
-                client.sendToClient(new KryoMessage("ENVELOPE", KryoUtil.toBytes(reply)));
+                sendEnvelope(client, reply);
             } catch (Exception ignored) {}
         }
     }
@@ -1616,15 +1912,16 @@ public class BistroServer extends AbstractServer {
     }
 
     /**
-     * Sends list of subscribers for staff view.
+     * Sends list of subscribers for staff view (the whole live list in one reply; the
+     * staff dashboard uses the delta sync and paging instead).
      */
     private void handleSubscribersList(Envelope req,ConnectionToClient client) {
         try {
             List<SubscriberDTO> list = DataBase.dao.SubscriberDAO.getAllSubscribers();
             sendOk(client, OpCode.RESPONSE_SUBSCRIBERS_LIST, list);
-            log("Sent " + list.size() + " subscribers to client.");
+            log(ServerLog.Level.DEBUG, "Sent " + list.size() + " subscribers to client.");
         } catch (Exception e) {
-            log("Error fetching subscribers: " + e.getMessage());
+            log(ServerLog.Level.ERROR, "Error fetching subscribers: " + e.getMessage());
             try { sendError(client, OpCode.ERROR, "Fetch failed"); } catch (Exception ignored) {}
         }
     }
@@ -1633,27 +1930,181 @@ public class BistroServer extends AbstractServer {
      */
     private void handleAgentReservationsList(Envelope req,ConnectionToClient client) {
         try {
-            List<Reservation> rows = reservationDAO.getAllReservations();
-            List<ReservationDTO> dtoList = new ArrayList<>();
-            for (Reservation r : rows) {
-                String resTimeStr = (r.getReservationTime() != null) ? r.getReservationTime().toString() : "";
-                String expTimeStr = (r.getExpiryTime() != null) ? r.getExpiryTime().toString() : "";
-
-                dtoList.add(new ReservationDTO(
-                    r.getReservationId(),      
-                    r.getConfirmationCode(),   
-                    resTimeStr,                
-                    expTimeStr,                
-                    r.getNumOfCustomers(),     
-                    r.getStatus()              
-                ));
-            }
-            sendOk(client, OpCode.RESPONSE_AGENT_RESERVATIONS_LIST, dtoList); 
-            log("Sent all reservations to Agent.");
+            sendOk(client, OpCode.RESPONSE_AGENT_RESERVATIONS_LIST, loadAgentReservations()); 
+            log(ServerLog.Level.DEBUG, "Sent all reservations to Agent.");
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+    /**
+     * Loads the live reservations of the agent dashboard: from the start of today on
+     * (used by the list request, the delta sync and the RESERVATIONS push).
+     * Older reservations are browsed page by page ({@code REQUEST_AGENT_RESERVATIONS_PAGE}),
+     * so this set does not grow with history.
+     *
+     * @return reservation DTOs
+     * @throws Exception on DB error
+     */
+    private ArrayList<ReservationDTO> loadAgentReservations() throws Exception {
+        Timestamp today = Timestamp.valueOf(LocalDate.now().atStartOfDay());
+        List<Reservation> rows = ReservationDAO.getReservationsInRange(today, null);
+        ArrayList<ReservationDTO> dtoList = new ArrayList<>();
+        for (Reservation r : rows) {
+            String resTimeStr = (r.getReservationTime() != null) ? r.getReservationTime().toString() : "";
+            String expTimeStr = (r.getExpiryTime() != null) ? r.getExpiryTime().toString() : "";
+
+            dtoList.add(new ReservationDTO(
+                r.getReservationId(),      
+                r.getConfirmationCode(),   
+                resTimeStr,                
+                expTimeStr,                
+                r.getNumOfCustomers(),     
+                r.getStatus()              
+            ));
+        }
+        return dtoList;
+    }
+    /**
+     * Sends only the reservations that changed since the client's version
+     * (payload: {@link ListSyncRequestDTO}), or a full snapshot if the client is too far behind.
+     */
+    private void handleAgentReservationsSync(Envelope req, ConnectionToClient client) throws Exception {
+        ListSyncRequestDTO since = (req.getPayload() instanceof ListSyncRequestDTO s) ? s : new ListSyncRequestDTO();
+        ListDeltaDTO d = reservationsTracker.sync(loadAgentReservations(), since.getEpoch(), since.getVersion());
+        sendOk(client, OpCode.RESPONSE_AGENT_RESERVATIONS_SYNC, d);
+        log(ServerLog.Level.DEBUG, "Reservations sync: " + (d.isFull() ? "full " : "delta ")
+                + d.getUpserts().size() + " row(s), " + d.getDeletedKeys().size() + " delete(s).");
+    }
+    /**
+     * Sends only the subscribers that changed since the client's version
+     * (payload: {@link ListSyncRequestDTO}), or a full snapshot if the client is too far behind.
+     */
+    private void handleSubscribersSync(Envelope req, ConnectionToClient client) throws Exception {
+        ListSyncRequestDTO since = (req.getPayload() instanceof ListSyncRequestDTO s) ? s : new ListSyncRequestDTO();
+        ListDeltaDTO d = subscribersTracker.sync(SubscriberDAO.getAllSubscribers(), since.getEpoch(), since.getVersion());
+        sendOk(client, OpCode.RESPONSE_SUBSCRIBERS_SYNC, d);
+        log(ServerLog.Level.DEBUG, "Subscribers sync: " + (d.isFull() ? "full " : "delta ")
+                + d.getUpserts().size() + " row(s), " + d.getDeletedKeys().size() + " delete(s).");
+    }
+    /**
+     * Sends one page of reservations (payload: {@link PageRequestDTO} with cursor and filters).
+     */
+    private void handleReservationsPage(Envelope req, ConnectionToClient client) throws Exception {
+        try {
+            PageDTO page = ReservationDAO.getReservationsPage(readPageRequest(req));
+            sendOk(client, OpCode.RESPONSE_AGENT_RESERVATIONS_PAGE, page);
+        } catch (IllegalArgumentException e) {
+            sendError(client, OpCode.RESPONSE_AGENT_RESERVATIONS_PAGE, e.getMessage());
+        }
+    }
+    /**
+     * Sends one page of subscribers (payload: {@link PageRequestDTO} with cursor and name prefix).
+     */
+    private void handleSubscribersPage(Envelope req, ConnectionToClient client) throws Exception {
+        try {
+            PageDTO page = SubscriberDAO.getSubscribersPage(readPageRequest(req));
+            sendOk(client, OpCode.RESPONSE_SUBSCRIBERS_PAGE, page);
+        } catch (IllegalArgumentException e) {
+            sendError(client, OpCode.RESPONSE_SUBSCRIBERS_PAGE, e.getMessage());
+        }
+    }
+    /**
+     * Sends one page of waiting-list entries, history included
+     * (payload: {@link PageRequestDTO} with cursor and filters).
+     */
+    private void handleWaitingListPage(Envelope req, ConnectionToClient client) throws Exception {
+        try {
+            PageDTO page = WaitingListDAO.getWaitingListPage(readPageRequest(req));
+            sendOk(client, OpCode.RESPONSE_WAITING_LIST_PAGE, page);
+        } catch (IllegalArgumentException e) {
+            sendError(client, OpCode.RESPONSE_WAITING_LIST_PAGE, e.getMessage());
+        }
+    }
+    /**
+     * Streams all reservations matching the filters (payload: {@link PageRequestDTO};
+     * cursor and limit are ignored) as {@link StreamChunkDTO} chunks.
+     */
+    private void handleReservationsExport(Envelope req, ConnectionToClient client) {
+        ChunkedResponse out = new ChunkedResponse(client, OpCode.RESPONSE_AGENT_RESERVATIONS_EXPORT, req.getRequestId());
+        try {
+            ReservationDAO.streamReservations(readPageRequest(req), out);
+            long n = out.finish();
+            log(ServerLog.Level.DEBUG, "Reservations export to " + host(client) + ": " + n + " row(s).");
+        } catch (Exception e) {
+            metrics.markError();
+            out.fail(e instanceof IllegalArgumentException ? e.getMessage() : "Export failed.");
+            log(ServerLog.Level.WARN, "Reservations export failed: " + e.getMessage());
+        }
+    }
+    /**
+     * Streams all subscribers matching the name prefix (payload: {@link PageRequestDTO};
+     * cursor and limit are ignored) as {@link StreamChunkDTO} chunks.
+     */
+    private void handleSubscribersExport(Envelope req, ConnectionToClient client) {
+        ChunkedResponse out = new ChunkedResponse(client, OpCode.RESPONSE_SUBSCRIBERS_EXPORT, req.getRequestId());
+        try {
+            SubscriberDAO.streamSubscribers(readPageRequest(req), out);
+            long n = out.finish();
+            log(ServerLog.Level.DEBUG, "Subscribers export to " + host(client) + ": " + n + " row(s).");
+        } catch (Exception e) {
+            metrics.markError();
+            out.fail(e instanceof IllegalArgumentException ? e.getMessage() : "Export failed.");
+            log(ServerLog.Level.WARN, "Subscribers export failed: " + e.getMessage());
+        }
+    }
+    /**
+     * Credits a streamed export: the client has written every chunk up to the given seq
+     * (payload: {@link StreamChunkDTO} with request id and seq, no rows; {@code last} cancels
+     * the export). No reply.
+     */
+    private void handleStreamAck(Envelope req, ConnectionToClient client) {
+        if (req.getPayload() instanceof StreamChunkDTO ack) {
+            ChunkedResponse.ack(client, ack.getRequestId(), ack.getSeq(), ack.isLast());
+        }
+    }
+    /**
+     * @return the page request payload, or a first-page request with defaults if missing
+     */
+    private PageRequestDTO readPageRequest(Envelope req) {
+        return (req.getPayload() instanceof PageRequestDTO p) ? p : new PageRequestDTO();
+    }
+    /**
+     * Subscribes the client to live dashboard topics (payload: list of {@link Topic}).
+     * Replies with the topics that are now active.
+     */
+    private void handleSubscribe(Envelope req, ConnectionToClient client) throws IOException {
+        List<Topic> topics = readTopics(req);
+        if (topics == null || topics.isEmpty()) {
+            sendError(client, OpCode.RESPONSE_SUBSCRIBE, "No topics given.");
+            return;
+        }
+        hub.subscribe(client, topics);
+        sendOk(client, OpCode.RESPONSE_SUBSCRIBE, new ArrayList<>(topics));
+        log(ServerLog.Level.DEBUG, host(client) + " subscribed to " + topics);
+    }
+    /**
+     * Unsubscribes the client from the given topics (null payload = all topics).
+     */
+    private void handleUnsubscribe(Envelope req, ConnectionToClient client) throws IOException {
+        List<Topic> topics = readTopics(req);
+        hub.unsubscribe(client, topics);
+        sendOk(client, OpCode.RESPONSE_UNSUBSCRIBE, "Unsubscribed.");
+    }
+    /**
+     * Reads a topic list payload.
+     *
+     * @return topics, or null if the payload is missing
+     */
+    private List<Topic> readTopics(Envelope req) {
+        Object payload = req.getPayload();
+        if (payload instanceof Topic t) return List.of(t);
+        if (!(payload instanceof Collection<?> c)) return null;
+        List<Topic> topics = new ArrayList<>();
+        for (Object o : c) {
+            if (o instanceof Topic t) topics.add(t);
+        }
+        return topics;
+    }
     /**
      * Staff removes a waiting-list entry by ID (sets to CANCELED and releases reserved tables).
      */
@@ -1693,9 +2144,9 @@ public class BistroServer extends AbstractServer {
         try {
         	List<common.dto.WaitingListDTO> list = DataBase.dao.WaitingListDAO.getAllWaitingList();
             sendOk(client, OpCode.RESPONSE_WAITING_LIST, list); 
-            log("Sent "+list.size()+" Waiting List items to Agent.");
+            log(ServerLog.Level.DEBUG, "Sent "+list.size()+" Waiting List items to Agent.");
         } catch (Exception e) {
-            log("Error fetching waiting list: " + e.getMessage());
+            log(ServerLog.Level.ERROR, "Error fetching waiting list: " + e.getMessage());
             e.printStackTrace(); // Good for debugging
             try { 
                 sendError(client, OpCode.ERROR, "Fetch waiting list failed: " + e.getMessage()); 
@@ -1735,7 +2186,7 @@ public class BistroServer extends AbstractServer {
 
             return dto;
         } catch (Exception ex) {
-            log("toReservationDTO error: " + ex.getMessage());
+            log(ServerLog.Level.WARN, "toReservationDTO error: " + ex.getMessage());
             return null;
         }
     }
@@ -0,0 +1,174 @@
+package Server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import DataBase.dao.RowSink;
+import common.Envelope;
+import common.KryoMessage;
+import common.KryoUtil;
+import common.OpCode;
+import common.dto.StreamChunkDTO;
+import ocsf.server.ConnectionToClient;
+
+/**
+ * Sends a large result to one client as a stream of {@link StreamChunkDTO} frames.
+ * <p>
+ * Rows are handed in one by one (it is the {@link RowSink} of a streaming DAO query)
+ * and buffered until {@link #chunkRows} rows are collected; then the chunk is serialized
+ * and sent, and the buffer starts over. Server memory per export is therefore one chunk,
+ * whatever the total size. Every chunk carries the request id of the request and a
+ * sequence number; {@link #finish()} or {@link #fail(String)} sends the closing chunk.
+ * <p>
+ * Sends are synchronized on the {@link ConnectionToClient}, like every other reply,
+ * so pushes from {@link SubscriptionHub} can be interleaved between chunks.
+ * <p>
+ * Flow control: the client acknowledges each chunk once it has written it
+ * ({@link common.OpCode#REQUEST_STREAM_ACK}, see {@link #ack}). At most
+ * {@code stream.windowChunks} chunks may be unacknowledged; the producer blocks for
+ * credit before sending more, so a slow client bounds its own queue instead of growing it.
+ * The producer must therefore not run on the client's connection thread (that thread
+ * reads the acks).
+ */
+final class ChunkedResponse implements RowSink<Object> {
+
+    /** Rows per chunk when {@code stream.chunkRows} is not configured. */
+    static final int DEFAULT_CHUNK_ROWS = 500;
+    /** Unacknowledged chunks allowed when {@code stream.windowChunks} is not configured. */
+    static final int DEFAULT_WINDOW_CHUNKS = 4;
+    /** Seconds to wait for an ack when {@code stream.ackTimeoutSec} is not configured. */
+    static final long DEFAULT_ACK_TIMEOUT_SEC = 60L;
+
+    /** Streams waiting for acks, by request id. */
+    private static final Map<String, ChunkedResponse> OPEN = new ConcurrentHashMap<>();
+
+    private final ConnectionToClient client;
+    private final OpCode op;
+    private final String requestId;
+    private final int chunkRows;
+    private final int window;
+    private final long ackTimeoutMillis;
+    private ArrayList<Object> buffer;
+    private int seq;
+    private long total;
+    private boolean closed;
+    /** Highest chunk seq acknowledged by the client (-1 = none); guarded by this. */
+    private int acked = -1;
+    /** Set when the client cancels the stream; guarded by this. */
+    private boolean cancelled;
+
+    /**
+     * @param client    target client
+     * @param op        response op of every chunk
+     * @param requestId request id of the request (echoed in every chunk)
+     */
+    ChunkedResponse(ConnectionToClient client, OpCode op, String requestId) {
+        this.client = client;
+        this.op = op;
+        this.requestId = requestId;
+        this.chunkRows = Math.max(1, ServerConfig.get().getInt("stream.chunkRows", DEFAULT_CHUNK_ROWS));
+        this.buffer = new ArrayList<>(chunkRows);
+        this.window = Math.max(1, ServerConfig.get().getInt("stream.windowChunks", DEFAULT_WINDOW_CHUNKS));
+        this.ackTimeoutMillis = Math.max(1, ServerConfig.get().getLong("stream.ackTimeoutSec", DEFAULT_ACK_TIMEOUT_SEC)) * 1000L;
+        if (requestId != null) OPEN.put(requestId, this);
+    }
+
+    /**
+     * Records a client ack: the client has written every chunk up to {@code seq}.
+     * Acks for unknown streams, or from another client, are ignored.
+     *
+     * @param client    client that sent the ack
+     * @param requestId request id of the stream
+     * @param seq       last chunk written by the client
+     * @param cancel    true if the client gave up on the stream
+     */
+    static void ack(ConnectionToClient client, String requestId, int seq, boolean cancel) {
+        if (requestId == null) return;
+        ChunkedResponse stream = OPEN.get(requestId);
+        if (stream == null || stream.client != client) return;
+        synchronized (stream) {
+            if (seq > stream.acked) stream.acked = seq;
+            if (cancel) stream.cancelled = true;
+            stream.notifyAll();
+        }
+    }
+
+    @Override
+    public void accept(Object row) throws IOException {
+        buffer.add(row);
+        total++;
+        if (buffer.size() >= chunkRows) send(false, null);
+    }
+
+    /**
+     * Sends the remaining rows as the last chunk.
+     *
+     * @return total rows sent
+     * @throws IOException if sending fails
+     */
+    long finish() throws IOException {
+        send(true, null);
+        return total;
+    }
+
+    /**
+     * Ends the stream with an error (rows already sent stay sent). Ignored if the stream
+     * was already closed; send errors are swallowed because the connection is the likely cause.
+     *
+     * @param message error message for the client
+     */
+    void fail(String message) {
+        if (closed) return;
+        buffer.clear();
+        try {
+            send(true, message);
+        } catch (IOException e) {
+            ServerLog.debug("Could not send stream error to " + client.getInfo("ip") + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Blocks until the client has acknowledged enough chunks for one more to be in flight.
+     *
+     * @throws IOException if the client cancelled, is gone, or sent no ack within {@code stream.ackTimeoutSec}
+     */
+    private synchronized void awaitCredit() throws IOException {
+        long deadline = System.currentTimeMillis() + ackTimeoutMillis;
+        while (cancelled || seq - 1 - acked >= window) {
+            if (cancelled) throw new IOException("Stream " + requestId + " cancelled by the client");
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0 || !client.isAlive()) {
+                throw new IOException("Client stopped acknowledging stream " + requestId);
+            }
+            try {
+                wait(Math.min(left, 1000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for stream ack", e);
+            }
+        }
+    }
+
+    private void send(boolean last, String error) throws IOException {
+        // The closing chunk is sent without credit: it is small and lets fail() always get through
+        if (!last) awaitCredit();
+        StreamChunkDTO chunk = new StreamChunkDTO(requestId, seq++);
+        chunk.setRows(buffer);
+        chunk.setLast(last);
+        if (last) {
+            chunk.setTotalRows(total);
+            chunk.setError(error);
+            closed = true;
+            if (requestId != null) OPEN.remove(requestId, this);
+        }
+        Envelope env = Envelope.ok(op, chunk);
+        env.setRequestId(requestId);
+        byte[] bytes = KryoUtil.toBytes(env);
+        buffer = new ArrayList<>(last ? 0 : chunkRows);
+        synchronized (client) {
+            client.sendToClient(new KryoMessage("ENVELOPE", bytes));
+        }
+    }
+}
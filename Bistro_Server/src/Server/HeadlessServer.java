@@ -0,0 +1,119 @@
+package Server;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
+import DataBase.MySQLConnectionPool;
+
+/**
+ * Headless entry point for production nodes: runs {@link BistroServer} without
+ * starting the JavaFX toolkit.
+ * <p>
+ * Usage:
+ * <pre>
+ *   java -Xmx96m -XX:+UseSerialGC -XX:TieredStopAtLevel=1 -cp ... Server.HeadlessServer
+ *        [--config bistro-server.properties] [--port 5555]
+ * </pre>
+ * Configuration is read through {@link ServerConfig} (file + {@code BISTRO_*} env overrides).
+ * The server log is printed to the console; add {@code bistro.log.file} to the config
+ * to also write a rolling file. Stop with Ctrl+C / SIGTERM.
+ * <p>
+ * On start, the launcher prints its startup time (JVM start until listening) and the
+ * process RSS, so the numbers can be compared with {@link ServerFX}.
+ */
+public class HeadlessServer {
+
+    private HeadlessServer() {}
+
+    /**
+     * Starts the server and blocks until the process is stopped.
+     *
+     * @param args {@code --config <file>}, {@code --port <n>}
+     */
+    public static void main(String[] args) throws Exception {
+        Path configFile = null;
+        Integer portArg = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--config" -> configFile = Paths.get(requireValue(args, ++i, "--config"));
+                case "--port" -> portArg = Integer.parseInt(requireValue(args, ++i, "--port"));
+                default -> {
+                    System.out.println("Unknown argument: " + args[i]);
+                    System.out.println("Usage: HeadlessServer [--config <file>] [--port <n>]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        ServerConfig cfg = ServerConfig.load(configFile);
+        int port = (portArg != null) ? portArg : cfg.getInt("server.port", 5555);
+        System.out.println("[CONFIG] " + (cfg.getSource() != null
+                ? "Loaded " + cfg.getSource().toAbsolutePath() : "No config file, using defaults/env"));
+
+        BistroServer server = new BistroServer(port, null);
+        CountDownLatch stopped = new CountDownLatch(1);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                // serverStopped() runs on the listener thread; give it a moment to finish
+                long deadline = System.currentTimeMillis() + 2_000L;
+                while (server.isListening() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+            } catch (IOException | InterruptedException ignored) { }
+            MySQLConnectionPool pool = MySQLConnectionPool.getInstanceIfCreated();
+            if (pool != null) pool.shutdown();
+            stopped.countDown();
+        }, "shutdown"));
+
+        server.listen();
+        System.out.println(startupReport("headless"));
+
+        stopped.await();
+    }
+
+    /**
+     * Builds a one-line startup report: time since JVM start, RSS and heap in use.
+     *
+     * @param launcher launcher name shown in the report
+     * @return report line
+     */
+    static String startupReport(String launcher) {
+        long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        Runtime rt = Runtime.getRuntime();
+        long heapUsedMb = (rt.totalMemory() - rt.freeMemory()) / (1024 * 1024);
+        long rssKb = readRssKb();
+
+        return "[STARTUP] " + launcher + " ready in " + uptimeMs + " ms"
+                + ", RSS " + (rssKb >= 0 ? (rssKb / 1024) + " MB" : "n/a")
+                + ", heap used " + heapUsedMb + " MB (max " + (rt.maxMemory() / (1024 * 1024)) + " MB)";
+    }
+
+    /** Resident set size from /proc (Linux only), or -1 if not available. */
+    private static long readRssKb() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) return -1;
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (Exception ignored) { }
+        return -1;
+    }
+
+    private static String requireValue(String[] args, int i, String name) {
+        if (i >= args.length) {
+            System.out.println("Missing value for " + name);
+            System.exit(2);
+        }
+        return args[i];
+    }
+}
@@ -0,0 +1,126 @@
+package Server;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Non-blocking reverse-DNS for client addresses.
+ * <p>
+ * {@link #cachedName(InetAddress)} never performs DNS: it returns the cached host name,
+ * or the IP address if the name is not known yet. {@link #resolveAsync} does the
+ * lookup on a small background pool, bounded by a timeout, and caches the result
+ * with a TTL (shorter for failed lookups). Concurrent requests for the same IP share
+ * one lookup.
+ */
+public class HostNameResolver {
+
+    /** How long a resolved name is kept (ms). */
+    private static final long POSITIVE_TTL_MILLIS = 10 * 60_000L;
+    /** How long a failed / timed-out lookup is remembered (ms). */
+    private static final long NEGATIVE_TTL_MILLIS = 60_000L;
+    /** Longest time we wait for a single lookup (ms). */
+    private static final long LOOKUP_TIMEOUT_MILLIS = 3_000L;
+    /** Lookup threads (DNS calls cannot be interrupted, so keep this small). */
+    private static final int LOOKUP_THREADS = 2;
+
+    private static final HostNameResolver INSTANCE = new HostNameResolver();
+
+    /** Cached name and its expiry. */
+    private static final class CacheEntry {
+        final String name;
+        final long expiresAt;
+
+        CacheEntry(String name, long expiresAt) {
+            this.name = name;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService lookups;
+
+    private HostNameResolver() {
+        ThreadPoolExecutor ex = new ThreadPoolExecutor(LOOKUP_THREADS, LOOKUP_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "dns-resolver");
+                    t.setDaemon(true);
+                    return t;
+                });
+        ex.allowCoreThreadTimeOut(true);
+        lookups = ex;
+    }
+
+    /** @return the shared resolver */
+    public static HostNameResolver getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached host name without doing any DNS.
+     *
+     * @param addr client address (may be null)
+     * @return cached name, the IP if unknown/expired, or "unknown" if addr is null
+     */
+    public String cachedName(InetAddress addr) {
+        if (addr == null) return "unknown";
+        String ip = addr.getHostAddress();
+        CacheEntry e = cache.get(ip);
+        return (e != null && e.expiresAt > System.currentTimeMillis()) ? e.name : ip;
+    }
+
+    /**
+     * Resolves the host name in the background.
+     * The callback runs on a resolver thread, and only when a real name was found
+     * (not on failure / timeout, and not when the cache already had it).
+     *
+     * @param addr     client address
+     * @param onResult called with (ip, hostName)
+     */
+    public void resolveAsync(InetAddress addr, BiConsumer<String, String> onResult) {
+        if (addr == null) return;
+        String ip = addr.getHostAddress();
+
+        CacheEntry cached = cache.get(ip);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) return;
+
+        CompletableFuture<String> f = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(ip, f);
+        if (running != null) {
+            f = running;
+        } else {
+            CompletableFuture<String> result = f;
+            CompletableFuture
+                    .supplyAsync(() -> lookup(addr), lookups)
+                    .orTimeout(LOOKUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .whenComplete((name, t) -> {
+                        boolean found = t == null && name != null && !name.equals(ip);
+                        long ttl = found ? POSITIVE_TTL_MILLIS : NEGATIVE_TTL_MILLIS;
+                        cache.put(ip, new CacheEntry(found ? name : ip, System.currentTimeMillis() + ttl));
+                        inFlight.remove(ip);
+                        result.complete(found ? name : ip);
+                    });
+        }
+
+        f.thenAccept(name -> {
+            if (name != null && !name.equals(ip)) onResult.accept(ip, name);
+        });
+    }
+
+    /** Blocking lookup; only runs on the resolver threads. */
+    private static String lookup(InetAddress addr) {
+        // A fresh address object, so a previous (cached) name on addr is not reused
+        try {
+            return InetAddress.getByAddress(addr.getAddress()).getHostName();
+        } catch (Exception e) {
+            return addr.getHostAddress();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (HDR-style).
+ * <p>
+ * Values are recorded in microseconds. Every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so any reported percentile is
+ * within ~3% of the real value, from 1µs up to several days.
+ * <p>
+ * {@link #record(long)} is a single atomic increment and never blocks,
+ * so it is safe to call from every request thread.
+ */
+public class LatencyHistogram {
+
+    /** Sub-buckets per power of two (must be a power of two). */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Highest power of two tracked; larger values go to the last bucket. */
+    private static final int MAX_EXPONENT = 41;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0L);
+
+    /**
+     * Records one value.
+     *
+     * @param micros latency in microseconds (negative values count as 0)
+     */
+    public void record(long micros) {
+        long v = Math.max(0L, micros);
+        buckets.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /** @return number of recorded values */
+    public long getCount() { return count.sum(); }
+
+    /** @return highest recorded value (µs) */
+    public long getMax() { return max.get(); }
+
+    /** @return mean of recorded values (µs), or 0 if empty */
+    public long getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * @param percentile 0–100 (e.g. 99.0)
+     * @return approximate value (µs), or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] snap = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snap[i] = buckets.get(i);
+            total += snap[i];
+        }
+        if (total == 0) return 0;
+
+        long target = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        if (target < 1) target = 1;
+
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snap[i];
+            if (seen >= target) {
+                return Math.min(valueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /** Clears all recorded values. Not atomic with concurrent {@link #record(long)} calls. */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static int indexOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+
+        int exp = 63 - Long.numberOfLeadingZeros(v); // floor(log2(v)) >= SUB_BUCKET_BITS
+        if (exp > MAX_EXPONENT) return BUCKET_COUNT - 1;
+
+        int sub = (int) ((v >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Middle value of a bucket. */
+    private static long valueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int exp = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long width = 1L << (exp - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS);
+        return lower + width / 2;
+    }
+}
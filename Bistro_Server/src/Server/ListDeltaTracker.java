@@ -0,0 +1,173 @@
+package Server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import common.KryoUtil;
+import common.dto.ListDeltaDTO;
+
+/**
+ * Keeps a versioned copy of one list (e.g. all reservations) and answers
+ * "what changed since version N" with a {@link ListDeltaDTO}.
+ * <p>
+ * Every time the list is loaded, {@link #refresh(List)} compares it with the previous
+ * copy row by row (by key, and by the row's Kryo bytes). Each inserted, changed or
+ * deleted row gets the next version number. Deleted keys are remembered as tombstones
+ * up to {@link #MAX_TOMBSTONES}; a client whose version is older than the oldest
+ * forgotten delete, or that comes from an earlier server run (epoch), gets a full
+ * snapshot instead.
+ * <p>
+ * The comparison catches every writer (requests, background jobs, manual SQL), so
+ * the DAOs do not need to report changes. Thread-safe.
+ *
+ * @param <T> row DTO type
+ */
+public final class ListDeltaTracker<T> {
+
+    /** Deleted keys remembered for delta replies; older deletes force a full snapshot. */
+    private static final int MAX_TOMBSTONES = 10_000;
+
+    /** Server run id: versions are only comparable within one run. */
+    private static final long EPOCH = System.currentTimeMillis();
+
+    /** One tracked row. */
+    private static final class Row<T> {
+        final T dto;
+        final byte[] bytes;
+        final long version;
+
+        Row(T dto, byte[] bytes, long version) {
+            this.dto = dto;
+            this.bytes = bytes;
+            this.version = version;
+        }
+    }
+
+    private final String name;
+    private final Function<T, String> keyOf;
+    /** Current rows in list order */
+    private final Map<String, Row<T>> rows = new LinkedHashMap<>();
+    /** Deleted key -> version of the delete, oldest first */
+    private final LinkedHashMap<String, Long> tombstones = new LinkedHashMap<>();
+    /** Deletes at or below this version were forgotten */
+    private long tombstoneFloor;
+    private long version;
+    /** Version sent with the last {@link #pushDelta(List)} */
+    private long pushedVersion;
+
+    /**
+     * @param name  list name (for the log)
+     * @param keyOf extracts the row key (must be unique in the list)
+     */
+    public ListDeltaTracker(String name, Function<T, String> keyOf) {
+        this.name = name;
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Compares a freshly loaded list with the tracked copy and returns the changes
+     * since the client's version.
+     *
+     * @param fresh         current rows
+     * @param clientEpoch   epoch of the client's last delta (0 if none)
+     * @param clientVersion version of the client's last delta (0 if none)
+     * @return delta or full snapshot
+     */
+    public synchronized ListDeltaDTO sync(List<T> fresh, long clientEpoch, long clientVersion) {
+        refresh(fresh);
+        boolean full = clientEpoch != EPOCH || clientVersion < tombstoneFloor || clientVersion > version;
+        return full ? snapshot() : since(clientVersion);
+    }
+
+    /**
+     * Compares a freshly loaded list with the tracked copy and returns the changes since
+     * the previous push (for {@link SubscriptionHub}: every subscriber got the previous
+     * push, so the same delta fits all of them; a client that missed it re-syncs).
+     *
+     * @param fresh current rows
+     * @return delta since the previous push
+     */
+    public synchronized ListDeltaDTO pushDelta(List<T> fresh) {
+        long before = refresh(fresh);
+        // First push: clients are at most at the version before this refresh
+        long from = (pushedVersion == 0) ? before : pushedVersion;
+        ListDeltaDTO d = (from < tombstoneFloor) ? snapshot() : since(from);
+        pushedVersion = version;
+        return d;
+    }
+
+    /**
+     * Diffs {@code fresh} against the tracked rows and bumps versions of changed rows.
+     *
+     * @return version before the refresh
+     */
+    private long refresh(List<T> fresh) {
+        long before = version;
+        Set<String> seen = new HashSet<>(fresh.size() * 2);
+        Map<String, Row<T>> next = new LinkedHashMap<>(fresh.size() * 2);
+
+        for (T dto : fresh) {
+            String key = keyOf.apply(dto);
+            if (!seen.add(key)) continue;
+            byte[] bytes = KryoUtil.toBytes(dto);
+            Row<T> old = rows.get(key);
+            if (old != null && Arrays.equals(old.bytes, bytes)) {
+                next.put(key, old);
+            } else {
+                next.put(key, new Row<>(dto, bytes, ++version));
+                tombstones.remove(key);
+            }
+        }
+        for (String key : rows.keySet()) {
+            if (!seen.contains(key)) tombstones.put(key, ++version);
+        }
+
+        Iterator<Map.Entry<String, Long>> it = tombstones.entrySet().iterator();
+        while (tombstones.size() > MAX_TOMBSTONES && it.hasNext()) {
+            tombstoneFloor = it.next().getValue();
+            it.remove();
+        }
+
+        rows.clear();
+        rows.putAll(next);
+        if (version != before) {
+            ServerLog.debug(name + " list: " + (version - before) + " change(s), version " + version);
+        }
+        return before;
+    }
+
+    private ListDeltaDTO snapshot() {
+        ListDeltaDTO d = newDelta(0);
+        d.setFull(true);
+        ArrayList<Object> all = new ArrayList<>(rows.size());
+        for (Row<T> r : rows.values()) all.add(r.dto);
+        d.setUpserts(all);
+        return d;
+    }
+
+    private ListDeltaDTO since(long from) {
+        ListDeltaDTO d = newDelta(from);
+        for (Row<T> r : rows.values()) {
+            if (r.version > from) d.getUpserts().add(r.dto);
+        }
+        for (Map.Entry<String, Long> e : tombstones.entrySet()) {
+            if (e.getValue() > from) d.getDeletedKeys().add(e.getKey());
+        }
+        return d;
+    }
+
+    private ListDeltaDTO newDelta(long from) {
+        ListDeltaDTO d = new ListDeltaDTO();
+        d.setEpoch(EPOCH);
+        d.setFromVersion(from);
+        d.setVersion(version);
+        return d;
+    }
+}
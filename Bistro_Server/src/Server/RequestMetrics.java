@@ -0,0 +1,239 @@
+package Server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import DataBase.MySQLConnectionPool;
+import common.OpCode;
+import common.dto.OpMetricsDTO;
+import common.dto.ServerMetricsDTO;
+
+/**
+ * Per-{@link OpCode} request metrics of the {@link BistroServer}.
+ * <p>
+ * For every op it keeps a request count, an error count, an in-flight gauge
+ * and a {@link LatencyHistogram}. Recording is lock-free, so request threads
+ * never wait on each other because of metrics.
+ * <p>
+ * Usage from the request thread:
+ * <pre>
+ *   long t0 = metrics.begin(op);
+ *   try { ...handle... } finally { metrics.end(op, t0); }
+ * </pre>
+ * {@link #markError()} flags the current request as failed (e.g. when an
+ * error envelope is sent). OCSF handles each client on its own thread,
+ * so the flag is kept per thread.
+ * <p>
+ * Optionally, {@link #startDump(Path, long)} appends a CSV snapshot to a
+ * rolling file at a fixed interval, for offline analysis.
+ */
+public class RequestMetrics {
+
+    /** Rotate the dump file once it is bigger than this. */
+    private static final long DUMP_MAX_BYTES = 5L * 1024 * 1024;
+    /** Number of rotated dump files kept (file.1 … file.N). */
+    private static final int DUMP_MAX_FILES = 5;
+
+    /** Counters of a single op. */
+    private static final class OpStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    /** Pre-filled for every op, so lookups never allocate or lock. */
+    private final Map<OpCode, OpStats> stats = new EnumMap<>(OpCode.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ThreadLocal<Boolean> errorFlag = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final long startedAt = System.currentTimeMillis();
+
+    private ScheduledExecutorService dumper;
+
+    public RequestMetrics() {
+        for (OpCode op : OpCode.values()) {
+            stats.put(op, new OpStats());
+        }
+    }
+
+    /**
+     * Marks the start of a request.
+     *
+     * @param op request op (null is counted as {@link OpCode#ERROR})
+     * @return start time to pass to {@link #end(OpCode, long)}
+     */
+    public long begin(OpCode op) {
+        errorFlag.set(Boolean.FALSE);
+        stats.get(op == null ? OpCode.ERROR : op).inFlight.incrementAndGet();
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a request and records its latency.
+     *
+     * @param op      request op (same value given to {@link #begin(OpCode)})
+     * @param startNs value returned by {@link #begin(OpCode)}
+     */
+    public void end(OpCode op, long startNs) {
+        OpStats s = stats.get(op == null ? OpCode.ERROR : op);
+        s.latency.record((System.nanoTime() - startNs) / 1_000L);
+        s.count.increment();
+        if (errorFlag.get()) s.errors.increment();
+        errorFlag.set(Boolean.FALSE);
+        s.inFlight.decrementAndGet();
+        inFlight.decrementAndGet();
+    }
+
+    /** Flags the request running on this thread as failed. */
+    public void markError() {
+        errorFlag.set(Boolean.TRUE);
+    }
+
+    /**
+     * Builds a snapshot of all ops that were used at least once,
+     * plus the connection pool state.
+     *
+     * @return metrics snapshot (safe to send over the network)
+     */
+    public ServerMetricsDTO snapshot() {
+        ServerMetricsDTO dto = new ServerMetricsDTO();
+        ArrayList<OpMetricsDTO> ops = new ArrayList<>();
+        long total = 0;
+        long errors = 0;
+
+        for (Map.Entry<OpCode, OpStats> e : stats.entrySet()) {
+            OpStats s = e.getValue();
+            long c = s.count.sum();
+            int f = s.inFlight.get();
+            if (c == 0 && f == 0) continue;
+
+            OpMetricsDTO m = new OpMetricsDTO();
+            m.setOp(e.getKey().name());
+            m.setCount(c);
+            m.setErrors(s.errors.sum());
+            m.setInFlight(f);
+            m.setP50Micros(s.latency.getPercentile(50));
+            m.setP95Micros(s.latency.getPercentile(95));
+            m.setP99Micros(s.latency.getPercentile(99));
+            m.setMaxMicros(s.latency.getMax());
+            ops.add(m);
+
+            total += c;
+            errors += m.getErrors();
+        }
+
+        ops.sort(Comparator.comparing(OpMetricsDTO::getOp));
+        dto.setOps(ops);
+        dto.setTotalRequests(total);
+        dto.setTotalErrors(errors);
+        dto.setInFlight(inFlight.get());
+        dto.setUptimeMillis(System.currentTimeMillis() - startedAt);
+
+        MySQLConnectionPool pool = MySQLConnectionPool.getInstanceIfCreated();
+        if (pool != null) dto.setPool(pool.getMetrics());
+        return dto;
+    }
+
+    // =========================================================
+    // Periodic dump to a rolling CSV file
+    // =========================================================
+
+    /**
+     * Starts appending a snapshot to {@code file} every {@code periodSec} seconds.
+     * Does nothing if a dump is already running.
+     *
+     * @param file      target CSV file (rotated to file.1 … file.5)
+     * @param periodSec interval in seconds
+     */
+    public synchronized void startDump(Path file, long periodSec) {
+        if (dumper != null || file == null || periodSec <= 0) return;
+
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(() -> {
+            try {
+                dumpOnce(file);
+            } catch (Exception e) {
+                System.out.println("[METRICS] Dump failed: " + e.getMessage());
+            }
+        }, periodSec, periodSec, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts the dump if the system property {@code bistro.metrics.dumpFile} is set.
+     * The interval comes from {@code bistro.metrics.dumpSeconds} (default 60).
+     */
+    public void startDumpFromSystemProperties() {
+        String file = System.getProperty("bistro.metrics.dumpFile");
+        if (file == null || file.isBlank()) return;
+
+        long period = 60;
+        try {
+            period = Long.parseLong(System.getProperty("bistro.metrics.dumpSeconds", "60").trim());
+        } catch (NumberFormatException ignored) { }
+
+        startDump(Paths.get(file.trim()), period);
+    }
+
+    /** Stops the periodic dump (if running). */
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    private void dumpOnce(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        rotateIfNeeded(file);
+
+        boolean newFile = !Files.exists(file);
+        String now = LocalDateTime.now().toString();
+        ServerMetricsDTO snap = snapshot();
+
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                w.write("time,op,count,errors,in_flight,p50_us,p95_us,p99_us,max_us");
+                w.newLine();
+            }
+            for (OpMetricsDTO m : snap.getOps()) {
+                w.write(now + "," + m.getOp() + "," + m.getCount() + "," + m.getErrors() + ","
+                        + m.getInFlight() + "," + m.getP50Micros() + "," + m.getP95Micros() + ","
+                        + m.getP99Micros() + "," + m.getMaxMicros());
+                w.newLine();
+            }
+        }
+    }
+
+    private static void rotateIfNeeded(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < DUMP_MAX_BYTES) return;
+
+        for (int i = DUMP_MAX_FILES - 1; i >= 1; i--) {
+            Path from = file.resolveSibling(file.getFileName() + "." + i);
+            Path to = file.resolveSibling(file.getFileName() + "." + (i + 1));
+            if (Files.exists(from)) Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,190 @@
+package Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Externalized server configuration.
+ * <p>
+ * Values are looked up in this order (first hit wins):
+ * <ol>
+ *   <li>environment variable: {@code BISTRO_} + key in upper case with dots as underscores
+ *       (e.g. {@code pool.maxSize} &rarr; {@code BISTRO_POOL_MAXSIZE});</li>
+ *   <li>the properties file given by {@code --config}, {@code -Dbistro.config} or
+ *       {@code BISTRO_CONFIG} (default: {@code bistro-server.properties} in the working
+ *       directory, if it exists);</li>
+ *   <li>the default passed by the caller (the old hard-coded constants).</li>
+ * </ol>
+ * Keys starting with {@code bistro.} in the file are copied to system properties
+ * (unless already set), so switches such as {@code bistro.log.file} or
+ * {@code bistro.metrics.dumpFile} can live in the same file.
+ * <p>
+ * Known keys:
+ * <pre>
+ * server.port                     5555
+ * db.url / db.user / db.password  jdbc:mysql://localhost:3306/Bistro, root, ...
+ * db.migrateOnStart               true
+ * pool.maxSize                    10
+ * pool.maxIdleMillis              30000
+ * pool.cleanupPeriodSec           10
+ * jobs.threads                    4
+ * jobs.noShow.periodSec           30
+ * jobs.tableAssign.periodSec      20
+ * jobs.billReminder.periodSec     300
+ * jobs.reservationReminder.periodSec 60
+ * jobs.etl.periodSec              60
+ * jobs.archive.periodSec          3600
+ * archive.afterDays               30   (0 = no archiving)
+ * archive.batchSize               500
+ * stream.chunkRows                500
+ * stream.windowChunks             4
+ * stream.ackTimeoutSec            60
+ * stream.exportThreads            2
+ * batch.threads                   4
+ * checkin.slowMillis              50
+ * import.dir                      (sample data folder, AllTablesImporter)
+ * import.batchSize                1000
+ * import.threads                  4
+ * </pre>
+ */
+public final class ServerConfig {
+
+    /** File looked for when nothing else is given. */
+    public static final String DEFAULT_FILE = "bistro-server.properties";
+
+    private static volatile ServerConfig instance;
+
+    private final Properties props;
+    private final Map<String, String> env;
+    private final Path source;
+
+    private ServerConfig(Properties props, Map<String, String> env, Path source) {
+        this.props = props;
+        this.env = env;
+        this.source = source;
+    }
+
+    /**
+     * Returns the active configuration, loading the default file on first use.
+     *
+     * @return configuration
+     */
+    public static ServerConfig get() {
+        ServerConfig c = instance;
+        if (c == null) {
+            synchronized (ServerConfig.class) {
+                c = instance;
+                if (c == null) {
+                    c = load(null);
+                    instance = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Loads the configuration and makes it the active one.
+     * Must be called before the pool / jobs are first used to have an effect on them.
+     *
+     * @param file properties file, or null to use {@code bistro.config} / {@code BISTRO_CONFIG} / the default file
+     * @return loaded configuration
+     */
+    public static synchronized ServerConfig load(Path file) {
+        Map<String, String> env = System.getenv();
+
+        if (file == null) {
+            String p = System.getProperty("bistro.config");
+            if (p == null || p.isBlank()) p = env.get("BISTRO_CONFIG");
+            if (p != null && !p.isBlank()) file = Paths.get(p.trim());
+        }
+        boolean explicit = file != null;
+        if (file == null) file = Paths.get(DEFAULT_FILE);
+
+        Properties props = new Properties();
+        Path source = null;
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                props.load(in);
+                source = file;
+            } catch (IOException e) {
+                System.out.println("[CONFIG] Failed to read " + file + ": " + e.getMessage());
+            }
+        } else if (explicit) {
+            System.out.println("[CONFIG] Config file not found: " + file + " (using defaults)");
+        }
+
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith("bistro.") && System.getProperty(key) == null) {
+                System.setProperty(key, props.getProperty(key).trim());
+            }
+        }
+
+        instance = new ServerConfig(props, env, source);
+        return instance;
+    }
+
+    /** @return file the values were read from, or null if only defaults/env are used */
+    public Path getSource() {
+        return source;
+    }
+
+    /**
+     * Returns a string value.
+     *
+     * @param key config key (e.g. {@code db.url})
+     * @param def default value
+     * @return configured value or {@code def}
+     */
+    public String getString(String key, String def) {
+        String v = env.get(envName(key));
+        if (v == null) v = props.getProperty(key);
+        return (v == null || v.isBlank()) ? def : v.trim();
+    }
+
+    /**
+     * Returns an int value (falls back to {@code def} if missing or not a number).
+     *
+     * @param key config key
+     * @param def default value
+     * @return configured value or {@code def}
+     */
+    public int getInt(String key, int def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            System.out.println("[CONFIG] Invalid number for " + key + ": " + v + " (using " + def + ")");
+            return def;
+        }
+    }
+
+    /**
+     * Returns a long value (falls back to {@code def} if missing or not a number).
+     *
+     * @param key config key
+     * @param def default value
+     * @return configured value or {@code def}
+     */
+    public long getLong(String key, long def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            System.out.println("[CONFIG] Invalid number for " + key + ": " + v + " (using " + def + ")");
+            return def;
+        }
+    }
+
+    /** {@code pool.maxSize} &rarr; {@code BISTRO_POOL_MAXSIZE} */
+    static String envName(String key) {
+        return "BISTRO_" + key.toUpperCase().replace('.', '_');
+    }
+}
@@ -1,31 +1,49 @@
 package Server;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
+import common.dto.OpMetricsDTO;
+import common.dto.PoolMetricsDTO;
+import common.dto.ServerMetricsDTO;
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.Tooltip;
+import javafx.util.Duration;
 /**
  * JavaFX controller for the server window (FXML).
  * <p>
  * Responsibilities:
  * <ul>
- *   <li>Start/stop the {@link BistroServer} (OCSF server) on the default port.</li>
+ *   <li>Start/stop the {@link BistroServer} (OCSF server) on the configured port ({@link ServerConfig}).</li>
  *   <li>Display server status (IP:port) and enable/disable UI buttons accordingly.</li>
  *   <li>Maintain the connected-clients table using {@link ClientConnectionRow}.</li>
- *   <li>Append runtime logs to the UI log area in a thread-safe way.</li>
+ *   <li>Show the server log ({@link ServerLog}) with a level filter; lines are drained
+ *       once per FX pulse and the view keeps at most {@value #MAX_LOG_VIEW_LINES} lines.</li>
+ *   <li>Show live per-op request metrics and pool state (refreshed every second).</li>
  * </ul>
  * <p>
  * Threading:
  * <ul>
  *   <li>{@link BistroServer} callbacks may arrive from a non-JavaFX thread.</li>
  *   <li>All UI updates are wrapped with {@link Platform#runLater(Runnable)}.</li>
+ *   <li>Log lines never go through {@code runLater}; they wait in the ring buffer
+ *       until the next pulse.</li>
  * </ul>
  */
 public class ServerController {
@@ -37,8 +55,23 @@ public class ServerController {
     @FXML private TableColumn<ClientConnectionRow, String> hostColumn;
     @FXML private TableColumn<ClientConnectionRow, String> ipColumn;
     @FXML private TableColumn<ClientConnectionRow, String> statusColumn;
+    /** Live per-op metrics table (see {@link RequestMetrics}). */
+    @FXML private Label metricsSummaryLabel;
+    /** Connection pool gauges; the tooltip shows who holds the oldest connection. */
+    @FXML private Label poolSummaryLabel;
+    @FXML private TableView<OpMetricsDTO> metricsTable;
+    @FXML private TableColumn<OpMetricsDTO, String> opColumn;
+    @FXML private TableColumn<OpMetricsDTO, String> countColumn;
+    @FXML private TableColumn<OpMetricsDTO, String> errorsColumn;
+    @FXML private TableColumn<OpMetricsDTO, String> inFlightColumn;
+    @FXML private TableColumn<OpMetricsDTO, String> p50Column;
+    @FXML private TableColumn<OpMetricsDTO, String> p95Column;
+    @FXML private TableColumn<OpMetricsDTO, String> p99Column;
+    @FXML private TableColumn<OpMetricsDTO, String> maxColumn;
     /** Text area used as a live server log console. */
     @FXML private TextArea logArea;
+    /** Minimum level shown in {@link #logArea}. */
+    @FXML private ComboBox<ServerLog.Level> logLevelCombo;
     /** UI controls for server lifecycle. */
     @FXML private Button startButton;
     @FXML private Button stopButton;
@@ -50,8 +83,30 @@ public class ServerController {
     /** Observable list backing the clients table. */
     private final ObservableList<ClientConnectionRow> clientRows =
             FXCollections.observableArrayList();
+    /** Observable list backing the metrics table. */
+    private final ObservableList<OpMetricsDTO> metricRows =
+            FXCollections.observableArrayList();
+    /** Refreshes the metrics table once per second (runs on the FX thread). */
+    private Timeline metricsRefresher;
+    /** Tooltip of {@link #poolSummaryLabel}, updated in place. */
+    private final Tooltip poolHolderTooltip = new Tooltip("No connection is held right now");
+
+    /** Reads new lines from the server log ring (FX thread only). */
+    private ServerLog.Cursor logCursor = ServerLog.tail();
+    /** Lengths of the lines currently shown, oldest first (for trimming). */
+    private final ArrayDeque<Integer> shownLineLengths = new ArrayDeque<>();
+    private final List<ServerLog.Entry> logBatch = new ArrayList<>();
+    private long shownDropped;
+    /** Drains the log ring once per FX pulse. */
+    private AnimationTimer logFlusher;
 
     private static final int DEFAULT_PORT = 5555;
+    /** Lines kept in the log view. */
+    private static final int MAX_LOG_VIEW_LINES = 2000;
+    /** The view is trimmed only after this many extra lines, so trimming is rare. */
+    private static final int LOG_TRIM_SLACK = 250;
+    /** Upper bound of lines appended per pulse, so a burst cannot stall a frame. */
+    private static final int MAX_LOG_LINES_PER_PULSE = 500;
     /**
      * JavaFX initialization hook called after FXML injection.
      * Binds table columns to {@link ClientConnectionRow} properties and initializes UI state.
@@ -63,6 +118,34 @@ public class ServerController {
         statusColumn.setCellValueFactory(c -> c.getValue().statusProperty());
 
         clientsTable.setItems(clientRows);
+
+        bindMetricsColumn(opColumn, OpMetricsDTO::getOp);
+        bindMetricsColumn(countColumn, m -> String.valueOf(m.getCount()));
+        bindMetricsColumn(errorsColumn, m -> String.valueOf(m.getErrors()));
+        bindMetricsColumn(inFlightColumn, m -> String.valueOf(m.getInFlight()));
+        bindMetricsColumn(p50Column, m -> formatMillis(m.getP50Micros()));
+        bindMetricsColumn(p95Column, m -> formatMillis(m.getP95Micros()));
+        bindMetricsColumn(p99Column, m -> formatMillis(m.getP99Micros()));
+        bindMetricsColumn(maxColumn, m -> formatMillis(m.getMaxMicros()));
+        metricsTable.setItems(metricRows);
+        poolSummaryLabel.setTooltip(poolHolderTooltip);
+
+        metricsRefresher = new Timeline(new KeyFrame(Duration.seconds(1), e -> refreshMetrics()));
+        metricsRefresher.setCycleCount(Timeline.INDEFINITE);
+        metricsRefresher.play();
+
+        logLevelCombo.getItems().setAll(ServerLog.Level.values());
+        logLevelCombo.setValue(ServerLog.Level.INFO);
+        logLevelCombo.valueProperty().addListener((obs, oldV, newV) -> rebuildLogView());
+
+        logFlusher = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                flushLog();
+            }
+        };
+        logFlusher.start();
+
         setServerStoppedUI();
     }
 
@@ -70,7 +153,8 @@ public class ServerController {
 
     /**
      * Starts the server if it is not already running.
-     * Creates a new {@link BistroServer} instance and calls {@code listen()} on the default port.
+     * Creates a new {@link BistroServer} instance and calls {@code listen()} on the configured
+     * port ({@code server.port}, default {@value #DEFAULT_PORT}).
      * Logs success/failure to the log area.
      */
     @FXML
@@ -80,11 +164,12 @@ public class ServerController {
             return;
         }
 
+        int port = ServerConfig.get().getInt("server.port", DEFAULT_PORT);
         try {
-            server = new BistroServer(DEFAULT_PORT, this);
+            server = new BistroServer(port, this);
             server.listen();
-            setServerStartedUI(DEFAULT_PORT);
-            appendLogFromServer("Server started on port " + DEFAULT_PORT);
+            setServerStartedUI(port);
+            appendLogFromServer("Server started on port " + port);
         } catch (IOException e) {
             appendLogFromServer("Failed to start server: " + e.getMessage());
         }
@@ -119,6 +204,8 @@ public class ServerController {
                 server.close();
             }
         } catch (IOException ignored) { }
+        if (metricsRefresher != null) metricsRefresher.stop();
+        if (logFlusher != null) logFlusher.stop();
         Platform.exit();
     }
 
@@ -152,6 +239,21 @@ public class ServerController {
             clientsTable.refresh();
         });
     }
+    /**
+     * Replaces the IP shown as host name with the name resolved in the background.
+     *
+     * @param ipAddress client IP address
+     * @param hostName  resolved host name
+     */
+    public void onClientHostResolved(String ipAddress, String hostName) {
+        Platform.runLater(() -> {
+            for (ClientConnectionRow row : clientRows) {
+                if (ipAddress.equals(row.getIpAddress()) && ipAddress.equals(row.getHostName())) {
+                    row.setHostName(hostName);
+                }
+            }
+        });
+    }
     /**
      * Marks an existing client row as "disconnected".
      * If the matching row is not found, the table is still refreshed as a safe fallback.
@@ -164,9 +266,8 @@ public class ServerController {
             for (int i = clientRows.size() - 1; i >= 0; i--) {
                 ClientConnectionRow row = clientRows.get(i);
 
-                boolean sameClient =
-                        hostName.equals(row.getHostName()) &&
-                        ipAddress.equals(row.getIpAddress());
+                // match on IP: the host name may have been resolved after the row was added
+                boolean sameClient = ipAddress.equals(row.getIpAddress());
 
                 if (sameClient && "connected".equalsIgnoreCase(row.getStatus())) {
                     row.setStatus("disconnected");
@@ -181,23 +282,110 @@ public class ServerController {
     }
 
     /**
-     * Appends a log message to the UI log area in a thread-safe manner.
-     * If {@link #logArea} is not available (should not happen in normal UI), prints to stdout.
+     * Adds an INFO line to the server log. Safe from any thread and never blocks;
+     * the line shows up in {@link #logArea} on the next FX pulse.
      *
      * @param msg log message to append
      */
     public void appendLogFromServer(String msg) {
-        Platform.runLater(() -> {
-            if (logArea != null) {
-                logArea.appendText(msg + System.lineSeparator());
-            } else {
-                System.out.println(msg);
-            }
-        });
+        ServerLog.info(msg);
     }
 
     /* ========== UI helpers ========== */
 
+    /**
+     * Appends new log lines (FX thread, once per pulse) in a single {@code appendText} call.
+     */
+    private void flushLog() {
+        logBatch.clear();
+        logCursor.drainTo(logBatch, MAX_LOG_LINES_PER_PULSE);
+        long dropped = logCursor.getDropped();
+        if (logBatch.isEmpty() && dropped == shownDropped) return;
+
+        StringBuilder sb = new StringBuilder();
+        if (dropped != shownDropped) {
+            appendLogLine(sb, "... " + (dropped - shownDropped) + " log line(s) dropped ...");
+            shownDropped = dropped;
+        }
+        ServerLog.Level min = logLevelCombo.getValue();
+        for (ServerLog.Entry e : logBatch) {
+            if (e.level.ordinal() >= min.ordinal()) appendLogLine(sb, e.format());
+        }
+        if (sb.length() > 0) logArea.appendText(sb.toString());
+
+        if (shownLineLengths.size() > MAX_LOG_VIEW_LINES + LOG_TRIM_SLACK) {
+            int chars = 0;
+            while (shownLineLengths.size() > MAX_LOG_VIEW_LINES) chars += shownLineLengths.pollFirst();
+            logArea.deleteText(0, chars);
+        }
+    }
+
+    /**
+     * Re-renders the log view from the lines still held in the ring (after a level change).
+     */
+    private void rebuildLogView() {
+        logCursor = ServerLog.oldest();
+        logBatch.clear();
+        logCursor.drainTo(logBatch, ServerLog.capacity());
+        shownDropped = logCursor.getDropped();
+        shownLineLengths.clear();
+
+        ServerLog.Level min = logLevelCombo.getValue();
+        List<String> lines = new ArrayList<>();
+        for (ServerLog.Entry e : logBatch) {
+            if (e.level.ordinal() >= min.ordinal()) lines.add(e.format());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines.subList(Math.max(0, lines.size() - MAX_LOG_VIEW_LINES), lines.size())) {
+            appendLogLine(sb, line);
+        }
+        logArea.setText(sb.toString());
+        logArea.positionCaret(sb.length());
+    }
+
+    private void appendLogLine(StringBuilder sb, String line) {
+        int start = sb.length();
+        sb.append(line).append('\n');
+        shownLineLengths.addLast(sb.length() - start);
+    }
+
+    /**
+     * Reloads the metrics table from the current server (FX thread only).
+     * Keeps the last values on screen after the server was stopped.
+     */
+    private void refreshMetrics() {
+        if (server == null) return;
+
+        ServerMetricsDTO snap = server.getMetrics().snapshot();
+        metricRows.setAll(snap.getOps());
+        metricsSummaryLabel.setText(String.format(
+                "Requests: %d   Errors: %d   In-flight: %d   Uptime: %ds",
+                snap.getTotalRequests(), snap.getTotalErrors(),
+                snap.getInFlight(), snap.getUptimeMillis() / 1000));
+
+        PoolMetricsDTO pool = snap.getPool();
+        if (pool != null) {
+            poolSummaryLabel.setText(String.format(
+                    "Pool: active %d   idle %d/%d   created %d   closed %d   wait p50/p99/max %s/%s/%s ms   longest held %d ms",
+                    pool.getActive(), pool.getIdle(), pool.getMaxSize(),
+                    pool.getTotalCreated(), pool.getTotalClosed(),
+                    formatMillis(pool.getWaitP50Micros()), formatMillis(pool.getWaitP99Micros()),
+                    formatMillis(pool.getWaitMaxMicros()), pool.getLongestHeldMillis()));
+            poolHolderTooltip.setText(pool.getLongestHeldBy() == null
+                    ? "No connection is held right now" : pool.getLongestHeldBy());
+        }
+    }
+
+    private static void bindMetricsColumn(TableColumn<OpMetricsDTO, String> column,
+                                          Function<OpMetricsDTO, String> value) {
+        column.setCellValueFactory(c -> new ReadOnlyStringWrapper(value.apply(c.getValue())));
+    }
+
+    private static String formatMillis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
     /**
      * Updates UI to reflect "server started" state:
      * sets the status label to "listening on IP:port" and toggles start/stop buttons.
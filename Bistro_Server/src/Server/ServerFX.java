@@ -19,6 +19,7 @@ import javafx.stage.Stage;
  * <p>
  * All server logic (start/stop, client connections, logging)
  * is handled by {@link ServerController} and {@link BistroServer}.
+ * For nodes without a display, use {@link HeadlessServer}.
  */
 public class ServerFX extends Application {
     /**
@@ -33,6 +34,8 @@ public class ServerFX extends Application {
         primaryStage.setTitle("Bistro Server - listening for client connections");
         primaryStage.setScene(new Scene(root));
         primaryStage.show();
+        // same report as the headless launcher, for comparison
+        ServerLog.info(HeadlessServer.startupReport("fx"));
     }
     /**
      * Application entry point.
@@ -0,0 +1,285 @@
+package Server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Server log pipeline.
+ * <p>
+ * Producers (request threads, background jobs, UI) call {@link #log(Level, String)}, which
+ * only claims a slot in a fixed-size, lock-free ring buffer and never blocks. When the
+ * ring is full the oldest lines are overwritten.
+ * <p>
+ * Consumers read through their own {@link Cursor}:
+ * <ul>
+ *   <li>the server window drains it once per FX pulse and appends the batch in one call
+ *       (see {@code ServerController});</li>
+ *   <li>an optional background appender writes to a rolling file
+ *       ({@code -Dbistro.log.file=<path>}, level {@code -Dbistro.log.fileLevel}, default INFO).</li>
+ * </ul>
+ * A slow consumer only loses lines; it never slows down the producers.
+ */
+public final class ServerLog {
+
+    /** Log levels, lowest first. */
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    /** Ring size (power of two). */
+    private static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+
+    /** Rotate the log file once it is bigger than this. */
+    private static final long FILE_MAX_BYTES = 10L * 1024 * 1024;
+    /** Number of rotated files kept (file.1 … file.N). */
+    private static final int FILE_MAX_BACKUPS = 5;
+    /** How often the file appender drains the ring (ms). */
+    private static final long FILE_FLUSH_MILLIS = 250L;
+
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /** One log line. */
+    public static final class Entry {
+        final long seq;
+        public final long timeMillis;
+        public final Level level;
+        public final String text;
+
+        Entry(long seq, long timeMillis, Level level, String text) {
+            this.seq = seq;
+            this.timeMillis = timeMillis;
+            this.level = level;
+            this.text = text;
+        }
+
+        /** @return "yyyy-MM-dd HH:mm:ss.SSS LEVEL text" */
+        public String format() {
+            return TIME_FMT.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneId.systemDefault()))
+                    + " " + level + " " + text;
+        }
+    }
+
+    private static final AtomicReferenceArray<Entry> RING = new AtomicReferenceArray<>(CAPACITY);
+    /** Next sequence number to hand out (= number of lines ever logged). */
+    private static final AtomicLong NEXT_SEQ = new AtomicLong();
+
+    private static final AtomicBoolean fileAppenderStarted = new AtomicBoolean(false);
+
+    private ServerLog() {}
+
+    // =========================================================
+    // Producers
+    // =========================================================
+
+    /**
+     * Adds a line to the ring. Never blocks.
+     *
+     * @param level level
+     * @param text  message
+     */
+    public static void log(Level level, String text) {
+        long seq = NEXT_SEQ.getAndIncrement();
+        int idx = (int) (seq & MASK);
+        Entry entry = new Entry(seq, System.currentTimeMillis(), level, text);
+
+        // A slot only moves forward: a late writer never replaces a newer line.
+        Entry cur;
+        do {
+            cur = RING.get(idx);
+            if (cur != null && cur.seq > seq) return;
+        } while (!RING.compareAndSet(idx, cur, entry));
+    }
+
+    public static void debug(String text) { log(Level.DEBUG, text); }
+    public static void info(String text)  { log(Level.INFO, text); }
+    public static void warn(String text)  { log(Level.WARN, text); }
+    public static void error(String text) { log(Level.ERROR, text); }
+
+    // =========================================================
+    // Consumers
+    // =========================================================
+
+    /**
+     * Independent read position in the ring. Not thread-safe: one cursor per consumer thread.
+     */
+    public static final class Cursor {
+        private long next;
+        private long dropped;
+
+        private Cursor(long start) { this.next = start; }
+
+        /**
+         * Reads up to {@code max} published lines after the last call.
+         * Lines that were overwritten before being read are counted in {@link #getDropped()}.
+         *
+         * @param out destination
+         * @param max maximum number of lines to read
+         * @return number of lines added to {@code out}
+         */
+        public int drainTo(List<Entry> out, int max) {
+            long end = NEXT_SEQ.get();
+            if (end - next > CAPACITY) {
+                dropped += end - next - CAPACITY;
+                next = end - CAPACITY;
+            }
+
+            int n = 0;
+            while (next < end && n < max) {
+                Entry e = RING.get((int) (next & MASK));
+                if (e == null || e.seq < next) break;   // slot claimed but not written yet
+                if (e.seq > next) {                     // overwritten by a newer line
+                    dropped++;
+                    next++;
+                    continue;
+                }
+                out.add(e);
+                next++;
+                n++;
+            }
+            return n;
+        }
+
+        /** @return number of lines this cursor missed because the ring wrapped */
+        public long getDropped() { return dropped; }
+    }
+
+    /** @return cursor positioned after the last logged line */
+    public static Cursor tail() {
+        return new Cursor(NEXT_SEQ.get());
+    }
+
+    /** @return cursor positioned at the oldest line still held in the ring (e.g. to re-render a view) */
+    public static Cursor oldest() {
+        return new Cursor(Math.max(0, NEXT_SEQ.get() - CAPACITY));
+    }
+
+    /** @return number of lines the ring can hold */
+    public static int capacity() {
+        return CAPACITY;
+    }
+
+    /**
+     * Parses a level name, falling back to {@code def} if it is unknown.
+     *
+     * @param name level name (case-insensitive)
+     * @param def  default level
+     * @return parsed level
+     */
+    public static Level parseLevel(String name, Level def) {
+        if (name == null) return def;
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return def;
+        }
+    }
+
+    // =========================================================
+    // Rolling file appender
+    // =========================================================
+
+    /**
+     * Starts the file appender if {@code bistro.log.file} is set (once per process).
+     */
+    public static void startFileAppenderFromSystemProperties() {
+        String file = System.getProperty("bistro.log.file");
+        if (file == null || file.isBlank()) return;
+        if (!fileAppenderStarted.compareAndSet(false, true)) return;
+
+        Level min = parseLevel(System.getProperty("bistro.log.fileLevel"), Level.INFO);
+        Thread t = new Thread(new FileAppender(Paths.get(file.trim()), min), "log-file-appender");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Drains its own cursor to a rolling file at a fixed interval. */
+    private static final class FileAppender implements Runnable {
+        private final Path file;
+        private final Level minLevel;
+        private final Cursor cursor = tail();
+        private BufferedWriter out;
+        private long reportedDropped;
+
+        FileAppender(Path file, Level minLevel) {
+            this.file = file;
+            this.minLevel = minLevel;
+        }
+
+        @Override
+        public void run() {
+            List<Entry> batch = new ArrayList<>(1024);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.clear();
+                    cursor.drainTo(batch, CAPACITY);
+                    if (!batch.isEmpty() || cursor.getDropped() != reportedDropped) write(batch);
+                    Thread.sleep(FILE_FLUSH_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException e) {
+                    System.out.println("[LOG] File appender error: " + e.getMessage());
+                    closeQuietly();
+                }
+            }
+            closeQuietly();
+        }
+
+        private void write(List<Entry> batch) throws IOException {
+            if (out == null) open();
+
+            if (cursor.getDropped() != reportedDropped) {
+                out.write("... " + (cursor.getDropped() - reportedDropped) + " log line(s) dropped ...");
+                out.newLine();
+                reportedDropped = cursor.getDropped();
+            }
+            for (Entry e : batch) {
+                if (e.level.ordinal() < minLevel.ordinal()) continue;
+                out.write(e.format());
+                out.newLine();
+            }
+            out.flush();
+
+            if (Files.size(file) >= FILE_MAX_BYTES) {
+                closeQuietly();
+                rotate();
+            }
+        }
+
+        private void open() throws IOException {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        private void rotate() throws IOException {
+            for (int i = FILE_MAX_BACKUPS - 1; i >= 1; i--) {
+                Path from = file.resolveSibling(file.getFileName() + "." + i);
+                Path to = file.resolveSibling(file.getFileName() + "." + (i + 1));
+                if (Files.exists(from)) Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void closeQuietly() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException ignored) { }
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package Server;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import common.Envelope;
+import common.KryoMessage;
+import common.KryoUtil;
+import common.OpCode;
+import common.Topic;
+import ocsf.server.ConnectionToClient;
+
+/**
+ * Pushes live dashboard data to subscribed clients.
+ * <p>
+ * Clients subscribe to {@link Topic}s with {@code REQUEST_SUBSCRIBE}. When a request or a
+ * background job changes data, it calls {@link #publish(Topic...)}, which only marks the
+ * topic as dirty. A single push thread runs shortly after ({@link #DEBOUNCE_MILLIS}) and,
+ * for each dirty topic, loads the list once, serializes it once, and sends the same
+ * message to every subscriber. A burst of changes therefore costs one query and one
+ * push per topic instead of one full re-request per client per action.
+ * <p>
+ * Sends are synchronized on the {@link ConnectionToClient}, like the request replies in
+ * {@link BistroServer}, because OCSF's {@code sendToClient} is not thread-safe.
+ */
+public final class SubscriptionHub {
+
+    /** Changes arriving within this window are merged into one push (ms). */
+    private static final long DEBOUNCE_MILLIS = 150L;
+
+    private static final SubscriptionHub INSTANCE = new SubscriptionHub();
+
+    /** How a topic is loaded and which response op carries it. */
+    private static final class Source {
+        final OpCode pushOp;
+        final Callable<?> loader;
+
+        Source(OpCode pushOp, Callable<?> loader) {
+            this.pushOp = pushOp;
+            this.loader = loader;
+        }
+    }
+
+    private final Map<Topic, Source> sources = new ConcurrentHashMap<>();
+    private final Map<Topic, Set<ConnectionToClient>> subscribers = new EnumMap<>(Topic.class);
+    private final Set<Topic> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService pusher;
+
+    private SubscriptionHub() {
+        for (Topic t : Topic.values()) {
+            subscribers.put(t, ConcurrentHashMap.newKeySet());
+        }
+        pusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "subscription-push");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** @return the shared hub */
+    public static SubscriptionHub getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers how a topic is loaded. A later call for the same topic replaces the loader.
+     *
+     * @param topic  topic
+     * @param pushOp response op used for the push (the same op the one-off request replies with)
+     * @param loader loads the payload of the topic (the full list, or a delta); null skips the push
+     */
+    public void registerLoader(Topic topic, OpCode pushOp, Callable<?> loader) {
+        sources.put(topic, new Source(pushOp, loader));
+    }
+
+    /**
+     * Subscribes a client to the given topics.
+     *
+     * @param client client connection
+     * @param topics topics (null entries are ignored)
+     */
+    public void subscribe(ConnectionToClient client, Collection<Topic> topics) {
+        for (Topic t : topics) {
+            if (t != null) subscribers.get(t).add(client);
+        }
+    }
+
+    /**
+     * Unsubscribes a client from the given topics.
+     *
+     * @param client client connection
+     * @param topics topics, or null for all topics
+     */
+    public void unsubscribe(ConnectionToClient client, Collection<Topic> topics) {
+        if (topics == null) {
+            removeClient(client);
+            return;
+        }
+        for (Topic t : topics) {
+            if (t != null) subscribers.get(t).remove(client);
+        }
+    }
+
+    /**
+     * Drops all subscriptions of a client (on disconnect).
+     *
+     * @param client client connection
+     */
+    public void removeClient(ConnectionToClient client) {
+        for (Set<ConnectionToClient> set : subscribers.values()) {
+            set.remove(client);
+        }
+    }
+
+    /**
+     * Marks topics as changed. Never blocks and never touches the database; topics
+     * without subscribers are ignored.
+     *
+     * @param topics changed topics
+     */
+    public void publish(Topic... topics) {
+        boolean any = false;
+        for (Topic t : topics) {
+            if (!subscribers.get(t).isEmpty()) {
+                dirty.add(t);
+                any = true;
+            }
+        }
+        if (any && flushScheduled.compareAndSet(false, true)) {
+            pusher.schedule(this::flush, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Runs on the push thread: one load + one serialization per dirty topic. */
+    private void flush() {
+        // Reset first, so a publish() during the flush schedules the next one
+        flushScheduled.set(false);
+        for (Topic t : Topic.values()) {
+            if (dirty.remove(t)) push(t);
+        }
+    }
+
+    private void push(Topic topic) {
+        Set<ConnectionToClient> subs = subscribers.get(topic);
+        Source source = sources.get(topic);
+        if (subs.isEmpty() || source == null) return;
+
+        KryoMessage msg;
+        try {
+            Object payload = source.loader.call();
+            if (payload == null) return;   // loader says: nothing to send
+            msg = new KryoMessage("ENVELOPE", KryoUtil.toBytes(Envelope.ok(source.pushOp, payload)));
+        } catch (Exception e) {
+            ServerLog.warn("Push of " + topic + " failed to load: " + e.getMessage());
+            return;
+        }
+
+        int sent = 0;
+        for (ConnectionToClient client : subs) {
+            try {
+                synchronized (client) {
+                    client.sendToClient(msg);
+                }
+                sent++;
+            } catch (IOException e) {
+                subs.remove(client);
+                ServerLog.debug("Dropped " + topic + " subscriber " + client.getInfo("ip") + ": " + e.getMessage());
+            }
+        }
+        ServerLog.debug("Pushed " + topic + " to " + sent + " subscriber(s).");
+    }
+}
@@ -2,6 +2,8 @@ package common;
 
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.UUID;
 
 
@@ -89,6 +91,17 @@ public class Envelope implements Serializable {
         e.ok = true;
         return e;
     }
+    /**
+     * Creates a batch request: the server runs all requests and returns all replies in
+     * one {@link OpCode#RESPONSE_BATCH} envelope (payload: list of reply envelopes, each
+     * carrying the request id of its request, in request order).
+     *
+     * @param requests requests to send together
+     * @return a batch request envelope
+     */
+    public static Envelope batch(Envelope... requests) {
+        return request(OpCode.REQUEST_BATCH, new ArrayList<>(Arrays.asList(requests)));
+    }
     /**
      * Creates an error envelope with a message.
      *
@@ -159,4 +159,45 @@ public enum OpCode {
     
     REQUEST_PERFORMANCE_LOGS,  
     RESPONSE_PERFORMANCE_LOGS,
+
+ // ===== Server Monitoring =====
+    REQUEST_SERVER_METRICS,    // Snapshot of per-op request metrics
+    RESPONSE_SERVER_METRICS,
+
+ // ===== Live Dashboard (push) =====
+    REQUEST_SUBSCRIBE,         // Payload: ArrayList<Topic>; server then pushes list updates
+    RESPONSE_SUBSCRIBE,
+    REQUEST_UNSUBSCRIBE,       // Payload: ArrayList<Topic>, or null for all topics
+    RESPONSE_UNSUBSCRIBE,
+
+ // ===== Versioned list sync =====
+    REQUEST_AGENT_RESERVATIONS_SYNC,   // Payload: ListSyncRequestDTO -> ListDeltaDTO of ReservationDTO
+    RESPONSE_AGENT_RESERVATIONS_SYNC,
+
+    REQUEST_SUBSCRIBERS_SYNC,          // Payload: ListSyncRequestDTO -> ListDeltaDTO of SubscriberDTO
+    RESPONSE_SUBSCRIBERS_SYNC,
+
+ // ===== Paged staff lists (keyset cursor + filters) =====
+    REQUEST_AGENT_RESERVATIONS_PAGE,   // Payload: PageRequestDTO -> PageDTO of ReservationDTO
+    RESPONSE_AGENT_RESERVATIONS_PAGE,
+
+    REQUEST_SUBSCRIBERS_PAGE,          // Payload: PageRequestDTO -> PageDTO of SubscriberDTO
+    RESPONSE_SUBSCRIBERS_PAGE,
+
+    REQUEST_WAITING_LIST_PAGE,         // Payload: PageRequestDTO -> PageDTO of WaitingListDTO
+    RESPONSE_WAITING_LIST_PAGE,
+
+ // ===== Streamed exports (StreamChunkDTO frames) =====
+    REQUEST_AGENT_RESERVATIONS_EXPORT, // Payload: PageRequestDTO (filters only) -> chunks of ReservationDTO
+    RESPONSE_AGENT_RESERVATIONS_EXPORT,
+
+    REQUEST_SUBSCRIBERS_EXPORT,        // Payload: PageRequestDTO (filters only) -> chunks of SubscriberDTO
+    RESPONSE_SUBSCRIBERS_EXPORT,
+
+ // ===== Batch (several requests in one round trip) =====
+    REQUEST_BATCH,                     // Payload: ArrayList<Envelope> -> ArrayList<Envelope> (replies in request order)
+    RESPONSE_BATCH,
+
+ // ===== Stream flow control =====
+    REQUEST_STREAM_ACK,                // Payload: StreamChunkDTO (request id + seq of the last chunk written, no rows; last = cancel) -> no reply
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package common;
+
+/**
+ * Live data sets a client can subscribe to with {@link OpCode#REQUEST_SUBSCRIBE}.
+ *
+ * <p>
+ * While subscribed, the server pushes the current list whenever it changes, using the
+ * same response op as the matching one-off request (so the client handles pushes and
+ * replies in one place):
+ * </p>
+ * <ul>
+ *   <li>{@link #WAITING_LIST} &rarr; {@link OpCode#RESPONSE_WAITING_LIST}</li>
+ *   <li>{@link #TABLES} &rarr; {@link OpCode#RESPONSE_TABLES_GET}</li>
+ *   <li>{@link #CURRENT_DINERS} &rarr; {@link OpCode#RESPONSE_CURRENT_DINERS}</li>
+ *   <li>{@link #RESERVATIONS} &rarr; {@link OpCode#RESPONSE_AGENT_RESERVATIONS_SYNC} (only the changed rows)</li>
+ * </ul>
+ *
+ * <p>
+ * Serialized by Kryo by ordinal: append new values at the end.
+ * </p>
+ */
+public enum Topic {
+    WAITING_LIST,
+    TABLES,
+    CURRENT_DINERS,
+    RESERVATIONS
+}
@@ -0,0 +1,42 @@
+package common.dto;
+
+import java.io.Serializable;
+
+/**
+ * Request for a versioned list sync (e.g. {@code REQUEST_AGENT_RESERVATIONS_SYNC}).
+ *
+ * <p>
+ * The client sends the epoch and version of the last {@link ListDeltaDTO} it applied
+ * (both 0 on first use). The server answers with only the rows that changed since
+ * that version, or with a full snapshot if it cannot (new server run, version too old).
+ * </p>
+ */
+public class ListSyncRequestDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Server run the version belongs to (0 = none yet) */
+    private long epoch;
+    /** Last version applied by the client (0 = none yet) */
+    private long version;
+
+    /** Required no-args constructor for serialization */
+    public ListSyncRequestDTO() {}
+
+    /**
+     * @param epoch   epoch of the last applied delta
+     * @param version version of the last applied delta
+     */
+    public ListSyncRequestDTO(long epoch, long version) {
+        this.epoch = epoch;
+        this.version = version;
+    }
+
+    /** @return epoch of the last applied delta */
+    public long getEpoch() { return epoch; }
+    /** @param epoch epoch of the last applied delta */
+    public void setEpoch(long epoch) { this.epoch = epoch; }
+
+    /** @return version of the last applied delta */
+    public long getVersion() { return version; }
+    /** @param version version of the last applied delta */
+    public void setVersion(long version) { this.version = version; }
+}
@@ -0,0 +1,94 @@
+package common.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO with connection pool telemetry (part of {@link ServerMetricsDTO}).
+ *
+ * <p>
+ * Gauges (active / idle), lifetime counters (created / closed), borrow wait
+ * percentiles and the connection that has been held the longest, together with
+ * the stack of the code that borrowed it.
+ * </p>
+ */
+public class PoolMetricsDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Connections currently borrowed by callers */
+    private int active;
+    /** Connections waiting in the pool */
+    private int idle;
+    /** Pool capacity (max idle connections kept) */
+    private int maxSize;
+    /** Physical connections opened since start */
+    private long totalCreated;
+    /** Physical connections closed since start (idle eviction, pool full, shutdown) */
+    private long totalClosed;
+    /** Total getConnection() calls */
+    private long totalBorrows;
+    /** Borrow wait percentiles (µs) */
+    private long waitP50Micros;
+    private long waitP99Micros;
+    private long waitMaxMicros;
+    /** How long the oldest active connection has been held (ms), 0 if none */
+    private long longestHeldMillis;
+    /** Thread + stack that borrowed the oldest active connection (may be null) */
+    private String longestHeldBy;
+
+    /** Required no-args constructor for serialization */
+    public PoolMetricsDTO() {}
+
+    /** @return active connections */
+    public int getActive() { return active; }
+    /** @param active active connections */
+    public void setActive(int active) { this.active = active; }
+
+    /** @return idle connections */
+    public int getIdle() { return idle; }
+    /** @param idle idle connections */
+    public void setIdle(int idle) { this.idle = idle; }
+
+    /** @return pool capacity */
+    public int getMaxSize() { return maxSize; }
+    /** @param maxSize pool capacity */
+    public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+    /** @return physical connections opened */
+    public long getTotalCreated() { return totalCreated; }
+    /** @param totalCreated physical connections opened */
+    public void setTotalCreated(long totalCreated) { this.totalCreated = totalCreated; }
+
+    /** @return physical connections closed */
+    public long getTotalClosed() { return totalClosed; }
+    /** @param totalClosed physical connections closed */
+    public void setTotalClosed(long totalClosed) { this.totalClosed = totalClosed; }
+
+    /** @return getConnection() calls */
+    public long getTotalBorrows() { return totalBorrows; }
+    /** @param totalBorrows getConnection() calls */
+    public void setTotalBorrows(long totalBorrows) { this.totalBorrows = totalBorrows; }
+
+    /** @return median borrow wait (µs) */
+    public long getWaitP50Micros() { return waitP50Micros; }
+    /** @param waitP50Micros median borrow wait (µs) */
+    public void setWaitP50Micros(long waitP50Micros) { this.waitP50Micros = waitP50Micros; }
+
+    /** @return 99th percentile borrow wait (µs) */
+    public long getWaitP99Micros() { return waitP99Micros; }
+    /** @param waitP99Micros 99th percentile borrow wait (µs) */
+    public void setWaitP99Micros(long waitP99Micros) { this.waitP99Micros = waitP99Micros; }
+
+    /** @return max borrow wait (µs) */
+    public long getWaitMaxMicros() { return waitMaxMicros; }
+    /** @param waitMaxMicros max borrow wait (µs) */
+    public void setWaitMaxMicros(long waitMaxMicros) { this.waitMaxMicros = waitMaxMicros; }
+
+    /** @return longest hold time of an active connection (ms) */
+    public long getLongestHeldMillis() { return longestHeldMillis; }
+    /** @param longestHeldMillis longest hold time (ms) */
+    public void setLongestHeldMillis(long longestHeldMillis) { this.longestHeldMillis = longestHeldMillis; }
+
+    /** @return borrowing thread and stack of the longest-held connection */
+    public String getLongestHeldBy() { return longestHeldBy; }
+    /** @param longestHeldBy borrowing thread and stack */
+    public void setLongestHeldBy(String longestHeldBy) { this.longestHeldBy = longestHeldBy; }
+}
@@ -0,0 +1,62 @@
+package common.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * DTO returned for {@code REQUEST_SERVER_METRICS}.
+ *
+ * <p>
+ * A point-in-time snapshot of the server's request metrics:
+ * global totals, one {@link OpMetricsDTO} per operation that was used
+ * and the connection pool state ({@link PoolMetricsDTO}).
+ * </p>
+ */
+public class ServerMetricsDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /** Time since the metrics were started (ms) */
+    private long uptimeMillis;
+    /** Completed requests (all ops) */
+    private long totalRequests;
+    /** Failed requests (all ops) */
+    private long totalErrors;
+    /** Requests currently being handled (all ops) */
+    private int inFlight;
+    /** Per-op metrics, sorted by op name */
+    private ArrayList<OpMetricsDTO> ops = new ArrayList<>();
+    /** Connection pool telemetry (null if the pool was not used yet) */
+    private PoolMetricsDTO pool;
+
+    /** Required no-args constructor for serialization */
+    public ServerMetricsDTO() {}
+
+    /** @return uptime (ms) */
+    public long getUptimeMillis() { return uptimeMillis; }
+    /** @param uptimeMillis uptime (ms) */
+    public void setUptimeMillis(long uptimeMillis) { this.uptimeMillis = uptimeMillis; }
+
+    /** @return completed requests */
+    public long getTotalRequests() { return totalRequests; }
+    /** @param totalRequests completed requests */
+    public void setTotalRequests(long totalRequests) { this.totalRequests = totalRequests; }
+
+    /** @return failed requests */
+    public long getTotalErrors() { return totalErrors; }
+    /** @param totalErrors failed requests */
+    public void setTotalErrors(long totalErrors) { this.totalErrors = totalErrors; }
+
+    /** @return requests in flight */
+    public int getInFlight() { return inFlight; }
+    /** @param inFlight requests in flight */
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    /** @return per-op metrics */
+    public ArrayList<OpMetricsDTO> getOps() { return ops; }
+    /** @param ops per-op metrics */
+    public void setOps(ArrayList<OpMetricsDTO> ops) { this.ops = ops; }
+
+    /** @return connection pool telemetry */
+    public PoolMetricsDTO getPool() { return pool; }
+    /** @param pool connection pool telemetry */
+    public void setPool(PoolMetricsDTO pool) { this.pool = pool; }
+}
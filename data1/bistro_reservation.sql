@@ -32,7 +32,8 @@ CREATE TABLE `reservation` (
   `status` enum('PENDING','CONFIRMED','CANCELED','EXPIRED','ARRIVED') NOT NULL,
   `confirmation_code` varchar(10) NOT NULL,
   PRIMARY KEY (`reservation_id`),
-  UNIQUE KEY `confirmation_code` (`confirmation_code`)
+  UNIQUE KEY `confirmation_code` (`confirmation_code`),
+  KEY `idx_reservation_time_id` (`reservation_time`,`reservation_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=31 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -0,0 +1,196 @@
+CREATE DATABASE  IF NOT EXISTS `bistro` /*!40100 DEFAULT CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci */ /*!80016 DEFAULT ENCRYPTION='N' */;
+USE `bistro`;
+-- MySQL dump 10.13  Distrib 8.0.44, for Win64 (x86_64)
+--
+-- Host: 127.0.0.1    Database: bistro
+-- ------------------------------------------------------
+-- Server version	8.0.44
+
+/*!40101 SET @OLD_CHARACTER_SET_CLIENT=@@CHARACTER_SET_CLIENT */;
+/*!40101 SET @OLD_CHARACTER_SET_RESULTS=@@CHARACTER_SET_RESULTS */;
+/*!40101 SET @OLD_COLLATION_CONNECTION=@@COLLATION_CONNECTION */;
+/*!50503 SET NAMES utf8 */;
+/*!40103 SET @OLD_TIME_ZONE=@@TIME_ZONE */;
+/*!40103 SET TIME_ZONE='+00:00' */;
+/*!40014 SET @OLD_UNIQUE_CHECKS=@@UNIQUE_CHECKS, UNIQUE_CHECKS=0 */;
+/*!40014 SET @OLD_FOREIGN_KEY_CHECKS=@@FOREIGN_KEY_CHECKS, FOREIGN_KEY_CHECKS=0 */;
+/*!40101 SET @OLD_SQL_MODE=@@SQL_MODE, SQL_MODE='NO_AUTO_VALUE_ON_ZERO' */;
+/*!40111 SET @OLD_SQL_NOTES=@@SQL_NOTES, SQL_NOTES=0 */;
+
+--
+-- Dumping routines for database 'bistro'
+--
+/*!50003 DROP PROCEDURE IF EXISTS `pay_bill` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_0900_ai_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'ONLY_FULL_GROUP_BY,STRICT_TRANS_TABLES,NO_ZERO_IN_DATE,NO_ZERO_DATE,ERROR_FOR_DIVISION_BY_ZERO,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE PROCEDURE `pay_bill`(
+    IN p_kind VARCHAR(11),
+    IN p_entity_id INT,
+    IN p_activity_id INT,
+    IN p_subscriber TINYINT)
+BEGIN
+    -- Pays the latest bill of an activity in one call (BillDAO.payBillByConfirmationCode):
+    -- checks the ARRIVED status, marks the bill paid (10% subscriber discount), ends the
+    -- active visits, frees the occupied tables and expires the reservation / waiting entry.
+    -- Returns one row: ok, error, table_id (main table), freed_tables (comma separated).
+    DECLARE v_error VARCHAR(255) DEFAULT NULL;
+    DECLARE v_status VARCHAR(20) DEFAULT NULL;
+    DECLARE v_visit_id INT DEFAULT NULL;
+    DECLARE v_table_id VARCHAR(10) DEFAULT NULL;
+    DECLARE v_bill_id INT DEFAULT NULL;
+    DECLARE v_amount DECIMAL(10,2) DEFAULT NULL;
+    DECLARE v_paid VARCHAR(3) DEFAULT NULL;
+    DECLARE v_freed TEXT DEFAULT NULL;
+    DECLARE v_freed_count INT DEFAULT 0;
+    DECLARE v_is_reservation BOOLEAN DEFAULT (p_kind = 'RESERVATION');
+
+    DECLARE CONTINUE HANDLER FOR NOT FOUND BEGIN END;
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+
+    START TRANSACTION;
+
+    body: BEGIN
+        IF v_is_reservation THEN
+            SELECT status INTO v_status FROM reservation WHERE reservation_id = p_entity_id FOR UPDATE;
+        ELSE
+            SELECT status INTO v_status FROM waiting_list WHERE waiting_id = p_entity_id FOR UPDATE;
+        END IF;
+
+        IF v_status IS NULL THEN
+            SET v_error = IF(v_is_reservation, 'Reservation not found.', 'Waiting list not found.');
+            LEAVE body;
+        END IF;
+        IF UPPER(v_status) <> 'ARRIVED' THEN
+            SET v_error = CONCAT('Pay allowed only after check-in (',
+                                 IF(v_is_reservation, 'reservation', 'waiting list'),
+                                 ' must be ARRIVED). Current: ', v_status);
+            LEAVE body;
+        END IF;
+
+        SELECT visit_id, table_id INTO v_visit_id, v_table_id
+        FROM visit
+        WHERE activity_id = p_activity_id
+          AND actual_end_time IS NULL
+        ORDER BY actual_start_time DESC
+        LIMIT 1;
+        IF v_visit_id IS NULL THEN
+            SET v_error = 'No active visit found for this code.';
+            LEAVE body;
+        END IF;
+
+        SELECT b.bill_id, b.total_amount, b.is_paid INTO v_bill_id, v_amount, v_paid
+        FROM bill b
+        JOIN visit v ON v.visit_id = b.visit_id
+        WHERE v.activity_id = p_activity_id
+        ORDER BY b.bill_id DESC
+        LIMIT 1
+        FOR UPDATE;
+        IF v_bill_id IS NULL THEN
+            SET v_error = 'Bill not created yet for this activity. Please click ''Find Bill'' first.';
+            LEAVE body;
+        END IF;
+        IF v_paid = 'YES' THEN
+            SET v_error = 'Bill already paid.';
+            LEAVE body;
+        END IF;
+
+        UPDATE bill
+        SET is_paid = 'YES',
+            is_subscriber_discount = IF(p_subscriber, 'YES', 'NO'),
+            total_amount = IF(p_subscriber, v_amount * 0.9, v_amount)
+        WHERE bill_id = v_bill_id AND is_paid = 'NO';
+        IF ROW_COUNT() <> 1 THEN
+            SET v_error = 'Pay failed (bill state changed).';
+            LEAVE body;
+        END IF;
+
+        UPDATE visit
+        SET actual_end_time = NOW()
+        WHERE activity_id = p_activity_id
+          AND actual_end_time IS NULL;
+        IF ROW_COUNT() <= 0 THEN
+            SET v_error = 'Pay failed (no active visits to end).';
+            LEAVE body;
+        END IF;
+
+        IF v_is_reservation THEN
+            SELECT GROUP_CONCAT(table_id ORDER BY table_id), COUNT(*) INTO v_freed, v_freed_count
+            FROM restaurant_table
+            WHERE reserved_for_reservation_id = p_entity_id
+              AND status = 'OCCUPIED'
+            FOR UPDATE;
+            UPDATE restaurant_table
+            SET status = 'FREE',
+                reserved_for_reservation_id = NULL,
+                reserved_until = NULL
+            WHERE reserved_for_reservation_id = p_entity_id
+              AND status = 'OCCUPIED';
+        ELSE
+            SELECT GROUP_CONCAT(table_id ORDER BY table_id), COUNT(*) INTO v_freed, v_freed_count
+            FROM restaurant_table
+            WHERE reserved_for_waiting_id = p_entity_id
+              AND status = 'OCCUPIED'
+            FOR UPDATE;
+            UPDATE restaurant_table
+            SET status = 'FREE',
+                reserved_for_waiting_id = NULL,
+                reserved_until = NULL
+            WHERE reserved_for_waiting_id = p_entity_id
+              AND status = 'OCCUPIED';
+        END IF;
+        IF v_freed_count <= 0 THEN
+            SET v_error = CONCAT('Pay failed (no occupied tables found for ',
+                                 IF(v_is_reservation, 'reservation', 'waiting list'), ').');
+            LEAVE body;
+        END IF;
+
+        IF v_is_reservation THEN
+            UPDATE reservation SET status = 'EXPIRED'
+            WHERE reservation_id = p_entity_id AND status = 'ARRIVED';
+        ELSE
+            UPDATE waiting_list SET status = 'EXPIRED'
+            WHERE waiting_id = p_entity_id AND status = 'ARRIVED';
+        END IF;
+        IF ROW_COUNT() <> 1 THEN
+            SET v_error = CONCAT('Pay failed (',
+                                 IF(v_is_reservation, 'reservation', 'waiting list'),
+                                 ' not ARRIVED / already finished).');
+            LEAVE body;
+        END IF;
+    END body;
+
+    IF v_error IS NULL THEN
+        COMMIT;
+    ELSE
+        ROLLBACK;
+    END IF;
+
+    SELECT v_error IS NULL AS ok, v_error AS error, v_table_id AS table_id, v_freed AS freed_tables;
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
+
+/*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
+/*!40014 SET FOREIGN_KEY_CHECKS=@OLD_FOREIGN_KEY_CHECKS */;
+/*!40014 SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS */;
+/*!40101 SET CHARACTER_SET_CLIENT=@OLD_CHARACTER_SET_CLIENT */;
+/*!40101 SET CHARACTER_SET_RESULTS=@OLD_CHARACTER_SET_RESULTS */;
+/*!40101 SET COLLATION_CONNECTION=@OLD_COLLATION_CONNECTION */;
+/*!40111 SET SQL_NOTES=@OLD_SQL_NOTES */;
+
+-- Dump completed on 2026-01-17 18:40:18
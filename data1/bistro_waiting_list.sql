@@ -31,7 +31,8 @@ CREATE TABLE `waiting_list` (
   `status` enum('WAITING','ASSIGNED','ARRIVED','CANCELED','EXPIRED') NOT NULL,
   `confirmation_code` varchar(10) NOT NULL,
   PRIMARY KEY (`waiting_id`),
-  UNIQUE KEY `confirmation_code` (`confirmation_code`)
+  UNIQUE KEY `confirmation_code` (`confirmation_code`),
+  KEY `idx_waiting_request_time_id` (`request_time`,`waiting_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=31 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
 